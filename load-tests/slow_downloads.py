@@ -0,0 +1,135 @@
+#!/usr/bin/env python3
+"""
+Many concurrent slow downloads of one file from GET /file.
+
+Every client reads the response at --read-rate with a small receive buffer, like a phone on a bad network,
+so the server cannot push the whole file into socket buffers and has to keep the request open.
+Run it once against the default mode and once with SPRING_PROFILES_ACTIVE=virtual-threads and compare
+the wall time, downloads/s and the time to first byte.
+
+    python3 load-tests/slow_downloads.py --base-url http://localhost:8080 --clients 5000
+
+Standard library only.
+"""
+import argparse
+import asyncio
+import json
+import socket
+import statistics
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+import uuid
+
+
+def parse_size(value):
+    units = {"KB": 1024, "MB": 1024 * 1024, "B": 1}
+    for unit, factor in units.items():
+        if value.upper().endswith(unit):
+            return int(float(value[:-len(unit)]) * factor)
+    return int(value)
+
+
+def login(base_url, user, password):
+    request = urllib.request.Request(base_url + "/login",
+                                     data=json.dumps({"login": user, "password": password}).encode(),
+                                     headers={"Content-Type": "application/json"})
+    with urllib.request.urlopen(request) as response:
+        return "Bearer " + json.load(response)["auth-token"]
+
+
+def upload(base_url, token, filename, size):
+    boundary = uuid.uuid4().hex
+    body = (f"--{boundary}\r\nContent-Disposition: form-data; name=\"file\"; filename=\"{filename}\"\r\n"
+            f"Content-Type: application/octet-stream\r\n\r\n").encode() + bytes(size) \
+        + f"\r\n--{boundary}--\r\n".encode()
+    request = urllib.request.Request(base_url + "/file?filename=" + urllib.parse.quote(filename), data=body,
+                                     headers={"auth-token": token,
+                                              "Content-Type": "multipart/form-data; boundary=" + boundary})
+    urllib.request.urlopen(request).close()
+
+
+async def slow_download(host, port, path, token, read_rate, read_interval, receive_buffer):
+    sock = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+    sock.setsockopt(socket.SOL_SOCKET, socket.SO_RCVBUF, receive_buffer)
+    sock.setblocking(False)
+
+    started = time.monotonic()
+    await asyncio.get_running_loop().sock_connect(sock, (host, port))
+    reader, writer = await asyncio.open_connection(sock=sock, limit=receive_buffer)
+    try:
+        writer.write(f"GET {path} HTTP/1.1\r\nHost: {host}\r\nauth-token: {token}\r\nConnection: close\r\n\r\n"
+                     .encode())
+        await writer.drain()
+
+        status = await reader.readline()
+        first_byte = time.monotonic() - started
+        if b" 200 " not in status:
+            raise RuntimeError(status.decode().strip())
+
+        chunk = max(1, int(read_rate * read_interval))
+        received = 0
+        while True:
+            data = await reader.read(chunk)
+            if not data:
+                break
+            received += len(data)
+            await asyncio.sleep(len(data) / read_rate)
+        return first_byte, time.monotonic() - started, received
+    finally:
+        writer.close()
+
+
+async def run(args, token, path):
+    url = urllib.parse.urlparse(args.base_url)
+    started = time.monotonic()
+
+    results = await asyncio.gather(*(
+        slow_download(url.hostname, url.port or 80, path, token, args.read_rate, args.read_interval,
+                      args.receive_buffer)
+        for _ in range(args.clients)), return_exceptions=True)
+
+    elapsed = time.monotonic() - started
+    completed = [result for result in results if not isinstance(result, BaseException)]
+    errors = [result for result in results if isinstance(result, BaseException)]
+
+    print(f"clients:              {args.clients}")
+    print(f"completed:            {len(completed)}, errors: {len(errors)}")
+    if errors:
+        print(f"first error:          {errors[0]!r}")
+    print(f"wall time:            {elapsed:.1f}s")
+    print(f"downloads/s:          {len(completed) / elapsed:.1f}")
+    print(f"throughput:           {sum(r[2] for r in completed) / elapsed / 1024 / 1024:.1f} MB/s")
+    if completed:
+        first_bytes = sorted(r[0] for r in completed)
+        print(f"first byte p50/p99:   {statistics.median(first_bytes):.2f}s / "
+              f"{first_bytes[int(len(first_bytes) * 0.99) - 1]:.2f}s")
+        print(f"download p50:         {statistics.median(r[1] for r in completed):.2f}s")
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--user", default="user1")
+    parser.add_argument("--password", default="password1")
+    parser.add_argument("--clients", type=int, default=5000)
+    parser.add_argument("--file-size", type=parse_size, default=parse_size("1MB"))
+    parser.add_argument("--read-rate", type=parse_size, default=parse_size("256KB"), help="bytes/s per client")
+    parser.add_argument("--read-interval", type=float, default=0.5, help="seconds between reads")
+    parser.add_argument("--receive-buffer", type=parse_size, default=parse_size("16KB"))
+    args = parser.parse_args()
+
+    token = login(args.base_url, args.user, args.password)
+    filename = f"load-test-{args.file_size}.bin"
+    try:
+        upload(args.base_url, token, filename, args.file_size)
+    except urllib.error.HTTPError as e:
+        if e.code != 400:  # already uploaded by an earlier run
+            raise
+
+    asyncio.run(run(args, token, "/file?filename=" + urllib.parse.quote(filename)))
+
+
+if __name__ == "__main__":
+    main()
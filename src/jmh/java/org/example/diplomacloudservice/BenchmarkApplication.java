@@ -0,0 +1,54 @@
+package org.example.diplomacloudservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The whole application on an embedded PostgreSQL and a temp storage directory, one per benchmark fork.
+ * Liquibase creates the schema and the users from the changelog, as in production.
+ */
+public class BenchmarkApplication implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final Path storage;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(EmbeddedPostgres postgres, Path storage, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.storage = storage;
+        this.context = context;
+    }
+
+    public static BenchmarkApplication start() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        Path storage = Files.createTempDirectory("benchmark-storage-");
+
+        // arguments, so that they take precedence over application.yaml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DiplomaCloudserviceApplication.class)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--server.port=0",
+                        "--file.storage.location=" + storage,
+                        "--file.quota.default=1TB");
+
+        return new BenchmarkApplication(postgres, storage, context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+        FileSystemUtils.deleteRecursively(storage);
+    }
+}
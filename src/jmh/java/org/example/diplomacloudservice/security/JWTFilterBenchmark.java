@@ -0,0 +1,78 @@
+package org.example.diplomacloudservice.security;
+
+import org.example.diplomacloudservice.BenchmarkApplication;
+import org.example.diplomacloudservice.services.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JWTFilter} with the application's own beans: blacklist check, authentication cache,
+ * and on a cache miss the signature check and the user lookup in PostgreSQL.
+ * The mock request and response are created per call, as the container does for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTFilterBenchmark {
+
+    private BenchmarkApplication application;
+    private JWTFilter jwtFilter;
+    private AuthenticationCache authenticationCache;
+    private String token;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start();
+        jwtFilter = application.getBean(JWTFilter.class);
+        authenticationCache = application.getBean(AuthenticationCache.class);
+        token = application.getBean(JwtService.class).generateToken("user1");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public int cachedToken() throws Exception {
+        return filter();
+    }
+
+    @Benchmark
+    public int uncachedToken() throws Exception {
+        authenticationCache.invalidate(token);
+        return filter();
+    }
+
+    private int filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list");
+        request.addHeader("auth-token", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            jwtFilter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
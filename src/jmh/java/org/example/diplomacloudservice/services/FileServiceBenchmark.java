@@ -0,0 +1,110 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.BenchmarkApplication;
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload and download through {@link FileService} on the local storage backend in a temp directory.
+ * Every upload has new content, so each one hashes, stages and stores a new blob instead of hitting the dedup path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileServiceBenchmark {
+
+    private static final String DOWNLOAD_FILENAME = "download.bin";
+
+    @Param({"4KB", "256KB", "4MB"})
+    String size;
+
+    private BenchmarkApplication application;
+    private FileService fileService;
+    private int userId;
+    private byte[] content;
+    private byte[] readBuffer;
+
+    private final List<String> uploadedFiles = new ArrayList<>();
+    private long uploadCounter;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start();
+        fileService = application.getBean(FileService.class);
+        userId = application.getBean(UserRepository.class).findByLogin("user1").orElseThrow().getId();
+
+        content = new byte[(int) DataSize.parse(size).toBytes()];
+        ThreadLocalRandom.current().nextBytes(content);
+        readBuffer = new byte[64 * 1024];
+
+        fileService.uploadFileForUser(userId, DOWNLOAD_FILENAME, new ByteArrayInputStream(content));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    /**
+     * Keeps the user's directory and the files table at the same size from one iteration to the next.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteUploadedFiles() throws IOException {
+        for (String filename : uploadedFiles) {
+            fileService.deleteFileForUser(userId, filename);
+        }
+        uploadedFiles.clear();
+    }
+
+    @Benchmark
+    public void upload() throws IOException {
+        String filename = "upload-" + uploadCounter + ".bin";
+        ByteBuffer.wrap(content).putLong(uploadCounter++);
+
+        fileService.uploadFileForUser(userId, filename, new ByteArrayInputStream(content));
+        uploadedFiles.add(filename);
+    }
+
+    /**
+     * The calls {@code GET /file} makes: metadata, resource, content type, then the body is read to the end.
+     */
+    @Benchmark
+    public long download() throws IOException {
+        File fileEntity = fileService.getFileMetadata(userId, DOWNLOAD_FILENAME);
+        fileService.getFileContentType(fileEntity);
+
+        long read = 0;
+        try (InputStream in = fileService.getFileResource(fileEntity).getInputStream()) {
+            for (int count; (count = in.read(readBuffer)) != -1; ) {
+                read += count;
+            }
+        }
+        return read;
+    }
+}
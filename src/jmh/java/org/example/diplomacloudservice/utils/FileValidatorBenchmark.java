@@ -0,0 +1,34 @@
+package org.example.diplomacloudservice.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileValidator#validateFilename} runs on every upload, download, rename and delete.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileValidatorBenchmark {
+
+    @Param({"a.txt", "report_2024-final.docx", "very.long.file-name_with_many_parts.and.dots.v2.backup.json"})
+    String filename;
+
+    @Benchmark
+    public void validateFilename() {
+        FileValidator.validateFilename(filename);
+    }
+}
@@ -1,14 +1,34 @@
 package org.example.diplomacloudservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Bean
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    /**
+     * Streaming multipart parser for uploads. Servlet multipart support is disabled
+     * ({@code spring.servlet.multipart.enabled: false}), so request bodies are never spooled to temp files.
+     */
+    @Bean
+    public JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload(
+            @Value("${file.upload.max-file-size:10GB}") DataSize maxFileSize) {
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload = new JakartaServletFileUpload<>();
+        fileUpload.setFileSizeMax(maxFileSize.toBytes());
+
+        return fileUpload;
+    }
 }
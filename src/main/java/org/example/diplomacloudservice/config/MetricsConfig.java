@@ -0,0 +1,37 @@
+package org.example.diplomacloudservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.diplomacloudservice.repositories.UserRepository;
+import org.example.diplomacloudservice.storage.CachingStorageBackend;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage meters. File, blacklist and Hikari pool meters are registered by their own components
+ * and by Spring Boot; everything is scraped from {@code /actuator/prometheus} on {@code management.server.port}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * {@code cloud.storage.used} is what users have stored (before dedup), summed from the per-user counters,
+     * so a scrape reads one row per user instead of walking the storage directory.
+     * {@code disk.free}/{@code disk.total} with the storage location as {@code path}
+     * ({@code management.metrics.system.diskspace.paths}) tell how much room is left.
+     * With {@code file.cache.enabled}, the content cache reports {@code cache.gets} etc. tagged {@code cache=file.content}.
+     */
+    @Bean
+    public MeterBinder storageMetrics(UserRepository userRepository, StorageBackend storageBackend) {
+        return registry -> {
+            Gauge.builder("cloud.storage.used", userRepository, UserRepository::sumUsedBytes)
+                    .description("Bytes stored by all users")
+                    .baseUnit("bytes")
+                    .register(registry);
+            if (storageBackend instanceof CachingStorageBackend cachingStorageBackend) {
+                cachingStorageBackend.bindTo(registry);
+            }
+        };
+    }
+}
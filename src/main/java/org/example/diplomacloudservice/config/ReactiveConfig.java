@@ -0,0 +1,68 @@
+package org.example.diplomacloudservice.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.Disposable;
+
+/**
+ * Counterpart of {@link WebConfig} for the {@code reactive} profile, plus the R2DBC client of its reads.
+ * The connection factory is not a bean: Spring Boot would not create the JDBC DataSource next to one,
+ * and the writes, Liquibase and JPA still need it.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer, DisposableBean {
+
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * @param url {@code r2dbc:pool:...} for a pooled connection factory
+     */
+    public ReactiveConfig(@Value("${spring.r2dbc.url}") String url,
+                          @Value("${spring.r2dbc.username}") String username,
+                          @Value("${spring.r2dbc.password}") String password) {
+        this.connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowCredentials(true)
+                .allowedOrigins("http://localhost:8081")
+                .allowedMethods("*")
+                .exposedHeaders("X-Next-Cursor", "Repr-Digest");
+    }
+
+    /**
+     * Tomcat is on the classpath for the servlet API and Spring Boot would pick it for WebFlux too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+}
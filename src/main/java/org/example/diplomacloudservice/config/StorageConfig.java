@@ -0,0 +1,100 @@
+package org.example.diplomacloudservice.config;
+
+import org.example.diplomacloudservice.storage.CachingStorageBackend;
+import org.example.diplomacloudservice.storage.LocalStorageBackend;
+import org.example.diplomacloudservice.storage.S3StorageBackend;
+import org.example.diplomacloudservice.storage.ShardedStorageBackend;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Picks the {@link StorageBackend} by {@code file.storage.backend}, behind a {@link CachingStorageBackend}
+ * if {@code file.cache.enabled}.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${file.cache.enabled:false}")
+    boolean cacheEnabled;
+
+    @Value("${file.cache.content.max-bytes:64MB}")
+    DataSize cacheMaxBytes;
+
+    @Value("${file.cache.content.max-entry-size:1MB}")
+    DataSize cacheMaxEntrySize;
+
+    @Value("${file.cache.content.ttl:10m}")
+    Duration cacheTtl;
+
+    @Value("${file.storage.fsync:true}")
+    boolean fsync;
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(@Value("${file.storage.location:storage}") String location) {
+        return cached(new LocalStorageBackend(Paths.get(location), fsync));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "sharded")
+    public StorageBackend shardedStorageBackend(@Value("${file.storage.sharded.locations}") List<String> locations) {
+        return cached(new ShardedStorageBackend(locations.stream().map(Paths::get).toList(), fsync));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
+    public S3Client s3Client(@Value("${file.storage.s3.endpoint:}") String endpoint,
+                             @Value("${file.storage.s3.region:us-east-1}") String region,
+                             @Value("${file.storage.s3.access-key:}") String accessKey,
+                             @Value("${file.storage.s3.secret-key:}") String secretKey,
+                             @Value("${file.storage.s3.path-style-access:true}") boolean pathStyleAccess) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess)
+                // S3-compatible stores do not all accept the newer default checksum trailers
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        builder.credentialsProvider(StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.builder().build());
+
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
+    public StorageBackend s3StorageBackend(S3Client s3Client,
+                                           @Value("${file.storage.s3.bucket}") String bucket,
+                                           @Value("${file.storage.s3.multipart-threshold:64MB}") DataSize multipartThreshold,
+                                           @Value("${file.storage.s3.part-size:16MB}") DataSize partSize) {
+        return cached(new S3StorageBackend(s3Client, bucket, multipartThreshold.toBytes(), partSize.toBytes()));
+    }
+
+    private StorageBackend cached(StorageBackend backend) {
+        return cacheEnabled
+                ? new CachingStorageBackend(backend, cacheMaxBytes.toBytes(), cacheMaxEntrySize.toBytes(), cacheTtl)
+                : backend;
+    }
+}
@@ -1,11 +1,15 @@
 package org.example.diplomacloudservice.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.example.diplomacloudservice.metrics.DownloadCompletionInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
 
@@ -14,6 +18,12 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
                 .allowCredentials(true)
                 .allowedOrigins("http://localhost:8081")
-                .allowedMethods("*");
+                .allowedMethods("*")
+                .exposedHeaders("X-Next-Cursor", "Repr-Digest");
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new DownloadCompletionInterceptor());
     }
 }
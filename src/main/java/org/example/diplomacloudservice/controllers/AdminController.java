@@ -0,0 +1,66 @@
+package org.example.diplomacloudservice.controllers;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.dto.MigrationStatusDto;
+import org.example.diplomacloudservice.dto.ScrubStatusDto;
+import org.example.diplomacloudservice.services.BlobScrubber;
+import org.example.diplomacloudservice.services.LegacyFileMigrator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operator endpoints, for users with the {@code ADMIN} role (see {@link org.example.diplomacloudservice.config.SecurityConfig}).
+ */
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+public class AdminController {
+
+    private final BlobScrubber blobScrubber;
+    private final LegacyFileMigrator legacyFileMigrator;
+
+    @GetMapping("/admin/scrub")
+    public ResponseEntity<ScrubStatusDto> showScrubStatus() {
+        return ResponseEntity.ok(blobScrubber.getStatus());
+    }
+
+    /**
+     * Starts a pass now instead of waiting for the scheduled one; it runs in the background.
+     */
+    @PostMapping("/admin/scrub")
+    public ResponseEntity<JsonResponse> startScrub() {
+        if (!blobScrubber.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new JsonResponse("Scrub is already running", 409));
+        }
+
+        log.info("Scrub started on request");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new JsonResponse("Scrub started", 202));
+    }
+
+    @GetMapping("/admin/migration")
+    public ResponseEntity<MigrationStatusDto> showMigrationStatus() {
+        return ResponseEntity.ok(legacyFileMigrator.getStatus());
+    }
+
+    /**
+     * Starts moving the files left in {@code user_<id>} into the blob store; it runs in the background.
+     */
+    @PostMapping("/admin/migration")
+    public ResponseEntity<JsonResponse> startMigration() {
+        if (!legacyFileMigrator.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new JsonResponse("Migration is already running", 409));
+        }
+
+        log.info("Migration of legacy files started on request");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new JsonResponse("Migration started", 202));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.extern.log4j.Log4j2;
 import org.example.diplomacloudservice.dto.AuthDto;
 import org.example.diplomacloudservice.dto.JsonResponse;
 import org.example.diplomacloudservice.services.JwtService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,6 +19,7 @@ import java.util.Map;
 
 @Log4j2
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class AuthController {
 
@@ -26,7 +28,7 @@ public class AuthController {
 
     @PostMapping("/login")
     public Map<String, String> performLogin(@RequestBody AuthDto authDto) {
-        log.info("Login attempt for user: {}", authDto.getLogin());
+        log.debug("Login attempt for user: {}", authDto.getLogin());
 
         UsernamePasswordAuthenticationToken authToken =
                 new UsernamePasswordAuthenticationToken(
@@ -1,11 +1,31 @@
 package org.example.diplomacloudservice.controllers;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.example.diplomacloudservice.dto.BulkDeleteRequest;
+import org.example.diplomacloudservice.dto.BulkRenameRequest;
+import org.example.diplomacloudservice.dto.FileResultDto;
 import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.entities.File;
 import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.metrics.FileMetrics;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.ArchiveService;
+import org.example.diplomacloudservice.services.BatchUpload;
+import org.example.diplomacloudservice.services.BulkFileService;
 import org.example.diplomacloudservice.services.FileService;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.utils.ContentDigest;
 import org.example.diplomacloudservice.utils.FileValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -13,92 +33,257 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Map;
 
 @Log4j2
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class FileController {
 
+    /**
+     * SHA-256 of the whole file as stored at upload, also sent with partial content.
+     */
+    public static final String REPR_DIGEST_HEADER = "Repr-Digest";
+
     private final FileService fileService;
+    private final BulkFileService bulkFileService;
+    private final ArchiveService archiveService;
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload;
+    private final FileMetrics fileMetrics;
 
+    /**
+     * The multipart body is parsed as it arrives and the "file" part is streamed straight to storage.
+     */
     @PostMapping("/file")
     public ResponseEntity<JsonResponse> uploadFile(@RequestParam("filename") String filename,
-                                                   @RequestPart("file") MultipartFile file) throws IOException {
-        String username = getUsername();
-        log.debug("Received upload request. User: {}, Filename: {}", username, filename);
+                                                   HttpServletRequest request) throws IOException {
+        return fileMetrics.record(FileMetrics.UPLOAD, () -> {
+            CustomUserDetails user = getPrincipal();
+            log.debug("Received upload request. User: {}, Filename: {}", user.getUsername(), filename);
 
-        FileValidator.validateFile(filename, file);
-        log.debug("File '{}' passed validation checks.", filename);
+            if (JakartaServletFileUpload.isMultipartContent(request)) {
+                FileItemInputIterator parts = fileUpload.getItemIterator(request);
 
-        if (fileService.fileExistsForUser(filename, username)) {
-            log.warn("File '{}' already exists for user '{}'", filename, username);
-            throw new InvalidFileException("File with name '" + filename + "' already exist");
-        }
+                while (parts.hasNext()) {
+                    FileItemInput part = parts.next();
+                    if (part.isFormField() || !"file".equals(part.getFieldName())) {
+                        continue;
+                    }
+
+                    FileValidator.validateFile(filename, part.getName());
+                    log.debug("File '{}' passed validation checks.", filename);
+
+                    try (InputStream content = fileMetrics.meterUpload(part.getInputStream())) {
+                        fileService.uploadFileForUser(user.getId(), filename, content);
+                    }
+                    log.debug("File '{}' uploaded successfully for user '{}'", filename, user.getUsername());
+
+                    return ResponseEntity.ok(new JsonResponse("File uploaded successfully", 200));
+                }
+            }
+
+            throw new InvalidFileException("There was no file attached");
+        });
+    }
 
-        fileService.uploadFileForUser(username, filename, file);
-        log.info("File '{}' uploaded successfully for user '{}'", filename, username);
+    /**
+     * Many files in one request, one "file" part each, named by the part's filename.
+     * Every file gets its own status in the response, the request fails only as a whole (quota, storage).
+     */
+    @PostMapping("/files")
+    public ResponseEntity<List<FileResultDto>> uploadFiles(HttpServletRequest request) throws IOException {
+        return fileMetrics.record(FileMetrics.BATCH_UPLOAD, () -> {
+            CustomUserDetails user = getPrincipal();
 
-        return ResponseEntity.ok(new JsonResponse("File uploaded successfully", 200));
+            if (!JakartaServletFileUpload.isMultipartContent(request)) {
+                throw new InvalidFileException("There was no file attached");
+            }
+
+            try (BatchUpload batch = fileService.startBatchUpload(user.getId())) {
+                FileItemInputIterator parts = fileUpload.getItemIterator(request);
+
+                while (parts.hasNext()) {
+                    FileItemInput part = parts.next();
+                    if (part.isFormField() || !"file".equals(part.getFieldName())) {
+                        continue;
+                    }
+
+                    try (InputStream content = fileMetrics.meterUpload(part.getInputStream())) {
+                        batch.add(part.getName(), content);
+                    }
+                }
+
+                List<FileResultDto> results = batch.commit();
+                log.debug("Batch upload of {} file(s) finished for user '{}'", results.size(), user.getUsername());
+
+                return ResponseEntity.ok(results);
+            }
+        });
     }
 
     @DeleteMapping("/file")
     public ResponseEntity<JsonResponse> deleteFile(@RequestParam("filename") String filename) throws IOException {
-        String username = getUsername();
-        log.debug("Received delete request. User: {}, Filename: {}", username, filename);
+        return fileMetrics.record(FileMetrics.DELETE, () -> {
+            CustomUserDetails user = getPrincipal();
+            log.debug("Received delete request. User: {}, Filename: {}", user.getUsername(), filename);
 
-        if (!fileService.fileExistsForUser(filename, username)) {
-            log.warn("File '{}' does not exist for user '{}'", filename, username);
-            throw new InvalidFileException("File with name '" + filename + "' does not exist for User: " + username);
-        }
+            fileService.deleteFileForUser(user.getId(), filename);
+            log.debug("File '{}' deleted successfully for user '{}'", filename, user.getUsername());
+
+            return ResponseEntity.ok(new JsonResponse("File deleted successfully", 200));
+        });
+    }
+
+    /**
+     * Deletes the listed files, or all files matching a glob pattern, with one statement.
+     */
+    @DeleteMapping("/files")
+    public ResponseEntity<List<FileResultDto>> deleteFiles(@RequestBody BulkDeleteRequest request) throws IOException {
+        return fileMetrics.record(FileMetrics.BATCH_DELETE, () -> {
+            CustomUserDetails user = getPrincipal();
 
-        fileService.deleteFileForUser(username, filename);
-        log.info("File '{}' deleted successfully for user '{}'", filename, username);
+            if ((request.getFilenames() == null) == (request.getPattern() == null)) {
+                throw new IllegalArgumentException("Either 'filenames' or 'pattern' is required.");
+            }
 
-        return ResponseEntity.ok(new JsonResponse("File deleted successfully", 200));
+            List<FileResultDto> results = request.getPattern() != null
+                    ? bulkFileService.deleteMatchingFiles(user.getId(), request.getPattern())
+                    : bulkFileService.deleteFiles(user.getId(), request.getFilenames());
+            log.debug("Bulk delete of {} file(s) finished for user '{}'", results.size(), user.getUsername());
+
+            return ResponseEntity.ok(results);
+        });
     }
 
+    /**
+     * Conditional requests are answered from the row alone (304 without touching storage).
+     * Range requests are served by Spring MVC from the returned Resource (206, single or multipart/byteranges).
+     * A compressed file is sent as stored, with {@code Content-Encoding}, if the client accepts its codec,
+     * and decoded on the fly otherwise; the two representations have different ETags.
+     * The decoded one carries the SHA-256 computed at upload as {@code Repr-Digest}.
+     * The download is timed until Spring MVC closes the body stream, or until the response is complete.
+     */
     @GetMapping("/file")
-    public ResponseEntity<Resource> downloadFile(@RequestParam("filename") String filename) throws IOException {
-        String username = getUsername();
+    public ResponseEntity<Resource> downloadFile(@RequestParam("filename") String filename,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                 String acceptEncoding,
+                                                 WebRequest webRequest) throws IOException {
+        CustomUserDetails user = getPrincipal();
+        Timer.Sample sample = fileMetrics.start();
+
+        try {
+            File fileEntity = fileService.getFileMetadata(user.getId(), filename);
+            ContentCodec codec = ContentCodec.fromValue(fileEntity.getCodec());
+            boolean sendEncoded = codec != ContentCodec.NONE && codec.isAcceptedBy(acceptEncoding);
+
+            String eTag = null;
+            if (fileEntity.getContentHash() != null) {
+                eTag = "\"" + fileEntity.getContentHash()
+                        + (sendEncoded ? "-" + codec.getContentEncoding() : "") + "\"";
+            }
+            long lastModified = fileEntity.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+            // sets ETag and Last-Modified on the response, or answers 304
+            if (webRequest.checkNotModified(eTag, lastModified)) {
+                log.debug("File '{}' not modified for user '{}'", filename, user.getUsername());
+                fileMetrics.stop(sample, FileMetrics.DOWNLOAD, null);
+                return null;
+            }
+
+            Resource file = fileMetrics.meterDownload(sendEncoded
+                    ? fileService.getStoredResource(fileEntity)
+                    : fileService.getFileResource(fileEntity), sample, webRequest);
+            String contentType = fileService.getFileContentType(fileEntity);
 
-        if (!fileService.fileExistsForUser(filename, username)) {
-            log.warn("File '{}' does not exist for user '{}'", filename, username);
-            throw new InvalidFileException("File with name '" + filename + "' does not exist for User: " + username);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            if (codec != ContentCodec.NONE) {
+                response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (sendEncoded) {
+                response.header(HttpHeaders.CONTENT_ENCODING, codec.getContentEncoding());
+            } else if (fileEntity.getContentHash() != null) {
+                response.header(REPR_DIGEST_HEADER, ContentDigest.toReprDigest(fileEntity.getContentHash()));
+            }
+            return response.body(file);
+        } catch (IOException | RuntimeException e) {
+            fileMetrics.stop(sample, FileMetrics.DOWNLOAD, e);
+            throw e;
         }
+    }
+
+    /**
+     * ZIP of the files named by the {@code filename} parameters, or of all files if there are none,
+     * streamed as it is written. Errors after the first byte can only abort the response.
+     */
+    @GetMapping("/files/archive")
+    public void downloadArchive(@RequestParam(value = "filename", required = false) List<String> filenames,
+                                HttpServletResponse response) throws IOException {
+        fileMetrics.record(FileMetrics.ARCHIVE, () -> {
+            CustomUserDetails user = getPrincipal();
+            List<File> selected = filenames != null && !filenames.isEmpty()
+                    ? archiveService.getSelectedFiles(user.getId(), filenames)
+                    : null;
 
-        Resource file = fileService.getFileForUser(username, filename);
-        String contentType = fileService.getFileContentType(file);
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"files.zip\"");
+            try (OutputStream body = fileMetrics.meterDownload(response.getOutputStream())) {
+                archiveService.writeArchive(user.getId(), selected, body);
+            }
+            log.debug("Archive sent to user '{}'", user.getUsername());
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .body(file);
+            return null;
+        });
     }
 
     @PutMapping("/file")
     public ResponseEntity<JsonResponse> renameFile(@RequestParam("filename") String oldFilename,
                                                    @RequestBody Map<String, String> newFilenameRequest) throws IOException {
-        String username = getUsername();
-        String newFilename = newFilenameRequest.get("name");
+        return fileMetrics.record(FileMetrics.RENAME, () -> {
+            CustomUserDetails user = getPrincipal();
+            String newFilename = newFilenameRequest.get("name");
 
-        FileValidator.validateFilename(newFilename);
+            FileValidator.validateFilename(newFilename);
 
-        if (!fileService.fileExistsForUser(oldFilename, username)) {
-            log.warn("File '{}' does not exist for user '{}'", oldFilename, username);
-            throw new InvalidFileException("File with name '" + oldFilename + "' does not exist for User: " + username);
-        }
+            fileService.renameFileForUser(user.getId(), oldFilename, newFilename);
+            log.debug("File renamed successfully from '{}' to '{}'", oldFilename, newFilename);
+
+            return ResponseEntity.ok(new JsonResponse("File renamed successfully", 200));
+        });
+    }
+
+    /**
+     * Renames the listed files, or replaces a prefix in the names of all files starting with it, with one statement.
+     */
+    @PutMapping("/files")
+    public ResponseEntity<List<FileResultDto>> renameFiles(@RequestBody BulkRenameRequest request) throws IOException {
+        return fileMetrics.record(FileMetrics.BATCH_RENAME, () -> {
+            CustomUserDetails user = getPrincipal();
+
+            if ((request.getNames() == null) == (request.getPrefix() == null)) {
+                throw new IllegalArgumentException("Either 'names' or 'prefix' is required.");
+            }
 
-        fileService.renameFileForUser(username, oldFilename, newFilename);
-        log.info("File renamed successfully from '{}' to '{}'", oldFilename, newFilename);
+            List<FileResultDto> results = request.getPrefix() != null
+                    ? bulkFileService.renameByPrefix(user.getId(), request.getPrefix(), request.getNewPrefix())
+                    : bulkFileService.renameFiles(user.getId(), request.getNames());
+            log.debug("Bulk rename of {} file(s) finished for user '{}'", results.size(), user.getUsername());
 
-        return ResponseEntity.ok(new JsonResponse("File renamed successfully", 200));
+            return ResponseEntity.ok(results);
+        });
     }
 
-    private String getUsername() {
-        return SecurityContextHolder.getContext().getAuthentication().getName();
+    private CustomUserDetails getPrincipal() {
+        return (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
 }
@@ -3,7 +3,10 @@ package org.example.diplomacloudservice.controllers;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.security.CustomUserDetails;
 import org.example.diplomacloudservice.services.FileService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,17 +17,30 @@ import java.util.List;
 
 @Log4j2
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class ListController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FileService fileService;
 
+    /**
+     * The body stays a plain array; the cursor of the next page, if any, comes in {@value #NEXT_CURSOR_HEADER}.
+     */
     @GetMapping("/list")
-    public ResponseEntity<List<FileInfoDto>> showUserFiles(@RequestParam(value = "limit") Integer limit) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+    public ResponseEntity<List<FileInfoDto>> showUserFiles(@RequestParam(value = "limit") Integer limit,
+                                                           @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                                           @RequestParam(value = "order", defaultValue = "asc") String order,
+                                                           @RequestParam(value = "cursor", required = false) String cursor) {
+        CustomUserDetails user = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
-        List<FileInfoDto> userFilesList = fileService.getUserFilesList(username, limit);
+        FileListPage page = fileService.getUserFilesList(user.getId(), limit, sort, order, cursor);
 
-        return ResponseEntity.ok(userFilesList);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getFiles());
     }
 }
@@ -0,0 +1,26 @@
+package org.example.diplomacloudservice.controllers;
+
+import lombok.AllArgsConstructor;
+import org.example.diplomacloudservice.dto.QuotaDto;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.QuotaService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+public class QuotaController {
+
+    private final QuotaService quotaService;
+
+    @GetMapping("/quota")
+    public ResponseEntity<QuotaDto> showQuota() {
+        CustomUserDetails user = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return ResponseEntity.ok(quotaService.getUsage(user.getId()));
+    }
+}
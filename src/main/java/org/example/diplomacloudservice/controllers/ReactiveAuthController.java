@@ -0,0 +1,66 @@
+package org.example.diplomacloudservice.controllers;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.AuthDto;
+import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.JwtService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * {@link AuthController} of the {@code reactive} profile.
+ */
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveAuthController {
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+
+    @PostMapping("/login")
+    public Mono<Map<String, String>> performLogin(@RequestBody AuthDto authDto) {
+        log.debug("Login attempt for user: {}", authDto.getLogin());
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(
+                        authDto.getLogin(),
+                        authDto.getPassword()
+                );
+
+        return authenticationManager.authenticate(authToken)
+                .doOnNext(authentication -> log.info("Authentication successful for user: {}", authDto.getLogin()))
+                .doOnError(e -> log.warn("Authentication failed for user: {}", authDto.getLogin()))
+                .map(authentication -> {
+                    String token = jwtService.generateToken(authDto.getLogin());
+                    log.debug("Generated JWT token for user: {}", authDto.getLogin());
+
+                    return Map.of("auth-token", token);
+                });
+    }
+
+    /**
+     * The blacklist is written in a JPA transaction, on the boundedElastic scheduler.
+     */
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<JsonResponse>> performLogout(@RequestHeader("auth-token") String authToken,
+                                                            @AuthenticationPrincipal CustomUserDetails user) {
+        return Mono.fromRunnable(() -> jwtService.addTokenToBlacklist(user.getUsername(), authToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(ResponseEntity.ok(new JsonResponse("Successful logout", 200)));
+    }
+}
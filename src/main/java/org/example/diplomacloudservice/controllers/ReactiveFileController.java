@@ -0,0 +1,176 @@
+package org.example.diplomacloudservice.controllers;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.metrics.FileMetrics;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.FileService;
+import org.example.diplomacloudservice.services.ReactiveFileService;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.example.diplomacloudservice.utils.FileValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * {@link FileController} of the {@code reactive} profile, for the endpoints of the specification:
+ * single-file upload, download, rename and delete.
+ */
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveFileController {
+
+    private final ReactiveFileService reactiveFileService;
+    private final FileService fileService;
+    private final FileMetrics fileMetrics;
+
+    /**
+     * The multipart body is read as part events and the "file" part is written to the staging file buffer by buffer.
+     * The quota is checked before the body is read.
+     */
+    @PostMapping(value = "/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<JsonResponse>> uploadFile(@RequestParam("filename") String filename,
+                                                         @RequestBody Flux<PartEvent> parts,
+                                                         @AuthenticationPrincipal CustomUserDetails user) {
+        log.debug("Received upload request. User: {}, Filename: {}", user.getUsername(), filename);
+
+        Mono<String> upload = reactiveFileService.getRemainingBytes(user.getId())
+                .flatMap(remainingBytes -> parts.windowUntil(PartEvent::isLast)
+                        .concatMap(part -> part.switchOnFirst((first, events) -> {
+                            if (!(first.get() instanceof FilePartEvent filePart) || !"file".equals(filePart.name())) {
+                                return events.doOnNext(event -> DataBufferUtils.release(event.content()))
+                                        .then(Mono.<String>empty());
+                            }
+
+                            try {
+                                FileValidator.validateFile(filename, filePart.filename());
+                            } catch (InvalidFileException e) {
+                                DataBufferUtils.release(filePart.content());
+                                return Mono.<String>error(e);
+                            }
+                            log.debug("File '{}' passed validation checks.", filename);
+
+                            Flux<DataBuffer> content = fileMetrics.meterUpload(events.map(PartEvent::content));
+                            return reactiveFileService.uploadFile(user.getId(), filename, content, remainingBytes)
+                                    .thenReturn(filename);
+                        }))
+                        .next())
+                .switchIfEmpty(Mono.error(() -> new InvalidFileException("There was no file attached")));
+
+        return fileMetrics.record(FileMetrics.UPLOAD, upload)
+                .map(uploaded -> {
+                    log.debug("File '{}' uploaded successfully for user '{}'", filename, user.getUsername());
+                    return ResponseEntity.ok(new JsonResponse("File uploaded successfully", 200));
+                });
+    }
+
+    @DeleteMapping("/file")
+    public Mono<ResponseEntity<JsonResponse>> deleteFile(@RequestParam("filename") String filename,
+                                                         @AuthenticationPrincipal CustomUserDetails user) {
+        log.debug("Received delete request. User: {}, Filename: {}", user.getUsername(), filename);
+
+        return fileMetrics.record(FileMetrics.DELETE, reactiveFileService.deleteFile(user.getId(), filename)
+                        .thenReturn(filename))
+                .map(deleted -> {
+                    log.debug("File '{}' deleted successfully for user '{}'", filename, user.getUsername());
+                    return ResponseEntity.ok(new JsonResponse("File deleted successfully", 200));
+                });
+    }
+
+    /**
+     * Conditional requests are answered from the row alone, as in {@link FileController#downloadFile}.
+     * The body is the stream of buffers read from storage; ranges are not served by this profile.
+     * The download is timed until the last buffer is taken for writing.
+     */
+    @GetMapping("/file")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFile(@RequestParam("filename") String filename,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING,
+                                                                       required = false) String acceptEncoding,
+                                                               @AuthenticationPrincipal CustomUserDetails user,
+                                                               ServerWebExchange exchange) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = fileMetrics.start();
+
+            return reactiveFileService.getFileMetadata(user.getId(), filename)
+                    .flatMap(fileEntity -> {
+                        ContentCodec codec = ContentCodec.fromValue(fileEntity.getCodec());
+                        boolean sendEncoded = codec != ContentCodec.NONE && codec.isAcceptedBy(acceptEncoding);
+
+                        String eTag = null;
+                        if (fileEntity.getContentHash() != null) {
+                            eTag = "\"" + fileEntity.getContentHash()
+                                    + (sendEncoded ? "-" + codec.getContentEncoding() : "") + "\"";
+                        }
+
+                        // sets ETag and Last-Modified on the response, or answers 304
+                        if (exchange.checkNotModified(eTag, fileEntity.getCreatedAt().atZone(ZoneId.systemDefault())
+                                .toInstant())) {
+                            log.debug("File '{}' not modified for user '{}'", filename, user.getUsername());
+                            fileMetrics.stop(sample, FileMetrics.DOWNLOAD, null);
+                            return Mono.empty();
+                        }
+
+                        return reactiveFileService.getFileResource(fileEntity, sendEncoded).map(resource -> {
+                            Flux<DataBuffer> body = fileMetrics.meterDownload(
+                                    reactiveFileService.read(resource, exchange.getResponse().bufferFactory()), sample);
+
+                            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                    .contentType(MediaType.parseMediaType(fileService.getFileContentType(fileEntity)))
+                                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                                            "attachment; filename=\"" + filename + "\"");
+                            Long contentLength = sendEncoded ? fileEntity.getStoredSize() : fileEntity.getSize();
+                            if (contentLength != null) {
+                                response.contentLength(contentLength);
+                            }
+                            if (codec != ContentCodec.NONE) {
+                                response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                            }
+                            if (sendEncoded) {
+                                response.header(HttpHeaders.CONTENT_ENCODING, codec.getContentEncoding());
+                            } else if (fileEntity.getContentHash() != null) {
+                                response.header(FileController.REPR_DIGEST_HEADER,
+                                        ContentDigest.toReprDigest(fileEntity.getContentHash()));
+                            }
+                            return response.body(body);
+                        });
+                    })
+                    .doOnError(e -> fileMetrics.stop(sample, FileMetrics.DOWNLOAD, e));
+        });
+    }
+
+    @PutMapping("/file")
+    public Mono<ResponseEntity<JsonResponse>> renameFile(@RequestParam("filename") String oldFilename,
+                                                         @RequestBody Map<String, String> newFilenameRequest,
+                                                         @AuthenticationPrincipal CustomUserDetails user) {
+        String newFilename = newFilenameRequest.get("name");
+
+        Mono<String> rename = Mono.fromRunnable(() -> FileValidator.validateFilename(newFilename))
+                .then(reactiveFileService.renameFile(user.getId(), oldFilename, newFilename))
+                .thenReturn(newFilename);
+
+        return fileMetrics.record(FileMetrics.RENAME, rename)
+                .map(renamed -> {
+                    log.debug("File renamed successfully from '{}' to '{}'", oldFilename, newFilename);
+                    return ResponseEntity.ok(new JsonResponse("File renamed successfully", 200));
+                });
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.diplomacloudservice.controllers;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.ReactiveFileService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link ListController} of the {@code reactive} profile, read over R2DBC.
+ */
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveListController {
+
+    private final ReactiveFileService reactiveFileService;
+
+    @GetMapping("/list")
+    public Mono<ResponseEntity<List<FileInfoDto>>> showUserFiles(@RequestParam(value = "limit") Integer limit,
+                                                                 @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                                                 @RequestParam(value = "order", defaultValue = "asc") String order,
+                                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @AuthenticationPrincipal CustomUserDetails user) {
+        return reactiveFileService.getUserFilesList(user.getId(), limit, sort, order, cursor)
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.getNextCursor() != null) {
+                        response.header(ListController.NEXT_CURSOR_HEADER, page.getNextCursor());
+                    }
+                    return response.body(page.getFiles());
+                });
+    }
+}
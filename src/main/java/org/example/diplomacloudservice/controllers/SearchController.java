@@ -0,0 +1,42 @@
+package org.example.diplomacloudservice.controllers;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.dto.FileSearchRequest;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.FileService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+public class SearchController {
+
+    private final FileService fileService;
+
+    /**
+     * Same response as {@code /list}: a plain array, the cursor of the next page in
+     * {@value ListController#NEXT_CURSOR_HEADER}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<FileInfoDto>> searchUserFiles(FileSearchRequest request) {
+        CustomUserDetails user = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        FileListPage page = fileService.searchFiles(user.getId(), request);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(ListController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getFiles());
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.diplomacloudservice.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.dto.UploadSessionDto;
+import org.example.diplomacloudservice.security.CustomUserDetails;
+import org.example.diplomacloudservice.services.ChunkedUploadService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resumable chunked uploads. The chunk body is the raw bytes of the chunk.
+ */
+@Log4j2
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+@RequestMapping("/upload")
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDto> initiateUpload(@RequestParam("filename") String filename,
+                                                           @RequestParam("size") long size,
+                                                           @RequestParam(value = "chunkSize", required = false) Long chunkSize) throws IOException {
+        CustomUserDetails user = getPrincipal();
+        log.debug("Received upload initiate request. User: {}, Filename: {}, Size: {}", user.getUsername(), filename, size);
+
+        return ResponseEntity.ok(chunkedUploadService.initiate(user.getId(), filename, size, chunkSize));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDto> getUploadStatus(@PathVariable("uploadId") String uploadId) {
+        CustomUserDetails user = getPrincipal();
+
+        return ResponseEntity.ok(chunkedUploadService.getStatus(user.getId(), uploadId));
+    }
+
+    @PutMapping("/{uploadId}/chunks/{index}")
+    public ResponseEntity<JsonResponse> uploadChunk(@PathVariable("uploadId") String uploadId,
+                                                    @PathVariable("index") int index,
+                                                    HttpServletRequest request) throws IOException {
+        CustomUserDetails user = getPrincipal();
+
+        try (InputStream content = request.getInputStream()) {
+            chunkedUploadService.putChunk(user.getId(), uploadId, index, content);
+        }
+
+        return ResponseEntity.ok(new JsonResponse("Chunk " + index + " received", 200));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<JsonResponse> completeUpload(@PathVariable("uploadId") String uploadId) throws IOException {
+        CustomUserDetails user = getPrincipal();
+
+        chunkedUploadService.complete(user.getId(), uploadId);
+        log.debug("Upload '{}' completed successfully for user '{}'", uploadId, user.getUsername());
+
+        return ResponseEntity.ok(new JsonResponse("File uploaded successfully", 200));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<JsonResponse> abortUpload(@PathVariable("uploadId") String uploadId) throws IOException {
+        CustomUserDetails user = getPrincipal();
+
+        chunkedUploadService.abort(user.getId(), uploadId);
+
+        return ResponseEntity.ok(new JsonResponse("Upload aborted", 200));
+    }
+
+    private CustomUserDetails getPrincipal() {
+        return (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class BlacklistedTokenDto {
+
+    private Integer id;
+
+    private String token;
+
+    private LocalDateTime expiresAt;
+}
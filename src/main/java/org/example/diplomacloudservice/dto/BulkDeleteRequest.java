@@ -0,0 +1,18 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Body of {@code DELETE /files}: either the file names or a glob pattern such as {@code report-*.pdf}.
+ */
+@Getter
+@Setter
+public class BulkDeleteRequest {
+
+    private List<String> filenames;
+
+    private String pattern;
+}
@@ -0,0 +1,20 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Body of {@code PUT /files}: either new names by old name, or a prefix of the old names to replace with {@code newPrefix}.
+ */
+@Getter
+@Setter
+public class BulkRenameRequest {
+
+    private Map<String, String> names;
+
+    private String prefix;
+
+    private String newPrefix;
+}
@@ -0,0 +1,31 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A blob the scrubber found damaged; {@code references} is the number of files whose content it is.
+ */
+@Getter
+@AllArgsConstructor
+public class DamagedBlobDto {
+
+    @JsonProperty("hash")
+    private String hash;
+
+    @JsonProperty("failure")
+    private String failure;
+
+    @JsonProperty("verifiedAt")
+    private String verifiedAt;
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("codec")
+    private String codec;
+
+    @JsonProperty("references")
+    private int references;
+}
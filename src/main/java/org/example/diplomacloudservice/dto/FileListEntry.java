@@ -0,0 +1,24 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of {@code /list}, read without loading the {@code File} entity.
+ * Only the columns of the covering index of the requested sort are filled.
+ */
+@Getter
+@AllArgsConstructor
+public class FileListEntry {
+
+    private Integer id;
+    private String fileName;
+    private Long size;
+    private LocalDateTime createdAt;
+
+    public FileListEntry(String fileName, Long size) {
+        this(null, fileName, size, null);
+    }
+}
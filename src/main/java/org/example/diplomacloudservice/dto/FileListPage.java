@@ -0,0 +1,18 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FileListPage {
+
+    private List<FileInfoDto> files;
+
+    /**
+     * Opaque position after the last file of the page, {@code null} on the last page.
+     */
+    private String nextCursor;
+}
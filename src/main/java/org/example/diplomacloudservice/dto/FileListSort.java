@@ -0,0 +1,27 @@
+package org.example.diplomacloudservice.dto;
+
+import java.util.Locale;
+
+/**
+ * Sort keys of {@code /list}. Each has its own covering index on {@code files}.
+ */
+public enum FileListSort {
+
+    /**
+     * {@code (user_id, file_name)}, unique per user.
+     */
+    NAME,
+
+    /**
+     * {@code (user_id, created_at, id)}, the id breaks ties between files uploaded at the same time.
+     */
+    DATE;
+
+    public static FileListSort fromParam(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort '" + value + "', expected 'name' or 'date'.");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of one file of a batch request, {@code id} is the status the file would have had on its own.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class FileResultDto {
+
+    @JsonProperty("filename")
+    private String filename;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("id")
+    private int id;
+}
@@ -0,0 +1,37 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Validated filters of {@code /search}; {@code null} fields do not filter.
+ * Name patterns are {@code ILIKE} patterns with {@code ESCAPE '\'}.
+ */
+@Getter
+@Builder
+public class FileSearchFilter {
+
+    private String nameContains;
+    private String namePrefix;
+    private String nameSuffix;
+    private Long minSize;
+    private Long maxSize;
+
+    /**
+     * Inclusive.
+     */
+    private LocalDateTime createdFrom;
+
+    /**
+     * Exclusive.
+     */
+    private LocalDateTime createdTo;
+
+    /**
+     * Full-text query, in the text search configuration {@link #textConfig}.
+     */
+    private String text;
+    private String textConfig;
+}
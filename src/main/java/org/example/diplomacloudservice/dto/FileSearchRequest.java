@@ -0,0 +1,53 @@
+package org.example.diplomacloudservice.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Query parameters of {@code GET /search}. Every filter is optional, the files returned match all given ones.
+ */
+@Getter
+@Setter
+public class FileSearchRequest {
+
+    private Integer limit;
+
+    /**
+     * {@link FileListPage#getNextCursor()} of the previous page.
+     */
+    private String cursor;
+
+    /**
+     * Part of the name, case-insensitive.
+     */
+    private String name;
+
+    /**
+     * Start of the name, case-insensitive.
+     */
+    private String prefix;
+
+    /**
+     * Extension without the dot, case-insensitive.
+     */
+    private String ext;
+
+    private Long minSize;
+
+    private Long maxSize;
+
+    /**
+     * Uploaded at or after: ISO date-time, or date for the start of that day.
+     */
+    private String from;
+
+    /**
+     * Uploaded before: ISO date-time, or date for the end of that day.
+     */
+    private String to;
+
+    /**
+     * Words in the content of text files, in web search syntax ({@code "quoted phrase"}, {@code or}, {@code -word}).
+     */
+    private String text;
+}
@@ -0,0 +1,47 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The current or last pass of {@link org.example.diplomacloudservice.services.LegacyFileMigrator}.
+ * Times are ISO-8601, {@code null} before the first pass.
+ */
+@Getter
+@AllArgsConstructor
+public class MigrationStatusDto {
+
+    @JsonProperty("running")
+    private boolean running;
+
+    @JsonProperty("startedAt")
+    private String startedAt;
+
+    @JsonProperty("finishedAt")
+    private String finishedAt;
+
+    @JsonProperty("migratedFiles")
+    private long migratedFiles;
+
+    @JsonProperty("migratedBytes")
+    private long migratedBytes;
+
+    /**
+     * Renamed or deleted while they were copied, or missing from storage.
+     */
+    @JsonProperty("skippedFiles")
+    private long skippedFiles;
+
+    /**
+     * Could not be read or copied, tried again in the next pass.
+     */
+    @JsonProperty("failedFiles")
+    private long failedFiles;
+
+    /**
+     * Files still outside the blob store.
+     */
+    @JsonProperty("remainingFiles")
+    private long remainingFiles;
+}
@@ -0,0 +1,19 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QuotaDto {
+
+    @JsonProperty("usedBytes")
+    private long usedBytes;
+
+    @JsonProperty("fileCount")
+    private long fileCount;
+
+    @JsonProperty("quotaBytes")
+    private long quotaBytes;
+}
@@ -0,0 +1,52 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The current or last scrub pass, and the blobs found damaged so far (latest first, at most 100).
+ * Times are ISO-8601, {@code null} before the first pass.
+ */
+@Getter
+@AllArgsConstructor
+public class ScrubStatusDto {
+
+    @JsonProperty("running")
+    private boolean running;
+
+    @JsonProperty("startedAt")
+    private String startedAt;
+
+    @JsonProperty("finishedAt")
+    private String finishedAt;
+
+    @JsonProperty("checkedBlobs")
+    private long checkedBlobs;
+
+    @JsonProperty("checkedBytes")
+    private long checkedBytes;
+
+    /**
+     * Found damaged in this pass.
+     */
+    @JsonProperty("failedBlobs")
+    private long failedBlobs;
+
+    /**
+     * Could not be read from storage in this pass, checked again in the next one.
+     */
+    @JsonProperty("readErrors")
+    private long readErrors;
+
+    /**
+     * All blobs flagged damaged, by this pass or earlier ones.
+     */
+    @JsonProperty("damagedBlobCount")
+    private long damagedBlobCount;
+
+    @JsonProperty("damagedBlobs")
+    private List<DamagedBlobDto> damagedBlobs;
+}
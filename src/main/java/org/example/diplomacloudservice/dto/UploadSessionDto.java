@@ -0,0 +1,33 @@
+package org.example.diplomacloudservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UploadSessionDto {
+
+    @JsonProperty("uploadId")
+    private String uploadId;
+
+    @JsonProperty("filename")
+    private String filename;
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("chunkSize")
+    private long chunkSize;
+
+    @JsonProperty("totalChunks")
+    private int totalChunks;
+
+    /**
+     * Received chunk indexes as inclusive {@code [from, to]} ranges.
+     */
+    @JsonProperty("received")
+    private List<int[]> received;
+}
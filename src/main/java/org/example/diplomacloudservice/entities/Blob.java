@@ -0,0 +1,63 @@
+package org.example.diplomacloudservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-addressed file body, shared by every {@link File} row with the same SHA-256.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "blobs")
+public class Blob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    /**
+     * Size of the original content.
+     */
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    /**
+     * {@code none}, {@code deflate} or {@code zstd}, see {@link org.example.diplomacloudservice.storage.ContentCodec}.
+     */
+    @Column(name = "codec", nullable = false, length = 16)
+    private String codec;
+
+    /**
+     * Size of the object in storage.
+     */
+    @Column(name = "stored_size", nullable = false)
+    private Long storedSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Last time {@link org.example.diplomacloudservice.services.BlobScrubber} read the object back,
+     * {@code null} if it never has.
+     */
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+
+    /**
+     * What the last check found wrong with the object, {@code null} if nothing,
+     * see {@link org.example.diplomacloudservice.services.BlobScrubber}.
+     */
+    @Column(name = "verify_failure", length = 32)
+    private String verifyFailure;
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
@@ -23,8 +26,10 @@ public class File {
     @Column(name = "file_name", nullable = false)
     private String fileName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
     @Column(name = "file_location", nullable = false)
@@ -35,4 +40,32 @@ public class File {
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * Detected from the content on upload; {@code null} for files uploaded before it was.
+     */
+    @Column(name = "content_type", length = 127)
+    private String contentType;
+
+    /**
+     * Set for files kept in the blob store; {@code null} for files stored as {@code user_<id>/<fileName>}.
+     */
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    /**
+     * Codec of the blob: blobs are shared by files with the same content, so it is kept on {@code blobs}
+     * and read along with the row. {@code null} for files outside the blob store.
+     */
+    @Formula("(SELECT b.codec FROM blobs b WHERE b.hash = blob_hash)")
+    private String codec;
+
+    /**
+     * Size of the blob in storage, {@link #size} is the size of the original content.
+     */
+    @Formula("(SELECT b.stored_size FROM blobs b WHERE b.hash = blob_hash)")
+    private Long storedSize;
 }
\ No newline at end of file
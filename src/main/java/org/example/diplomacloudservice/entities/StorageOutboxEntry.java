@@ -0,0 +1,39 @@
+package org.example.diplomacloudservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Storage object to delete once nothing refers to it,
+ * see {@link org.example.diplomacloudservice.services.StorageOutbox}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "storage_outbox")
+public class StorageOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    /**
+     * The blob the object belongs to, {@code null} for the file of a legacy row.
+     * The object is kept if the blob has been referenced again.
+     */
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
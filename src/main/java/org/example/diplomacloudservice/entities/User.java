@@ -27,4 +27,19 @@ public class User {
 
     @Column(name = "role", nullable = false)
     private String role;
+
+    /**
+     * Maintained by {@code UserRepository} together with every insert and delete in {@code files}.
+     */
+    @Column(name = "used_bytes", insertable = false, updatable = false)
+    private long usedBytes;
+
+    @Column(name = "file_count", insertable = false, updatable = false)
+    private int fileCount;
+
+    /**
+     * {@code null} means the default quota ({@code file.quota.default}).
+     */
+    @Column(name = "quota_bytes")
+    private Long quotaBytes;
 }
@@ -1,12 +1,12 @@
 package org.example.diplomacloudservice.exceptions;
 
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
 import org.example.diplomacloudservice.dto.JsonResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.io.IOException;
 
@@ -16,13 +16,20 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({
             BadCredentialsException.class,
             InvalidFileException.class,
-            MaxUploadSizeExceededException.class,
+            QuotaExceededException.class,
             IllegalArgumentException.class
     })
     public ResponseEntity<JsonResponse> handleBadCredentialsException(RuntimeException ex) {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), 400);
     }
 
+    @ExceptionHandler({
+            FileUploadSizeException.class
+    })
+    public ResponseEntity<JsonResponse> handleFileUploadSizeException(FileUploadSizeException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), 400);
+    }
+
     @ExceptionHandler({
             IOException.class
     })
@@ -0,0 +1,7 @@
+package org.example.diplomacloudservice.exceptions;
+
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.diplomacloudservice.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Stops the timer of a download whose body stream was never opened: a HEAD request or a 416 response
+ * does not read the resource, so nothing closes it. A download that was read has been recorded on close already.
+ */
+public class DownloadCompletionInterceptor implements HandlerInterceptor {
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(FileMetrics.DOWNLOAD_ATTRIBUTE) instanceof FileMetrics.MeteredResource download) {
+            download.finish(ex);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.example.diplomacloudservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Meters of the file endpoints: {@code cloud.file.operation} (latency histogram by operation and outcome)
+ * and {@code cloud.file.bytes} (bytes read from and sent to clients, by direction).
+ * Operations are timed around the whole request handling, so commit and, for downloads, the transfer are included.
+ */
+@Component
+public class FileMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String BATCH_UPLOAD = "batch_upload";
+    public static final String DOWNLOAD = "download";
+    public static final String DELETE = "delete";
+    public static final String RENAME = "rename";
+    public static final String BATCH_DELETE = "batch_delete";
+    public static final String BATCH_RENAME = "batch_rename";
+    public static final String ARCHIVE = "archive";
+
+    /**
+     * Request attribute holding the download, see {@link DownloadCompletionInterceptor}.
+     */
+    static final String DOWNLOAD_ATTRIBUTE = FileMetrics.class.getName() + ".download";
+
+    private final MeterRegistry registry;
+    private final Meter.MeterProvider<Timer> operationTimer;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+
+    public FileMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.operationTimer = Timer.builder("cloud.file.operation")
+                .description("File operations, from the request to the last byte")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.bytesIn = bytesCounter("in", registry);
+        this.bytesOut = bytesCounter("out", registry);
+    }
+
+    public <T> T record(String operation, FileOperation<T> fileOperation) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            T result = fileOperation.run();
+            stop(sample, operation, null);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            stop(sample, operation, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Same, for the reactive API: from subscription to the result.
+     */
+    public <T> Mono<T> record(String operation, Mono<T> fileOperation) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = start();
+            return fileOperation
+                    .doOnSuccess(result -> stop(sample, operation, null))
+                    .doOnError(e -> stop(sample, operation, e));
+        });
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * @param failure {@code null} if the operation succeeded
+     */
+    public void stop(Timer.Sample sample, String operation, Throwable failure) {
+        sample.stop(operationTimer.withTags("operation", operation, "outcome", outcome(failure)));
+    }
+
+    public InputStream meterUpload(InputStream content) {
+        return new CountingInputStream(content, bytesIn, null);
+    }
+
+    public Flux<DataBuffer> meterUpload(Flux<DataBuffer> content) {
+        return content.doOnNext(buffer -> bytesIn.increment(buffer.readableByteCount()));
+    }
+
+    /**
+     * The download is timed until the response body stream is closed, or until the response is complete
+     * if the body is never read (a HEAD request, an unsatisfiable range).
+     *
+     * @param sample  started when the request came in
+     * @param request of the download, {@link DownloadCompletionInterceptor} stops the sample when it completes
+     */
+    public Resource meterDownload(Resource resource, Timer.Sample sample, RequestAttributes request) {
+        MeteredResource download = new MeteredResource(resource, sample);
+        request.setAttribute(DOWNLOAD_ATTRIBUTE, download, RequestAttributes.SCOPE_REQUEST);
+        return download;
+    }
+
+    /**
+     * Same, for the reactive API: timed until the last buffer is taken for writing, or the client goes away.
+     */
+    public Flux<DataBuffer> meterDownload(Flux<DataBuffer> body, Timer.Sample sample) {
+        return body.doOnNext(buffer -> bytesOut.increment(buffer.readableByteCount()))
+                .doOnComplete(() -> stop(sample, DOWNLOAD, null))
+                .doOnError(e -> stop(sample, DOWNLOAD, e))
+                .doOnCancel(() -> stop(sample, DOWNLOAD, null));
+    }
+
+    /**
+     * Counts what is written to the response, for bodies that are not a {@link Resource}.
+     */
+    public OutputStream meterDownload(OutputStream body) {
+        return new FilterOutputStream(body) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesOut.increment();
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                bytesOut.increment(length);
+            }
+        };
+    }
+
+    /**
+     * Same split as {@link org.example.diplomacloudservice.exceptions.GlobalExceptionHandler}: 400 or 500.
+     */
+    private static String outcome(Throwable failure) {
+        if (failure == null) {
+            return "success";
+        }
+        if (failure instanceof InvalidFileException || failure instanceof QuotaExceededException
+                || failure instanceof IllegalArgumentException) {
+            return "client_error";
+        }
+        return "server_error";
+    }
+
+    private static Counter bytesCounter(String direction, MeterRegistry registry) {
+        return Counter.builder("cloud.file.bytes")
+                .description("File content transferred")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    public interface FileOperation<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * A multipart/byteranges response opens one stream per range; the download ends with the first close.
+     */
+    class MeteredResource extends AbstractResource {
+
+        private final Resource resource;
+        private Timer.Sample sample;
+
+        MeteredResource(Resource resource, Timer.Sample sample) {
+            this.resource = resource;
+            this.sample = sample;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new CountingInputStream(resource.getInputStream(), bytesOut, this);
+        }
+
+        /**
+         * Only the first call records.
+         */
+        synchronized void finish(Exception failure) {
+            if (sample != null) {
+                stop(sample, DOWNLOAD, failure);
+                sample = null;
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return resource.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return resource.isReadable();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return resource.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return resource.lastModified();
+        }
+
+        @Override
+        public String getFilename() {
+            return resource.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return resource.getDescription();
+        }
+    }
+
+    /**
+     * Skipped bytes (the start of a range request) are not counted, only what was actually read.
+     */
+    private class CountingInputStream extends FilterInputStream {
+
+        private final Counter counter;
+        private final MeteredResource download;
+        private IOException failure;
+
+        /**
+         * @param download {@code null} for uploads
+         */
+        CountingInputStream(InputStream in, Counter counter, MeteredResource download) {
+            super(in);
+            this.counter = counter;
+            this.download = download;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = super.read();
+                if (b != -1) {
+                    counter.increment();
+                }
+                return b;
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    counter.increment(count);
+                }
+                return count;
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (download != null) {
+                    download.finish(failure);
+                }
+            }
+        }
+    }
+}
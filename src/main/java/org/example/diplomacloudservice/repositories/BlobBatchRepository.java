@@ -0,0 +1,14 @@
+package org.example.diplomacloudservice.repositories;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface BlobBatchRepository {
+
+    /**
+     * One UPDATE that drops one reference per occurrence of a hash.
+     *
+     * @return reference count after the decrement by hash, without the hashes there is no blob for
+     */
+    Map<String, Integer> releaseAll(Collection<String> hashes);
+}
@@ -0,0 +1,54 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Plain JDBC: Spring Data cannot bind a list to a PostgreSQL array.
+ * The connection is the one of the surrounding JPA transaction.
+ */
+public class BlobBatchRepositoryImpl implements BlobBatchRepository {
+
+    /**
+     * The UPDATE below locks rows in whatever order its plan visits them; taking the locks in hash order first
+     * keeps two releases of overlapping blobs from deadlocking.
+     */
+    private static final String LOCK_ALL =
+            "SELECT hash FROM blobs WHERE hash = ANY(?::text[]) ORDER BY hash FOR UPDATE";
+
+    private static final String RELEASE_ALL =
+            "UPDATE blobs b SET ref_count = b.ref_count - r.dropped " +
+            "FROM (SELECT hash, count(*) AS dropped FROM unnest(?::text[]) AS u(hash) GROUP BY hash) r " +
+            "WHERE b.hash = r.hash RETURNING b.hash, b.ref_count";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BlobBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, Integer> releaseAll(Collection<String> hashes) {
+        Map<String, Integer> refCounts = new HashMap<>();
+
+        jdbcTemplate.query(withHashes(LOCK_ALL, hashes), rs -> {
+        });
+        jdbcTemplate.query(withHashes(RELEASE_ALL, hashes), rs -> {
+            refCounts.put(rs.getString("hash"), rs.getInt("ref_count"));
+        });
+        return refCounts;
+    }
+
+    private static PreparedStatementCreator withHashes(String sql, Collection<String> hashes) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", hashes.toArray()));
+            return statement;
+        };
+    }
+}
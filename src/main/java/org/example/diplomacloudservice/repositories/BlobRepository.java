@@ -0,0 +1,129 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.entities.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BlobRepository extends JpaRepository<Blob, String>, BlobBatchRepository, BlobTextRepository {
+
+    /**
+     * Creates the blob with one reference, or adds a reference to an existing one. A blob without references
+     * is waiting for its object to be deleted ({@link org.example.diplomacloudservice.services.StorageOutbox}):
+     * it is taken over like a new one, the deletion then leaves it alone.
+     *
+     * @return reference count after the increment, 1 if the blob is new
+     */
+    @Query(value = "INSERT INTO blobs (hash, size, ref_count, created_at, codec, stored_size) " +
+            "VALUES (:hash, :size, 1, :createdAt, :codec, :storedSize) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1, " +
+            "created_at = CASE WHEN blobs.ref_count = 0 THEN EXCLUDED.created_at ELSE blobs.created_at END, " +
+            "codec = CASE WHEN blobs.ref_count = 0 THEN EXCLUDED.codec ELSE blobs.codec END, " +
+            "stored_size = CASE WHEN blobs.ref_count = 0 THEN EXCLUDED.stored_size ELSE blobs.stored_size END, " +
+            "verified_at = CASE WHEN blobs.ref_count = 0 THEN NULL ELSE blobs.verified_at END, " +
+            "verify_failure = CASE WHEN blobs.ref_count = 0 THEN NULL ELSE blobs.verify_failure END " +
+            "RETURNING ref_count", nativeQuery = true)
+    int acquire(@Param("hash") String hash,
+                @Param("size") long size,
+                @Param("createdAt") LocalDateTime createdAt,
+                @Param("codec") String codec,
+                @Param("storedSize") long storedSize);
+
+    /**
+     * After the object of an existing blob was stored again, possibly with another codec.
+     * The upload hashed the content as it was written, so the object counts as verified.
+     */
+    @Modifying
+    @Query(value = "UPDATE blobs SET codec = :codec, stored_size = :storedSize, " +
+            "verified_at = :verifiedAt, verify_failure = NULL WHERE hash = :hash", nativeQuery = true)
+    int updateEncoding(@Param("hash") String hash,
+                       @Param("codec") String codec,
+                       @Param("storedSize") long storedSize,
+                       @Param("verifiedAt") LocalDateTime verifiedAt);
+
+    /**
+     * Next page of referenced blobs by hash that were never verified or not since {@code verifiedBefore}.
+     */
+    @Query(value = "SELECT * FROM blobs WHERE hash > :afterHash AND ref_count > 0 " +
+            "AND (verified_at IS NULL OR verified_at < :verifiedBefore) " +
+            "ORDER BY hash LIMIT :limit", nativeQuery = true)
+    List<Blob> findDueForVerification(@Param("afterHash") String afterHash,
+                                      @Param("verifiedBefore") LocalDateTime verifiedBefore,
+                                      @Param("limit") int limit);
+
+    /**
+     * Records the result of a check, unless the object was stored again since the row was read.
+     *
+     * @param previousVerifiedAt {@code verified_at} as read before the check
+     * @param failure            {@code null} if the object is intact
+     * @return 0 if the blob was deleted or stored again in the meantime
+     */
+    default int markVerified(String hash, LocalDateTime previousVerifiedAt, LocalDateTime verifiedAt, String failure) {
+        return previousVerifiedAt != null
+                ? markVerifiedAgain(hash, previousVerifiedAt, verifiedAt, failure)
+                : markVerifiedFirst(hash, verifiedAt, failure);
+    }
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE blobs SET verified_at = :verifiedAt, verify_failure = :failure " +
+            "WHERE hash = :hash AND verified_at = :previousVerifiedAt", nativeQuery = true)
+    int markVerifiedAgain(@Param("hash") String hash,
+                          @Param("previousVerifiedAt") LocalDateTime previousVerifiedAt,
+                          @Param("verifiedAt") LocalDateTime verifiedAt,
+                          @Param("failure") String failure);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE blobs SET verified_at = :verifiedAt, verify_failure = :failure " +
+            "WHERE hash = :hash AND verified_at IS NULL", nativeQuery = true)
+    int markVerifiedFirst(@Param("hash") String hash,
+                          @Param("verifiedAt") LocalDateTime verifiedAt,
+                          @Param("failure") String failure);
+
+    boolean existsByHashAndVerifyFailureIsNotNull(String hash);
+
+    long countByVerifyFailureIsNotNull();
+
+    List<Blob> findTop100ByVerifyFailureIsNotNullOrderByVerifiedAtDesc();
+
+    /**
+     * @return reference count after the decrement, empty if there is no such blob
+     */
+    @Query(value = "UPDATE blobs SET ref_count = ref_count - 1 WHERE hash = :hash " +
+            "RETURNING ref_count", nativeQuery = true)
+    Optional<Integer> release(@Param("hash") String hash);
+
+    /**
+     * @return 1 if the blob was deleted, 0 if it has been referenced again (or deleted) in the meantime
+     */
+    @Modifying
+    @Query(value = "DELETE FROM blobs WHERE hash = :hash AND ref_count = 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    /**
+     * Row without references for an object found in storage that no row knows of,
+     * so that it is deleted like any other unreferenced blob.
+     *
+     * @return 0 if a row for the hash has been inserted in the meantime
+     */
+    @Modifying
+    @Query(value = "INSERT INTO blobs (hash, size, ref_count, created_at, codec, stored_size) " +
+            "VALUES (:hash, :storedSize, 0, :createdAt, 'none', :storedSize) " +
+            "ON CONFLICT (hash) DO NOTHING", nativeQuery = true)
+    int insertUnreferenced(@Param("hash") String hash,
+                           @Param("storedSize") long storedSize,
+                           @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("SELECT b.hash FROM Blob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+}
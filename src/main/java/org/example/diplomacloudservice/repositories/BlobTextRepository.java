@@ -0,0 +1,23 @@
+package org.example.diplomacloudservice.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobTextRepository {
+
+    /**
+     * Stores the words of the blob's content as {@code blob_texts.document}.
+     *
+     * @param textConfig PostgreSQL text search configuration, such as {@code simple}
+     * @return {@code false} if the blob is gone or already has its text
+     */
+    boolean insertText(String hash, String textConfig, String text, LocalDateTime indexedAt);
+
+    /**
+     * Referenced blobs after {@code afterHash} without text, that a file of one of the types is stored in.
+     *
+     * @param contentTypeLikes {@code LIKE} patterns of {@code files.content_type}
+     */
+    List<String> findTextPending(String afterHash, Collection<String> contentTypeLikes, int limit);
+}
@@ -0,0 +1,48 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC, {@code blob_texts} has no entity: Hibernate has no type for {@code tsvector}.
+ */
+public class BlobTextRepositoryImpl implements BlobTextRepository {
+
+    private static final String INSERT_TEXT =
+            "INSERT INTO blob_texts (hash, document, indexed_at) " +
+            "SELECT b.hash, to_tsvector(?::regconfig, ?), ? FROM blobs b WHERE b.hash = ? " +
+            "ON CONFLICT (hash) DO NOTHING";
+
+    private static final String FIND_TEXT_PENDING =
+            "SELECT b.hash FROM blobs b WHERE b.hash > ? AND b.ref_count > 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM blob_texts t WHERE t.hash = b.hash) " +
+            "AND EXISTS (SELECT 1 FROM files f WHERE f.blob_hash = b.hash AND f.content_type LIKE ANY (?)) " +
+            "ORDER BY b.hash LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BlobTextRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean insertText(String hash, String textConfig, String text, LocalDateTime indexedAt) {
+        return jdbcTemplate.update(INSERT_TEXT, textConfig, text, Timestamp.valueOf(indexedAt), hash) > 0;
+    }
+
+    @Override
+    public List<String> findTextPending(String afterHash, Collection<String> contentTypeLikes, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_TEXT_PENDING);
+            statement.setString(1, afterHash);
+            statement.setArray(2, connection.createArrayOf("text", contentTypeLikes.toArray()));
+            statement.setInt(3, limit);
+            return statement;
+        }, (rs, rowNum) -> rs.getString("hash"));
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.diplomacloudservice.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface FileBatchRepository {
+
+    /**
+     * Inserts all rows in one JDBC batch, in the caller's transaction.
+     *
+     * @return for each row, 1 if it was inserted, 0 if the user already has a file with this name ({@code uq_user_file})
+     */
+    int[] insertAllIfAbsent(int userId, List<NewFile> files);
+
+    /**
+     * One DELETE for all names, names the user has no file with are skipped.
+     */
+    List<RemovedFile> deleteAll(int userId, Collection<String> fileNames);
+
+    /**
+     * @param likePattern {@code LIKE} pattern with {@code ESCAPE '\'}
+     */
+    List<RemovedFile> deleteMatching(int userId, String likePattern);
+
+    List<String> findExistingNames(int userId, Collection<String> fileNames);
+
+    /**
+     * @param likePattern {@code LIKE} pattern with {@code ESCAPE '\'}
+     */
+    List<String> findNamesMatching(int userId, String likePattern);
+
+    /**
+     * One UPDATE for all names. A file is skipped if the user has no file with its old name,
+     * or already has one with its new name (also when that one is renamed away in the same call).
+     *
+     * @param newNames new names by old name
+     * @return the renamed files
+     */
+    List<RenamedFile> renameAll(int userId, Map<String, String> newNames);
+
+    record NewFile(String fileName, String fileLocation, long size, LocalDateTime createdAt, String contentHash,
+                   String contentType) {
+    }
+
+    /**
+     * @param blobHash {@code null} for files stored under their own name in {@code fileLocation}
+     */
+    record RemovedFile(String fileName, String fileLocation, String blobHash, long size) {
+    }
+
+    /**
+     * @param blobHash {@code null} for files stored under their own name in {@code fileLocation}
+     */
+    record RenamedFile(String oldFileName, String newFileName, String fileLocation, String blobHash) {
+    }
+}
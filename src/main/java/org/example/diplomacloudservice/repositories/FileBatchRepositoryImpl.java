@@ -0,0 +1,118 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC: Hibernate does not batch inserts of entities with an identity id, and Spring Data cannot bind
+ * a list to a PostgreSQL array. The connection is the one of the surrounding JPA transaction.
+ */
+public class FileBatchRepositoryImpl implements FileBatchRepository {
+
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO files " +
+            "(file_name, user_id, file_location, size, created_at, content_hash, blob_hash, content_type) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT ON CONSTRAINT uq_user_file DO NOTHING";
+
+    private static final String DELETE_ALL =
+            "DELETE FROM files WHERE user_id = ? AND file_name = ANY (?) " +
+            "RETURNING file_name, file_location, blob_hash, size";
+
+    private static final String DELETE_MATCHING =
+            "DELETE FROM files WHERE user_id = ? AND file_name LIKE ? ESCAPE '\\' " +
+            "RETURNING file_name, file_location, blob_hash, size";
+
+    private static final String FIND_EXISTING_NAMES =
+            "SELECT file_name FROM files WHERE user_id = ? AND file_name = ANY (?)";
+
+    private static final String FIND_NAMES_MATCHING =
+            "SELECT file_name FROM files WHERE user_id = ? AND file_name LIKE ? ESCAPE '\\' ORDER BY file_name";
+
+    private static final String RENAME_ALL =
+            "UPDATE files f SET file_name = r.new_name " +
+            "FROM unnest(?::text[], ?::text[]) AS r(old_name, new_name) " +
+            "WHERE f.user_id = ? AND f.file_name = r.old_name " +
+            "AND NOT EXISTS (SELECT 1 FROM files t WHERE t.user_id = f.user_id AND t.file_name = r.new_name) " +
+            "RETURNING r.old_name, f.file_name, f.file_location, f.blob_hash";
+
+    private static final RowMapper<RemovedFile> REMOVED_FILE = (rs, rowNum) -> new RemovedFile(
+            rs.getString("file_name"), rs.getString("file_location"), rs.getString("blob_hash"), rs.getLong("size"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] insertAllIfAbsent(int userId, List<NewFile> files) {
+        return jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                NewFile file = files.get(i);
+                statement.setString(1, file.fileName());
+                statement.setInt(2, userId);
+                statement.setString(3, file.fileLocation());
+                statement.setLong(4, file.size());
+                statement.setObject(5, file.createdAt());
+                statement.setString(6, file.contentHash());
+                statement.setString(7, file.contentHash());
+                statement.setString(8, file.contentType());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return files.size();
+            }
+        });
+    }
+
+    @Override
+    public List<RemovedFile> deleteAll(int userId, Collection<String> fileNames) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_ALL);
+            statement.setInt(1, userId);
+            statement.setArray(2, connection.createArrayOf("text", fileNames.toArray()));
+            return statement;
+        }, REMOVED_FILE);
+    }
+
+    @Override
+    public List<RemovedFile> deleteMatching(int userId, String likePattern) {
+        return jdbcTemplate.query(DELETE_MATCHING, REMOVED_FILE, userId, likePattern);
+    }
+
+    @Override
+    public List<String> findExistingNames(int userId, Collection<String> fileNames) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_NAMES);
+            statement.setInt(1, userId);
+            statement.setArray(2, connection.createArrayOf("text", fileNames.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString("file_name"));
+    }
+
+    @Override
+    public List<String> findNamesMatching(int userId, String likePattern) {
+        return jdbcTemplate.queryForList(FIND_NAMES_MATCHING, String.class, userId, likePattern);
+    }
+
+    @Override
+    public List<RenamedFile> renameAll(int userId, Map<String, String> newNames) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RENAME_ALL);
+            statement.setArray(1, connection.createArrayOf("text", newNames.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("text", newNames.values().toArray()));
+            statement.setInt(3, userId);
+            return statement;
+        }, (rs, rowNum) -> new RenamedFile(rs.getString("old_name"), rs.getString("file_name"),
+                rs.getString("file_location"), rs.getString("blob_hash")));
+    }
+}
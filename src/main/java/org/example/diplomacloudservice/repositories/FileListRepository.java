@@ -0,0 +1,16 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListSort;
+
+import java.util.List;
+
+public interface FileListRepository {
+
+    /**
+     * Keyset page of the user's files: the rows strictly after {@code after} in the given order.
+     *
+     * @param after sort key of the last row of the previous page, {@code null} for the first page
+     */
+    List<FileListEntry> findFilesPage(int userId, FileListSort sort, boolean descending, FileListEntry after, int limit);
+}
@@ -0,0 +1,54 @@
+package org.example.diplomacloudservice.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListSort;
+
+import java.util.List;
+
+/**
+ * The queries select only the columns of the matching covering index
+ * ({@code idx_files_user_name_cover}, {@code idx_files_user_created_cover}),
+ * so a page is an index-only range scan of {@code limit} rows however deep it is.
+ */
+public class FileListRepositoryImpl implements FileListRepository {
+
+    private static final String SELECT_BY_NAME = "SELECT new org.example.diplomacloudservice.dto.FileListEntry(" +
+            "f.fileName, f.size) FROM File f WHERE f.user.id = :userId";
+    private static final String SELECT_BY_DATE = "SELECT new org.example.diplomacloudservice.dto.FileListEntry(" +
+            "f.id, f.fileName, f.size, f.createdAt) FROM File f WHERE f.user.id = :userId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FileListEntry> findFilesPage(int userId, FileListSort sort, boolean descending,
+                                             FileListEntry after, int limit) {
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(sort == FileListSort.NAME ? SELECT_BY_NAME : SELECT_BY_DATE);
+        if (after != null) {
+            jpql.append(sort == FileListSort.NAME
+                    ? " AND f.fileName " + comparison + " :fileName"
+                    : " AND (f.createdAt, f.id) " + comparison + " (:createdAt, :id)");
+        }
+        jpql.append(sort == FileListSort.NAME
+                ? " ORDER BY f.fileName" + direction
+                : " ORDER BY f.createdAt" + direction + ", f.id" + direction);
+
+        TypedQuery<FileListEntry> query = entityManager.createQuery(jpql.toString(), FileListEntry.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+
+        if (after != null && sort == FileListSort.NAME) {
+            query.setParameter("fileName", after.getFileName());
+        } else if (after != null) {
+            query.setParameter("createdAt", after.getCreatedAt())
+                    .setParameter("id", after.getId());
+        }
+        return query.getResultList();
+    }
+}
@@ -1,21 +1,116 @@
 package org.example.diplomacloudservice.repositories;
 
 import org.example.diplomacloudservice.entities.File;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileRepository extends JpaRepository<File, Integer> {
+public interface FileRepository extends JpaRepository<File, Integer>, FileListRepository, FileBatchRepository,
+        FileSearchRepository {
 
     Optional<File> findByFileNameAndUserId(String fileName, int userId);
 
-    @Query("SELECT f FROM File f WHERE f.user.id = :userId")
-    List<File> findFilesByUserId(@Param("userId") int userId, Pageable pageable);
+    boolean existsByFileNameAndUserId(String fileName, int userId);
 
+    List<File> findByUserIdAndFileNameIn(int userId, Collection<String> fileNames);
+
+    /**
+     * Keyset page in name order, over {@code uq_user_file}.
+     *
+     * @param after name of the last file of the previous page, {@code ""} for the first page
+     */
+    @Query("SELECT f FROM File f WHERE f.user.id = :userId AND f.fileName > :after ORDER BY f.fileName")
+    List<File> findPageAfter(@Param("userId") int userId, @Param("after") String after, Limit limit);
+
+    /**
+     * @return 1 if the row was inserted, 0 if the user already has a file with this name ({@code uq_user_file})
+     */
+    @Modifying
+    @Query(value = "INSERT INTO files " +
+            "(file_name, user_id, file_location, size, created_at, content_hash, blob_hash, content_type) " +
+            "VALUES (:fileName, :userId, :fileLocation, :size, :createdAt, :contentHash, :contentHash, :contentType) " +
+            "ON CONFLICT ON CONSTRAINT uq_user_file DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") int userId,
+                       @Param("fileName") String fileName,
+                       @Param("fileLocation") String fileLocation,
+                       @Param("size") long size,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("contentHash") String contentHash,
+                       @Param("contentType") String contentType);
+
+    /**
+     * @return where the deleted file was stored, empty if the user has no file with this name
+     */
+    @Query(value = "DELETE FROM files WHERE user_id = :userId AND file_name = :fileName " +
+            "RETURNING file_location AS fileLocation, blob_hash AS blobHash, size AS size", nativeQuery = true)
+    Optional<StorageRef> deleteReturningStorageRef(@Param("userId") int userId,
+                                                   @Param("fileName") String fileName);
+
+    /**
+     * @return where the renamed file is stored, empty if the user has no file with the old name
+     */
+    @Query(value = "UPDATE files SET file_name = :newFileName WHERE user_id = :userId AND file_name = :oldFileName " +
+            "RETURNING file_location AS fileLocation, blob_hash AS blobHash, size AS size", nativeQuery = true)
+    Optional<StorageRef> renameReturningStorageRef(@Param("userId") int userId,
+                                                   @Param("oldFileName") String oldFileName,
+                                                   @Param("newFileName") String newFileName);
+
+    /**
+     * Keyset page in id order of the files stored under their own name, outside the blob store.
+     */
+    @Query(value = "SELECT id AS id, user_id AS userId, file_name AS fileName, file_location AS fileLocation " +
+            "FROM files WHERE blob_hash IS NULL AND id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<LegacyFile> findLegacyPageAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    long countByBlobHashIsNull();
+
+    /**
+     * Points a legacy row at the blob its content was copied to, unless it was renamed or deleted since it was read.
+     *
+     * @param blobLocation directory of the blob, like {@link #insertIfAbsent} records it
+     * @return 0 if the row changed in the meantime
+     */
+    @Modifying
+    @Query(value = "UPDATE files SET blob_hash = :contentHash, content_hash = :contentHash, " +
+            "file_location = :blobLocation, content_type = COALESCE(content_type, :contentType) " +
+            "WHERE id = :id AND blob_hash IS NULL AND file_name = :fileName AND file_location = :fileLocation",
+            nativeQuery = true)
+    int moveToBlob(@Param("id") int id,
+                   @Param("fileName") String fileName,
+                   @Param("fileLocation") String fileLocation,
+                   @Param("blobLocation") String blobLocation,
+                   @Param("contentHash") String contentHash,
+                   @Param("contentType") String contentType);
+
+    interface LegacyFile {
+
+        Integer getId();
+
+        Integer getUserId();
+
+        String getFileName();
+
+        String getFileLocation();
+    }
+
+    interface StorageRef {
+
+        String getFileLocation();
+
+        /**
+         * {@code null} for files stored under their own name in {@link #getFileLocation()}.
+         */
+        String getBlobHash();
+
+        Long getSize();
+    }
 }
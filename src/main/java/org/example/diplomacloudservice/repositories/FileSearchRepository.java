@@ -0,0 +1,16 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileSearchFilter;
+
+import java.util.List;
+
+public interface FileSearchRepository {
+
+    /**
+     * Keyset page of the user's files that match the filter, by name.
+     *
+     * @param afterName name of the last row of the previous page, {@code null} for the first page
+     */
+    List<FileListEntry> searchFilesPage(int userId, FileSearchFilter filter, String afterName, int limit);
+}
@@ -0,0 +1,77 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileSearchFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC: the query is put together from the filters that are set, and full-text matching has no JPQL.
+ * Name patterns are served by the trigram index {@code idx_files_user_id_file_name_trgm}, which leads with the user id,
+ * the content words by {@code idx_blob_texts_document}; a query with neither reads the user's rows
+ * by {@code idx_files_user_name_cover}.
+ */
+public class FileSearchRepositoryImpl implements FileSearchRepository {
+
+    private static final String ESCAPE = " ESCAPE '\\'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileSearchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<FileListEntry> searchFilesPage(int userId, FileSearchFilter filter, String afterName, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT f.file_name, f.size FROM files f WHERE f.user_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+
+        if (filter.getNameContains() != null) {
+            sql.append(" AND f.file_name ILIKE ?").append(ESCAPE);
+            args.add(filter.getNameContains());
+        }
+        if (filter.getNamePrefix() != null) {
+            sql.append(" AND f.file_name ILIKE ?").append(ESCAPE);
+            args.add(filter.getNamePrefix());
+        }
+        if (filter.getNameSuffix() != null) {
+            sql.append(" AND f.file_name ILIKE ?").append(ESCAPE);
+            args.add(filter.getNameSuffix());
+        }
+        if (filter.getMinSize() != null) {
+            sql.append(" AND f.size >= ?");
+            args.add(filter.getMinSize());
+        }
+        if (filter.getMaxSize() != null) {
+            sql.append(" AND f.size <= ?");
+            args.add(filter.getMaxSize());
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND f.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" AND f.created_at < ?");
+            args.add(Timestamp.valueOf(filter.getCreatedTo()));
+        }
+        if (filter.getText() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM blob_texts t WHERE t.hash = f.blob_hash")
+                    .append(" AND t.document @@ websearch_to_tsquery(?::regconfig, ?))");
+            args.add(filter.getTextConfig());
+            args.add(filter.getText());
+        }
+        if (afterName != null) {
+            sql.append(" AND f.file_name > ?");
+            args.add(afterName);
+        }
+        sql.append(" ORDER BY f.file_name LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new FileListEntry(rs.getString("file_name"), rs.getLong("size")), args.toArray());
+    }
+}
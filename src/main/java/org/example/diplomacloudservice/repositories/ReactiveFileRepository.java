@@ -0,0 +1,120 @@
+package org.example.diplomacloudservice.repositories;
+
+import io.r2dbc.spi.Readable;
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListSort;
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.entities.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * The reads of the reactive API over R2DBC: same statements as {@link UserRepository#findByLogin},
+ * {@link FileRepository#findByFileNameAndUserId} and {@link FileListRepositoryImpl}, without blocking a thread.
+ * Writes go through the JPA repositories.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFileRepository {
+
+    private static final String SELECT_USER = "SELECT id, login, password, role FROM users WHERE login = :login";
+    private static final String SELECT_FILE = "SELECT f.id, f.file_name, f.file_location, f.size, f.created_at, " +
+            "f.content_hash, f.content_type, f.blob_hash, b.codec, b.stored_size " +
+            "FROM files f LEFT JOIN blobs b ON b.hash = f.blob_hash " +
+            "WHERE f.user_id = :userId AND f.file_name = :fileName";
+    private static final String SELECT_BY_NAME = "SELECT file_name, size FROM files WHERE user_id = :userId";
+    private static final String SELECT_BY_DATE = "SELECT id, file_name, size, created_at FROM files WHERE user_id = :userId";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveFileRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<User> findUserByLogin(String login) {
+        return databaseClient.sql(SELECT_USER)
+                .bind("login", login)
+                .map(row -> {
+                    User user = new User();
+                    user.setId(row.get("id", Integer.class));
+                    user.setLogin(row.get("login", String.class));
+                    user.setPassword(row.get("password", String.class));
+                    user.setRole(row.get("role", String.class));
+                    return user;
+                })
+                .one();
+    }
+
+    /**
+     * The row with the codec and stored size of its blob, as {@link File} reads them by formula.
+     * The user is not set.
+     */
+    public Mono<File> findByFileNameAndUserId(String fileName, int userId) {
+        return databaseClient.sql(SELECT_FILE)
+                .bind("userId", userId)
+                .bind("fileName", fileName)
+                .map(row -> File.builder()
+                        .id(row.get("id", Integer.class))
+                        .fileName(row.get("file_name", String.class))
+                        .fileLocation(row.get("file_location", String.class))
+                        .size(row.get("size", Long.class))
+                        .createdAt(row.get("created_at", LocalDateTime.class))
+                        .contentHash(row.get("content_hash", String.class))
+                        .contentType(row.get("content_type", String.class))
+                        .blobHash(row.get("blob_hash", String.class))
+                        .codec(row.get("codec", String.class))
+                        .storedSize(row.get("stored_size", Long.class))
+                        .build())
+                .one();
+    }
+
+    /**
+     * See {@link FileListRepository#findFilesPage}: the same covering-index range scans.
+     */
+    public Flux<FileListEntry> findFilesPage(int userId, FileListSort sort, boolean descending,
+                                             FileListEntry after, int limit) {
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? " DESC" : " ASC";
+
+        StringBuilder sql = new StringBuilder(sort == FileListSort.NAME ? SELECT_BY_NAME : SELECT_BY_DATE);
+        if (after != null) {
+            sql.append(sort == FileListSort.NAME
+                    ? " AND file_name " + comparison + " :fileName"
+                    : " AND (created_at, id) " + comparison + " (:createdAt, :id)");
+        }
+        sql.append(sort == FileListSort.NAME
+                ? " ORDER BY file_name" + direction
+                : " ORDER BY created_at" + direction + ", id" + direction);
+        sql.append(" LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql.toString())
+                .bind("userId", userId)
+                .bind("limit", limit);
+        if (after != null && sort == FileListSort.NAME) {
+            statement = statement.bind("fileName", after.getFileName());
+        } else if (after != null) {
+            statement = statement.bind("createdAt", after.getCreatedAt())
+                    .bind("id", after.getId());
+        }
+
+        Function<Readable, FileListEntry> mapper = sort == FileListSort.NAME
+                ? ReactiveFileRepository::byName
+                : ReactiveFileRepository::byDate;
+        return statement.map(mapper).all();
+    }
+
+    private static FileListEntry byName(Readable row) {
+        return new FileListEntry(row.get("file_name", String.class), row.get("size", Long.class));
+    }
+
+    private static FileListEntry byDate(Readable row) {
+        return new FileListEntry(row.get("id", Integer.class), row.get("file_name", String.class),
+                row.get("size", Long.class), row.get("created_at", LocalDateTime.class));
+    }
+}
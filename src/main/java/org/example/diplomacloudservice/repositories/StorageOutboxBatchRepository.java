@@ -0,0 +1,15 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.entities.StorageOutboxEntry;
+
+import java.util.List;
+
+public interface StorageOutboxBatchRepository {
+
+    /**
+     * One INSERT for all entries.
+     *
+     * @return the inserted entries, with their ids
+     */
+    List<StorageOutboxEntry> insertAll(List<StorageOutboxEntry> entries);
+}
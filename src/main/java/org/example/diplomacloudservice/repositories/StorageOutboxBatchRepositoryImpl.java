@@ -0,0 +1,45 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.entities.StorageOutboxEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Plain JDBC, like {@link BlobBatchRepositoryImpl}.
+ */
+public class StorageOutboxBatchRepositoryImpl implements StorageOutboxBatchRepository {
+
+    private static final String INSERT_ALL =
+            "INSERT INTO storage_outbox (object_key, blob_hash, created_at) " +
+            "SELECT e.object_key, e.blob_hash, e.created_at " +
+            "FROM unnest(?::text[], ?::text[], ?::timestamp[]) AS e(object_key, blob_hash, created_at) " +
+            "RETURNING id, object_key, blob_hash, created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StorageOutboxBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<StorageOutboxEntry> insertAll(List<StorageOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ALL);
+            statement.setArray(1, connection.createArrayOf("text",
+                    entries.stream().map(StorageOutboxEntry::getObjectKey).toArray()));
+            statement.setArray(2, connection.createArrayOf("text",
+                    entries.stream().map(StorageOutboxEntry::getBlobHash).toArray()));
+            statement.setArray(3, connection.createArrayOf("timestamp",
+                    entries.stream().map(entry -> Timestamp.valueOf(entry.getCreatedAt())).toArray()));
+            return statement;
+        }, (rs, rowNum) -> new StorageOutboxEntry(rs.getLong("id"), rs.getString("object_key"),
+                rs.getString("blob_hash"), rs.getTimestamp("created_at").toLocalDateTime()));
+    }
+}
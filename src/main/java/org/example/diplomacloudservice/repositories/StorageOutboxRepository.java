@@ -0,0 +1,31 @@
+package org.example.diplomacloudservice.repositories;
+
+import org.example.diplomacloudservice.entities.StorageOutboxEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StorageOutboxRepository extends JpaRepository<StorageOutboxEntry, Long>, StorageOutboxBatchRepository {
+
+    /**
+     * Takes the entry in the current transaction; a concurrent claim of the same entry waits for it.
+     *
+     * @return 0 if the entry was carried out in the meantime
+     */
+    @Modifying
+    @Query(value = "DELETE FROM storage_outbox WHERE id = :id", nativeQuery = true)
+    int claim(@Param("id") long id);
+
+    /**
+     * Keyset page in id order of the entries older than {@code createdBefore}.
+     */
+    List<StorageOutboxEntry> findByIdGreaterThanAndCreatedAtBeforeOrderById(long afterId, LocalDateTime createdBefore,
+                                                                            Limit limit);
+}
@@ -1,13 +1,27 @@
 package org.example.diplomacloudservice.repositories;
 
+import org.example.diplomacloudservice.dto.BlacklistedTokenDto;
 import org.example.diplomacloudservice.entities.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
     Optional<Object> findFirstByToken(String token);
+
+    @Query("SELECT new org.example.diplomacloudservice.dto.BlacklistedTokenDto(t.id, t.token, t.expiresAt) " +
+            "FROM Token t WHERE t.expiresAt > :now")
+    List<BlacklistedTokenDto> findActiveTokens(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Token t WHERE t.expiresAt <= :now")
+    int deleteExpiredTokens(@Param("now") LocalDateTime now);
 }
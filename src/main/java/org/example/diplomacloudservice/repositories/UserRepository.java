@@ -2,6 +2,9 @@ package org.example.diplomacloudservice.repositories;
 
 import org.example.diplomacloudservice.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +13,41 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findByLogin(String login);
+
+    /**
+     * Counts a new file against the quota. The row lock serializes concurrent uploads of the user.
+     *
+     * @return 1 if the file fits, 0 if it would exceed the quota
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET used_bytes = used_bytes + :bytes, file_count = file_count + :files " +
+            "WHERE id = :userId AND used_bytes + :bytes <= COALESCE(quota_bytes, :defaultQuota)", nativeQuery = true)
+    int reserveUsage(@Param("userId") int userId,
+                     @Param("bytes") long bytes,
+                     @Param("files") int files,
+                     @Param("defaultQuota") long defaultQuota);
+
+    @Modifying
+    @Query(value = "UPDATE users SET used_bytes = used_bytes - :bytes, file_count = file_count - :files " +
+            "WHERE id = :userId", nativeQuery = true)
+    int releaseUsage(@Param("userId") int userId, @Param("bytes") long bytes, @Param("files") int files);
+
+    @Query(value = "SELECT used_bytes AS usedBytes, file_count AS fileCount, quota_bytes AS quotaBytes " +
+            "FROM users WHERE id = :userId", nativeQuery = true)
+    Optional<Usage> findUsage(@Param("userId") int userId);
+
+    @Query(value = "SELECT COALESCE(SUM(used_bytes), 0) FROM users", nativeQuery = true)
+    long sumUsedBytes();
+
+    interface Usage {
+
+        long getUsedBytes();
+
+        int getFileCount();
+
+        /**
+         * {@code null} if the user has the default quota.
+         */
+        Long getQuotaBytes();
+    }
 }
@@ -0,0 +1,69 @@
+package org.example.diplomacloudservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.example.diplomacloudservice.utils.TokenDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Resolved principals keyed by SHA-256 of the JWT. Each entry lives until the token's {@code exp},
+ * so a cached token never outlives its own validity.
+ */
+@Component
+public class AuthenticationCache {
+
+    private final Cache<String, CachedAuthentication> cache;
+
+    public AuthenticationCache(@Value("${token.auth-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
+    }
+
+    public CustomUserDetails get(String token) {
+        CachedAuthentication cached = cache.getIfPresent(key(token));
+        return cached != null ? cached.userDetails() : null;
+    }
+
+    public void put(String token, CustomUserDetails userDetails, Instant expiresAt) {
+        if (expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        cache.put(key(token), new CachedAuthentication(userDetails, expiresAt));
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(key(token));
+    }
+
+    private String key(String token) {
+        return TokenDigest.toHex(TokenDigest.sha256(token));
+    }
+
+    private record CachedAuthentication(CustomUserDetails userDetails, Instant expiresAt) {
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -14,6 +14,10 @@ public class CustomUserDetails implements UserDetails {
 
     private final User user;
 
+    public int getId() {
+        return user.getId();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singletonList(new SimpleGrantedAuthority(user.getRole()));
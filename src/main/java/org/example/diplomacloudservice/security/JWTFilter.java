@@ -1,6 +1,7 @@
 package org.example.diplomacloudservice.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -11,9 +12,9 @@ import lombok.extern.log4j.Log4j2;
 import org.example.diplomacloudservice.dto.JsonResponse;
 import org.example.diplomacloudservice.services.CustomUserDetailsService;
 import org.example.diplomacloudservice.services.JwtService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -21,11 +22,13 @@ import java.io.IOException;
 
 @Log4j2
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class JWTFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService customUserDetailsService;
+    private final AuthenticationCache authenticationCache;
     private final ObjectMapper objectMapper;
 
     @Override
@@ -52,10 +55,18 @@ public class JWTFilter extends OncePerRequestFilter {
             }
 
             try {
-                String username = jwtService.validateTokenAndRetrieveClaim(jwt);
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                CustomUserDetails userDetails = authenticationCache.get(jwt);
 
-                log.info("Authenticated user: {}", username);
+                if (userDetails == null) {
+                    DecodedJWT decodedJWT = jwtService.verifyToken(jwt);
+                    userDetails = customUserDetailsService.loadUserByUsername(
+                            decodedJWT.getClaim("username").asString());
+
+                    authenticationCache.put(jwt, userDetails, decodedJWT.getExpiresAtAsInstant());
+                }
+                String username = userDetails.getUsername();
+
+                log.debug("Authenticated user: {}", username);
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -74,7 +85,7 @@ public class JWTFilter extends OncePerRequestFilter {
                 return;
             }
         } else {
-            log.info("No Authorization header found");
+            log.debug("No Authorization header found");
         }
 
         filterChain.doFilter(request, response);
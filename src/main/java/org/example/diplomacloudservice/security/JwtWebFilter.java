@@ -0,0 +1,99 @@
+package org.example.diplomacloudservice.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.JsonResponse;
+import org.example.diplomacloudservice.services.JwtService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link JWTFilter} of the {@code reactive} profile. A token seen before is resolved from {@link AuthenticationCache}
+ * without any I/O, a new one loads its user over R2DBC. Not a bean: it only runs in the security filter chain.
+ */
+@Log4j2
+@AllArgsConstructor
+public class JwtWebFilter implements WebFilter {
+
+    private final JwtService jwtService;
+    private final ReactiveUserDetailsService userDetailsService;
+    private final AuthenticationCache authenticationCache;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        log.debug("JwtWebFilter triggered for request: {}", exchange.getRequest().getPath());
+        String authHeader = exchange.getRequest().getHeaders().getFirst("auth-token");
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            log.debug("No Authorization header found");
+            return chain.filter(exchange);
+        }
+
+        String jwt = authHeader.substring(7);
+
+        if (jwt.isBlank()) {
+            log.warn("Missing JWT Token in request");
+            return sendErrorResponse(exchange, "Missing JWT Token");
+        }
+
+        if (jwtService.isTokenInBlacklist(jwt)) {
+            log.info("JWT Token is in Blacklist");
+            return sendErrorResponse(exchange, "JWT Token is invalid");
+        }
+
+        Mono<CustomUserDetails> userDetails;
+        CustomUserDetails cached = authenticationCache.get(jwt);
+        if (cached != null) {
+            userDetails = Mono.just(cached);
+        } else {
+            DecodedJWT decodedJWT;
+            try {
+                decodedJWT = jwtService.verifyToken(jwt);
+            } catch (JWTVerificationException e) {
+                log.warn("Invalid JWT Token: {}", e.getMessage());
+                return sendErrorResponse(exchange, "Invalid JWT Token: " + e.getMessage());
+            }
+
+            String username = decodedJWT.getClaim("username").asString();
+            userDetails = userDetailsService.findByUsername(username)
+                    .cast(CustomUserDetails.class)
+                    .switchIfEmpty(Mono.error(() ->
+                            new UsernameNotFoundException("User with login '" + username + "' not found")))
+                    .doOnNext(user -> authenticationCache.put(jwt, user, decodedJWT.getExpiresAtAsInstant()));
+        }
+
+        return userDetails.flatMap(user -> {
+            log.debug("Authenticated user: {}", user.getUsername());
+            UsernamePasswordAuthenticationToken authenticationToken =
+                    new UsernamePasswordAuthenticationToken(
+                            user,
+                            user.getPassword(),
+                            user.getAuthorities());
+
+            return chain.filter(exchange)
+                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticationToken));
+        });
+    }
+
+    private Mono<Void> sendErrorResponse(ServerWebExchange exchange, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(new JsonResponse(message, 401)))
+                .flatMap(body -> response.writeWith(Mono.just(response.bufferFactory().wrap(body))));
+    }
+}
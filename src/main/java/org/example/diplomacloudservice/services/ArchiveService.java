@@ -0,0 +1,168 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP of some or all files of a user, written straight to the response: every file is copied from its storage
+ * channel through one buffer, nothing is staged. All files are read page by page in name order, so no
+ * connection is held while the archive is sent and the number of files does not matter.
+ * <p>
+ * Files that are compressed already are STORED. A STORED entry needs its CRC-32 before its data, so it is
+ * read twice; when the channel cannot be rewound (S3), the entry is deflated at level 0 instead,
+ * which costs as little CPU and a few bytes per block.
+ */
+@Log4j2
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ArchiveService {
+
+    static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar",
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp3", "aac", "ogg", "flac", "mp4", "m4a", "mkv", "mov", "avi", "webm",
+            "pdf", "docx", "xlsx", "pptx", "odt", "ods", "epub"
+    );
+
+    @Value("${file.archive.page-size:1000}")
+    int pageSize;
+
+    @Value("${file.archive.max-selected-files:1000}")
+    int maxSelectedFiles;
+
+    @Value("${file.upload.buffer-size:64KB}")
+    DataSize bufferSize;
+
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+
+    public ArchiveService(FileRepository fileRepository, FileService fileService) {
+        this.fileRepository = fileRepository;
+        this.fileService = fileService;
+    }
+
+    /**
+     * Looked up before the response starts, so that a missing file is still a 400.
+     *
+     * @return the files in name order
+     */
+    public List<File> getSelectedFiles(int userId, List<String> filenames) {
+        Set<String> names = new LinkedHashSet<>(filenames);
+        if (names.size() > maxSelectedFiles) {
+            throw new IllegalArgumentException("At most " + maxSelectedFiles + " files can be selected.");
+        }
+
+        List<File> files = fileRepository.findByUserIdAndFileNameIn(userId, names);
+        if (files.size() < names.size()) {
+            Set<String> missing = new HashSet<>(names);
+            files.forEach(file -> missing.remove(file.getFileName()));
+            log.warn("Files {} not found in DB for user id '{}'", missing, userId);
+            throw new InvalidFileException("Files with names " + missing + " do not exist");
+        }
+
+        return files.stream()
+                .sorted(Comparator.comparing(File::getFileName))
+                .toList();
+    }
+
+    /**
+     * @param selected from {@link #getSelectedFiles}, {@code null} for all files of the user
+     */
+    public void writeArchive(int userId, List<File> selected, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) bufferSize.toBytes());
+        CRC32 crc = new CRC32();
+        int entries = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            if (selected != null) {
+                for (File file : selected) {
+                    writeEntry(zip, file, buffer, crc);
+                }
+                entries = selected.size();
+            } else {
+                String after = "";
+                List<File> page;
+                do {
+                    page = fileRepository.findPageAfter(userId, after, Limit.of(pageSize));
+                    for (File file : page) {
+                        writeEntry(zip, file, buffer, crc);
+                    }
+                    entries += page.size();
+                    if (!page.isEmpty()) {
+                        after = page.get(page.size() - 1).getFileName();
+                    }
+                } while (page.size() == pageSize);
+            }
+        }
+        log.debug("Archive of {} file(s) written for user id '{}'", entries, userId);
+    }
+
+    private void writeEntry(ZipOutputStream zip, File file, ByteBuffer buffer, CRC32 crc) throws IOException {
+        Resource resource = fileService.getFileResource(file);
+
+        ZipEntry entry = new ZipEntry(file.getFileName());
+        entry.setTime(file.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            if (!isCompressed(file.getFileName())) {
+                entry.setMethod(ZipEntry.DEFLATED);
+                zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            } else if (channel instanceof SeekableByteChannel seekable) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(seekable.size());
+                entry.setCompressedSize(seekable.size());
+                entry.setCrc(checksum(seekable, buffer, crc));
+                seekable.position(0);
+            } else {
+                entry.setMethod(ZipEntry.DEFLATED);
+                zip.setLevel(Deflater.NO_COMPRESSION);
+            }
+
+            zip.putNextEntry(entry);
+            while (channel.read(buffer.clear()) != -1) {
+                zip.write(buffer.array(), 0, buffer.position());
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private long checksum(ReadableByteChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        crc.reset();
+        while (channel.read(buffer.clear()) != -1) {
+            crc.update(buffer.flip());
+        }
+        return crc.getValue();
+    }
+
+    private boolean isCompressed(String filename) {
+        int dotIndex = filename.lastIndexOf('.');
+        return dotIndex != -1
+                && COMPRESSED_EXTENSIONS.contains(filename.substring(dotIndex + 1).toLowerCase(Locale.ROOT));
+    }
+}
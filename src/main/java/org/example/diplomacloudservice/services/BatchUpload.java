@@ -0,0 +1,104 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileResultDto;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.utils.FileValidator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Files of one multipart request, started by {@link FileService#startBatchUpload}.
+ * Each file is validated by its name and streamed to a temp file as its part arrives; {@link #commit()} then
+ * inserts all rows in one JDBC batch. A file that is rejected is reported with its reason, the others are stored.
+ */
+@Log4j2
+public class BatchUpload implements AutoCloseable {
+
+    private final FileService fileService;
+    private final int userId;
+    private long remainingQuota;
+
+    private final List<FileResultDto> results = new ArrayList<>();
+    private final Set<String> filenames = new HashSet<>();
+    private final List<FileService.StagedFile> stagedFiles = new ArrayList<>();
+    private final List<FileResultDto> stagedResults = new ArrayList<>();
+
+    BatchUpload(FileService fileService, int userId, long remainingQuota) {
+        this.fileService = fileService;
+        this.userId = userId;
+        this.remainingQuota = remainingQuota;
+    }
+
+    /**
+     * A rejected file is recorded and its content is not read.
+     */
+    public void add(String filename, InputStream content) throws IOException {
+        FileResultDto result = new FileResultDto(filename, null, 0);
+        results.add(result);
+
+        try {
+            FileValidator.validateFile(filename, filename);
+            if (!filenames.add(filename)) {
+                throw new InvalidFileException("File with name '" + filename + "' is already in this upload");
+            }
+            if (remainingQuota <= 0) {
+                throw new QuotaExceededException("Storage quota exceeded");
+            }
+
+            FileService.StagedFile staged = fileService.stageFile(userId, filename, content, remainingQuota);
+            remainingQuota -= staged.size();
+
+            stagedFiles.add(staged);
+            stagedResults.add(result);
+        } catch (InvalidFileException | QuotaExceededException e) {
+            log.warn("File '{}' of a batch upload of user id '{}' rejected: {}", filename, userId, e.getMessage());
+            result.setMessage(e.getMessage());
+            result.setId(400);
+        }
+    }
+
+    /**
+     * @return one result per added file, in the order they were added
+     */
+    public List<FileResultDto> commit() throws IOException {
+        if (!stagedFiles.isEmpty()) {
+            boolean[] stored = fileService.commitStagedFiles(userId, stagedFiles);
+
+            for (int i = 0; i < stored.length; i++) {
+                FileResultDto result = stagedResults.get(i);
+                if (stored[i]) {
+                    result.setMessage("File uploaded successfully");
+                    result.setId(200);
+                } else {
+                    log.warn("File '{}' already exists for user id '{}'", result.getFilename(), userId);
+                    result.setMessage("File with name '" + result.getFilename() + "' already exist");
+                    result.setId(400);
+                }
+            }
+        }
+        log.debug("Batch upload of user id '{}': {} file(s), {} staged", userId, results.size(), stagedFiles.size());
+
+        return results;
+    }
+
+    /**
+     * Deletes the temp files: stored content has been moved into its blob or was already there.
+     */
+    @Override
+    public void close() {
+        for (FileService.StagedFile staged : stagedFiles) {
+            try {
+                fileService.discardStaged(staged);
+            } catch (IOException e) {
+                log.error("Failed to delete temp file '{}': {}", staged.path(), e.getMessage());
+            }
+        }
+    }
+}
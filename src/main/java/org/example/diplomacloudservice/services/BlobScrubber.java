@@ -0,0 +1,341 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.DamagedBlobDto;
+import org.example.diplomacloudservice.dto.ScrubStatusDto;
+import org.example.diplomacloudservice.entities.Blob;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.CachingStorageBackend;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.BackgroundPass;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.example.diplomacloudservice.utils.IoThrottle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the blobs back from storage and compares their size and SHA-256 with the {@code blobs} row,
+ * to find objects damaged or lost after they were stored. A pass walks the blobs by hash, a page at a time,
+ * and checks those not verified for {@code file.scrubber.reverify-after} on a pool of reader threads.
+ * The readers share one byte rate, so a pass does not take the disk or network bandwidth from downloads.
+ * <p>
+ * Results go to {@code blobs.verified_at} and {@code verify_failure}. A damaged blob stays flagged until
+ * the next upload of the same content replaces it ({@link BlobService#store}); a blob that could not be read
+ * is tried again in the next pass. Objects are read from the backend itself, past the content cache.
+ * Meters: {@code cloud.scrubber.blobs} by result, {@code cloud.scrubber.bytes} and
+ * {@code cloud.scrubber.damaged}, the number of flagged blobs as of the last pass, so that a scrape
+ * does not count them.
+ * <p>
+ * Off unless {@code file.scrubber.enabled}: passes are not coordinated between instances, enable it on one.
+ */
+@Log4j2
+@Service
+public class BlobScrubber {
+
+    public static final String MISSING = "missing";
+    public static final String SIZE_MISMATCH = "size_mismatch";
+    public static final String HASH_MISMATCH = "hash_mismatch";
+    public static final String UNDECODABLE = "undecodable";
+
+    static final String OK = "ok";
+    static final String READ_ERROR = "read_error";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${file.scrubber.enabled:false}")
+    boolean enabled;
+
+    @Value("${file.scrubber.page-size:100}")
+    int pageSize;
+
+    private final BlobRepository blobRepository;
+    private final BlobService blobService;
+    private final StorageBackend storageBackend;
+    private final IoThrottle throttle;
+    private final Duration reverifyAfter;
+    private final ExecutorService readers;
+    private final BackgroundPass background;
+    private final AtomicLong damaged = new AtomicLong();
+    private final Meter.MeterProvider<Counter> results;
+    private final Counter bytesRead;
+
+    private volatile ScrubPass lastPass;
+
+    /**
+     * @param rate per second, shared by all readers; 0 for no limit
+     */
+    public BlobScrubber(BlobRepository blobRepository, BlobService blobService, StorageBackend storageBackend,
+                        MeterRegistry registry,
+                        @Value("${file.scrubber.rate:20MB}") DataSize rate,
+                        @Value("${file.scrubber.threads:2}") int threads,
+                        @Value("${file.scrubber.reverify-after:30d}") Duration reverifyAfter) {
+        this.blobRepository = blobRepository;
+        this.blobService = blobService;
+        this.storageBackend = storageBackend instanceof CachingStorageBackend cachingStorageBackend
+                ? cachingStorageBackend.getDelegate()
+                : storageBackend;
+        this.throttle = new IoThrottle(rate.toBytes());
+        this.reverifyAfter = reverifyAfter;
+        this.readers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("scrubber-reader-", 0).daemon().factory());
+        this.background = new BackgroundPass("scrubber", this::scrub);
+
+        this.results = Counter.builder("cloud.scrubber.blobs")
+                .description("Blobs checked by the scrubber, by result")
+                .withRegistry(registry);
+        this.bytesRead = Counter.builder("cloud.scrubber.bytes")
+                .description("Stored bytes read back by the scrubber")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cloud.scrubber.damaged", damaged, AtomicLong::get)
+                .description("Blobs flagged damaged and not stored again since")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void countDamagedOnStartup() {
+        countDamaged();
+    }
+
+    /**
+     * Kicks off a pass on the scrubber's own thread, the scheduler's is shared with the other jobs.
+     */
+    @Scheduled(fixedDelayString = "${file.scrubber.interval:3600000}",
+            initialDelayString = "${file.scrubber.interval:3600000}")
+    public void scheduledScrub() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * @return {@code false} if a pass is already running
+     */
+    public boolean start() {
+        return background.start();
+    }
+
+    public ScrubStatusDto getStatus() {
+        ScrubPass pass = lastPass;
+        List<DamagedBlobDto> damagedBlobs = blobRepository.findTop100ByVerifyFailureIsNotNullOrderByVerifiedAtDesc()
+                .stream()
+                .map(blob -> new DamagedBlobDto(blob.getHash(), blob.getVerifyFailure(),
+                        Objects.toString(blob.getVerifiedAt(), null), blob.getSize(), blob.getCodec(),
+                        blob.getRefCount()))
+                .toList();
+
+        if (pass == null) {
+            return new ScrubStatusDto(background.isRunning(), null, null, 0, 0, 0, 0, countDamaged(), damagedBlobs);
+        }
+        return new ScrubStatusDto(background.isRunning(), pass.startedAt.toString(), Objects.toString(pass.finishedAt, null),
+                pass.checked.get(), pass.bytes.get(), pass.failed.get(), pass.readErrors.get(), countDamaged(),
+                damagedBlobs);
+    }
+
+    /**
+     * One pass on the calling thread, the blobs of a page are checked in parallel on the readers.
+     */
+    void scrub() {
+        LocalDateTime verifiedBefore = LocalDateTime.now().minus(reverifyAfter);
+        ScrubPass pass = new ScrubPass(Instant.now());
+        lastPass = pass;
+        log.info("Scrub started, checking blobs not verified since {}", verifiedBefore);
+
+        String afterHash = "";
+        List<Blob> page;
+        do {
+            page = blobRepository.findDueForVerification(afterHash, verifiedBefore, pageSize);
+
+            List<Future<?>> checks = new ArrayList<>(page.size());
+            for (Blob blob : page) {
+                checks.add(readers.submit(() -> check(blob, pass)));
+            }
+            for (Future<?> check : checks) {
+                try {
+                    check.get();
+                } catch (InterruptedException e) {
+                    checks.forEach(pending -> pending.cancel(true));
+                    Thread.currentThread().interrupt();
+                    log.info("Scrub interrupted after {} blob(s)", pass.checked.get());
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Scrub check failed", e.getCause());
+                }
+            }
+
+            if (!page.isEmpty()) {
+                afterHash = page.getLast().getHash();
+            }
+        } while (page.size() == pageSize);
+
+        pass.finishedAt = Instant.now();
+        countDamaged();
+        log.info("Scrub finished: {} blob(s) and {} byte(s) checked, {} damaged, {} unreadable",
+                pass.checked.get(), pass.bytes.get(), pass.failed.get(), pass.readErrors.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        background.shutdown();
+        readers.shutdownNow();
+    }
+
+    private long countDamaged() {
+        long count = blobRepository.countByVerifyFailureIsNotNull();
+        damaged.set(count);
+        return count;
+    }
+
+    private void check(Blob blob, ScrubPass pass) {
+        String result;
+        try {
+            String failure = verify(blob, pass);
+
+            if (blobRepository.markVerified(blob.getHash(), blob.getVerifiedAt(), LocalDateTime.now(), failure) == 0) {
+                log.debug("Blob '{}' was deleted or stored again while it was checked", blob.getHash());
+                return;
+            }
+            if (failure != null) {
+                log.error("Blob '{}' failed verification: {}", blob.getHash(), failure);
+                pass.failed.incrementAndGet();
+            }
+            result = failure != null ? failure : OK;
+        } catch (InterruptedException | InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e) {
+            log.warn("Blob '{}' could not be read, it is checked again in the next pass", blob.getHash(), e);
+            pass.readErrors.incrementAndGet();
+            result = READ_ERROR;
+        }
+
+        pass.checked.incrementAndGet();
+        results.withTags("result", result).increment();
+    }
+
+    /**
+     * @return what is wrong with the stored object, {@code null} if nothing
+     * @throws IOException if the object could not be read, as opposed to read and found damaged
+     */
+    private String verify(Blob blob, ScrubPass pass) throws IOException, InterruptedException {
+        Resource stored = storageBackend.get(blobService.getBlobKey(blob.getHash()));
+        if (!stored.exists()) {
+            return MISSING;
+        }
+
+        ThrottledInputStream raw = new ThrottledInputStream(stored.getInputStream(), pass);
+        MessageDigest digest = ContentDigest.newSha256();
+        long size = 0;
+
+        try (InputStream content = ContentCodec.fromValue(blob.getCodec()).decode(raw)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                size += count;
+            }
+        } catch (IOException e) {
+            if (raw.failed) {
+                throw e;
+            }
+            return UNDECODABLE;
+        }
+
+        if (raw.count != blob.getStoredSize() || size != blob.getSize()) {
+            return SIZE_MISMATCH;
+        }
+        if (!ContentDigest.toHex(digest).equals(blob.getHash())) {
+            return HASH_MISMATCH;
+        }
+        return null;
+    }
+
+    private static class ScrubPass {
+
+        final Instant startedAt;
+        volatile Instant finishedAt;
+        final AtomicLong checked = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong readErrors = new AtomicLong();
+
+        ScrubPass(Instant startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Counts and throttles what is read from storage, and tells a failed read from a failed decode.
+     */
+    private class ThrottledInputStream extends FilterInputStream {
+
+        private final ScrubPass pass;
+        long count;
+        boolean failed;
+
+        ThrottledInputStream(InputStream in, ScrubPass pass) {
+            super(in);
+            this.pass = pass;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read;
+            try {
+                read = super.read(buffer, offset, length);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+            if (read <= 0) {
+                return read;
+            }
+
+            count += read;
+            pass.bytes.addAndGet(read);
+            bytesRead.increment(read);
+            try {
+                throttle.acquire(read);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed = true;
+                throw new InterruptedIOException("Scrub interrupted");
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed storage: one object per distinct SHA-256 under {@code blobs/ab/cd/<hash>}.
+ * All operations run in the caller's transaction, next to the change of the referencing {@code files} row.
+ * Objects that lose their last reference are deleted after commit, by {@link StorageOutbox}.
+ */
+@Log4j2
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class BlobService {
+
+    static final String BLOBS_DIR = "blobs";
+
+    private final BlobRepository blobRepository;
+    private final StorageBackend storageBackend;
+    private final StorageOutbox storageOutbox;
+    private final FileMetadataCache metadataCache;
+
+    public BlobService(BlobRepository blobRepository, StorageBackend storageBackend, StorageOutbox storageOutbox,
+                       FileMetadataCache metadataCache) {
+        this.blobRepository = blobRepository;
+        this.storageBackend = storageBackend;
+        this.storageOutbox = storageOutbox;
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Adds a reference to the blob. The staged file becomes the blob if it is new (or was waiting for deletion,
+     * or its file went missing or was found damaged), otherwise it is left for the caller to delete.
+     *
+     * @param size       of the original content
+     * @param stagedFile fully written local file
+     */
+    public void store(String hash, long size, Path stagedFile) throws IOException {
+        store(hash, size, stagedFile, ContentCodec.NONE);
+    }
+
+    /**
+     * Same, for a staged file that holds the content encoded with {@code codec}. An existing blob keeps
+     * its own codec, which may differ.
+     */
+    public void store(String hash, long size, Path stagedFile, ContentCodec codec) throws IOException {
+        long storedSize = codec == ContentCodec.NONE ? size : Files.size(stagedFile);
+        int refCount = blobRepository.acquire(hash, size, LocalDateTime.now(), codec.toValue(), storedSize);
+        String blobKey = getBlobKey(hash);
+
+        if (refCount > 1 && storageBackend.stat(blobKey).isPresent()
+                && !blobRepository.existsByHashAndVerifyFailureIsNotNull(hash)) {
+            log.debug("Blob '{}' already stored, {} references", hash, refCount);
+            return;
+        }
+        if (refCount > 1) {
+            log.warn("Blob '{}' was missing from Storage or failed verification, restoring it from the upload", hash);
+            blobRepository.updateEncoding(hash, codec.toValue(), storedSize, LocalDateTime.now());
+            metadataCache.evictBlob(hash);
+        }
+
+        storageBackend.put(blobKey, stagedFile);
+        log.debug("Blob '{}' stored as {}: {}", hash, codec.toValue(), blobKey);
+    }
+
+    /**
+     * Drops a reference. After the last one the row stays with 0 references
+     * until {@link StorageOutbox} has deleted the object, after commit.
+     */
+    public void release(String hash) {
+        int refCount = blobRepository.release(hash)
+                .orElseThrow(() -> new FileStorageException("Blob '" + hash + "' not found"));
+
+        if (refCount == 0) {
+            storageOutbox.deleteBlob(hash, getBlobKey(hash));
+            log.debug("Blob '{}' unreferenced, deleting it from Storage after commit", hash);
+        }
+    }
+
+    /**
+     * {@link #release} of many references in one statement. The objects of the blobs that lost their
+     * last reference are left to the caller, to pass to {@link StorageOutbox#enqueue} with its other deletions.
+     *
+     * @param hashes one per dropped reference
+     * @return deletions of the blobs that lost their last reference
+     */
+    public List<StorageOutbox.Deletion> releaseAll(Collection<String> hashes) {
+        Map<String, Integer> refCounts = blobRepository.releaseAll(hashes);
+
+        for (String hash : hashes) {
+            if (!refCounts.containsKey(hash)) {
+                throw new FileStorageException("Blob '" + hash + "' not found");
+            }
+        }
+
+        return refCounts.entrySet().stream()
+                .filter(refCount -> refCount.getValue() == 0)
+                .map(refCount -> StorageOutbox.Deletion.blob(refCount.getKey(), getBlobKey(refCount.getKey())))
+                .toList();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getBlobKey(String hash) {
+        return BLOBS_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+}
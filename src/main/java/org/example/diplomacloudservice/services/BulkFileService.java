@@ -0,0 +1,338 @@
+package org.example.diplomacloudservice.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileResultDto;
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.repositories.FileBatchRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.FileNamePattern;
+import org.example.diplomacloudservice.utils.FileValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Deletes and renames many files of the authenticated user. The rows are changed by one set-based statement.
+ * Storage objects are moved in parallel on a bounded pool, before commit; they are deleted after commit,
+ * through {@link StorageOutbox}.
+ * <p>
+ * The rows never point to content that is gone: a failed move renames the row back.
+ */
+@Log4j2
+@Service
+public class BulkFileService {
+
+    @Value("${file.bulk.max-files:1000}")
+    int maxFiles;
+
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final BlobService blobService;
+    private final QuotaService quotaService;
+    private final StorageBackend storageBackend;
+    private final FileMetadataCache metadataCache;
+    private final StorageOutbox storageOutbox;
+    private final ExecutorService storageExecutor;
+
+    public BulkFileService(FileRepository fileRepository, FileService fileService, BlobService blobService,
+                           QuotaService quotaService, StorageBackend storageBackend, FileMetadataCache metadataCache,
+                           StorageOutbox storageOutbox,
+                           @Value("${file.bulk.storage-parallelism:8}") int storageParallelism) {
+        this.fileRepository = fileRepository;
+        this.fileService = fileService;
+        this.blobService = blobService;
+        this.quotaService = quotaService;
+        this.storageBackend = storageBackend;
+        this.metadataCache = metadataCache;
+        this.storageOutbox = storageOutbox;
+        this.storageExecutor = Executors.newFixedThreadPool(storageParallelism,
+                Thread.ofPlatform().name("bulk-storage-", 0).daemon().factory());
+    }
+
+    /**
+     * @return one result per distinct name, in the given order
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public List<FileResultDto> deleteFiles(int userId, List<String> filenames) throws IOException {
+        checkCount(filenames);
+        Set<String> names = new LinkedHashSet<>(filenames);
+
+        List<FileBatchRepository.RemovedFile> removed = fileRepository.deleteAll(userId, names);
+        releaseStorage(userId, removed);
+
+        Set<String> removedNames = new HashSet<>();
+        removed.forEach(file -> removedNames.add(file.fileName()));
+
+        List<FileResultDto> results = new ArrayList<>(names.size());
+        for (String name : names) {
+            results.add(removedNames.contains(name)
+                    ? new FileResultDto(name, "File deleted successfully", 200)
+                    : notFound(userId, name));
+        }
+        log.debug("Deleted {} of {} file(s) for user id '{}'", removed.size(), names.size(), userId);
+
+        return results;
+    }
+
+    /**
+     * @param glob {@code *} and {@code ?} wildcards, see {@link FileNamePattern#globToLike}
+     * @return one result per deleted file
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public List<FileResultDto> deleteMatchingFiles(int userId, String glob) throws IOException {
+        List<FileBatchRepository.RemovedFile> removed =
+                fileRepository.deleteMatching(userId, FileNamePattern.globToLike(glob));
+        if (removed.size() > maxFiles) {
+            // rolls the DELETE back
+            throw new IllegalArgumentException("Pattern matches more than " + maxFiles + " files.");
+        }
+        releaseStorage(userId, removed);
+        log.debug("Deleted {} file(s) matching '{}' for user id '{}'", removed.size(), glob, userId);
+
+        return removed.stream()
+                .map(file -> new FileResultDto(file.fileName(), "File deleted successfully", 200))
+                .toList();
+    }
+
+    /**
+     * @param newNames new names by old name
+     * @return one result per old name, in the order of {@code newNames}
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public List<FileResultDto> renameFiles(int userId, Map<String, String> newNames) throws IOException {
+        checkCount(newNames != null ? newNames.keySet() : null);
+
+        Map<String, FileResultDto> results = new LinkedHashMap<>();
+        Map<String, String> valid = new LinkedHashMap<>();
+        Set<String> targets = new HashSet<>();
+        newNames.forEach((oldName, newName) -> {
+            try {
+                FileValidator.validateFilename(newName);
+                if (!targets.add(newName)) {
+                    throw new InvalidFileException("File with name '" + newName + "' is already in this request");
+                }
+                valid.put(oldName, newName);
+                results.put(oldName, null);
+            } catch (InvalidFileException e) {
+                results.put(oldName, new FileResultDto(oldName, e.getMessage(), 400));
+            }
+        });
+
+        List<FileBatchRepository.RenamedFile> renamed = valid.isEmpty() ? List.of() : renameAll(userId, valid);
+        List<String> renamedNames = new ArrayList<>();
+        renamed.forEach(file -> {
+            renamedNames.add(file.oldFileName());
+            renamedNames.add(file.newFileName());
+        });
+        metadataCache.evict(userId, renamedNames);
+        Set<String> failed = moveLegacyFiles(userId, renamed);
+
+        for (FileBatchRepository.RenamedFile file : renamed) {
+            results.put(file.oldFileName(), failed.contains(file.oldFileName())
+                    ? new FileResultDto(file.oldFileName(), "Error renaming file in Storage", 500)
+                    : new FileResultDto(file.oldFileName(), "File renamed successfully", 200));
+        }
+
+        if (renamed.size() < valid.size()) {
+            reportNotRenamed(userId, valid, results);
+        }
+        log.debug("Renamed {} of {} file(s) for user id '{}'", renamed.size() - failed.size(), newNames.size(), userId);
+
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Replaces {@code prefix} with {@code newPrefix} in the names of all files starting with it.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public List<FileResultDto> renameByPrefix(int userId, String prefix, String newPrefix) throws IOException {
+        if (newPrefix == null) {
+            throw new IllegalArgumentException("New prefix is required.");
+        }
+
+        List<String> names = fileRepository.findNamesMatching(userId, FileNamePattern.prefixToLike(prefix));
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        checkCount(names);
+
+        Map<String, String> newNames = new LinkedHashMap<>();
+        names.forEach(name -> newNames.put(name, newPrefix + name.substring(prefix.length())));
+
+        return renameFiles(userId, newNames);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        storageExecutor.shutdown();
+    }
+
+    /**
+     * Quota and blob references of the deleted rows, and the deletion of the storage objects
+     * nothing refers to any more.
+     */
+    private void releaseStorage(int userId, List<FileBatchRepository.RemovedFile> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        quotaService.release(userId, removed.stream().mapToLong(FileBatchRepository.RemovedFile::size).sum(),
+                removed.size());
+        metadataCache.evict(userId, removed.stream().map(FileBatchRepository.RemovedFile::fileName).toList());
+
+        List<String> blobHashes = new ArrayList<>();
+        List<StorageOutbox.Deletion> deletions = new ArrayList<>();
+        for (FileBatchRepository.RemovedFile file : removed) {
+            if (file.blobHash() != null) {
+                blobHashes.add(file.blobHash());
+            } else {
+                String key = fileService.legacyKey(file.fileLocation(), file.fileName());
+                deletions.add(StorageOutbox.Deletion.object(key));
+            }
+        }
+        if (!blobHashes.isEmpty()) {
+            deletions.addAll(blobService.releaseAll(blobHashes));
+        }
+        storageOutbox.enqueue(deletions);
+    }
+
+    private List<FileBatchRepository.RenamedFile> renameAll(int userId, Map<String, String> newNames) {
+        try {
+            return fileRepository.renameAll(userId, newNames);
+        } catch (DataIntegrityViolationException e) {
+            // a file with one of the new names was uploaded concurrently
+            log.warn("Bulk rename for user id '{}' ran into a taken name: {}", userId, e.getMessage());
+            throw new InvalidFileException("Some of the new file names already exist");
+        }
+    }
+
+    /**
+     * Blob-backed files are not stored under their name. Rows of legacy files that could not be moved
+     * are renamed back.
+     *
+     * @return old names of the files that keep them
+     */
+    private Set<String> moveLegacyFiles(int userId, List<FileBatchRepository.RenamedFile> renamed) {
+        Map<String, FileBatchRepository.RenamedFile> legacy = new HashMap<>();
+        for (FileBatchRepository.RenamedFile file : renamed) {
+            if (file.blobHash() == null) {
+                legacy.put(file.oldFileName(), file);
+            }
+        }
+        if (legacy.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<String, Exception> failures = inParallel(legacy.keySet(), oldName -> {
+            FileBatchRepository.RenamedFile file = legacy.get(oldName);
+            storageBackend.move(fileService.legacyKey(file.fileLocation(), file.oldFileName()),
+                    fileService.legacyKey(file.fileLocation(), file.newFileName()));
+        });
+        if (failures.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<String, String> oldNames = new HashMap<>();
+        failures.forEach((oldName, e) -> {
+            log.error("Failed to move '{}' in Storage, keeping its name: {}", oldName, e.getMessage());
+            oldNames.put(legacy.get(oldName).newFileName(), oldName);
+        });
+        // the old names are still held by this transaction
+        fileRepository.renameAll(userId, oldNames);
+
+        return failures.keySet();
+    }
+
+    /**
+     * Tells a missing file from a taken new name, with one query for all files that were not renamed.
+     */
+    private void reportNotRenamed(int userId, Map<String, String> newNames, Map<String, FileResultDto> results) {
+        List<String> candidates = new ArrayList<>();
+        newNames.forEach((oldName, newName) -> {
+            if (results.get(oldName) == null) {
+                candidates.add(oldName);
+                candidates.add(newName);
+            }
+        });
+        Set<String> existing = new HashSet<>(fileRepository.findExistingNames(userId, candidates));
+
+        newNames.forEach((oldName, newName) -> {
+            if (results.get(oldName) != null) {
+                return;
+            }
+            if (!existing.contains(oldName)) {
+                results.put(oldName, notFound(userId, oldName));
+            } else {
+                log.warn("File '{}' already exists for user id '{}'", newName, userId);
+                results.put(oldName, new FileResultDto(oldName, "File with name '" + newName + "' already exist", 400));
+            }
+        });
+    }
+
+    /**
+     * Runs the storage operation for all items on the pool and waits for all of them.
+     *
+     * @return the failures by item
+     */
+    private <T> Map<T, Exception> inParallel(Collection<T> items, StorageOperation<T> operation) {
+        Map<T, Future<?>> futures = new LinkedHashMap<>();
+        for (T item : items) {
+            futures.put(item, storageExecutor.submit(() -> {
+                operation.run(item);
+                return null;
+            }));
+        }
+
+        Map<T, Exception> failures = new LinkedHashMap<>();
+        for (Map.Entry<T, Future<?>> future : futures.entrySet()) {
+            try {
+                future.getValue().get();
+            } catch (ExecutionException e) {
+                failures.put(future.getKey(), e.getCause() instanceof Exception cause ? cause : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(pending -> pending.cancel(true));
+                throw new FileStorageException("Interrupted while waiting for Storage");
+            }
+        }
+        return failures;
+    }
+
+    private void checkCount(Collection<String> filenames) {
+        if (filenames == null || filenames.isEmpty()) {
+            throw new IllegalArgumentException("At least one file name is required.");
+        }
+        if (filenames.size() > maxFiles) {
+            throw new IllegalArgumentException("At most " + maxFiles + " files can be changed at once.");
+        }
+    }
+
+    private FileResultDto notFound(int userId, String filename) {
+        log.warn("File '{}' not found in DB for user id '{}'", filename, userId);
+        return new FileResultDto(filename, "File with name '" + filename + "' does not exist", 400);
+    }
+
+    private interface StorageOperation<T> {
+
+        void run(T item) throws IOException;
+    }
+}
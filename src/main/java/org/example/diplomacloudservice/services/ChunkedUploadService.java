@@ -0,0 +1,434 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.UploadSessionDto;
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.example.diplomacloudservice.utils.ContentSniffer;
+import org.example.diplomacloudservice.utils.FileValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable uploads: initiate, put chunks in any order (in parallel), query what was received, complete.
+ * Chunks are written at their offsets into a pre-sized part file under {@code user_<id>/.uploads};
+ * the {@code files} row is created by {@link FileService} only on complete.
+ * Sessions live in memory, part files left behind by a restart are removed by the reaper. With several instances
+ * every request of an upload has to reach the instance that initiated it (sticky routing by upload id),
+ * the others answer that the session does not exist.
+ * <p>
+ * The bytes of open sessions are not in {@code users.used_bytes} until they complete, so {@link #initiate}
+ * checks the quota for them together with the new upload, and caps the number of open sessions per user.
+ */
+@Log4j2
+@Service
+public class ChunkedUploadService {
+
+    static final String UPLOADS_DIR = ".uploads";
+    private static final String PART_SUFFIX = ".part";
+
+    @Value("${file.storage.location:storage}")
+    String storagePath;
+
+    @Value("${file.upload.max-file-size:10GB}")
+    DataSize maxFileSize;
+
+    @Value("${file.upload.buffer-size:64KB}")
+    DataSize bufferSize;
+
+    @Value("${file.upload.chunked.default-chunk-size:8MB}")
+    DataSize defaultChunkSize;
+
+    @Value("${file.upload.chunked.max-chunk-size:64MB}")
+    DataSize maxChunkSize;
+
+    @Value("${file.upload.chunked.session-ttl:24h}")
+    Duration sessionTtl;
+
+    @Value("${file.upload.chunked.max-sessions-per-user:16}")
+    int maxSessionsPerUser;
+
+    private final FileService fileService;
+    private final QuotaService quotaService;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(FileService fileService, QuotaService quotaService) {
+        this.fileService = fileService;
+        this.quotaService = quotaService;
+    }
+
+    public UploadSessionDto initiate(int userId, String filename, long size, Long chunkSize) throws IOException {
+        FileValidator.validateFilename(filename);
+
+        if (size <= 0) {
+            throw new IllegalArgumentException("File size must be greater than 0.");
+        }
+        if (size > maxFileSize.toBytes()) {
+            throw new InvalidFileException("File size exceeds the maximum of " + maxFileSize.toBytes() + " bytes");
+        }
+
+        long effectiveChunkSize = chunkSize != null ? chunkSize : defaultChunkSize.toBytes();
+        if (effectiveChunkSize <= 0 || effectiveChunkSize > maxChunkSize.toBytes()) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + maxChunkSize.toBytes() + " bytes.");
+        }
+
+        long totalChunks = (size + effectiveChunkSize - 1) / effectiveChunkSize;
+        if (totalChunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk size is too small for a file of this size.");
+        }
+
+        if (fileService.fileExistsForUser(userId, filename)) {
+            log.warn("File '{}' already exists for user id '{}'", filename, userId);
+            throw new InvalidFileException("File with name '" + filename + "' already exist");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        UploadSession session;
+        // the check and the put are one step, so concurrent initiates of a user do not each fit the quota alone
+        synchronized (sessions) {
+            int open = 0;
+            long openBytes = 0;
+            for (UploadSession other : sessions.values()) {
+                if (other.userId == userId) {
+                    open++;
+                    openBytes += other.size;
+                }
+            }
+
+            if (open >= maxSessionsPerUser) {
+                log.warn("User id '{}' already has {} open upload(s)", userId, open);
+                throw new InvalidFileException("No more than " + maxSessionsPerUser + " uploads may be open at once");
+            }
+            quotaService.ensureAvailable(userId, openBytes + size);
+
+            Path partFile = fileService.getUserDirectory(userId).resolve(UPLOADS_DIR).resolve(uploadId + PART_SUFFIX);
+            session = new UploadSession(uploadId, userId, filename, size, effectiveChunkSize, (int) totalChunks, partFile);
+            sessions.put(uploadId, session);
+        }
+
+        try {
+            Path uploadsDir = Files.createDirectories(session.partFile.getParent());
+
+            if (Files.getFileStore(uploadsDir).getUsableSpace() < size) {
+                log.error("Not enough space in Storage for {} bytes", size);
+                throw new FileStorageException("Not enough space in Storage");
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(session.partFile.toFile(), "rw")) {
+                file.setLength(size);
+            }
+        } catch (IOException | RuntimeException e) {
+            sessions.remove(uploadId);
+            deleteQuietly(session.partFile);
+            throw e;
+        }
+        log.debug("Upload '{}' started for user id '{}': file '{}', {} bytes in {} chunks",
+                uploadId, userId, filename, size, totalChunks);
+
+        return toDto(session);
+    }
+
+    /**
+     * Writes one chunk at its offset. Chunks may arrive in any order and concurrently;
+     * a chunk is marked received only once all its bytes are on disk.
+     * Chunks hold the session's read lock while they are written, {@link #complete} and {@link #abort}
+     * take the write lock, so they wait for the chunks in flight and no chunk starts after them.
+     */
+    public void putChunk(int userId, String uploadId, int index, InputStream content) throws IOException {
+        UploadSession session = getSession(userId, uploadId);
+
+        if (index < 0 || index >= session.totalChunks) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.totalChunks - 1) + ".");
+        }
+
+        Lock writing = session.lock.readLock();
+        writing.lock();
+        try {
+            if (session.completing) {
+                throw new InvalidFileException("Upload '" + uploadId + "' is already being completed");
+            }
+            session.touch();
+
+            long offset = index * session.chunkSize;
+            long expected = Math.min(session.chunkSize, session.size - offset);
+
+            long written = writeAt(content, session.partFile, offset, expected, index);
+            if (written != expected) {
+                log.warn("Chunk {} of upload '{}' is incomplete: {} of {} bytes", index, uploadId, written, expected);
+                throw new InvalidFileException("Chunk " + index + " must be " + expected + " bytes, received " + written);
+            }
+
+            session.markReceived(index);
+        } finally {
+            writing.unlock();
+        }
+        log.debug("Chunk {} of upload '{}' received", index, uploadId);
+    }
+
+    public UploadSessionDto getStatus(int userId, String uploadId) {
+        UploadSession session = getSession(userId, uploadId);
+        session.touch();
+
+        return toDto(session);
+    }
+
+    /**
+     * Hashes the assembled file and hands it to {@link FileService#commitUploadedFile}.
+     * If the commit fails the session stays open, so the client can retry or abort.
+     */
+    public void complete(int userId, String uploadId) throws IOException {
+        UploadSession session = getSession(userId, uploadId);
+        session.beginClosing();
+
+        boolean completed = false;
+        try {
+            int missing = session.missingChunks();
+            if (missing > 0) {
+                throw new InvalidFileException("Upload '" + uploadId + "' is missing " + missing + " chunk(s)");
+            }
+
+            String contentType = detectContentType(session);
+            String contentHash = ContentDigest.sha256Hex(session.partFile,
+                    ByteBuffer.allocate((int) bufferSize.toBytes()));
+            fileService.commitUploadedFile(userId, session.filename, session.partFile, session.size,
+                    contentHash, contentType);
+
+            sessions.remove(uploadId);
+            // still there if the content was already stored
+            Files.deleteIfExists(session.partFile);
+            completed = true;
+            log.debug("Upload '{}' completed: file '{}' for user id '{}'", uploadId, session.filename, userId);
+        } finally {
+            if (!completed) {
+                session.completing = false;
+                session.touch();
+            }
+        }
+    }
+
+    public void abort(int userId, String uploadId) throws IOException {
+        UploadSession session = getSession(userId, uploadId);
+        session.beginClosing();
+
+        sessions.remove(uploadId);
+        Files.deleteIfExists(session.partFile);
+        log.debug("Upload '{}' aborted by user id '{}'", uploadId, userId);
+    }
+
+    /**
+     * Drops sessions idle for longer than the TTL, and part files that no session knows about
+     * (left over from a restart) once they are older than the TTL.
+     */
+    @Scheduled(fixedDelayString = "${file.upload.chunked.reap-interval:600000}")
+    public void reapAbandonedUploads() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        int reaped = 0;
+
+        for (UploadSession session : sessions.values()) {
+            if (!session.completing && !session.lastAccess.isAfter(cutoff) && sessions.remove(session.id, session)) {
+                deleteQuietly(session.partFile);
+                reaped++;
+            }
+        }
+
+        reaped += removeOrphanedParts(cutoff);
+        if (reaped > 0) {
+            log.info("Reaped {} abandoned upload(s)", reaped);
+        }
+    }
+
+    int activeSessions() {
+        return sessions.size();
+    }
+
+    private int removeOrphanedParts(Instant cutoff) {
+        Path storageDir = Paths.get(storagePath);
+        if (!Files.isDirectory(storageDir)) {
+            return 0;
+        }
+
+        int removed = 0;
+        try (DirectoryStream<Path> userDirs = Files.newDirectoryStream(storageDir, "user_*")) {
+            for (Path userDir : userDirs) {
+                Path uploadsDir = userDir.resolve(UPLOADS_DIR);
+                if (!Files.isDirectory(uploadsDir)) {
+                    continue;
+                }
+
+                try (DirectoryStream<Path> parts = Files.newDirectoryStream(uploadsDir, "*" + PART_SUFFIX)) {
+                    for (Path part : parts) {
+                        String fileName = part.getFileName().toString();
+                        String uploadId = fileName.substring(0, fileName.length() - PART_SUFFIX.length());
+
+                        if (!sessions.containsKey(uploadId)
+                                && !Files.getLastModifiedTime(part).toInstant().isAfter(cutoff)) {
+                            deleteQuietly(part);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error scanning Storage for abandoned uploads", e);
+        }
+        return removed;
+    }
+
+    /**
+     * From the head of the assembled file, which is checked like the head of a single upload.
+     */
+    private String detectContentType(UploadSession session) throws IOException {
+        byte[] head = new byte[ContentSniffer.HEAD_LENGTH];
+        int headLength;
+        try (InputStream in = Files.newInputStream(session.partFile)) {
+            headLength = in.readNBytes(head, 0, head.length);
+        }
+
+        FileValidator.validateContent(session.filename, head, headLength);
+        return ContentSniffer.detect(session.filename, head, headLength);
+    }
+
+    /**
+     * Heap buffer: the chunk comes from an {@code InputStream}, which reads into an array anyway.
+     */
+    private long writeAt(InputStream content, Path partFile, long offset, long expected, int index) throws IOException {
+        byte[] bytes = new byte[(int) bufferSize.toBytes()];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long end = offset + expected;
+        long position = offset;
+
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE)) {
+            for (int read; (read = content.read(bytes)) != -1; ) {
+                if (position + read > end) {
+                    throw new InvalidFileException("Chunk " + index + " must be " + expected + " bytes");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        }
+        return position - offset;
+    }
+
+    private UploadSession getSession(int userId, String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+
+        if (session == null || session.userId != userId) {
+            log.warn("Upload session '{}' not found for user id '{}'", uploadId, userId);
+            throw new InvalidFileException("Upload session '" + uploadId + "' does not exist");
+        }
+        return session;
+    }
+
+    private UploadSessionDto toDto(UploadSession session) {
+        return new UploadSessionDto(session.id, session.filename, session.size,
+                session.chunkSize, session.totalChunks, session.receivedRanges());
+    }
+
+    private void deleteQuietly(Path partFile) {
+        try {
+            Files.deleteIfExists(partFile);
+        } catch (IOException e) {
+            log.error("Error deleting abandoned upload '{}'", partFile, e);
+        }
+    }
+
+    private static final class UploadSession {
+
+        final String id;
+        final int userId;
+        final String filename;
+        final long size;
+        final long chunkSize;
+        final int totalChunks;
+        final Path partFile;
+
+        private final BitSet received;
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * Set under the write lock, so a chunk that saw it clear is on disk before complete or abort go on.
+         */
+        volatile boolean completing;
+        volatile Instant lastAccess = Instant.now();
+
+        UploadSession(String id, int userId, String filename, long size, long chunkSize, int totalChunks, Path partFile) {
+            this.id = id;
+            this.userId = userId;
+            this.filename = filename;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+            this.partFile = partFile;
+            this.received = new BitSet(totalChunks);
+        }
+
+        void touch() {
+            lastAccess = Instant.now();
+        }
+
+        /**
+         * Waits for the chunks being written and keeps new ones out.
+         *
+         * @throws InvalidFileException if the session is already being completed or aborted
+         */
+        void beginClosing() {
+            Lock closing = lock.writeLock();
+            closing.lock();
+            try {
+                if (completing) {
+                    throw new InvalidFileException("Upload '" + id + "' is already being completed");
+                }
+                completing = true;
+            } finally {
+                closing.unlock();
+            }
+        }
+
+        synchronized void markReceived(int index) {
+            received.set(index);
+        }
+
+        synchronized int missingChunks() {
+            return totalChunks - received.cardinality();
+        }
+
+        synchronized List<int[]> receivedRanges() {
+            List<int[]> ranges = new ArrayList<>();
+            int from = received.nextSetBit(0);
+
+            while (from >= 0) {
+                int to = received.nextClearBit(from) - 1;
+                ranges.add(new int[]{from, to});
+                from = received.nextSetBit(to + 1);
+            }
+            return ranges;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which uploads are stored compressed: files whose name maps to one of {@code file.compression.types}
+ * or ends with one of {@code file.compression.extensions}. Off unless {@code file.compression.enabled}.
+ */
+@Service
+public class CompressionService {
+
+    private final boolean enabled;
+    private final ContentCodec codec;
+    private final int level;
+    private final List<MediaType> types;
+    private final Set<String> extensions;
+
+    public CompressionService(@Value("${file.compression.enabled:false}") boolean enabled,
+                              @Value("${file.compression.codec:zstd}") String codec,
+                              @Value("${file.compression.level:3}") int level,
+                              @Value("${file.compression.types:text/*,application/json,application/xml}") List<String> types,
+                              @Value("${file.compression.extensions:txt,csv,json,log,xml}") List<String> extensions) {
+        this.enabled = enabled;
+        this.codec = ContentCodec.fromValue(codec);
+        this.level = level;
+        this.types = MediaType.parseMediaTypes(types);
+        this.extensions = extensions.stream()
+                .map(extension -> extension.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    public ContentCodec codecFor(String filename) {
+        if (!enabled || codec == ContentCodec.NONE) {
+            return ContentCodec.NONE;
+        }
+
+        int dotIndex = filename.lastIndexOf('.');
+        if (dotIndex != -1 && extensions.contains(filename.substring(dotIndex + 1).toLowerCase(Locale.ROOT))) {
+            return codec;
+        }
+        return MediaTypeFactory.getMediaType(filename)
+                .filter(mediaType -> types.stream().anyMatch(type -> type.includes(mediaType)))
+                .map(mediaType -> codec)
+                .orElse(ContentCodec.NONE);
+    }
+
+    /**
+     * At the configured level.
+     */
+    public OutputStream encode(ContentCodec contentCodec, OutputStream out) throws IOException {
+        return contentCodec.encode(out, level);
+    }
+}
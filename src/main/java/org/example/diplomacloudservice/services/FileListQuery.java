@@ -0,0 +1,109 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.dto.FileListSort;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parameters of one {@code /list} page and the cursor that continues it, shared by the JPA and the R2DBC reads.
+ */
+@Log4j2
+@Getter
+final class FileListQuery {
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    private final int limit;
+    private final FileListSort sort;
+    private final boolean descending;
+
+    /**
+     * Position of the previous page's last file, {@code null} for the first page.
+     */
+    private final FileListEntry after;
+
+    private FileListQuery(int limit, FileListSort sort, boolean descending, FileListEntry after) {
+        this.limit = limit;
+        this.sort = sort;
+        this.descending = descending;
+        this.after = after;
+    }
+
+    /**
+     * @param cursor {@link FileListPage#getNextCursor()} of the previous page, {@code null} for the first page
+     */
+    static FileListQuery of(Integer limit, String sort, String order, String cursor) {
+        if (limit == null) {
+            throw new IllegalArgumentException("Limit parameter is required and cannot be null.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0.");
+        }
+
+        FileListSort fileListSort = FileListSort.fromParam(sort);
+        boolean descending = Sort.Direction.fromString(order).isDescending();
+        FileListEntry after = cursor != null ? decodeCursor(cursor, fileListSort) : null;
+
+        return new FileListQuery(limit, fileListSort, descending, after);
+    }
+
+    /**
+     * One row more than asked tells whether there is a next page.
+     */
+    int getFetchSize() {
+        return (int) Math.min((long) limit + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param entries up to {@link #getFetchSize()} rows in the requested order
+     */
+    FileListPage toPage(List<FileListEntry> entries) {
+        String nextCursor = null;
+        if (entries.size() > limit) {
+            entries = entries.subList(0, limit);
+            nextCursor = encodeCursor(entries.get(limit - 1), sort);
+        }
+
+        List<FileInfoDto> files = entries.stream()
+                .map(entry -> new FileInfoDto(entry.getFileName(), entry.getSize()))
+                .toList();
+        return new FileListPage(files, nextCursor);
+    }
+
+    private static String encodeCursor(FileListEntry entry, FileListSort sort) {
+        String key = sort == FileListSort.NAME
+                ? entry.getFileName()
+                : entry.getCreatedAt() + CURSOR_SEPARATOR + entry.getId();
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort + CURSOR_SEPARATOR + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FileListEntry decodeCursor(String cursor, FileListSort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(Pattern.quote(CURSOR_SEPARATOR), sort == FileListSort.NAME ? 2 : 3);
+
+            if (FileListSort.valueOf(parts[0]) != sort) {
+                throw new IllegalArgumentException("cursor was issued for sort " + parts[0]);
+            }
+            return sort == FileListSort.NAME
+                    ? new FileListEntry(parts[1], null)
+                    : new FileListEntry(Integer.parseInt(parts[2]), null, null, LocalDateTime.parse(parts[1]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            log.warn("Invalid list cursor '{}': {}", cursor, e.getMessage());
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.diplomacloudservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.diplomacloudservice.entities.File;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * {@code files} rows of recent downloads by user and name, so that a hot file is served without a query.
+ * Entries are evicted when the row is inserted, deleted or renamed on this instance, again after commit so that
+ * a concurrent read cannot put the old row back; other instances see the change after {@code file.cache.metadata.ttl}.
+ * The cached rows are detached and shared: callers only read them.
+ */
+@Component
+public class FileMetadataCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final Cache<Key, File> cache;
+
+    public FileMetadataCache(@Value("${file.cache.enabled:false}") boolean enabled,
+                             @Value("${file.cache.metadata.maximum-size:10000}") long maximumSize,
+                             @Value("${file.cache.metadata.ttl:30s}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param loader reads the row, nothing is cached if there is none
+     */
+    public Optional<File> get(int userId, String filename, Supplier<Optional<File>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(userId, filename);
+        File cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<File> loaded = loader.get();
+        loaded.ifPresent(file -> cache.put(key, file));
+        return loaded;
+    }
+
+    /**
+     * Same, for a non-blocking loader.
+     */
+    public Mono<File> get(int userId, String filename, Mono<File> loader) {
+        if (!enabled) {
+            return loader;
+        }
+
+        Key key = new Key(userId, filename);
+        return Mono.defer(() -> {
+            File cached = cache.getIfPresent(key);
+            return cached != null ? Mono.just(cached) : loader.doOnNext(file -> cache.put(key, file));
+        });
+    }
+
+    public void evict(int userId, String... filenames) {
+        evict(userId, List.of(filenames));
+    }
+
+    public void evict(int userId, Collection<String> filenames) {
+        if (!enabled || filenames.isEmpty()) {
+            return;
+        }
+
+        List<Key> keys = filenames.stream().map(filename -> new Key(userId, filename)).toList();
+        evictNowAndAfterCompletion(() -> cache.invalidateAll(keys));
+    }
+
+    /**
+     * Evicts the rows of every file with the blob, whose codec and stored size are read along with the row.
+     * Walks the whole cache: blobs are re-encoded only when a lost or damaged one is restored from an upload.
+     */
+    public void evictBlob(String hash) {
+        if (!enabled) {
+            return;
+        }
+
+        evictNowAndAfterCompletion(() -> cache.asMap().values().removeIf(file -> hash.equals(file.getBlobHash())));
+    }
+
+    private static void evictNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, "file.metadata");
+        }
+    }
+
+    private record Key(int userId, String filename) {
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.Getter;
+import org.example.diplomacloudservice.dto.FileSearchFilter;
+import org.example.diplomacloudservice.dto.FileSearchRequest;
+import org.example.diplomacloudservice.utils.FileNamePattern;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parameters of one {@code /search} page. Pages go by name, with the cursors of {@code /list?sort=name}.
+ */
+@Getter
+final class FileSearchQuery {
+
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
+    private final FileSearchFilter filter;
+    private final FileListQuery page;
+
+    private FileSearchQuery(FileSearchFilter filter, FileListQuery page) {
+        this.filter = filter;
+        this.page = page;
+    }
+
+    /**
+     * @param textConfig text search configuration of the indexed content, {@code null} if full-text search is off
+     */
+    static FileSearchQuery of(FileSearchRequest request, String textConfig) {
+        FileListQuery page = FileListQuery.of(request.getLimit(), "name", "asc", request.getCursor());
+
+        if (request.getMinSize() != null && request.getMinSize() < 0) {
+            throw new IllegalArgumentException("minSize cannot be negative.");
+        }
+        if (request.getMinSize() != null && request.getMaxSize() != null
+                && request.getMaxSize() < request.getMinSize()) {
+            throw new IllegalArgumentException("maxSize cannot be less than minSize.");
+        }
+
+        LocalDateTime createdFrom = request.getFrom() != null ? parseDate(request.getFrom(), "from", false) : null;
+        LocalDateTime createdTo = request.getTo() != null ? parseDate(request.getTo(), "to", true) : null;
+        if (createdFrom != null && createdTo != null && createdTo.isBefore(createdFrom)) {
+            throw new IllegalArgumentException("to cannot be before from.");
+        }
+
+        String text = request.getText() != null && !request.getText().isBlank() ? request.getText().trim() : null;
+        if (text != null && textConfig == null) {
+            throw new IllegalArgumentException("Search by content is not enabled.");
+        }
+
+        FileSearchFilter filter = FileSearchFilter.builder()
+                .nameContains(request.getName() != null ? FileNamePattern.substringToLike(request.getName()) : null)
+                .namePrefix(request.getPrefix() != null ? FileNamePattern.prefixToLike(request.getPrefix()) : null)
+                .nameSuffix(request.getExt() != null ? FileNamePattern.extensionToLike(request.getExt()) : null)
+                .minSize(request.getMinSize())
+                .maxSize(request.getMaxSize())
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .text(text)
+                .textConfig(text != null ? textConfig : null)
+                .build();
+        return new FileSearchQuery(filter, page);
+    }
+
+    /**
+     * @param end a date stands for the end of the day instead of its start
+     */
+    private static LocalDateTime parseDate(String value, String param, boolean end) {
+        try {
+            if (value.length() == DATE_LENGTH) {
+                LocalDate date = LocalDate.parse(value);
+                return (end ? date.plusDays(1) : date).atStartOfDay();
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + param + " '" + value
+                    + "', expected a date (2024-01-31) or a date-time (2024-01-31T10:15:30).");
+        }
+    }
+}
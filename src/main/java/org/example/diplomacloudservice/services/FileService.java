@@ -1,27 +1,57 @@
 package org.example.diplomacloudservice.services;
 
 import lombok.extern.log4j.Log4j2;
-import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.dto.FileSearchRequest;
 import org.example.diplomacloudservice.entities.File;
-import org.example.diplomacloudservice.entities.User;
 import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.repositories.FileBatchRepository;
 import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.DecodedResource;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.example.diplomacloudservice.utils.ContentSniffer;
+import org.example.diplomacloudservice.utils.FileValidator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * File operations for the authenticated user. The user id comes from the security principal,
+ * so every operation is a single statement against {@code files}, plus the reference count
+ * of the blob that holds the content (see {@link BlobService}).
+ * Content is read and written through the configured {@link StorageBackend}; uploads are staged
+ * on local disk under {@code file.storage.location}.
+ */
 @Log4j2
 @Service
 @Transactional(readOnly = true)
@@ -30,125 +60,430 @@ public class FileService {
     @Value("${file.storage.location:storage}")
     String storagePath;
 
-    private final FileRepository fileRepository;
-    private final UserService userService;
+    @Value("${file.upload.buffer-size:64KB}")
+    DataSize uploadBufferSize;
 
-    public FileService(FileRepository fileRepository, UserService userService) {
+    private final FileRepository fileRepository;
+    private final BlobService blobService;
+    private final QuotaService quotaService;
+    private final StorageBackend storageBackend;
+    private final CompressionService compressionService;
+    private final FileMetadataCache metadataCache;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageOutbox storageOutbox;
+    private final FileTextIndexer textIndexer;
+
+    /**
+     * Temp files of {@link #stageFile} until they are discarded: those of a batch wait for the whole request,
+     * so {@link StorageReconciler} must not take them for abandoned however long they sit unchanged.
+     */
+    private final Set<Path> stagedPaths = ConcurrentHashMap.newKeySet();
+
+    public FileService(FileRepository fileRepository, BlobService blobService, QuotaService quotaService,
+                       StorageBackend storageBackend, CompressionService compressionService,
+                       FileMetadataCache metadataCache, TransactionTemplate transactionTemplate,
+                       StorageOutbox storageOutbox, FileTextIndexer textIndexer) {
         this.fileRepository = fileRepository;
-        this.userService = userService;
+        this.blobService = blobService;
+        this.quotaService = quotaService;
+        this.storageBackend = storageBackend;
+        this.compressionService = compressionService;
+        this.metadataCache = metadataCache;
+        this.transactionTemplate = transactionTemplate;
+        this.storageOutbox = storageOutbox;
+        this.textIndexer = textIndexer;
     }
 
-    public boolean fileExistsForUser(String filename, String username) {
-        User owner = userService.getUserByUsername(username);
-        Optional<File> maybeFile = fileRepository.findByFileNameAndUserId(filename, owner.getId());
+    /**
+     * Streams the content into a temp file next to its final location, then inserts the row and moves
+     * the file into place in one short transaction. No DB connection is held while the bytes arrive.
+     * A user already at the quota is rejected before anything is written, and the write stops
+     * as soon as the content outgrows what is left of it. Compressible content is encoded on the way
+     * (see {@link CompressionService}); the quota counts the original size.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void uploadFileForUser(int userId, String filename, InputStream content) throws IOException {
+        log.debug("Starting file upload for user id: {}, filename: {}", userId, filename);
+
+        // empty uploads are rejected anyway, so at least one byte has to fit
+        quotaService.ensureAvailable(userId, 1);
+
+        StagedFile staged = stageFile(userId, filename, content, quotaService.getRemainingBytes(userId));
+        try {
+            commitUploadedFile(userId, filename, staged.path(), staged.size(), staged.contentHash(),
+                    staged.contentType(), staged.codec());
+        } finally {
+            discardStaged(staged);
+        }
+    }
 
-        return maybeFile.isPresent();
+    /**
+     * Many files in one request: see {@link BatchUpload}. The quota left is read once, when the batch starts.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchUpload startBatchUpload(int userId) {
+        return new BatchUpload(this, userId, quotaService.getRemainingBytes(userId));
     }
 
-    @Transactional
-    public void uploadFileForUser(String username, String filename, MultipartFile multipartFile) throws IOException {
-        log.debug("Starting file upload for user: {}, filename: {}", username, filename);
-        User fileOwner = userService.getUserByUsername(username);
+    /**
+     * Inserts the row and references the blob in one short transaction. The staged file becomes the blob
+     * if this content is new; otherwise (or if the commit fails) it is left for the caller to delete.
+     *
+     * @param stagedFile  fully written local file
+     * @param contentType see {@link ContentSniffer#detect}
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void commitUploadedFile(int userId, String filename, Path stagedFile,
+                                   long size, String contentHash, String contentType) throws IOException {
+        commitUploadedFile(userId, filename, stagedFile, size, contentHash, contentType, ContentCodec.NONE);
+    }
 
-        Path userDir = Paths.get(storagePath, "user_" + fileOwner.getId());
-        log.debug("User directory: {}", userDir.toString());
+    /**
+     * @param size  of the original content
+     * @param codec how the staged file is encoded
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void commitUploadedFile(int userId, String filename, Path stagedFile, long size, String contentHash,
+                                   String contentType, ContentCodec codec) throws IOException {
+        String blobKey = blobService.getBlobKey(contentHash);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int inserted = fileRepository.insertIfAbsent(userId, filename,
+                        blobKey.substring(0, blobKey.lastIndexOf('/')), size, LocalDateTime.now(), contentHash,
+                        contentType);
+
+                if (inserted == 0) {
+                    log.warn("File '{}' already exists for user id '{}'", filename, userId);
+                    throw new InvalidFileException("File with name '" + filename + "' already exist");
+                }
+                quotaService.reserve(userId, size);
+                storeBlob(contentHash, size, stagedFile, codec);
+                textIndexer.indexAfterCommit(contentHash, contentType);
+                metadataCache.evict(userId, filename);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("File '{}' saved to Storage: {}", filename, blobKey);
+    }
 
-        File fileEntity = File.builder()
-                .fileName(filename)
-                .user(fileOwner)
-                .fileLocation(userDir.toString())
-                .size(multipartFile.getSize())
-                .createdAt(LocalDateTime.now())
-                .build();
+    /**
+     * Streams the content into a temp file in the user's directory, computing its SHA-256 on the way
+     * and encoding it with the codec {@link CompressionService} picks for the name.
+     * The content type is detected from the first bytes, which are checked before anything is written.
+     * The temp file is the caller's to {@link #discardStaged discard}, unless the write fails.
+     *
+     * @param maxBytes the write fails with {@link QuotaExceededException} beyond this size
+     */
+    StagedFile stageFile(int userId, String filename, InputStream content, long maxBytes) throws IOException {
+        return stageFile(userId, filename, content, maxBytes, true);
+    }
 
-        fileRepository.save(fileEntity);
-        log.debug("File Entity save in DB: {}", fileEntity.toString());
+    /**
+     * @param validateContent {@code false} for content already in storage: it was accepted when it was uploaded,
+     *                        under the checks of the time
+     */
+    StagedFile stageFile(int userId, String filename, InputStream content, long maxBytes, boolean validateContent)
+            throws IOException {
+        byte[] head = new byte[ContentSniffer.HEAD_LENGTH];
+        int headLength = content.readNBytes(head, 0, head.length);
+        if (validateContent) {
+            FileValidator.validateContent(filename, head, headLength);
+        }
+        String contentType = ContentSniffer.detect(filename, head, headLength);
+        content = new SequenceInputStream(new ByteArrayInputStream(head, 0, headLength), content);
 
+        Path userDir = getUserDirectory(userId);
         Files.createDirectories(userDir);
-        log.debug("User Directory created");
+        log.debug("User directory: {}", userDir);
+
+        ContentCodec codec = compressionService.codecFor(filename);
+        Path tempFile = Files.createTempFile(userDir, ".upload-", ".tmp");
+        stagedPaths.add(tempFile.toAbsolutePath().normalize());
+        try {
+            WrittenFile written = writeToFile(content, tempFile, maxBytes, codec);
+            log.debug("{} bytes written to temp file: {}", written.size(), tempFile);
+
+            if (written.size() == 0) {
+                throw new InvalidFileException("There was no file attached");
+            }
+            return new StagedFile(filename, tempFile, written.size(), written.contentHash(), codec, contentType);
+        } catch (IOException | RuntimeException e) {
+            discardStaged(tempFile);
+            throw e;
+        }
+    }
 
-        Path filePath = userDir.resolve(filename);
-        log.debug("File path: {}", filePath.toString());
+    /**
+     * Deletes the temp file of {@link #stageFile}, if it was not moved into its blob.
+     */
+    void discardStaged(StagedFile staged) throws IOException {
+        discardStaged(staged.path());
+    }
 
-        multipartFile.transferTo(filePath.toFile());
-        log.info("File saved to Storage: {}", filePath.toString());
+    /**
+     * @return whether the file is the temp file of a staged upload that has not been discarded yet
+     */
+    boolean isStaged(Path file) {
+        return stagedPaths.contains(file.toAbsolutePath().normalize());
     }
 
-    @Transactional
-    public void deleteFileForUser(String username, String filename) throws IOException {
-        log.debug("Starting file delete for user: {}, filename: {}", username, filename);
-        User owner = userService.getUserByUsername(username);
-        File file = getFileFromDb(filename, owner);
+    private void discardStaged(Path tempFile) throws IOException {
+        try {
+            Files.deleteIfExists(tempFile);
+        } finally {
+            stagedPaths.remove(tempFile.toAbsolutePath().normalize());
+        }
+    }
 
-        fileRepository.delete(file);
-        log.info("File '{}' deleted from database for user '{}'", filename, username);
+    /**
+     * Inserts the rows of all staged files in one JDBC batch and stores their blobs, in one transaction.
+     * A file whose name is taken is skipped; if the rest does not fit into the quota, nothing is stored.
+     *
+     * @return for each staged file, whether it was stored
+     */
+    boolean[] commitStagedFiles(int userId, List<StagedFile> stagedFiles) throws IOException {
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<FileBatchRepository.NewFile> rows = stagedFiles.stream()
+                .map(staged -> {
+                    String blobKey = blobService.getBlobKey(staged.contentHash());
+                    return new FileBatchRepository.NewFile(staged.filename(),
+                            blobKey.substring(0, blobKey.lastIndexOf('/')), staged.size(), createdAt,
+                            staged.contentHash(), staged.contentType());
+                })
+                .toList();
 
-        Path filePath = Paths.get(file.getFileLocation(), file.getFileName());
-        log.debug("Attempting to delete file from storage: {}", filePath.toString());
+        try {
+            return transactionTemplate.execute(status -> {
+                int[] insertCounts = fileRepository.insertAllIfAbsent(userId, rows);
+
+                boolean[] inserted = new boolean[stagedFiles.size()];
+                long insertedBytes = 0;
+                int insertedFiles = 0;
+                for (int i = 0; i < inserted.length; i++) {
+                    inserted[i] = insertCounts[i] > 0;
+                    if (inserted[i]) {
+                        insertedBytes += stagedFiles.get(i).size();
+                        insertedFiles++;
+                    }
+                }
+
+                if (insertedFiles > 0) {
+                    quotaService.reserve(userId, insertedBytes, insertedFiles);
+                }
+                // blob rows are locked in hash order, so batches sharing content do not deadlock on each other
+                List<StagedFile> toStore = new ArrayList<>(insertedFiles);
+                for (int i = 0; i < inserted.length; i++) {
+                    if (inserted[i]) {
+                        toStore.add(stagedFiles.get(i));
+                    }
+                }
+                toStore.sort(Comparator.comparing(StagedFile::contentHash));
+
+                for (StagedFile staged : toStore) {
+                    storeBlob(staged.contentHash(), staged.size(), staged.path(), staged.codec());
+                    textIndexer.indexAfterCommit(staged.contentHash(), staged.contentType());
+                    metadataCache.evict(userId, staged.filename());
+                }
+                return inserted;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        Files.delete(filePath);
-        log.info("File '{}' successfully deleted from storage", filename);
+    public Path getUserDirectory(int userId) {
+        return Paths.get(storagePath, "user_" + userId);
     }
 
-    public Resource getFileForUser(String username, String filename) throws IOException {
-        User owner = userService.getUserByUsername(username);
-        File fileEntity = getFileFromDb(filename, owner);
+    @Transactional(rollbackFor = IOException.class)
+    public void deleteFileForUser(int userId, String filename) throws IOException {
+        log.debug("Starting file delete for user id: {}, filename: {}", userId, filename);
 
-        Path filePath = Paths.get(fileEntity.getFileLocation(), fileEntity.getFileName());
+        FileRepository.StorageRef storageRef = fileRepository.deleteReturningStorageRef(userId, filename)
+                .orElseThrow(() -> fileNotFound(filename, userId));
+        log.debug("File '{}' deleted from database for user id '{}'", filename, userId);
+        metadataCache.evict(userId, filename);
 
-        Resource resource = new UrlResource(filePath.toUri());
+        quotaService.release(userId, storageRef.getSize() != null ? storageRef.getSize() : 0);
+
+        if (storageRef.getBlobHash() != null) {
+            blobService.release(storageRef.getBlobHash());
+            return;
+        }
+
+        String fileKey = legacyKey(storageRef.getFileLocation(), filename);
+        storageOutbox.enqueue(List.of(StorageOutbox.Deletion.object(fileKey)));
+        log.debug("File '{}' is deleted from storage after commit: {}", filename, fileKey);
+    }
+
+    public Resource getFileForUser(int userId, String filename) throws IOException {
+        return getFileResource(getFileMetadata(userId, filename));
+    }
+
+    /**
+     * Row only, no storage access: enough to answer conditional requests. Hot files come from
+     * {@link FileMetadataCache}; no transaction, so a cached row takes no pooled connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public File getFileMetadata(int userId, String filename) {
+        return metadataCache.get(userId, filename, () -> fileRepository.findByFileNameAndUserId(filename, userId))
+                .orElseThrow(() -> fileNotFound(filename, userId));
+    }
+
+    public boolean fileExistsForUser(int userId, String filename) {
+        return fileRepository.existsByFileNameAndUserId(filename, userId);
+    }
+
+    /**
+     * The original content, decoded on the fly if the blob is stored encoded.
+     * Storage only: no transaction, so no pooled connection is taken for it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Resource getFileResource(File fileEntity) throws IOException {
+        Resource stored = getStoredResource(fileEntity);
+        ContentCodec codec = ContentCodec.fromValue(fileEntity.getCodec());
+
+        return codec == ContentCodec.NONE ? stored : new DecodedResource(stored, codec, fileEntity.getSize());
+    }
+
+    /**
+     * The object as it is in storage, encoded with {@link File#getCodec()}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Resource getStoredResource(File fileEntity) throws IOException {
+        String fileKey = fileEntity.getBlobHash() != null
+                ? blobService.getBlobKey(fileEntity.getBlobHash())
+                : legacyKey(fileEntity.getFileLocation(), fileEntity.getFileName());
+
+        Resource resource = storageBackend.get(fileKey);
 
         if (!resource.exists() || !resource.isReadable()) {
-            log.error("Error reading file '{}' from Storage", filename);
+            log.error("Error reading file '{}' from Storage", fileEntity.getFileName());
             throw new FileStorageException("Error reading file in Storage");
         }
 
         return resource;
     }
 
-    @Transactional
-    public void renameFileForUser(String username, String oldFilename, String newFilename) throws IOException {
-        User owner = userService.getUserByUsername(username);
-        File fileEntity = getFileFromDb(oldFilename, owner);
+    @Transactional(rollbackFor = IOException.class)
+    public void renameFileForUser(int userId, String oldFilename, String newFilename) throws IOException {
+        FileRepository.StorageRef storageRef;
+        try {
+            storageRef = fileRepository.renameReturningStorageRef(userId, oldFilename, newFilename)
+                    .orElseThrow(() -> fileNotFound(oldFilename, userId));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("File '{}' already exists for user id '{}'", newFilename, userId);
+            throw new InvalidFileException("File with name '" + newFilename + "' already exist");
+        }
+        metadataCache.evict(userId, oldFilename, newFilename);
 
-        Path oldFilePath = Paths.get(fileEntity.getFileLocation(), fileEntity.getFileName());
-        Path newFilePath = Paths.get(fileEntity.getFileLocation(), newFilename);
+        // blob-backed files are not stored under their name, renaming them is metadata only
+        if (storageRef.getBlobHash() == null) {
+            storageBackend.move(legacyKey(storageRef.getFileLocation(), oldFilename),
+                    legacyKey(storageRef.getFileLocation(), newFilename));
+        }
 
-        Files.move(oldFilePath, newFilePath);
+        log.debug("File '{}' renamed to '{}' for user id '{}'", oldFilename, newFilename, userId);
+    }
 
-        fileEntity.setFileName(newFilename);
-        fileRepository.save(fileEntity);
+    /**
+     * As detected on upload. Files uploaded before that go by their name: blobs are stored without an extension.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String getFileContentType(File fileEntity) {
+        if (fileEntity.getContentType() != null) {
+            return fileEntity.getContentType();
+        }
+        return MediaTypeFactory.getMediaType(fileEntity.getFileName())
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
 
-        log.info("File '{}' renamed to '{}' for user '{}'", oldFilename, newFilename, username);
+    /**
+     * One keyset page: the files after {@code cursor} in the requested order, read through a covering index.
+     *
+     * @param cursor {@link FileListPage#getNextCursor()} of the previous page, {@code null} for the first page
+     */
+    public FileListPage getUserFilesList(int userId, Integer limit, String sort, String order, String cursor) {
+        FileListQuery query = FileListQuery.of(limit, sort, order, cursor);
+
+        List<FileListEntry> entries = fileRepository.findFilesPage(userId, query.getSort(), query.isDescending(),
+                query.getAfter(), query.getFetchSize());
+        return query.toPage(entries);
     }
 
-    public String getFileContentType(Resource resource) throws IOException {
-        String contentType = Files.probeContentType(resource.getFile().toPath());
-        return (contentType != null) ? contentType : "application/octet-stream";
+    /**
+     * One page of the user's files that match all filters of the request, by name. Name filters go through
+     * a trigram index, so a substring is found among any number of files without reading them all.
+     */
+    public FileListPage searchFiles(int userId, FileSearchRequest request) {
+        FileSearchQuery query = FileSearchQuery.of(request, textIndexer.getTextConfig());
+        FileListQuery page = query.getPage();
+
+        List<FileListEntry> entries = fileRepository.searchFilesPage(userId, query.getFilter(),
+                page.getAfter() != null ? page.getAfter().getFileName() : null, page.getFetchSize());
+        return page.toPage(entries);
     }
 
-    public List<FileInfoDto> getUserFilesList(String username, Integer limit) {
-        if (limit == null) {
-            throw new IllegalArgumentException("Limit parameter is required and cannot be null.");
+    /**
+     * Copies the stream into the file through the encoder and computes the SHA-256 of the original content
+     * in the same pass. Heap buffer: the content comes from an {@code InputStream}, which reads into an array
+     * whatever buffer it is copied through.
+     *
+     * @param maxBytes the write fails with {@link QuotaExceededException} beyond this size
+     */
+    private WrittenFile writeToFile(InputStream content, Path target, long maxBytes,
+                                    ContentCodec codec) throws IOException {
+        byte[] buffer = new byte[(int) uploadBufferSize.toBytes()];
+        MessageDigest digest = ContentDigest.newSha256();
+        long written = 0;
+
+        try (OutputStream out = compressionService.encode(codec,
+                Files.newOutputStream(target, StandardOpenOption.WRITE))) {
+            for (int read; (read = content.read(buffer)) != -1; ) {
+                if (written + read > maxBytes) {
+                    throw new QuotaExceededException("Storage quota exceeded");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                written += read;
+            }
         }
-        if (limit <= 0) {
-            throw new IllegalArgumentException("Limit must be greater than 0.");
+        return new WrittenFile(written, ContentDigest.toHex(digest));
+    }
+
+    private void storeBlob(String contentHash, long size, Path stagedFile, ContentCodec codec) {
+        try {
+            blobService.store(contentHash, size, stagedFile, codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        User owner = userService.getUserByUsername(username);
+    /**
+     * Rows written before the blob store keep the absolute directory of {@code user_<id>}.
+     */
+    String legacyKey(String fileLocation, String filename) {
+        Path root = Paths.get(storagePath).toAbsolutePath().normalize();
+        Path relative = root.relativize(Paths.get(fileLocation, filename).toAbsolutePath().normalize());
 
-        return fileRepository.findFilesByUserId(owner.getId(), PageRequest.of(0, limit))
-                .stream()
-                .map(file -> new FileInfoDto(file.getFileName(), file.getSize()))
-                .toList();
+        return relative.toString().replace(relative.getFileSystem().getSeparator(), "/");
     }
 
-    private File getFileFromDb(String filename, User owner) {
+    private InvalidFileException fileNotFound(String filename, int userId) {
+        log.warn("File '{}' not found in DB for user id '{}'", filename, userId);
+        return new InvalidFileException("File with name '" + filename + "' does not exist");
+    }
+
+    private record WrittenFile(long size, String contentHash) {
+    }
 
-        return fileRepository.findByFileNameAndUserId(filename, owner.getId())
-                .orElseThrow(() -> {
-                    log.warn("File '{}' not found in DB for user '{}'", filename, owner.getLogin());
-                    return new FileStorageException("File not found in DB");
-                });
+    /**
+     * @param size of the original content
+     */
+    record StagedFile(String filename, Path path, long size, String contentHash, ContentCodec codec,
+                      String contentType) {
     }
 }
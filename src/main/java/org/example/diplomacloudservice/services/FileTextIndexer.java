@@ -0,0 +1,213 @@
+package org.example.diplomacloudservice.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.entities.Blob;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.CachingStorageBackend;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.BackgroundPass;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts the words of text files into {@code blob_texts} for {@code /search?text=}, once per blob:
+ * files with the same content share it. A file is indexed on the indexer's thread after its upload commits,
+ * the first {@code file.search.full-text.max-bytes} of its content. Uploads that found the queue full, and files
+ * stored before the index or while the service was down, are picked up by a pass over the blobs without text,
+ * after startup and every {@code file.search.full-text.reindex-interval}. Off unless
+ * {@code file.search.full-text.enabled}.
+ */
+@Log4j2
+@Service
+public class FileTextIndexer {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    @Value("${file.search.full-text.page-size:100}")
+    int pageSize;
+
+    private final boolean enabled;
+    private final String textConfig;
+    private final List<MediaType> types;
+    private final List<String> typeLikes;
+    private final int maxBytes;
+    private final BlobRepository blobRepository;
+    private final BlobService blobService;
+    private final StorageBackend storageBackend;
+    private final ExecutorService indexer;
+    private final BackgroundPass background;
+
+    /**
+     * @param textConfig PostgreSQL text search configuration the words are stemmed with
+     */
+    public FileTextIndexer(BlobRepository blobRepository, BlobService blobService, StorageBackend storageBackend,
+                           @Value("${file.search.full-text.enabled:false}") boolean enabled,
+                           @Value("${file.search.full-text.config:simple}") String textConfig,
+                           @Value("${file.search.full-text.types:text/*,application/json,application/xml}") List<String> types,
+                           @Value("${file.search.full-text.max-bytes:256KB}") DataSize maxBytes) {
+        this.blobRepository = blobRepository;
+        this.blobService = blobService;
+        this.storageBackend = storageBackend instanceof CachingStorageBackend cachingStorageBackend
+                ? cachingStorageBackend.getDelegate()
+                : storageBackend;
+        this.enabled = enabled;
+        this.textConfig = textConfig;
+        this.types = MediaType.parseMediaTypes(types);
+        this.typeLikes = this.types.stream()
+                .map(type -> type.getType() + "/" + type.getSubtype().replace("*", "%"))
+                .toList();
+        this.maxBytes = (int) Math.min(maxBytes.toBytes(), Integer.MAX_VALUE);
+        // a burst of uploads beyond the queue is left to the next pass
+        this.indexer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                Thread.ofPlatform().name("text-indexer").daemon().factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.background = new BackgroundPass("text-reindexer", this::indexPending);
+    }
+
+    /**
+     * @return the text search configuration of the index, {@code null} if search by content is off
+     */
+    public String getTextConfig() {
+        return enabled ? textConfig : null;
+    }
+
+    /**
+     * Indexes the blob once the caller's transaction commits, if the file is text.
+     */
+    public void indexAfterCommit(String hash, String contentType) {
+        if (!enabled || !isText(contentType)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            indexer.execute(() -> index(hash));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexer.execute(() -> index(hash));
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexOnStartup() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.search.full-text.reindex-interval:21600000}",
+            initialDelayString = "${file.search.full-text.reindex-interval:21600000}")
+    public void scheduledReindex() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * @return {@code false} if a pass is already running
+     */
+    public boolean start() {
+        return background.start();
+    }
+
+    /**
+     * One pass on the calling thread over the blobs without text, by hash.
+     */
+    void indexPending() {
+        int indexed = 0;
+        String afterHash = "";
+        List<String> page;
+        do {
+            page = blobRepository.findTextPending(afterHash, typeLikes, pageSize);
+            for (String hash : page) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (index(hash)) {
+                    indexed++;
+                }
+            }
+
+            if (!page.isEmpty()) {
+                afterHash = page.getLast();
+            }
+        } while (page.size() == pageSize);
+
+        if (indexed > 0) {
+            log.info("Text of {} blob(s) indexed", indexed);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        background.shutdown();
+        indexer.shutdownNow();
+    }
+
+    /**
+     * Never throws: a blob that could not be read is tried again in the next pass.
+     *
+     * @return whether the text was stored
+     */
+    boolean index(String hash) {
+        try {
+            Optional<Blob> blob = blobRepository.findById(hash);
+            if (blob.isEmpty() || blob.get().getRefCount() == 0) {
+                log.debug("Blob '{}' was deleted before its text was indexed", hash);
+                return false;
+            }
+
+            Resource stored = storageBackend.get(blobService.getBlobKey(hash));
+            byte[] head;
+            try (InputStream content = ContentCodec.fromValue(blob.get().getCodec()).decode(stored.getInputStream())) {
+                head = content.readNBytes(maxBytes);
+            }
+            // a cut through a multibyte character decodes to U+FFFD, PostgreSQL text cannot hold NUL
+            String text = new String(head, StandardCharsets.UTF_8).replace('\0', ' ');
+
+            boolean inserted = blobRepository.insertText(hash, textConfig, text, LocalDateTime.now());
+            log.debug("Text of blob '{}' indexed, {} bytes", hash, head.length);
+            return inserted;
+        } catch (IOException | DataAccessException e) {
+            log.warn("Failed to index text of blob '{}': {}", hash, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return types.stream().anyMatch(type -> type.includes(mediaType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
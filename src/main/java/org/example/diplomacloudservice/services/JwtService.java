@@ -9,6 +9,7 @@ import lombok.extern.log4j.Log4j2;
 import org.example.diplomacloudservice.entities.Token;
 import org.example.diplomacloudservice.entities.User;
 import org.example.diplomacloudservice.repositories.TokenRepository;
+import org.example.diplomacloudservice.security.AuthenticationCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,15 +23,25 @@ import java.util.Date;
 @Service
 public class JwtService {
 
-    @Value("${jwt_secret}")
-    String secret;
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
 
     private final TokenRepository tokenRepository;
     private final UserService userService;
-
-    public JwtService(TokenRepository tokenRepository, UserService userService) {
+    private final TokenBlacklistService tokenBlacklistService;
+    private final AuthenticationCache authenticationCache;
+
+    public JwtService(@Value("${jwt_secret}") String secret,
+                      TokenRepository tokenRepository, UserService userService,
+                      TokenBlacklistService tokenBlacklistService, AuthenticationCache authenticationCache) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withSubject("User details")
+                .build();
         this.tokenRepository = tokenRepository;
         this.userService = userService;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.authenticationCache = authenticationCache;
     }
 
     public String generateToken(String username) {
@@ -42,19 +53,18 @@ public class JwtService {
                 .withClaim("username", username)
                 .withIssuedAt(new Date())
                 .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
 
         log.debug("Token generated successfully for user: {}", username);
         return token;
     }
 
     public String validateTokenAndRetrieveClaim(String token) throws JWTDecodeException {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .build();
+        return verifyToken(token).getClaim("username").asString();
+    }
 
-        DecodedJWT decodedJWT = verifier.verify(token);
-        return decodedJWT.getClaim("username").asString();
+    public DecodedJWT verifyToken(String token) throws JWTDecodeException {
+        return verifier.verify(token);
     }
 
     @Transactional
@@ -72,11 +82,13 @@ public class JwtService {
                 .build();
 
         tokenRepository.save(tokenEntity);
+        tokenBlacklistService.add(token, expires_at);
+        authenticationCache.invalidate(token);
         log.info("Token added to blacklist");
     }
 
     public boolean isTokenInBlacklist(String token) {
-        return tokenRepository.findFirstByToken(token).isPresent();
+        return tokenBlacklistService.isBlacklisted(token);
     }
 
     private String extractToken(String token) {
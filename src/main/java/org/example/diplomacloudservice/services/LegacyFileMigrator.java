@@ -0,0 +1,237 @@
+package org.example.diplomacloudservice.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.MigrationStatusDto;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.BackgroundPass;
+import org.example.diplomacloudservice.utils.IoThrottle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves the files uploaded before the blob store out of the flat {@code user_<id>} directories into
+ * {@code blobs/ab/cd/<hash>}, while the service keeps serving them. Each file is copied into a blob
+ * on a pool of threads sharing one byte rate, then its row is switched over in a short transaction,
+ * unless it was renamed or deleted in the meantime. The old file is deleted through {@link StorageOutbox}
+ * once the rows read before the switch (also those cached on other instances) have expired.
+ * <p>
+ * A pass walks the rows still outside the blob store by id, so a pass that was stopped (or a restart)
+ * resumes where the previous one left off. Files that cannot be migrated keep being served from their directory.
+ */
+@Log4j2
+@Service
+public class LegacyFileMigrator {
+
+    @Value("${file.migration.on-startup:false}")
+    boolean onStartup;
+
+    @Value("${file.migration.page-size:100}")
+    int pageSize;
+
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final BlobService blobService;
+    private final StorageOutbox storageOutbox;
+    private final StorageBackend storageBackend;
+    private final FileMetadataCache metadataCache;
+    private final FileTextIndexer textIndexer;
+    private final TransactionTemplate transactionTemplate;
+    private final IoThrottle throttle;
+    private final ExecutorService copiers;
+    private final BackgroundPass background;
+
+    private volatile MigrationPass lastPass;
+
+    /**
+     * @param rate per second, shared by all copier threads; 0 for no limit
+     */
+    public LegacyFileMigrator(FileRepository fileRepository, FileService fileService, BlobService blobService,
+                              StorageOutbox storageOutbox, StorageBackend storageBackend,
+                              FileMetadataCache metadataCache, FileTextIndexer textIndexer,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${file.migration.rate:50MB}") DataSize rate,
+                              @Value("${file.migration.threads:4}") int threads) {
+        this.fileRepository = fileRepository;
+        this.fileService = fileService;
+        this.blobService = blobService;
+        this.storageOutbox = storageOutbox;
+        this.storageBackend = storageBackend;
+        this.metadataCache = metadataCache;
+        this.textIndexer = textIndexer;
+        this.transactionTemplate = transactionTemplate;
+        this.throttle = new IoThrottle(rate.toBytes());
+        this.copiers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("migration-copier-", 0).daemon().factory());
+        this.background = new BackgroundPass("migration", this::migrate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (onStartup && fileRepository.countByBlobHashIsNull() > 0) {
+            start();
+        }
+    }
+
+    /**
+     * @return {@code false} if a pass is already running
+     */
+    public boolean start() {
+        return background.start();
+    }
+
+    public MigrationStatusDto getStatus() {
+        MigrationPass pass = lastPass;
+        long remaining = fileRepository.countByBlobHashIsNull();
+
+        if (pass == null) {
+            return new MigrationStatusDto(background.isRunning(), null, null, 0, 0, 0, 0, remaining);
+        }
+        return new MigrationStatusDto(background.isRunning(), pass.startedAt.toString(),
+                Objects.toString(pass.finishedAt, null), pass.migrated.get(), pass.bytes.get(), pass.skipped.get(),
+                pass.failed.get(), remaining);
+    }
+
+    /**
+     * One pass on the calling thread, the files of a page are copied in parallel on the copiers.
+     */
+    void migrate() {
+        MigrationPass pass = new MigrationPass(Instant.now());
+        lastPass = pass;
+        log.info("Migration of legacy files started, {} to go", fileRepository.countByBlobHashIsNull());
+
+        int afterId = 0;
+        List<FileRepository.LegacyFile> page;
+        do {
+            page = fileRepository.findLegacyPageAfter(afterId, pageSize);
+
+            List<Future<?>> copies = new ArrayList<>(page.size());
+            for (FileRepository.LegacyFile file : page) {
+                copies.add(copiers.submit(() -> migrate(file, pass)));
+            }
+            for (Future<?> copy : copies) {
+                try {
+                    copy.get();
+                } catch (InterruptedException e) {
+                    copies.forEach(pending -> pending.cancel(true));
+                    Thread.currentThread().interrupt();
+                    log.info("Migration interrupted after {} file(s)", pass.migrated.get());
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Migration of a file failed", e.getCause());
+                }
+            }
+
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == pageSize);
+
+        pass.finishedAt = Instant.now();
+        log.info("Migration finished: {} file(s) and {} byte(s) moved into the blob store, {} skipped, {} failed",
+                pass.migrated.get(), pass.bytes.get(), pass.skipped.get(), pass.failed.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        background.shutdown();
+        copiers.shutdownNow();
+    }
+
+    private void migrate(FileRepository.LegacyFile file, MigrationPass pass) {
+        String legacyKey = fileService.legacyKey(file.getFileLocation(), file.getFileName());
+        try {
+            if (storageBackend.stat(legacyKey).isEmpty()) {
+                log.warn("File '{}' of row {} is missing from Storage, not migrated", legacyKey, file.getId());
+                pass.skipped.incrementAndGet();
+                return;
+            }
+
+            FileService.StagedFile staged;
+            Resource resource = storageBackend.get(legacyKey);
+            try (InputStream content = throttle.throttle(resource.getInputStream())) {
+                staged = fileService.stageFile(file.getUserId(), file.getFileName(), content, Long.MAX_VALUE, false);
+            }
+            try {
+                if (switchToBlob(file, legacyKey, staged)) {
+                    pass.migrated.incrementAndGet();
+                    pass.bytes.addAndGet(staged.size());
+                } else {
+                    log.debug("Row {} was renamed or deleted while it was migrated", file.getId());
+                    pass.skipped.incrementAndGet();
+                }
+            } finally {
+                fileService.discardStaged(staged);
+            }
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | InvalidFileException e) {
+            log.error("Failed to migrate file '{}' of row {}: {}", legacyKey, file.getId(), e.getMessage());
+            pass.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return {@code false} if the row was renamed or deleted since it was read
+     */
+    private boolean switchToBlob(FileRepository.LegacyFile file, String legacyKey, FileService.StagedFile staged)
+            throws IOException {
+        String blobKey = blobService.getBlobKey(staged.contentHash());
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                int updated = fileRepository.moveToBlob(file.getId(), file.getFileName(), file.getFileLocation(),
+                        blobKey.substring(0, blobKey.lastIndexOf('/')), staged.contentHash(), staged.contentType());
+                if (updated == 0) {
+                    return false;
+                }
+
+                try {
+                    blobService.store(staged.contentHash(), staged.size(), staged.path(), staged.codec());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                storageOutbox.enqueueDelayed(List.of(StorageOutbox.Deletion.object(legacyKey)));
+                textIndexer.indexAfterCommit(staged.contentHash(), staged.contentType());
+                metadataCache.evict(file.getUserId(), file.getFileName());
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class MigrationPass {
+
+        final Instant startedAt;
+        volatile Instant finishedAt;
+        final AtomicLong migrated = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        MigrationPass(Instant startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.diplomacloudservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.QuotaDto;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user storage quota. {@code users.used_bytes} and {@code users.file_count} are changed by a conditional
+ * UPDATE in the transaction that inserts or deletes the {@code files} row, so they never drift from {@code files}.
+ * The cached copy lets uploads be rejected before any bytes are written; it is adjusted after commit
+ * and reloaded after {@code file.quota.cache-ttl}, the UPDATE stays the authoritative check.
+ */
+@Log4j2
+@Service
+public class QuotaService {
+
+    private final UserRepository userRepository;
+    private final long defaultQuota;
+    private final Cache<Integer, Usage> usageCache;
+
+    public QuotaService(UserRepository userRepository,
+                        @Value("${file.quota.default:10GB}") DataSize defaultQuota,
+                        @Value("${file.quota.cache-ttl:5m}") Duration cacheTtl,
+                        @Value("${file.quota.cache-maximum-size:10000}") long cacheMaximumSize) {
+        this.userRepository = userRepository;
+        this.defaultQuota = defaultQuota.toBytes();
+        this.usageCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Fast check from the cached usage, no transaction needed.
+     *
+     * @throws QuotaExceededException if {@code bytes} more would not fit
+     */
+    public void ensureAvailable(int userId, long bytes) {
+        Usage usage = usageCache.get(userId, this::loadUsage);
+
+        if (usage.usedBytes.sum() + bytes > usage.quotaBytes) {
+            log.warn("Quota of user id '{}' exceeded: {} of {} bytes used, {} requested",
+                    userId, usage.usedBytes.sum(), usage.quotaBytes, bytes);
+            throw quotaExceeded(usage.quotaBytes);
+        }
+    }
+
+    public long getRemainingBytes(int userId) {
+        Usage usage = usageCache.get(userId, this::loadUsage);
+        return Math.max(0, usage.quotaBytes - usage.usedBytes.sum());
+    }
+
+    /**
+     * Counts a new file of {@code bytes} against the quota in the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(int userId, long bytes) {
+        reserve(userId, bytes, 1);
+    }
+
+    /**
+     * Counts {@code files} new files of {@code bytes} in total, all or none of them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(int userId, long bytes, int files) {
+        if (userRepository.reserveUsage(userId, bytes, files, defaultQuota) == 0) {
+            // the cached usage was behind the table
+            usageCache.invalidate(userId);
+            log.warn("Quota of user id '{}' exceeded by {} file(s) of {} bytes", userId, files, bytes);
+            throw quotaExceeded(null);
+        }
+        afterCommit(() -> adjust(userId, bytes, files));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(int userId, long bytes) {
+        release(userId, bytes, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(int userId, long bytes, int files) {
+        userRepository.releaseUsage(userId, bytes, files);
+        afterCommit(() -> adjust(userId, -bytes, -files));
+    }
+
+    /**
+     * Read from the table, and refreshes the cached copy with it.
+     */
+    public QuotaDto getUsage(int userId) {
+        Usage usage = loadUsage(userId);
+        usageCache.put(userId, usage);
+
+        return new QuotaDto(usage.usedBytes.sum(), usage.fileCount.sum(), usage.quotaBytes);
+    }
+
+    private Usage loadUsage(int userId) {
+        UserRepository.Usage usage = userRepository.findUsage(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        return new Usage(usage.getUsedBytes(), usage.getFileCount(),
+                usage.getQuotaBytes() != null ? usage.getQuotaBytes() : defaultQuota);
+    }
+
+    private void adjust(int userId, long bytes, int files) {
+        Usage usage = usageCache.getIfPresent(userId);
+        if (usage != null) {
+            usage.usedBytes.add(bytes);
+            usage.fileCount.add(files);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private QuotaExceededException quotaExceeded(Long quotaBytes) {
+        return new QuotaExceededException(quotaBytes != null
+                ? "Storage quota of " + quotaBytes + " bytes exceeded"
+                : "Storage quota exceeded");
+    }
+
+    /**
+     * Striped counters: concurrent uploads of one user do not contend on a single field.
+     */
+    private static final class Usage {
+
+        final LongAdder usedBytes = new LongAdder();
+        final LongAdder fileCount = new LongAdder();
+        final long quotaBytes;
+
+        Usage(long usedBytes, long fileCount, long quotaBytes) {
+            this.usedBytes.add(usedBytes);
+            this.fileCount.add(fileCount);
+            this.quotaBytes = quotaBytes;
+        }
+    }
+}
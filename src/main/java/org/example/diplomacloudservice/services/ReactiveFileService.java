@@ -0,0 +1,234 @@
+package org.example.diplomacloudservice.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.repositories.ReactiveFileRepository;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.example.diplomacloudservice.utils.ContentSniffer;
+import org.example.diplomacloudservice.utils.FileValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+
+/**
+ * File operations of the {@code reactive} profile. Content moves as {@link DataBuffer}s: uploads are staged through
+ * an {@code AsynchronousFileChannel}, local blobs are read through one, and no thread waits for the disk or the client.
+ * Rows are read over R2DBC; inserts, deletes and renames reuse {@link FileService} on the boundedElastic scheduler,
+ * as they are short transactions that must stay in step with {@link BlobService} and {@link QuotaService}.
+ */
+@Log4j2
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFileService {
+
+    @Value("${file.upload.max-file-size:10GB}")
+    DataSize maxFileSize;
+
+    @Value("${file.upload.buffer-size:64KB}")
+    DataSize bufferSize;
+
+    private final ReactiveFileRepository reactiveFileRepository;
+    private final FileService fileService;
+    private final QuotaService quotaService;
+    private final FileMetadataCache metadataCache;
+
+    public ReactiveFileService(ReactiveFileRepository reactiveFileRepository, FileService fileService,
+                               QuotaService quotaService, FileMetadataCache metadataCache) {
+        this.reactiveFileRepository = reactiveFileRepository;
+        this.fileService = fileService;
+        this.quotaService = quotaService;
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Rejects a user already at the quota, before the request body is read.
+     *
+     * @return bytes left of the quota
+     */
+    public Mono<Long> getRemainingBytes(int userId) {
+        return blocking(() -> {
+            // empty uploads are rejected anyway, so at least one byte has to fit
+            quotaService.ensureAvailable(userId, 1);
+            return quotaService.getRemainingBytes(userId);
+        });
+    }
+
+    /**
+     * Writes the content to a temp file as it arrives, computing its SHA-256 and checking its first bytes
+     * on the way, then commits it like {@link FileService#uploadFileForUser}. Stored as is: the codecs of
+     * {@link CompressionService} are blocking streams.
+     *
+     * @param remainingBytes see {@link #getRemainingBytes}
+     */
+    public Mono<Void> uploadFile(int userId, String filename, Flux<DataBuffer> content, long remainingBytes) {
+        log.debug("Starting file upload for user id: {}, filename: {}", userId, filename);
+
+        return Mono.usingWhen(
+                blocking(() -> {
+                    Path userDir = fileService.getUserDirectory(userId);
+                    Files.createDirectories(userDir);
+                    return Files.createTempFile(userDir, ".upload-", ".tmp");
+                }),
+                tempFile -> {
+                    Staging staging = new Staging(filename, remainingBytes, maxFileSize.toBytes());
+                    return DataBufferUtils.write(content.doOnNext(staging::update), tempFile, StandardOpenOption.WRITE)
+                            .then(Mono.fromCallable(staging::finish))
+                            .flatMap(staged -> blocking(() -> {
+                                log.debug("{} bytes written to temp file: {}", staged.size(), tempFile);
+                                fileService.commitUploadedFile(userId, filename, tempFile, staged.size(),
+                                        staged.contentHash(), staged.contentType());
+                                return staged;
+                            }));
+                },
+                tempFile -> blocking(() -> Files.deleteIfExists(tempFile)))
+                .then();
+    }
+
+    /**
+     * Row only, see {@link FileService#getFileMetadata}.
+     */
+    public Mono<File> getFileMetadata(int userId, String filename) {
+        return metadataCache.get(userId, filename, reactiveFileRepository.findByFileNameAndUserId(filename, userId))
+                .switchIfEmpty(Mono.error(() -> {
+                    log.warn("File '{}' not found in DB for user id '{}'", filename, userId);
+                    return new InvalidFileException("File with name '" + filename + "' does not exist");
+                }));
+    }
+
+    /**
+     * @param stored the object as it is in storage ({@link FileService#getStoredResource}) instead of
+     *               the original content
+     */
+    public Mono<Resource> getFileResource(File fileEntity, boolean stored) {
+        return blocking(() -> stored
+                ? fileService.getStoredResource(fileEntity)
+                : fileService.getFileResource(fileEntity));
+    }
+
+    /**
+     * Files on local disk are read through an {@code AsynchronousFileChannel}; anything else (S3, decoded on the fly)
+     * is read on the boundedElastic scheduler.
+     */
+    public Flux<DataBuffer> read(Resource resource, DataBufferFactory bufferFactory) {
+        Flux<DataBuffer> content = DataBufferUtils.read(resource, bufferFactory, (int) bufferSize.toBytes());
+
+        return resource.isFile() ? content : content.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * See {@link FileService#getUserFilesList}.
+     */
+    public Mono<FileListPage> getUserFilesList(int userId, Integer limit, String sort, String order, String cursor) {
+        return Mono.fromCallable(() -> FileListQuery.of(limit, sort, order, cursor))
+                .flatMap(query -> reactiveFileRepository.findFilesPage(userId, query.getSort(), query.isDescending(),
+                                query.getAfter(), query.getFetchSize())
+                        .collectList()
+                        .map(query::toPage));
+    }
+
+    public Mono<Void> deleteFile(int userId, String filename) {
+        return blocking(() -> {
+            fileService.deleteFileForUser(userId, filename);
+            return null;
+        });
+    }
+
+    public Mono<Void> renameFile(int userId, String oldFilename, String newFilename) {
+        return blocking(() -> {
+            fileService.renameFileForUser(userId, oldFilename, newFilename);
+            return null;
+        });
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * What {@code FileService.stageFile} computes from the stream, fed buffer by buffer.
+     * The first {@link ContentSniffer#HEAD_LENGTH} bytes are checked as soon as they are in, before the buffer
+     * that completes them is written.
+     */
+    private static final class Staging {
+
+        private final String filename;
+        private final long remainingBytes;
+        private final long maxFileSize;
+        private final MessageDigest digest = ContentDigest.newSha256();
+        private final byte[] head = new byte[ContentSniffer.HEAD_LENGTH];
+        private int headLength;
+        private boolean validated;
+        private long size;
+
+        Staging(String filename, long remainingBytes, long maxFileSize) {
+            this.filename = filename;
+            this.remainingBytes = remainingBytes;
+            this.maxFileSize = maxFileSize;
+        }
+
+        void update(DataBuffer buffer) {
+            int count = buffer.readableByteCount();
+            if (size + count > remainingBytes) {
+                throw new QuotaExceededException("Storage quota exceeded");
+            }
+            if (size + count > maxFileSize) {
+                throw new InvalidFileException("The file exceeds its maximum permitted size of "
+                        + maxFileSize + " bytes.");
+            }
+
+            try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer byteBuffer = buffers.next();
+                    if (headLength < head.length) {
+                        int length = Math.min(head.length - headLength, byteBuffer.remaining());
+                        byteBuffer.get(byteBuffer.position(), head, headLength, length);
+                        headLength += length;
+                    }
+                    digest.update(byteBuffer);
+                }
+            }
+            size += count;
+
+            if (!validated && headLength == head.length) {
+                validate();
+            }
+        }
+
+        StagedContent finish() {
+            if (size == 0) {
+                throw new InvalidFileException("There was no file attached");
+            }
+            if (!validated) {
+                validate();
+            }
+            return new StagedContent(size, ContentDigest.toHex(digest),
+                    ContentSniffer.detect(filename, head, headLength));
+        }
+
+        private void validate() {
+            FileValidator.validateContent(filename, head, headLength);
+            validated = true;
+        }
+    }
+
+    private record StagedContent(long size, String contentHash, String contentType) {
+    }
+}
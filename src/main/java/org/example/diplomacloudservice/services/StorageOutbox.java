@@ -0,0 +1,218 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.entities.StorageOutboxEntry;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.repositories.StorageOutboxRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Storage objects to delete once the transaction that dropped their last reference commits: the object of
+ * a blob whose reference count reached 0, or the file of a deleted legacy row. The deletions are rows of
+ * {@code storage_outbox}, inserted in that transaction, so a rollback never deletes content that is still
+ * referenced and a crash or a failed delete never leaves an object behind for good.
+ * <p>
+ * After commit the deletions are carried out right away, on the committing thread or, for many, on a pool;
+ * whatever fails is retried every {@code file.outbox.retry-interval}. Each one runs in its own transaction
+ * that first deletes the outbox row, so no two instances delete the same object. A blob row stays behind
+ * with 0 references until its object is deleted, under its row lock: an upload of the same content
+ * in the meantime takes the row back ({@link BlobRepository#acquire}) and the object is kept.
+ * Meter: {@code cloud.storage.outbox.pending}.
+ */
+@Log4j2
+@Service
+public class StorageOutbox {
+
+    @Value("${file.outbox.page-size:100}")
+    int pageSize;
+
+    private final StorageOutboxRepository outboxRepository;
+    private final BlobRepository blobRepository;
+    private final StorageBackend storageBackend;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retryDelay;
+    private final ExecutorService deleteExecutor;
+
+    /**
+     * @param retryDelay entries are retried once they are this old, the first attempt is made after commit
+     */
+    public StorageOutbox(StorageOutboxRepository outboxRepository, BlobRepository blobRepository,
+                         StorageBackend storageBackend, PlatformTransactionManager transactionManager,
+                         MeterRegistry registry,
+                         @Value("${file.outbox.retry-delay:1m}") Duration retryDelay,
+                         @Value("${file.outbox.parallelism:8}") int parallelism) {
+        this.outboxRepository = outboxRepository;
+        this.blobRepository = blobRepository;
+        this.storageBackend = storageBackend;
+        // after commit the finished transaction is still bound to the thread, a new one must not join it
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retryDelay = retryDelay;
+        this.deleteExecutor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("storage-outbox-", 0).daemon().factory());
+
+        Gauge.builder("cloud.storage.outbox.pending", outboxRepository, StorageOutboxRepository::count)
+                .description("Storage objects waiting to be deleted")
+                .register(registry);
+    }
+
+    /**
+     * Deletes the blob's object once the caller's transaction commits, unless the blob is referenced again.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteBlob(String hash, String blobKey) {
+        enqueue(List.of(Deletion.blob(hash, blobKey)));
+    }
+
+    /**
+     * Deletes the objects once the caller's transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<Deletion> deletions) {
+        if (deletions.isEmpty()) {
+            return;
+        }
+
+        List<StorageOutboxEntry> entries = outboxRepository.insertAll(toEntries(deletions));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                process(entries);
+            }
+        });
+    }
+
+    /**
+     * Deletes the objects with the retries, at least {@code file.outbox.retry-delay} after the caller's transaction
+     * commits: for objects that readers may still open through rows they read (or cached) before.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDelayed(Collection<Deletion> deletions) {
+        if (!deletions.isEmpty()) {
+            outboxRepository.insertAll(toEntries(deletions));
+        }
+    }
+
+    /**
+     * Retries the deletions that failed or whose instance went down before it got to them.
+     */
+    @Scheduled(fixedDelayString = "${file.outbox.retry-interval:60000}",
+            initialDelayString = "${file.outbox.retry-interval:60000}")
+    public void retryPending() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(retryDelay);
+        long afterId = 0;
+        List<StorageOutboxEntry> page;
+        do {
+            page = outboxRepository.findByIdGreaterThanAndCreatedAtBeforeOrderById(afterId, createdBefore,
+                    Limit.of(pageSize));
+            if (page.isEmpty()) {
+                return;
+            }
+            log.info("Retrying {} pending storage deletion(s)", page.size());
+            process(page);
+            afterId = page.getLast().getId();
+        } while (page.size() == pageSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deleteExecutor.shutdown();
+    }
+
+    /**
+     * Never throws: the entries are in the table, what fails here is retried.
+     */
+    void process(List<StorageOutboxEntry> entries) {
+        if (entries.size() == 1) {
+            process(entries.getFirst());
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(entries.size());
+        for (StorageOutboxEntry entry : entries) {
+            futures.add(deleteExecutor.submit(() -> process(entry)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Storage deletion failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while deleting from Storage, the rest is retried later");
+                return;
+            }
+        }
+    }
+
+    private static List<StorageOutboxEntry> toEntries(Collection<Deletion> deletions) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        return deletions.stream()
+                .map(deletion -> new StorageOutboxEntry(null, deletion.objectKey(), deletion.blobHash(), createdAt))
+                .toList();
+    }
+
+    private void process(StorageOutboxEntry entry) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (outboxRepository.claim(entry.getId()) == 0) {
+                    return;
+                }
+                if (entry.getBlobHash() != null && blobRepository.deleteIfUnreferenced(entry.getBlobHash()) == 0) {
+                    log.debug("Blob '{}' was referenced again, keeping it", entry.getBlobHash());
+                    return;
+                }
+
+                try {
+                    storageBackend.delete(entry.getObjectKey());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                log.debug("'{}' deleted from Storage", entry.getObjectKey());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete '{}' from Storage, retrying later: {}", entry.getObjectKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * @param blobHash {@code null} for an object that is not a blob
+     */
+    public record Deletion(String objectKey, String blobHash) {
+
+        public static Deletion blob(String hash, String blobKey) {
+            return new Deletion(blobKey, hash);
+        }
+
+        public static Deletion object(String objectKey) {
+            return new Deletion(objectKey, null);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.CachingStorageBackend;
+import org.example.diplomacloudservice.storage.LocalStorageBackend;
+import org.example.diplomacloudservice.storage.ShardedStorageBackend;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.BackgroundPass;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Repairs the drift between local storage and the database that a crash or a failed operation leaves behind:
+ * <ul>
+ *     <li>blob objects no row knows of get a row without references and are deleted through {@link StorageOutbox},
+ *     under the same row lock as any other unreferenced blob;</li>
+ *     <li>temp files of writes that never finished are deleted;</li>
+ *     <li>files in {@code user_<id>} that no row of the user is named after are moved
+ *     to {@code lost+found/user_<id>};</li>
+ *     <li>legacy rows whose file is missing get it back from {@code lost+found} if it is there,
+ *     and are reported otherwise.</li>
+ * </ul>
+ * Runs after startup and every {@code file.reconciler.interval}. Directories are listed one entry at a time
+ * and in parallel, one task per {@code blobs/xx} and per {@code user_<id>}, and the names are looked up
+ * in batches of {@code file.reconciler.batch-size}: memory does not grow with the number of files.
+ * Only files unchanged for {@code file.reconciler.grace-period} are touched, younger ones may belong to a write
+ * in progress. The local and sharded backends are walked; objects in S3 are not.
+ * Meter: {@code cloud.reconciler.repairs} by action.
+ */
+@Log4j2
+@Service
+public class StorageReconciler {
+
+    static final String ORPHAN_BLOB = "orphan_blob";
+    static final String TEMP_FILE = "temp_file";
+    static final String QUARANTINED_FILE = "quarantined_file";
+    static final String RESTORED_FILE = "restored_file";
+    static final String MISSING_FILE = "missing_file";
+
+    static final String LOST_AND_FOUND_DIR = "lost+found";
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern USER_DIR = Pattern.compile("user_(\\d+)");
+
+    @Value("${file.storage.location:storage}")
+    String storagePath;
+
+    @Value("${file.reconciler.enabled:true}")
+    boolean enabled;
+
+    @Value("${file.reconciler.on-startup:true}")
+    boolean onStartup;
+
+    @Value("${file.reconciler.batch-size:1000}")
+    int batchSize;
+
+    private final BlobRepository blobRepository;
+    private final FileRepository fileRepository;
+    private final BlobService blobService;
+    private final FileService fileService;
+    private final StorageOutbox storageOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final List<LocalStorageBackend> localBackends;
+    private final Duration gracePeriod;
+    private final ExecutorService walkers;
+    private final BackgroundPass background;
+    private final Meter.MeterProvider<Counter> repairs;
+
+    public StorageReconciler(BlobRepository blobRepository, FileRepository fileRepository, BlobService blobService,
+                             FileService fileService, StorageOutbox storageOutbox, StorageBackend storageBackend,
+                             TransactionTemplate transactionTemplate, MeterRegistry registry,
+                             @Value("${file.reconciler.grace-period:1h}") Duration gracePeriod,
+                             @Value("${file.reconciler.threads:4}") int threads) {
+        this.blobRepository = blobRepository;
+        this.fileRepository = fileRepository;
+        this.blobService = blobService;
+        this.fileService = fileService;
+        this.storageOutbox = storageOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.gracePeriod = gracePeriod;
+
+        StorageBackend backend = storageBackend instanceof CachingStorageBackend cachingStorageBackend
+                ? cachingStorageBackend.getDelegate()
+                : storageBackend;
+        if (backend instanceof LocalStorageBackend local) {
+            this.localBackends = List.of(local);
+        } else if (backend instanceof ShardedStorageBackend sharded) {
+            this.localBackends = sharded.getShards();
+        } else {
+            this.localBackends = List.of();
+        }
+
+        this.walkers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("reconciler-walker-", 0).daemon().factory());
+        this.background = new BackgroundPass("reconciler", this::reconcile);
+        this.repairs = Counter.builder("cloud.reconciler.repairs")
+                .description("Drift between storage and the database found by the reconciler, by action")
+                .withRegistry(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (enabled && onStartup) {
+            start();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.reconciler.interval:21600000}",
+            initialDelayString = "${file.reconciler.interval:21600000}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Kicks off a pass on the reconciler's own thread.
+     *
+     * @return {@code false} if a pass is already running
+     */
+    public boolean start() {
+        return background.start();
+    }
+
+    /**
+     * One pass on the calling thread, the directories are walked in parallel on the walkers.
+     *
+     * @return repairs by action
+     */
+    public Map<String, Long> reconcile() {
+        Instant changedBefore = Instant.now().minus(gracePeriod);
+        ReconcilePass pass = new ReconcilePass(changedBefore);
+        log.info("Reconcile started, checking files unchanged since {}", changedBefore);
+
+        List<Future<?>> walks = new ArrayList<>();
+        try {
+            for (LocalStorageBackend backend : localBackends) {
+                for (Path prefixDir : listDirectories(backend.getRoot().resolve(BlobService.BLOBS_DIR))) {
+                    walks.add(walkers.submit(() -> reconcileBlobs(backend, prefixDir, pass)));
+                }
+            }
+            for (Path userDir : listDirectories(Paths.get(storagePath))) {
+                if (USER_DIR.matcher(userDir.getFileName().toString()).matches()) {
+                    walks.add(walkers.submit(() -> reconcileUserDirectory(userDir, pass)));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list storage directories", e);
+        }
+        if (!awaitAll(walks)) {
+            return pass.repairs();
+        }
+
+        LocalStorageBackend legacyBackend = legacyBackend();
+        if (legacyBackend != null) {
+            restoreMissingLegacyFiles(legacyBackend, pass);
+        }
+
+        Map<String, Long> repaired = pass.repairs();
+        log.info("Reconcile finished: {}", repaired);
+        return repaired;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        background.shutdown();
+        walkers.shutdownNow();
+    }
+
+    /**
+     * {@code blobs/xx/yy/<hash>} under one {@code blobs/xx}.
+     */
+    private void reconcileBlobs(LocalStorageBackend backend, Path prefixDir, ReconcilePass pass) {
+        Map<String, Long> batch = new LinkedHashMap<>();
+        try {
+            for (Path leafDir : listDirectories(prefixDir)) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(leafDir)) {
+                    for (Path entry : entries) {
+                        String name = entry.getFileName().toString();
+                        if (isTempFile(name)) {
+                            deleteStaleTempFile(entry, pass);
+                        } else if (BLOB_NAME.matcher(name).matches() && isStale(entry, pass)) {
+                            try {
+                                batch.put(name, Files.size(entry));
+                            } catch (NoSuchFileException e) {
+                                continue;
+                            }
+                            if (batch.size() >= batchSize) {
+                                adoptOrphanBlobs(backend, batch, pass);
+                                batch.clear();
+                            }
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                adoptOrphanBlobs(backend, batch, pass);
+            }
+        } catch (IOException e) {
+            log.error("Failed to reconcile {}", prefixDir, e);
+        }
+    }
+
+    /**
+     * @param sizes stored size by hash
+     */
+    private void adoptOrphanBlobs(LocalStorageBackend backend, Map<String, Long> sizes, ReconcilePass pass) {
+        Set<String> orphans = new HashSet<>(sizes.keySet());
+        blobRepository.findExistingHashes(sizes.keySet()).forEach(orphans::remove);
+        if (orphans.isEmpty()) {
+            return;
+        }
+
+        Integer adopted = transactionTemplate.execute(status -> {
+            LocalDateTime createdAt = LocalDateTime.now();
+            List<StorageOutbox.Deletion> deletions = new ArrayList<>();
+            for (String hash : orphans) {
+                if (blobRepository.insertUnreferenced(hash, sizes.get(hash), createdAt) == 1) {
+                    deletions.add(StorageOutbox.Deletion.blob(hash, blobService.getBlobKey(hash)));
+                }
+            }
+            storageOutbox.enqueue(deletions);
+            return deletions.size();
+        });
+
+        if (adopted != null && adopted > 0) {
+            log.warn("{} blob object(s) under {} have no row, deleting them", adopted, backend.getRoot());
+            pass.repaired(ORPHAN_BLOB, adopted);
+        }
+    }
+
+    private void reconcileUserDirectory(Path userDir, ReconcilePass pass) {
+        int userId = Integer.parseInt(userDir.getFileName().toString().substring("user_".length()));
+        boolean legacy = legacyBackend() != null;
+        List<Path> batch = new ArrayList<>();
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(userDir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (isTempFile(name)) {
+                    deleteStaleTempFile(entry, pass);
+                } else if (legacy && !name.startsWith(".") && Files.isRegularFile(entry) && isStale(entry, pass)) {
+                    batch.add(entry);
+                    if (batch.size() >= batchSize) {
+                        quarantineOrphanFiles(userId, batch, pass);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                quarantineOrphanFiles(userId, batch, pass);
+            }
+        } catch (IOException e) {
+            log.error("Failed to reconcile {}", userDir, e);
+        }
+    }
+
+    private void quarantineOrphanFiles(int userId, List<Path> files, ReconcilePass pass) throws IOException {
+        Set<String> known = new HashSet<>(fileRepository.findExistingNames(userId,
+                files.stream().map(file -> file.getFileName().toString()).toList()));
+
+        for (Path file : files) {
+            if (known.contains(file.getFileName().toString())) {
+                continue;
+            }
+            String key = fileService.legacyKey(file.getParent().toString(), file.getFileName().toString());
+            String quarantineKey = LOST_AND_FOUND_DIR + "/" + key;
+            try {
+                legacyBackend().move(key, quarantineKey);
+            } catch (FileAlreadyExistsException e) {
+                quarantineKey += "." + System.currentTimeMillis();
+                legacyBackend().move(key, quarantineKey);
+            }
+            log.warn("File {} has no row, moved to {}", file, quarantineKey);
+            pass.repaired(QUARANTINED_FILE, 1);
+        }
+    }
+
+    private void restoreMissingLegacyFiles(LocalStorageBackend backend, ReconcilePass pass) {
+        int afterId = 0;
+        List<FileRepository.LegacyFile> page;
+        do {
+            page = fileRepository.findLegacyPageAfter(afterId, batchSize);
+
+            List<Future<?>> checks = new ArrayList<>(page.size());
+            for (FileRepository.LegacyFile file : page) {
+                checks.add(walkers.submit(() -> restoreIfMissing(backend, file, pass)));
+            }
+            if (!awaitAll(checks)) {
+                return;
+            }
+
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == batchSize);
+    }
+
+    private void restoreIfMissing(LocalStorageBackend backend, FileRepository.LegacyFile file, ReconcilePass pass) {
+        String key = fileService.legacyKey(file.getFileLocation(), file.getFileName());
+        try {
+            if (backend.stat(key).isPresent()) {
+                return;
+            }
+
+            Path quarantined = backend.getRoot().resolve(LOST_AND_FOUND_DIR).resolve(key);
+            if (Files.isRegularFile(quarantined)) {
+                backend.put(key, quarantined);
+                log.warn("File '{}' of row {} restored from {}", key, file.getId(), LOST_AND_FOUND_DIR);
+                pass.repaired(RESTORED_FILE, 1);
+            } else {
+                log.error("File '{}' of row {} is missing from Storage", key, file.getId());
+                pass.repaired(MISSING_FILE, 1);
+            }
+        } catch (IOException e) {
+            log.error("Failed to check file '{}' of row {}", key, file.getId(), e);
+        }
+    }
+
+    /**
+     * Staged uploads of a request still in progress are kept, they can sit unchanged for a long batch.
+     */
+    private void deleteStaleTempFile(Path file, ReconcilePass pass) throws IOException {
+        if (isStale(file, pass) && !fileService.isStaged(file) && Files.deleteIfExists(file)) {
+            log.info("Stale temp file {} deleted", file);
+            pass.repaired(TEMP_FILE, 1);
+        }
+    }
+
+    /**
+     * Legacy files live in {@code user_<id>} directly under the root of the local backend.
+     *
+     * @return {@code null} if there are none
+     */
+    private LocalStorageBackend legacyBackend() {
+        Path root = Paths.get(storagePath).toAbsolutePath().normalize();
+        return localBackends.size() == 1 && localBackends.getFirst().getRoot().equals(root)
+                ? localBackends.getFirst()
+                : null;
+    }
+
+    /**
+     * A rename changes the inode (ctime) but not the content (mtime), so both are checked where the platform
+     * tells them apart: a file renamed into place a moment ago is not taken for an old one.
+     */
+    private static boolean isStale(Path file, ReconcilePass pass) throws IOException {
+        try {
+            FileTime changed = Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime();
+            if (file.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                FileTime ctime = (FileTime) Files.getAttribute(file, "unix:ctime");
+                if (ctime.compareTo(changed) > 0) {
+                    changed = ctime;
+                }
+            }
+            return changed.toInstant().isBefore(pass.changedBefore);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static boolean isTempFile(String name) {
+        return (name.startsWith(".put-") || name.startsWith(".upload-")) && name.endsWith(".tmp");
+    }
+
+    private static List<Path> listDirectories(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            entries.forEach(directories::add);
+        }
+        return directories;
+    }
+
+    /**
+     * @return {@code false} if interrupted
+     */
+    private static boolean awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Reconcile task failed", e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                log.info("Reconcile interrupted");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class ReconcilePass {
+
+        final Instant changedBefore;
+        final Map<String, AtomicLong> counts = new LinkedHashMap<>();
+
+        ReconcilePass(Instant changedBefore) {
+            this.changedBefore = changedBefore;
+            for (String action : List.of(ORPHAN_BLOB, TEMP_FILE, QUARANTINED_FILE, RESTORED_FILE, MISSING_FILE)) {
+                counts.put(action, new AtomicLong());
+            }
+        }
+
+        void repaired(String action, long count) {
+            counts.get(action).addAndGet(count);
+            repairs.withTags("action", action).increment(count);
+        }
+
+        Map<String, Long> repairs() {
+            Map<String, Long> repaired = new LinkedHashMap<>();
+            counts.forEach((action, count) -> repaired.put(action, count.get()));
+            return repaired;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.dto.BlacklistedTokenDto;
+import org.example.diplomacloudservice.repositories.TokenRepository;
+import org.example.diplomacloudservice.utils.BloomFilter;
+import org.example.diplomacloudservice.utils.TokenDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory view of the {@code token_blacklist} table.
+ * A Bloom filter answers the common "not revoked" case without touching the map,
+ * the map (keyed by SHA-256 of the token) resolves Bloom filter positives.
+ * Lookups are timed as {@code cloud.token.blacklist.lookup} by result: {@code absent} (answered by the filter),
+ * {@code revoked} and {@code false_positive}.
+ */
+@Log4j2
+@Service
+public class TokenBlacklistService {
+
+    @Value("${token.blacklist.expected-insertions:100000}")
+    long expectedInsertions;
+
+    @Value("${token.blacklist.false-positive-rate:0.01}")
+    double falsePositiveRate;
+
+    private final TokenRepository tokenRepository;
+    private final Timer absentLookups;
+    private final Timer revokedLookups;
+    private final Timer falsePositiveLookups;
+
+    private final Map<String, LocalDateTime> revokedTokens = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    public TokenBlacklistService(TokenRepository tokenRepository, MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.absentLookups = lookupTimer("absent", meterRegistry);
+        this.revokedLookups = lookupTimer("revoked", meterRegistry);
+        this.falsePositiveLookups = lookupTimer("false_positive", meterRegistry);
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        rebuildBloomFilter();
+        syncFromDb();
+        log.info("Token blacklist loaded, {} active tokens", revokedTokens.size());
+    }
+
+    public boolean isBlacklisted(String token) {
+        long start = System.nanoTime();
+        byte[] digest = TokenDigest.sha256(token);
+
+        if (!bloomFilter.mightContain(digest)) {
+            absentLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return false;
+        }
+        boolean revoked = revokedTokens.containsKey(TokenDigest.toHex(digest));
+
+        (revoked ? revokedLookups : falsePositiveLookups).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return revoked;
+    }
+
+    /**
+     * Adds are serialized with {@link #rebuildBloomFilter()}, so a token can never be lost
+     * between a filter snapshot and the swap.
+     */
+    public synchronized void add(String token, LocalDateTime expiresAt) {
+        byte[] digest = TokenDigest.sha256(token);
+
+        revokedTokens.put(TokenDigest.toHex(digest), expiresAt);
+        bloomFilter.put(digest);
+    }
+
+    /**
+     * Evicts expired tokens from memory, picks up tokens revoked by other instances
+     * and purges expired rows from {@code token_blacklist}.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${token.blacklist.sweep-interval:60000}",
+            initialDelayString = "${token.blacklist.sweep-interval:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int evicted = evictExpired(now);
+        if (evicted > 0) {
+            rebuildBloomFilter();
+        }
+        syncFromDb();
+
+        int purged = tokenRepository.deleteExpiredTokens(now);
+        log.debug("Token blacklist sweep: {} evicted from memory, {} purged from DB", evicted, purged);
+    }
+
+    int size() {
+        return revokedTokens.size();
+    }
+
+    private int evictExpired(LocalDateTime now) {
+        int before = revokedTokens.size();
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+
+        return before - revokedTokens.size();
+    }
+
+    /**
+     * Reads every active row, not only the ones past the last seen id: ids are taken from the sequence
+     * before commit, so a row with a lower id can become visible after a higher one.
+     */
+    private void syncFromDb() {
+        List<BlacklistedTokenDto> tokens = tokenRepository.findActiveTokens(LocalDateTime.now());
+
+        for (BlacklistedTokenDto token : tokens) {
+            byte[] digest = TokenDigest.sha256(token.getToken());
+            if (!revokedTokens.containsKey(TokenDigest.toHex(digest))) {
+                add(token.getToken(), token.getExpiresAt());
+            }
+        }
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(
+                Math.max(expectedInsertions, 2L * revokedTokens.size()), falsePositiveRate);
+
+        revokedTokens.keySet().forEach(hex -> rebuilt.put(TokenDigest.fromHex(hex)));
+        bloomFilter = rebuilt;
+    }
+
+    private static Timer lookupTimer(String result, MeterRegistry meterRegistry) {
+        return Timer.builder("cloud.token.blacklist.lookup")
+                .description("Revoked-token checks of authenticated requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.diplomacloudservice.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * An object held by {@link CachingStorageBackend}. Every stream and channel reads its own view of the buffer;
+ * the channel is seekable, like a local file's.
+ */
+public class CachedResource extends AbstractResource {
+
+    private final String key;
+    private final ByteBuffer content;
+
+    CachedResource(String key, ByteBuffer content) {
+        this.key = key;
+        this.content = content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return Channels.newInputStream(readableChannel());
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() {
+        return new BufferChannel(content.duplicate());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public String getFilename() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "cached object [" + key + "]";
+    }
+
+    private static final class BufferChannel implements SeekableByteChannel {
+
+        private final ByteBuffer buffer;
+        private boolean open = true;
+
+        BufferChannel(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws ClosedChannelException {
+            ensureOpen();
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(dst.remaining(), buffer.remaining());
+            dst.put(buffer.slice(buffer.position(), count));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws ClosedChannelException {
+            ensureOpen();
+            return buffer.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws ClosedChannelException {
+            ensureOpen();
+            buffer.position((int) Math.min(newPosition, buffer.limit()));
+            return this;
+        }
+
+        @Override
+        public long size() throws ClosedChannelException {
+            ensureOpen();
+            return buffer.limit();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
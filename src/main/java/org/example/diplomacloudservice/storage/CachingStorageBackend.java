@@ -0,0 +1,139 @@
+package org.example.diplomacloudservice.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Keeps small objects in direct buffers, off the heap, in front of another backend. Caffeine weighs each entry
+ * by its size and evicts by W-TinyLFU, so a burst of one-off downloads does not push out the hot files.
+ * An object is cached the first time it is read, if it is at most {@code maxEntrySize} bytes.
+ * <p>
+ * Writes through this backend drop the keys they touch. Blob keys are content-addressed, so a cached blob only
+ * goes stale if it is deleted and stored again with another codec on another instance; {@code ttl} bounds that.
+ */
+public class CachingStorageBackend implements StorageBackend, MeterBinder {
+
+    private final StorageBackend delegate;
+    private final long maxEntrySize;
+    private final Cache<String, ByteBuffer> cache;
+
+    /**
+     * @param maxBytes direct memory the cached objects may take, within {@code -XX:MaxDirectMemorySize}
+     */
+    public CachingStorageBackend(StorageBackend delegate, long maxBytes, long maxEntrySize, Duration ttl) {
+        this.delegate = delegate;
+        this.maxEntrySize = Math.min(maxEntrySize, Integer.MAX_VALUE);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, ByteBuffer>weigher((key, content) -> content.capacity())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The backend behind the cache, for reads that should neither come from it nor fill it.
+     */
+    public StorageBackend getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        cache.invalidate(key);
+        delegate.put(key, stagedFile);
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        cache.invalidate(key);
+        delegate.put(key, content, size);
+        cache.invalidate(key);
+    }
+
+    @Override
+    public Resource get(String key) throws IOException {
+        ByteBuffer cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return new CachedResource(key, cached);
+        }
+
+        Resource resource = delegate.get(key);
+        if (!resource.exists()) {
+            return resource;
+        }
+        long size = resource.contentLength();
+        if (size > maxEntrySize) {
+            return resource;
+        }
+
+        ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            while (content.hasRemaining()) {
+                if (channel.read(content) == -1) {
+                    break;
+                }
+            }
+        }
+        if (content.hasRemaining()) {
+            // changed while it was read
+            return delegate.get(key);
+        }
+
+        content = content.flip().asReadOnlyBuffer();
+        cache.put(key, content);
+        return new CachedResource(key, content);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        delegate.move(sourceKey, targetKey);
+        cache.invalidate(sourceKey);
+        cache.invalidate(targetKey);
+    }
+
+    @Override
+    public Optional<StorageStat> stat(String key) throws IOException {
+        return delegate.stat(key);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "file.content");
+        Gauge.builder("cloud.file.cache.used", cache, CachingStorageBackend::usedBytes)
+                .description("Bytes of file content held in the read cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Caffeine applies writes to the weighted size asynchronously; they are applied first so that a scrape
+     * right after a download sees it.
+     */
+    private static long usedBytes(Cache<String, ByteBuffer> cache) {
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+}
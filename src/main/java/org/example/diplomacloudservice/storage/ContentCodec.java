@@ -0,0 +1,121 @@
+package org.example.diplomacloudservice.storage;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * How a blob is encoded in storage. The names are the HTTP content codings, so the stored bytes
+ * can be sent as they are with {@code Content-Encoding}.
+ */
+public enum ContentCodec {
+
+    NONE("identity"),
+
+    /**
+     * zlib format, which is what HTTP calls {@code deflate}.
+     */
+    DEFLATE("deflate"),
+
+    ZSTD("zstd");
+
+    private final String contentEncoding;
+
+    ContentCodec(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * @param value {@code blobs.codec}, {@code null} for files outside the blob store
+     */
+    public static ContentCodec fromValue(String value) {
+        return value != null ? valueOf(value.toUpperCase(Locale.ROOT)) : NONE;
+    }
+
+    public String toValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Closing the returned stream finishes the encoding and closes {@code out}.
+     */
+    public OutputStream encode(OutputStream out, int level) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case DEFLATE -> new DeflaterOutputStream(out, new Deflater(level)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+            case ZSTD -> new ZstdOutputStream(out, level);
+        };
+    }
+
+    public InputStream decode(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case DEFLATE -> new InflaterInputStream(in);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+
+    /**
+     * A coding listed by name wins over {@code *}; either is refused with {@code q=0}.
+     * A quality that does not parse counts as 1.
+     *
+     * @param acceptEncoding value of the {@code Accept-Encoding} request header, may be {@code null}
+     */
+    public boolean isAcceptedBy(String acceptEncoding) {
+        if (this == NONE) {
+            return true;
+        }
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double named = null;
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (name.equalsIgnoreCase(contentEncoding)) {
+                named = quality(parameters);
+            } else if (name.equals("*")) {
+                wildcard = quality(parameters);
+            }
+        }
+
+        Double quality = named != null ? named : wildcard;
+        return quality != null && quality > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.diplomacloudservice.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The original content of an encoded blob, decoded while it is read. The length is the original size,
+ * so range requests still work (Spring MVC skips to the start of the range in the decoded stream).
+ */
+public class DecodedResource extends AbstractResource {
+
+    private final Resource stored;
+    private final ContentCodec codec;
+    private final long size;
+
+    public DecodedResource(Resource stored, ContentCodec codec, long size) {
+        this.stored = stored;
+        this.codec = codec;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return codec.decode(stored.getInputStream());
+    }
+
+    @Override
+    public boolean exists() {
+        return stored.exists();
+    }
+
+    @Override
+    public boolean isReadable() {
+        return stored.isReadable();
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return stored.lastModified();
+    }
+
+    @Override
+    public String getFilename() {
+        return stored.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return codec.getContentEncoding() + "-decoded " + stored.getDescription();
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.diplomacloudservice.storage;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Objects are plain files under one root directory. An object is written to a temp file in its directory
+ * and renamed into place, so readers never see it half-written. With {@code fsync} the file is forced
+ * to disk before the rename and the directory after it: an object that is there after {@link #put}
+ * returns is still there, whole, after a crash.
+ */
+@Log4j2
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+    private final boolean fsync;
+
+    public LocalStorageBackend(Path root) {
+        this(root, true);
+    }
+
+    public LocalStorageBackend(Path root, boolean fsync) {
+        this.root = root.toAbsolutePath().normalize();
+        this.fsync = fsync;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Renamed into place when the staged file is on the same file store, copied otherwise.
+     * Either way the object appears atomically.
+     */
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        try {
+            force(stagedFile);
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("Staged file {} is on another file store, copying it to {}", stagedFile, target);
+            Path tempFile = Files.createTempFile(target.getParent(), ".put-", ".tmp");
+            try {
+                Files.copy(stagedFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                force(tempFile);
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        forceDirectory(target.getParent());
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        Path tempFile = Files.createTempFile(target.getParent(), ".put-", ".tmp");
+        try {
+            Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            force(tempFile);
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        forceDirectory(target.getParent());
+    }
+
+    @Override
+    public Resource get(String key) {
+        return new FileSystemResource(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+
+        Path source = resolve(sourceKey);
+        Files.move(source, target);
+        forceDirectory(target.getParent());
+        if (!source.getParent().equals(target.getParent())) {
+            forceDirectory(source.getParent());
+        }
+    }
+
+    @Override
+    public Optional<StorageStat> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new StorageStat(attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void force(Path file) throws IOException {
+        if (fsync) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Makes a rename in the directory durable. Not every platform can open a directory (Windows cannot),
+     * there the rename is as durable as the file system makes it.
+     */
+    private void forceDirectory(Path directory) {
+        if (!fsync) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+
+        if (!path.startsWith(root) || path.equals(root)) {
+            log.error("Storage key '{}' points outside of {}", key, root);
+            throw new FileStorageException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+}
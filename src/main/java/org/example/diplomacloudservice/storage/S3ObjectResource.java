@@ -0,0 +1,124 @@
+package org.example.diplomacloudservice.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Object metadata is fetched once, on first use. The stream is opened lazily, so a leading
+ * {@link InputStream#skip} (as done when serving a Range request) becomes a ranged GetObject
+ * instead of downloading and discarding the skipped bytes.
+ */
+class S3ObjectResource extends AbstractResource {
+
+    private final S3StorageBackend backend;
+    private final String key;
+    // not synchronized: a virtual thread would stay pinned to its carrier for the HeadObject call
+    private final Lock statLock = new ReentrantLock();
+    private StorageStat stat;
+    private boolean statLoaded;
+
+    S3ObjectResource(S3StorageBackend backend, String key) {
+        this.backend = backend;
+        this.key = key;
+    }
+
+    @Override
+    public boolean exists() {
+        try {
+            return loadStat() != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return requireStat().size();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return requireStat().lastModified().toEpochMilli();
+    }
+
+    @Override
+    public String getFilename() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "S3 object [" + key + "]";
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new LazyRangeInputStream();
+    }
+
+    private StorageStat loadStat() throws IOException {
+        statLock.lock();
+        try {
+            if (!statLoaded) {
+                stat = backend.stat(key).orElse(null);
+                statLoaded = true;
+            }
+            return stat;
+        } finally {
+            statLock.unlock();
+        }
+    }
+
+    private StorageStat requireStat() throws IOException {
+        StorageStat loaded = loadStat();
+        if (loaded == null) {
+            throw new FileNotFoundException(getDescription() + " does not exist");
+        }
+        return loaded;
+    }
+
+    private class LazyRangeInputStream extends InputStream {
+
+        private InputStream delegate;
+        private long offset;
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            return open().read(buffer, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (delegate != null) {
+                return delegate.skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, contentLength() - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+        private InputStream open() throws IOException {
+            if (delegate == null) {
+                delegate = backend.openStream(key, offset);
+            }
+            return delegate;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.diplomacloudservice.storage;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Objects in a bucket of an S3-compatible store (AWS S3, MinIO, ...). Files above the multipart threshold
+ * are uploaded in parts straight from the staged file; reads are streamed from GetObject.
+ */
+@Log4j2
+public class S3StorageBackend implements StorageBackend {
+
+    /**
+     * S3 rejects the completion of a multipart upload whose parts, all but the last, are smaller.
+     */
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final long multipartThreshold;
+    private final long partSize;
+
+    public S3StorageBackend(S3Client s3Client, String bucket, long multipartThreshold, long partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("file.storage.s3.part-size must be at least 5MB, got " + partSize + " bytes.");
+        }
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+    }
+
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        long size = Files.size(stagedFile);
+
+        try {
+            if (size > multipartThreshold) {
+                putMultipart(key, stagedFile, size);
+            } else {
+                s3Client.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromFile(stagedFile));
+            }
+        } catch (SdkException e) {
+            throw storageError("put", key, e);
+        }
+    }
+
+    /**
+     * Spooled to a local temp file first: the SDK needs a re-readable body for retries and multipart.
+     */
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        Path tempFile = Files.createTempFile("s3-put-", ".tmp");
+        try {
+            Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            put(key, tempFile);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        return new S3ObjectResource(this, key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw storageError("delete", key, e);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        if (stat(sourceKey).isEmpty()) {
+            throw new NoSuchFileException(sourceKey);
+        }
+        if (stat(targetKey).isPresent()) {
+            throw new FileAlreadyExistsException(targetKey);
+        }
+
+        try {
+            s3Client.copyObject(request -> request
+                    .sourceBucket(bucket).sourceKey(sourceKey)
+                    .destinationBucket(bucket).destinationKey(targetKey));
+        } catch (SdkException e) {
+            throw storageError("copy", sourceKey, e);
+        }
+        delete(sourceKey);
+    }
+
+    @Override
+    public Optional<StorageStat> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3Client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new StorageStat(head.contentLength(), head.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw storageError("stat", key, e);
+        } catch (SdkException e) {
+            throw storageError("stat", key, e);
+        }
+    }
+
+    /**
+     * @param offset first byte to read, 0 for the whole object
+     */
+    InputStream openStream(String key, long offset) throws IOException {
+        try {
+            return s3Client.getObject(request -> {
+                request.bucket(bucket).key(key);
+                if (offset > 0) {
+                    request.range("bytes=" + offset + "-");
+                }
+            });
+        } catch (SdkException e) {
+            throw storageError("get", key, e);
+        }
+    }
+
+    private void putMultipart(String key, Path stagedFile, long size) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        log.debug("Multipart upload '{}' started for key '{}', {} bytes", uploadId, key, size);
+
+        try (FileChannel channel = FileChannel.open(stagedFile, StandardOpenOption.READ)) {
+            List<CompletedPart> parts = new ArrayList<>();
+
+            for (long offset = 0; offset < size; offset += partSize) {
+                int partNumber = parts.size() + 1;
+                long length = Math.min(partSize, size - offset);
+                long position = offset;
+
+                String eTag = s3Client.uploadPart(request -> request
+                                .bucket(bucket).key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(length),
+                        RequestBody.fromContentProvider(
+                                () -> Channels.newInputStream(channelSlice(channel, position, length)),
+                                length, "application/octet-stream")).eTag();
+
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+
+            s3Client.completeMultipartUpload(request -> request
+                    .bucket(bucket).key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | SdkException e) {
+            log.error("Multipart upload '{}' for key '{}' failed, aborting", uploadId, key);
+            s3Client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            throw e;
+        }
+    }
+
+    /**
+     * Each call gives an independent view, so the SDK can re-read a part on retry.
+     */
+    private static ReadableByteChannel channelSlice(FileChannel channel, long position, long length) {
+        return new ReadableByteChannel() {
+            private long read;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (read >= length) {
+                    return -1;
+                }
+                ByteBuffer window = dst.slice(dst.position(), (int) Math.min(dst.remaining(), length - read));
+                int count = channel.read(window, position + read);
+                if (count > 0) {
+                    dst.position(dst.position() + count);
+                    read += count;
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() {
+                // the channel is shared by all parts
+            }
+        };
+    }
+
+    private IOException storageError(String operation, String key, SdkException e) {
+        log.error("S3 {} failed for key '{}': {}", operation, key, e.getMessage());
+        return new IOException("S3 " + operation + " failed for key '" + key + "'", e);
+    }
+}
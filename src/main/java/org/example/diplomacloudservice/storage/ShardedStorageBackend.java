@@ -0,0 +1,91 @@
+package org.example.diplomacloudservice.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spreads objects over several local roots (typically one per mount point) by the hash of the key.
+ * The list of roots must not be reordered or shrunk once objects are written.
+ */
+public class ShardedStorageBackend implements StorageBackend {
+
+    private final List<LocalStorageBackend> shards;
+
+    public ShardedStorageBackend(List<Path> roots) {
+        this(roots, true);
+    }
+
+    /**
+     * @param fsync see {@link LocalStorageBackend}
+     */
+    public ShardedStorageBackend(List<Path> roots, boolean fsync) {
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("At least one storage location is required.");
+        }
+        this.shards = roots.stream()
+                .map(root -> new LocalStorageBackend(root, fsync))
+                .toList();
+    }
+
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        shardFor(key).put(key, stagedFile);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        shardFor(key).put(key, content, size);
+    }
+
+    @Override
+    public Resource get(String key) {
+        return shardFor(key).get(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        shardFor(key).delete(key);
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        LocalStorageBackend source = shardFor(sourceKey);
+        LocalStorageBackend target = shardFor(targetKey);
+
+        if (source == target) {
+            source.move(sourceKey, targetKey);
+            return;
+        }
+
+        StorageStat stat = source.stat(sourceKey)
+                .orElseThrow(() -> new NoSuchFileException(sourceKey));
+        if (target.stat(targetKey).isPresent()) {
+            throw new FileAlreadyExistsException(targetKey);
+        }
+
+        try (InputStream content = source.get(sourceKey).getInputStream()) {
+            target.put(targetKey, content, stat.size());
+        }
+        source.delete(sourceKey);
+    }
+
+    @Override
+    public Optional<StorageStat> stat(String key) throws IOException {
+        return shardFor(key).stat(key);
+    }
+
+    public List<LocalStorageBackend> getShards() {
+        return shards;
+    }
+
+    LocalStorageBackend shardFor(String key) {
+        return shards.get(Math.floorMod(key.hashCode(), shards.size()));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.diplomacloudservice.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where file content lives. Keys are relative {@code /}-separated paths, e.g. {@code blobs/ab/cd/<hash>}.
+ * Uploads are staged on local disk first (the key of a blob is known only once the whole content is hashed)
+ * and handed over with {@link #put(String, Path)}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores a fully written local file under the key, replacing any existing object.
+     * The staged file may be moved away; the caller deletes whatever is left of it.
+     */
+    void put(String key, Path stagedFile) throws IOException;
+
+    void put(String key, InputStream content, long size) throws IOException;
+
+    /**
+     * Streaming access to the object. Nothing is read until the resource is opened;
+     * {@link Resource#exists()} is {@code false} if there is no object under the key.
+     */
+    Resource get(String key) throws IOException;
+
+    /**
+     * Does nothing if there is no object under the key.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Fails if there is no object under the source key or an object already exists under the target key.
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    Optional<StorageStat> stat(String key) throws IOException;
+}
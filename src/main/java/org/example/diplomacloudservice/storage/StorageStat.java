@@ -0,0 +1,6 @@
+package org.example.diplomacloudservice.storage;
+
+import java.time.Instant;
+
+public record StorageStat(long size, Instant lastModified) {
+}
@@ -0,0 +1,68 @@
+package org.example.diplomacloudservice.utils;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a pass of a background job on the job's own thread, one at a time: the scheduler's thread is shared
+ * with the other jobs, so it only kicks passes off. A pass that throws is logged, the next one runs as usual.
+ * The owner calls {@link #shutdown} from its {@code @PreDestroy}.
+ */
+@Log4j2
+public class BackgroundPass {
+
+    private final String name;
+    private final Runnable pass;
+    private final ExecutorService coordinator;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * @param name of the thread the passes run on
+     */
+    public BackgroundPass(String name, Runnable pass) {
+        this.name = name;
+        this.pass = pass;
+        this.coordinator = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(name).daemon().factory());
+    }
+
+    /**
+     * @return {@code false} if a pass is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            coordinator.execute(() -> {
+                try {
+                    pass.run();
+                } catch (RuntimeException e) {
+                    log.error("Pass of {} failed", name, e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down
+            running.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Interrupts the running pass, no pass starts after it.
+     */
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+}
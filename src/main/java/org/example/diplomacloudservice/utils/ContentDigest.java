@@ -0,0 +1,55 @@
+package org.example.diplomacloudservice.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+@UtilityClass
+public class ContentDigest {
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * @param buffer scratch buffer, cleared before use
+     * @return hex SHA-256 of the whole file
+     */
+    public static String sha256Hex(Path file, ByteBuffer buffer) throws IOException {
+        MessageDigest digest = newSha256();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest);
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param sha256Hex as stored in {@code files.content_hash}
+     * @return value of the {@code Repr-Digest} header (RFC 9530) for the content
+     */
+    public static String toReprDigest(String sha256Hex) {
+        return "sha-256=:" + Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha256Hex)) + ":";
+    }
+}
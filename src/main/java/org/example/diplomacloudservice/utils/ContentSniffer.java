@@ -0,0 +1,162 @@
+package org.example.diplomacloudservice.utils;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Content type from the first {@link #HEAD_LENGTH} bytes of a file, looked up once on upload.
+ * Signatures win over the file name, except for container formats (ZIP, ISO media, OLE2): a {@code .docx}
+ * is a ZIP, so for those the type the name maps to is kept. Content without a signature is {@code text/plain}
+ * if it looks like text, otherwise whatever the name maps to.
+ */
+@UtilityClass
+public class ContentSniffer {
+
+    public static final int HEAD_LENGTH = 512;
+
+    private static final List<Signature> SIGNATURES = List.of(
+            new Signature(0, bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A), "image/png", Kind.PLAIN),
+            new Signature(0, bytes(0xFF, 0xD8, 0xFF), "image/jpeg", Kind.PLAIN),
+            new Signature(0, ascii("GIF87a"), "image/gif", Kind.PLAIN),
+            new Signature(0, ascii("GIF89a"), "image/gif", Kind.PLAIN),
+            new Signature(0, ascii("BM"), "image/bmp", Kind.PLAIN),
+            new Signature(8, ascii("WEBP"), "image/webp", Kind.PLAIN),
+            new Signature(0, ascii("%PDF-"), "application/pdf", Kind.PLAIN),
+            new Signature(0, bytes('P', 'K', 0x03, 0x04), "application/zip", Kind.CONTAINER),
+            new Signature(0, bytes('P', 'K', 0x05, 0x06), "application/zip", Kind.CONTAINER),
+            new Signature(0, bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1), "application/x-ole-storage",
+                    Kind.CONTAINER),
+            new Signature(0, bytes(0x1F, 0x8B), "application/gzip", Kind.PLAIN),
+            new Signature(0, bytes(0x28, 0xB5, 0x2F, 0xFD), "application/zstd", Kind.PLAIN),
+            new Signature(0, bytes('7', 'z', 0xBC, 0xAF, 0x27, 0x1C), "application/x-7z-compressed", Kind.PLAIN),
+            new Signature(0, ascii("Rar!"), "application/vnd.rar", Kind.PLAIN),
+            new Signature(0, ascii("BZh"), "application/x-bzip2", Kind.PLAIN),
+            new Signature(0, bytes(0xFD, '7', 'z', 'X', 'Z', 0x00), "application/x-xz", Kind.PLAIN),
+            new Signature(4, ascii("ftyp"), "video/mp4", Kind.CONTAINER),
+            new Signature(0, ascii("ID3"), "audio/mpeg", Kind.PLAIN),
+            new Signature(0, ascii("OggS"), "audio/ogg", Kind.PLAIN),
+            new Signature(0, ascii("fLaC"), "audio/flac", Kind.PLAIN),
+            new Signature(8, ascii("WAVE"), "audio/wav", Kind.PLAIN),
+            new Signature(0, bytes(0x1A, 0x45, 0xDF, 0xA3), "video/webm", Kind.CONTAINER),
+            new Signature(0, ascii("MZ"), "application/x-msdownload", Kind.EXECUTABLE),
+            new Signature(0, bytes(0x7F, 'E', 'L', 'F'), "application/x-executable", Kind.EXECUTABLE),
+            new Signature(0, bytes(0xCF, 0xFA, 0xED, 0xFE), "application/x-mach-binary", Kind.EXECUTABLE),
+            new Signature(0, bytes(0xCE, 0xFA, 0xED, 0xFE), "application/x-mach-binary", Kind.EXECUTABLE),
+            // Java class files and universal Mach-O binaries share it
+            new Signature(0, bytes(0xCA, 0xFE, 0xBA, 0xBE), "application/java-vm", Kind.EXECUTABLE)
+    );
+
+    /**
+     * @param head   the first bytes of the content, up to {@link #HEAD_LENGTH}
+     * @param length how many of them were read
+     */
+    public static String detect(String filename, byte[] head, int length) {
+        Optional<MediaType> byName = MediaTypeFactory.getMediaType(filename);
+        Signature signature = find(head, length);
+
+        if (signature != null) {
+            return signature.kind == Kind.CONTAINER && byName.isPresent()
+                    ? byName.get().toString()
+                    : signature.mediaType;
+        }
+        if (isText(head, length)) {
+            return byName.filter(ContentSniffer::isTextType)
+                    .map(MediaType::toString)
+                    .orElse(MediaType.TEXT_PLAIN_VALUE);
+        }
+        return byName.filter(mediaType -> !isTextType(mediaType))
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    /**
+     * Native executables and Java classes, whatever the file is called. A script is text whatever its first line:
+     * a {@code #!} line is common in {@code .py} files and in notes, shell scripts are blocked by extension.
+     */
+    public static boolean isExecutable(byte[] head, int length) {
+        Signature signature = find(head, length);
+        return signature != null && signature.kind == Kind.EXECUTABLE;
+    }
+
+    /**
+     * Two bytes are too likely at the start of a text ("MZ", "BM"), such signatures only count for binary content.
+     */
+    private static Signature find(byte[] head, int length) {
+        boolean text = isText(head, length);
+        for (Signature signature : SIGNATURES) {
+            if (signature.matches(head, length) && !(text && signature.magic.length < 3)) {
+                return signature;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * No NUL and hardly any other control characters; a UTF-8 sequence cut off at the end of the head is fine.
+     */
+    private static boolean isText(byte[] head, int length) {
+        if (length == 0) {
+            return false;
+        }
+
+        int control = 0;
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b == 0) {
+                return false;
+            }
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 100 < length;
+    }
+
+    private static boolean isTextType(MediaType mediaType) {
+        return "text".equals(mediaType.getType())
+                || mediaType.getSubtype().endsWith("json")
+                || mediaType.getSubtype().endsWith("xml")
+                || "javascript".equals(mediaType.getSubtype());
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private enum Kind {
+        PLAIN,
+        /**
+         * The name is more specific than the signature.
+         */
+        CONTAINER,
+        EXECUTABLE
+    }
+
+    private record Signature(int offset, byte[] magic, String mediaType, Kind kind) {
+
+        boolean matches(byte[] head, int length) {
+            if (length < offset + magic.length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (head[offset + i] != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.diplomacloudservice.utils;
+
+import lombok.experimental.UtilityClass;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+
+import java.util.regex.Pattern;
+
+/**
+ * Glob patterns, prefixes and other parts of file names as SQL {@code LIKE} patterns with {@code ESCAPE '\'}.
+ */
+@UtilityClass
+public class FileNamePattern {
+
+    private static final Pattern GLOB_PATTERN = Pattern.compile("^[a-zA-Z0-9._*?-]+$");
+    private static final Pattern PREFIX_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+$");
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("^[a-zA-Z0-9]+$");
+
+    /**
+     * {@code *} matches any number of characters, {@code ?} exactly one, everything else matches itself.
+     */
+    public static String globToLike(String glob) {
+        if (glob == null || !GLOB_PATTERN.matcher(glob).matches()) {
+            throw new InvalidFileException("Invalid pattern '" + glob + "'. Allowed are file name characters, '*' and '?'.");
+        }
+
+        StringBuilder like = new StringBuilder(glob.length() + 8);
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> like.append('%');
+                case '?' -> like.append('_');
+                default -> appendEscaped(like, c);
+            }
+        }
+        return like.toString();
+    }
+
+    public static String prefixToLike(String prefix) {
+        if (prefix == null || !PREFIX_PATTERN.matcher(prefix).matches()) {
+            throw new InvalidFileException("Invalid prefix '" + prefix + "'. Allowed are file name characters.");
+        }
+
+        StringBuilder like = new StringBuilder(prefix.length() + 8);
+        for (char c : prefix.toCharArray()) {
+            appendEscaped(like, c);
+        }
+        return like.append('%').toString();
+    }
+
+    /**
+     * Names that contain {@code substring} anywhere.
+     */
+    public static String substringToLike(String substring) {
+        if (substring == null || !PREFIX_PATTERN.matcher(substring).matches()) {
+            throw new InvalidFileException("Invalid name '" + substring + "'. Allowed are file name characters.");
+        }
+
+        StringBuilder like = new StringBuilder(substring.length() + 8).append('%');
+        for (char c : substring.toCharArray()) {
+            appendEscaped(like, c);
+        }
+        return like.append('%').toString();
+    }
+
+    /**
+     * Names that end with {@code .extension}; the extension is given without the dot.
+     */
+    public static String extensionToLike(String extension) {
+        if (extension == null || !EXTENSION_PATTERN.matcher(extension).matches()) {
+            throw new InvalidFileException("Invalid extension '" + extension + "'. Allowed are letters and digits.");
+        }
+        return "%." + extension;
+    }
+
+    private static void appendEscaped(StringBuilder like, char c) {
+        if (c == '%' || c == '_' || c == '\\') {
+            like.append('\\');
+        }
+        like.append(c);
+    }
+}
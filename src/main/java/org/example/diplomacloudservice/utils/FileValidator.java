@@ -3,7 +3,6 @@ package org.example.diplomacloudservice.utils;
 import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j2;
 import org.example.diplomacloudservice.exceptions.InvalidFileException;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -17,20 +16,31 @@ public class FileValidator {
     );
     private static final Pattern FILENAME_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+$");
 
-    public static void validateFile(String filename, MultipartFile file) {
+    /**
+     * @param originalFilename name of the uploaded part as sent by the client
+     */
+    public static void validateFile(String filename, String originalFilename) {
         log.debug("Validating file: {}", filename);
         validateFilename(filename);
 
-        if (file.isEmpty()) {
-            throw new InvalidFileException("There was no file attached");
-        }
-
-        if (isBlockedFileType(file.getOriginalFilename())) {
+        if (isBlockedFileType(originalFilename)) {
             log.warn("Blocked file type detected for file: {}", filename);
             throw new InvalidFileException("This file type is not allowed or file has no extension.");
         }
     }
 
+    /**
+     * Blocks executables by their first bytes, whatever their extension.
+     *
+     * @param head first bytes of the content, see {@link ContentSniffer#HEAD_LENGTH}
+     */
+    public static void validateContent(String filename, byte[] head, int length) {
+        if (ContentSniffer.isExecutable(head, length)) {
+            log.warn("Executable content detected in file: {}", filename);
+            throw new InvalidFileException("This file type is not allowed.");
+        }
+    }
+
     public static void validateFilename(String filename) {
         log.debug("Validating filename: {}", filename);
         if (filename == null || filename.isBlank()) {
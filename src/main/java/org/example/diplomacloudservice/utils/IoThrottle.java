@@ -0,0 +1,89 @@
+package org.example.diplomacloudservice.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the rate of bytes read by any number of threads. Each {@link #acquire} reserves time for its bytes
+ * after the reservations made before it and sleeps until that time has come, so the rate holds on average
+ * over every read, without bursts after an idle period.
+ * Concurrent calls are safe.
+ */
+public class IoThrottle {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private long nextFreeNanos;
+
+    /**
+     * @param bytesPerSecond 0 or less for no limit
+     */
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until {@code bytes} more may be read.
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextFreeNanos - now < 0) {
+                nextFreeNanos = now;
+            }
+            waitNanos = nextFreeNanos - now;
+            nextFreeNanos += Math.multiplyExact(bytes, NANOS_PER_SECOND) / bytesPerSecond;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Wraps the stream so that each read waits for the bytes it returned, a buffer at a time.
+     * An interrupt while waiting fails the read with {@link InterruptedIOException}.
+     */
+    public InputStream throttle(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read != -1) {
+                    acquireForRead(1);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                acquireForRead(read);
+                return read;
+            }
+        };
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    private void acquireForRead(long bytes) throws InterruptedIOException {
+        try {
+            acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Throttled read interrupted");
+        }
+    }
+}
@@ -1,39 +1,71 @@
 package org.example.diplomacloudservice.integrationTests.service;
 
 import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.dto.FileResultDto;
+import org.example.diplomacloudservice.dto.FileSearchRequest;
+import org.example.diplomacloudservice.dto.QuotaDto;
 import org.example.diplomacloudservice.entities.File;
 import org.example.diplomacloudservice.entities.User;
-import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.entities.Blob;
+import org.example.diplomacloudservice.repositories.BlobRepository;
 import org.example.diplomacloudservice.repositories.FileRepository;
 import org.example.diplomacloudservice.repositories.UserRepository;
+import org.example.diplomacloudservice.services.BatchUpload;
+import org.example.diplomacloudservice.services.BlobService;
+import org.example.diplomacloudservice.services.BulkFileService;
 import org.example.diplomacloudservice.services.FileService;
+import org.example.diplomacloudservice.services.LegacyFileMigrator;
+import org.example.diplomacloudservice.services.QuotaService;
+import org.example.diplomacloudservice.services.StorageOutbox;
+import org.example.diplomacloudservice.services.StorageReconciler;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.utils.ContentDigest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
 import org.springframework.core.io.Resource;
-import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
-import org.springframework.web.multipart.MultipartFile;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ActiveProfiles("test")
+@AutoConfigureObservability(tracing = false)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class FileServiceIntegrationTest {
 
@@ -46,6 +78,38 @@ public class FileServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private BulkFileService bulkFileService;
+
+    @Autowired
+    private StorageOutbox storageOutbox;
+
+    @Autowired
+    private StorageReconciler storageReconciler;
+
+    @Autowired
+    private LegacyFileMigrator legacyFileMigrator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private static final String CONTENT_HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+
     @Value("${file.storage.location:storage}")
     String storagePath;
 
@@ -68,32 +132,63 @@ public class FileServiceIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("file.compression.enabled", () -> "true");
+        registry.add("file.compression.types", () -> "application/x-ndjson");
+        registry.add("file.compression.extensions", () -> "log");
+        registry.add("file.search.full-text.enabled", () -> "true");
+        // the Reactor Netty client would decode Content-Encoding itself
+        registry.add("spring.http.client.factory", () -> "jdk");
     }
 
     @BeforeEach
     void setUp() {
         fileRepository.deleteAll();
+        blobRepository.deleteAll();
+        jdbcTemplate.update("UPDATE users SET used_bytes = 0, file_count = 0, quota_bytes = NULL");
+        // the cached usage of the previous test would be adjusted, not reloaded
+        userRepository.findAll().forEach(user -> quotaService.getUsage(user.getId()));
     }
 
     @Test
-    void fileExistsForUser_fileExists() {
+    void uploadFileForUser_quotaEnforcedAndUsageCounted() throws IOException {
         User user = userRepository.findByLogin("user1")
                 .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
-        File file = File.builder()
-                .fileName("testFile.txt")
-                .user(user)
-                .fileLocation("")
-                .createdAt(LocalDateTime.now())
-                .build();
+        jdbcTemplate.update("UPDATE users SET quota_bytes = 20 WHERE id = ?", user.getId());
+        quotaService.getUsage(user.getId());
+
+        byte[] fileContent = "Hello, World!".getBytes();
+        fileService.uploadFileForUser(user.getId(), "first.txt", new ByteArrayInputStream(fileContent));
+
+        QuotaDto usage = quotaService.getUsage(user.getId());
+        assertEquals(fileContent.length, usage.getUsedBytes());
+        assertEquals(1, usage.getFileCount());
+        assertEquals(20, usage.getQuotaBytes());
 
-        fileRepository.save(file);
+        assertThrows(QuotaExceededException.class,
+                () -> fileService.uploadFileForUser(user.getId(), "second.txt", new ByteArrayInputStream(fileContent)));
+        assertFalse(fileRepository.existsByFileNameAndUserId("second.txt", user.getId()));
 
-        assertTrue(fileService.fileExistsForUser("testFile.txt", "user1"));
+        fileService.deleteFileForUser(user.getId(), "first.txt");
+
+        usage = quotaService.getUsage(user.getId());
+        assertEquals(0, usage.getUsedBytes());
+        assertEquals(0, usage.getFileCount());
     }
 
     @Test
-    void fileExistsForUser_fileNotExist() {
-        assertFalse(fileService.fileExistsForUser("testFile111.txt", "user1"));
+    void uploadFileForUser_duplicateNameRejected() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+
+        String filename = "testDuplicate.txt";
+        byte[] fileContent = "Hello, World!".getBytes();
+
+        fileService.uploadFileForUser(user.getId(), filename, new ByteArrayInputStream(fileContent));
+
+        assertThrows(InvalidFileException.class,
+                () -> fileService.uploadFileForUser(user.getId(), filename, new ByteArrayInputStream(fileContent)));
+
+        fileService.deleteFileForUser(user.getId(), filename);
     }
 
     @Test
@@ -103,15 +198,16 @@ public class FileServiceIntegrationTest {
 
         String filename = "testUpload.txt";
         byte[] fileContent = "Hello, World!".getBytes();
-        MultipartFile multipartFile = new MockMultipartFile(filename, filename, "text/plain", fileContent);
 
-        fileService.uploadFileForUser(user.getLogin(), filename, multipartFile);
+        fileService.uploadFileForUser(user.getId(), filename, new ByteArrayInputStream(fileContent));
 
         Optional<File> savedFile = fileRepository.findByFileNameAndUserId(filename, user.getId());
         assertTrue(savedFile.isPresent());
+        assertEquals(CONTENT_HASH, savedFile.get().getContentHash());
+        assertEquals(CONTENT_HASH, savedFile.get().getBlobHash());
+        assertEquals("text/plain", savedFile.get().getContentType());
 
-        Path userDir = Paths.get(storagePath, "user_" + user.getId());
-        Path filePath = userDir.resolve(filename);
+        Path filePath = Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH));
         assertTrue(Files.exists(filePath));
 
         assertEquals(fileContent.length, Files.size(filePath));
@@ -124,25 +220,52 @@ public class FileServiceIntegrationTest {
 
         String filename = "testUpload.txt";
         byte[] fileContent = "Hello, World!".getBytes();
-        MultipartFile multipartFile = new MockMultipartFile(filename, filename, "text/plain", fileContent);
 
-        fileService.uploadFileForUser(user.getLogin(), filename, multipartFile);
+        fileService.uploadFileForUser(user.getId(), filename, new ByteArrayInputStream(fileContent));
 
         Optional<File> savedFile = fileRepository.findByFileNameAndUserId(filename, user.getId());
         assertTrue(savedFile.isPresent());
 
-        Path userDir = Paths.get(storagePath, "user_" + user.getId());
-        Path filePath = userDir.resolve(filename);
+        Path filePath = Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH));
         assertTrue(Files.exists(filePath));
 
-        fileService.deleteFileForUser(user.getLogin(), filename);
+        fileService.deleteFileForUser(user.getId(), filename);
 
         Optional<File> deletedFile = fileRepository.findByFileNameAndUserId(filename, user.getId());
         assertFalse(deletedFile.isPresent());
 
+        assertFalse(blobRepository.existsById(CONTENT_HASH));
         assertFalse(Files.exists(filePath));
     }
 
+    @Test
+    void uploadFileForUser_sameContentStoredOnce() throws IOException {
+        User user1 = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+        User user2 = userRepository.findByLogin("user2")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+
+        byte[] fileContent = "Hello, World!".getBytes();
+
+        fileService.uploadFileForUser(user1.getId(), "first.txt", new ByteArrayInputStream(fileContent));
+        fileService.uploadFileForUser(user2.getId(), "second.txt", new ByteArrayInputStream(fileContent));
+
+        Blob blob = blobRepository.findById(CONTENT_HASH).orElseThrow();
+        assertEquals(2, blob.getRefCount());
+
+        Path blobPath = Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH));
+        fileService.deleteFileForUser(user1.getId(), "first.txt");
+
+        assertEquals(1, blobRepository.findById(CONTENT_HASH).orElseThrow().getRefCount());
+        assertArrayEquals(fileContent, fileService.getFileForUser(user2.getId(), "second.txt")
+                .getInputStream().readAllBytes());
+
+        fileService.deleteFileForUser(user2.getId(), "second.txt");
+
+        assertFalse(blobRepository.existsById(CONTENT_HASH));
+        assertFalse(Files.exists(blobPath));
+    }
+
     @Test
     void getFileForUser_FileExistsAndReadable() throws IOException {
         User user = userRepository.findByLogin("user1")
@@ -150,14 +273,13 @@ public class FileServiceIntegrationTest {
 
         String filename = "testUpload.txt";
         byte[] fileContent = "Hello, World!".getBytes();
-        MultipartFile multipartFile = new MockMultipartFile(filename, filename, "text/plain", fileContent);
 
-        fileService.uploadFileForUser(user.getLogin(), filename, multipartFile);
+        fileService.uploadFileForUser(user.getId(), filename, new ByteArrayInputStream(fileContent));
 
         Optional<File> savedFile = fileRepository.findByFileNameAndUserId(filename, user.getId());
         assertTrue(savedFile.isPresent());
 
-        Resource resource = fileService.getFileForUser(user.getLogin(), filename);
+        Resource resource = fileService.getFileForUser(user.getId(), filename);
 
         assertNotNull(resource);
         assertTrue(resource.exists());
@@ -174,7 +296,7 @@ public class FileServiceIntegrationTest {
 
         String filename = "nonexistentFile.txt";
 
-        assertThrows(FileStorageException.class, () -> fileService.getFileForUser(user.getLogin(), filename));
+        assertThrows(InvalidFileException.class, () -> fileService.getFileForUser(user.getId(), filename));
     }
 
     @Test
@@ -185,19 +307,13 @@ public class FileServiceIntegrationTest {
         String oldFilename = "testUpload.txt";
         String newFilename = "renamedFile.txt";
         byte[] fileContent = "Hello, World!".getBytes();
-        MultipartFile multipartFile = new MockMultipartFile(oldFilename, oldFilename, "text/plain", fileContent);
 
-        fileService.uploadFileForUser(user.getLogin(), oldFilename, multipartFile);
+        fileService.uploadFileForUser(user.getId(), oldFilename, new ByteArrayInputStream(fileContent));
 
         Optional<File> savedFile = fileRepository.findByFileNameAndUserId(oldFilename, user.getId());
         assertTrue(savedFile.isPresent());
 
-        Path userDir = Paths.get(storagePath, "user_" + user.getId());
-        Path oldFilePath = userDir.resolve(oldFilename);
-
-        assertTrue(Files.exists(oldFilePath));
-
-        fileService.renameFileForUser(user.getLogin(), oldFilename, newFilename);
+        fileService.renameFileForUser(user.getId(), oldFilename, newFilename);
 
         Optional<File> renamedFile = fileRepository.findByFileNameAndUserId(newFilename, user.getId());
         assertTrue(renamedFile.isPresent());
@@ -205,14 +321,152 @@ public class FileServiceIntegrationTest {
         Optional<File> oldFileAfterRename = fileRepository.findByFileNameAndUserId(oldFilename, user.getId());
         assertFalse(oldFileAfterRename.isPresent());
 
+        byte[] fileBytes = fileService.getFileForUser(user.getId(), newFilename).getInputStream().readAllBytes();
+        assertArrayEquals(fileContent, fileBytes);
+
+        fileService.deleteFileForUser(user.getId(), newFilename);
+    }
+
+    @Test
+    void renameFileForUser_legacyFileMoved() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+
+        String oldFilename = "legacy.txt";
+        String newFilename = "renamedLegacy.txt";
+        byte[] fileContent = "Hello, World!".getBytes();
+
+        Path userDir = Files.createDirectories(Paths.get(storagePath, "user_" + user.getId()));
+        Path oldFilePath = Files.write(userDir.resolve(oldFilename), fileContent);
+
+        fileRepository.save(File.builder()
+                .fileName(oldFilename)
+                .user(user)
+                .fileLocation(userDir.toString())
+                .size((long) fileContent.length)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        fileService.renameFileForUser(user.getId(), oldFilename, newFilename);
+
         Path newFilePath = userDir.resolve(newFilename);
         assertTrue(Files.exists(newFilePath));
         assertFalse(Files.exists(oldFilePath));
 
-        byte[] fileBytes = Files.readAllBytes(newFilePath);
-        assertArrayEquals(fileContent, fileBytes);
+        fileService.deleteFileForUser(user.getId(), newFilename);
+        assertFalse(Files.exists(newFilePath));
+    }
+
+    @Test
+    void uploadFileForUser_shouldTakeBackBlobWaitingForDeletion() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+        byte[] fileContent = "Hello, World!".getBytes();
+        Path blobPath = Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH));
+
+        fileService.uploadFileForUser(user.getId(), "first.txt", new ByteArrayInputStream(fileContent));
+        // as if the instance went down between the commit and the delete
+        jdbcTemplate.update("UPDATE blobs SET ref_count = 0 WHERE hash = ?", CONTENT_HASH);
+        jdbcTemplate.update("DELETE FROM files");
+        jdbcTemplate.update("INSERT INTO storage_outbox (object_key, blob_hash, created_at) VALUES (?, ?, ?)",
+                blobService.getBlobKey(CONTENT_HASH), CONTENT_HASH, LocalDateTime.now().minusHours(1));
+
+        fileService.uploadFileForUser(user.getId(), "second.txt", new ByteArrayInputStream(fileContent));
+        storageOutbox.retryPending();
+
+        assertEquals(1, blobRepository.findById(CONTENT_HASH).orElseThrow().getRefCount());
+        assertTrue(Files.exists(blobPath));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM storage_outbox", Integer.class));
+        assertArrayEquals(fileContent, fileService.getFileForUser(user.getId(), "second.txt")
+                .getInputStream().readAllBytes());
+    }
 
-        Files.delete(newFilePath);
+    @Test
+    void reconcile_shouldRepairDriftBetweenStorageAndDatabase() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+        fileService.uploadFileForUser(user.getId(), "kept.txt", new ByteArrayInputStream("Hello, World!".getBytes()));
+        Path keptBlob = Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH));
+
+        String orphanHash = "ab" + "0".repeat(62);
+        Path orphanBlob = Paths.get(storagePath, blobService.getBlobKey(orphanHash));
+        Files.createDirectories(orphanBlob.getParent());
+        Files.write(orphanBlob, "orphan".getBytes());
+        Path userDir = Files.createDirectories(Paths.get(storagePath, "user_" + user.getId()));
+        Path tempFile = Files.write(userDir.resolve(".upload-crashed.tmp"), "partial".getBytes());
+        Path strayFile = Files.write(userDir.resolve("stray.txt"), "stray".getBytes());
+        Path lostAndFound = Paths.get(storagePath, "lost+found", "user_" + user.getId());
+        Files.deleteIfExists(lostAndFound.resolve("stray.txt"));
+        Files.createDirectories(lostAndFound);
+        Files.write(lostAndFound.resolve("found.txt"), "found".getBytes());
+        fileRepository.save(File.builder()
+                .fileName("found.txt")
+                .user(user)
+                .fileLocation(userDir.toString())
+                .size(5L)
+                .createdAt(LocalDateTime.now())
+                .build());
+        jdbcTemplate.update("UPDATE users SET used_bytes = used_bytes + 5, file_count = file_count + 1 WHERE id = ?",
+                user.getId());
+
+        Map<String, Long> repairs = storageReconciler.reconcile();
+
+        assertTrue(repairs.get("orphan_blob") >= 1);
+        assertFalse(Files.exists(orphanBlob));
+        assertFalse(blobRepository.existsById(orphanHash));
+        assertTrue(Files.exists(keptBlob));
+        assertFalse(Files.exists(tempFile));
+        assertFalse(Files.exists(strayFile));
+        assertTrue(Files.exists(lostAndFound.resolve("stray.txt")));
+        assertArrayEquals("found".getBytes(), fileService.getFileForUser(user.getId(), "found.txt")
+                .getInputStream().readAllBytes());
+
+        fileService.deleteFileForUser(user.getId(), "found.txt");
+    }
+
+    @Test
+    void migrate_shouldMoveLegacyFilesIntoBlobStoreWhileTheyStayReadable() throws Exception {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+        fileService.uploadFileForUser(user.getId(), "uploaded.txt", new ByteArrayInputStream("Hello, World!".getBytes()));
+
+        Path userDir = Files.createDirectories(Paths.get(storagePath, "user_" + user.getId()));
+        Map<String, String> legacyFiles = Map.of("old-same.txt", "Hello, World!", "old-other.txt", "legacy content");
+        for (Map.Entry<String, String> legacy : legacyFiles.entrySet()) {
+            Files.writeString(userDir.resolve(legacy.getKey()), legacy.getValue());
+            fileRepository.save(File.builder()
+                    .fileName(legacy.getKey())
+                    .user(user)
+                    .fileLocation(userDir.toString())
+                    .size((long) legacy.getValue().length())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+
+        assertTrue(legacyFileMigrator.start());
+        do {
+            Thread.sleep(50);
+        } while (legacyFileMigrator.getStatus().isRunning());
+
+        assertEquals(2, legacyFileMigrator.getStatus().getMigratedFiles());
+        assertEquals(0, legacyFileMigrator.getStatus().getRemainingFiles());
+        assertEquals(2, blobRepository.findById(CONTENT_HASH).orElseThrow().getRefCount());
+        for (Map.Entry<String, String> legacy : legacyFiles.entrySet()) {
+            File migrated = fileRepository.findByFileNameAndUserId(legacy.getKey(), user.getId()).orElseThrow();
+            assertNotNull(migrated.getBlobHash());
+            assertEquals("text/plain", migrated.getContentType());
+            assertEquals(legacy.getValue(), new String(fileService.getFileForUser(user.getId(), legacy.getKey())
+                    .getInputStream().readAllBytes()));
+            // still there for rows read before the switch
+            assertTrue(Files.exists(userDir.resolve(legacy.getKey())));
+        }
+
+        jdbcTemplate.update("UPDATE storage_outbox SET created_at = created_at - interval '1 hour'");
+        storageOutbox.retryPending();
+
+        for (String legacyFile : legacyFiles.keySet()) {
+            assertFalse(Files.exists(userDir.resolve(legacyFile)));
+        }
     }
 
     @Test
@@ -239,7 +493,7 @@ public class FileServiceIntegrationTest {
         fileRepository.save(file1);
         fileRepository.save(file2);
 
-        List<FileInfoDto> fileInfoDtos = fileService.getUserFilesList(user.getLogin(), 2);
+        List<FileInfoDto> fileInfoDtos = fileService.getUserFilesList(user.getId(), 2, "name", "asc", null).getFiles();
 
         assertFalse(fileInfoDtos.isEmpty());
 
@@ -250,4 +504,314 @@ public class FileServiceIntegrationTest {
         assertTrue(fileInfoDtos.stream().anyMatch(file -> file.getFilename().equals("file1.txt") && file.getSize() == file1.getSize()));
         assertTrue(fileInfoDtos.stream().anyMatch(file -> file.getFilename().equals("file2.txt") && file.getSize() == file2.getSize()));
     }
+
+    @Test
+    void getUserFilesList_pagesThroughAllFilesWithCursor() {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 7; i++) {
+            fileRepository.save(File.builder()
+                    .fileName("file" + i + ".txt")
+                    .user(user)
+                    .fileLocation("/some/path")
+                    .size((long) i)
+                    // two files per timestamp, the id decides between them
+                    .createdAt(createdAt.plusMinutes(i / 2))
+                    .build());
+        }
+
+        assertEquals(List.of("file0.txt", "file1.txt", "file2.txt", "file3.txt", "file4.txt", "file5.txt", "file6.txt"),
+                listAll(user.getId(), "name", "asc"));
+        assertEquals(List.of("file6.txt", "file5.txt", "file4.txt", "file3.txt", "file2.txt", "file1.txt", "file0.txt"),
+                listAll(user.getId(), "date", "desc"));
+        assertEquals(List.of("file0.txt", "file1.txt", "file2.txt", "file3.txt", "file4.txt", "file5.txt", "file6.txt"),
+                listAll(user.getId(), "date", "asc"));
+    }
+
+    @Test
+    void startBatchUpload_shouldInsertAllRowsInOneBatchAndReportTakenNames() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        fileService.uploadFileForUser(user.getId(), "batch-taken.txt", new ByteArrayInputStream("old".getBytes()));
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(user.getId())) {
+            batch.add("batch-first.txt", new ByteArrayInputStream("first".getBytes()));
+            batch.add("batch-taken.txt", new ByteArrayInputStream("new".getBytes()));
+            batch.add("batch-second.txt", new ByteArrayInputStream("second".getBytes()));
+            results = batch.commit();
+        }
+
+        assertEquals(List.of(200, 400, 200), results.stream().map(FileResultDto::getId).toList());
+        assertEquals(3, fileRepository.findAll().stream()
+                .filter(file -> file.getFileName().startsWith("batch-")).count());
+        assertEquals(3 + 5 + 6, quotaService.getUsage(user.getId()).getUsedBytes());
+
+        fileService.deleteFileForUser(user.getId(), "batch-first.txt");
+        fileService.deleteFileForUser(user.getId(), "batch-taken.txt");
+        fileService.deleteFileForUser(user.getId(), "batch-second.txt");
+    }
+
+    @Test
+    void bulkRenameAndDelete_shouldChangeRowsSetBasedAndCleanUpStorage() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        fileService.uploadFileForUser(user.getId(), "bulk-a.txt", new ByteArrayInputStream("same".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "bulk-b.txt", new ByteArrayInputStream("same".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "bulk-c.txt", new ByteArrayInputStream("other".getBytes()));
+
+        Path userDir = Files.createDirectories(Paths.get(storagePath, "user_" + user.getId()));
+        Files.write(userDir.resolve("bulk-legacy.txt"), "legacy".getBytes());
+        fileRepository.save(File.builder()
+                .fileName("bulk-legacy.txt")
+                .user(user)
+                .fileLocation(userDir.toString())
+                .size(6L)
+                .createdAt(LocalDateTime.now())
+                .build());
+        jdbcTemplate.update("UPDATE users SET used_bytes = used_bytes + 6, file_count = file_count + 1 WHERE id = ?",
+                user.getId());
+
+        Map<String, String> newNames = new LinkedHashMap<>();
+        newNames.put("bulk-a.txt", "bulk-c.txt");
+        newNames.put("bulk-b.txt", "bulk-d.txt");
+        newNames.put("bulk-legacy.txt", "bulk-e.txt");
+        newNames.put("bulk-missing.txt", "bulk-f.txt");
+        List<FileResultDto> renamed = bulkFileService.renameFiles(user.getId(), newNames);
+
+        assertEquals(List.of(400, 200, 200, 400), renamed.stream().map(FileResultDto::getId).toList());
+        assertTrue(Files.exists(userDir.resolve("bulk-e.txt")));
+        assertFalse(Files.exists(userDir.resolve("bulk-legacy.txt")));
+
+        List<FileResultDto> deleted = bulkFileService.deleteMatchingFiles(user.getId(), "bulk-?.txt");
+
+        assertEquals(List.of("bulk-a.txt", "bulk-c.txt", "bulk-d.txt", "bulk-e.txt"),
+                deleted.stream().map(FileResultDto::getFilename).sorted().toList());
+        assertEquals(0, fileRepository.count());
+        assertEquals(0, blobRepository.count());
+        assertEquals(0, quotaService.getUsage(user.getId()).getUsedBytes());
+        assertEquals(0, quotaService.getUsage(user.getId()).getFileCount());
+        assertFalse(Files.exists(userDir.resolve("bulk-e.txt")));
+        MessageDigest sameDigest = ContentDigest.newSha256();
+        sameDigest.update("same".getBytes());
+        assertFalse(Files.exists(Paths.get(storagePath, blobService.getBlobKey(ContentDigest.toHex(sameDigest)))));
+    }
+
+    @Test
+    void downloadArchive_shouldStreamZipOfAllFiles() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        fileService.uploadFileForUser(user.getId(), "zip-a.txt", new ByteArrayInputStream("first".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "zip-b.png", new ByteArrayInputStream("second".getBytes()));
+
+        HttpHeaders headers = loginHeaders();
+        ResponseEntity<byte[]> response = restTemplate.exchange("/files/archive", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(response.getBody()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.add(entry.getName() + "=" + new String(zip.readAllBytes()));
+            }
+        }
+        assertEquals(List.of("zip-a.txt=first", "zip-b.png=second"), entries);
+
+        ResponseEntity<String> missing = restTemplate.exchange("/files/archive?filename=zip-c.txt", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+    }
+
+    @Test
+    void downloadFile_shouldSendCompressedFileAsStoredOnlyWhenClientAcceptsCodec() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        byte[] content = "GET /list 200\n".repeat(1000).getBytes();
+        fileService.uploadFileForUser(user.getId(), "access.log", new ByteArrayInputStream(content));
+
+        File file = fileRepository.findByFileNameAndUserId("access.log", user.getId()).orElseThrow();
+        assertEquals("zstd", file.getCodec());
+        assertEquals(content.length, file.getSize());
+        assertTrue(file.getStoredSize() < content.length);
+
+        HttpHeaders headers = loginHeaders();
+        ResponseEntity<byte[]> decoded = restTemplate.exchange("/file?filename=access.log", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        assertNull(decoded.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(ContentDigest.toReprDigest(file.getContentHash()), decoded.getHeaders().getFirst("Repr-Digest"));
+        assertTrue(decoded.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+        assertArrayEquals(content, decoded.getBody());
+
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd");
+        ResponseEntity<byte[]> encoded = restTemplate.exchange("/file?filename=access.log", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        assertEquals("zstd", encoded.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(file.getStoredSize(), encoded.getBody().length);
+        assertArrayEquals(content, ContentCodec.ZSTD.decode(new ByteArrayInputStream(encoded.getBody())).readAllBytes());
+        assertNotEquals(decoded.getHeaders().getETag(), encoded.getHeaders().getETag());
+        assertNull(encoded.getHeaders().getFirst("Repr-Digest"));
+    }
+
+    @Test
+    void scrub_shouldFlagDamagedBlobUntilSameContentIsUploadedAgain() throws Exception {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        fileService.uploadFileForUser(user.getId(), "intact.txt", new ByteArrayInputStream("intact".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "test.txt", new ByteArrayInputStream("Hello, World!".getBytes()));
+        Files.write(Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH)), "Hello, World?".getBytes());
+
+        HttpHeaders userHeaders = loginHeaders();
+        ResponseEntity<String> forbidden = restTemplate.exchange("/admin/scrub", HttpMethod.POST,
+                new HttpEntity<>(userHeaders), String.class);
+        assertEquals(HttpStatus.FORBIDDEN, forbidden.getStatusCode());
+
+        jdbcTemplate.update("UPDATE users SET role = 'ADMIN' WHERE login = 'user3'");
+        try {
+            HttpHeaders adminHeaders = loginHeaders("user3", "password3");
+            ResponseEntity<String> started = restTemplate.exchange("/admin/scrub", HttpMethod.POST,
+                    new HttpEntity<>(adminHeaders), String.class);
+            assertEquals(HttpStatus.ACCEPTED, started.getStatusCode());
+
+            Map<?, ?> status;
+            do {
+                Thread.sleep(50);
+                status = restTemplate.exchange("/admin/scrub", HttpMethod.GET, new HttpEntity<>(adminHeaders),
+                        Map.class).getBody();
+            } while (Boolean.TRUE.equals(status.get("running")));
+
+            assertEquals(2, ((Number) status.get("checkedBlobs")).intValue());
+            assertEquals(1, ((Number) status.get("damagedBlobCount")).intValue());
+            List<?> damaged = (List<?>) status.get("damagedBlobs");
+            assertEquals(CONTENT_HASH, ((Map<?, ?>) damaged.get(0)).get("hash"));
+            assertEquals("hash_mismatch", ((Map<?, ?>) damaged.get(0)).get("failure"));
+        } finally {
+            jdbcTemplate.update("UPDATE users SET role = 'USER' WHERE login = 'user3'");
+        }
+
+        fileService.uploadFileForUser(user.getId(), "copy.txt", new ByteArrayInputStream("Hello, World!".getBytes()));
+
+        Blob restored = blobRepository.findById(CONTENT_HASH).orElseThrow();
+        assertNull(restored.getVerifyFailure());
+        assertNotNull(restored.getVerifiedAt());
+        assertEquals("Hello, World!", Files.readString(Paths.get(storagePath, blobService.getBlobKey(CONTENT_HASH))));
+    }
+
+    @Test
+    void downloadFile_shouldServeHotFileFromCacheUntilDeleted() throws IOException {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        byte[] content = "hot content".getBytes();
+        fileService.uploadFileForUser(user.getId(), "hot.txt", new ByteArrayInputStream(content));
+        HttpHeaders headers = loginHeaders();
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<byte[]> response = restTemplate.exchange("/file?filename=hot.txt", HttpMethod.GET,
+                    new HttpEntity<>(headers), byte[].class);
+            assertArrayEquals(content, response.getBody());
+        }
+        String scrape = scrapePrometheus();
+        assertTrue(scrape.contains("cache_gets_total{application=\"cloudservice\",cache=\"file.content\",result=\"hit\"}"));
+        assertTrue(scrape.contains("cache_gets_total{application=\"cloudservice\",cache=\"file.metadata\",result=\"hit\"}"));
+
+        fileService.deleteFileForUser(user.getId(), "hot.txt");
+
+        ResponseEntity<String> deleted = restTemplate.exchange("/file?filename=hot.txt", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, deleted.getStatusCode());
+    }
+
+    @Test
+    void prometheus_shouldExposeStoragePoolAndBlacklistMetricsOnManagementPortOnly() {
+        String scrape = scrapePrometheus();
+
+        assertFalse(restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode().is2xxSuccessful());
+        assertNotNull(scrape);
+        assertTrue(scrape.contains("cloud_storage_used_bytes"));
+        assertTrue(scrape.contains("cloud_file_bytes_total{"));
+        assertTrue(scrape.contains("cloud_token_blacklist_lookup_seconds_count{"));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("disk_free_bytes{"));
+    }
+
+    @Test
+    void search_shouldFindFilesByNameSizeAndContent() throws Exception {
+        User user = userRepository.findByLogin("user1")
+                .orElseThrow(() -> new UsernameNotFoundException("Test User not found"));
+        fileService.uploadFileForUser(user.getId(), "Invoice-2024.txt",
+                new ByteArrayInputStream("Quarterly invoice for March".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "old-invoice.csv",
+                new ByteArrayInputStream("total;1200".getBytes()));
+        fileService.uploadFileForUser(user.getId(), "notes.txt",
+                new ByteArrayInputStream("Meeting notes, invoices are due in March".getBytes()));
+
+        HttpHeaders headers = loginHeaders();
+        ResponseEntity<Map[]> byName = restTemplate.exchange("/search?name=INVOICE&limit=1", HttpMethod.GET,
+                new HttpEntity<>(headers), Map[].class);
+        assertEquals(HttpStatus.OK, byName.getStatusCode());
+        assertEquals(List.of("Invoice-2024.txt"), filenames(byName.getBody()));
+
+        ResponseEntity<Map[]> nextPage = restTemplate.exchange(
+                "/search?name=invoice&limit=1&cursor=" + byName.getHeaders().getFirst("X-Next-Cursor"),
+                HttpMethod.GET, new HttpEntity<>(headers), Map[].class);
+        assertEquals(List.of("old-invoice.csv"), filenames(nextPage.getBody()));
+        assertNull(nextPage.getHeaders().getFirst("X-Next-Cursor"));
+
+        ResponseEntity<Map[]> byExtensionAndSize = restTemplate.exchange("/search?ext=txt&minSize=30&limit=10",
+                HttpMethod.GET, new HttpEntity<>(headers), Map[].class);
+        assertEquals(List.of("notes.txt"), filenames(byExtensionAndSize.getBody()));
+
+        ResponseEntity<String> invalid = restTemplate.exchange("/search?name=a%25&limit=10", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+
+        // the text is indexed on the indexer's thread after each upload
+        FileSearchRequest request = new FileSearchRequest();
+        request.setLimit(10);
+        request.setText("march -meeting");
+        List<String> found = List.of();
+        for (int attempt = 0; attempt < 100 && found.isEmpty(); attempt++) {
+            Thread.sleep(50);
+            found = fileService.searchFiles(user.getId(), request).getFiles().stream()
+                    .map(FileInfoDto::getFilename)
+                    .toList();
+        }
+        assertEquals(List.of("Invoice-2024.txt"), found);
+    }
+
+    private String scrapePrometheus() {
+        return restTemplate.getForObject("http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+    }
+
+    private HttpHeaders loginHeaders() {
+        return loginHeaders("user1", "password1");
+    }
+
+    private HttpHeaders loginHeaders(String user, String password) {
+        Map<?, ?> login = restTemplate.postForObject("/login",
+                Map.of("login", user, "password", password), Map.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("auth-token", "Bearer " + login.get("auth-token"));
+        return headers;
+    }
+
+    private static List<String> filenames(Map<?, ?>[] files) {
+        return Arrays.stream(files).map(file -> (String) file.get("filename")).toList();
+    }
+
+    private List<String> listAll(int userId, String sort, String order) {
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            FileListPage page = fileService.getUserFilesList(userId, 3, sort, order, cursor);
+            page.getFiles().forEach(file -> names.add(file.getFilename()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        return names;
+    }
 }
@@ -0,0 +1,188 @@
+package org.example.diplomacloudservice.integrationTests.service;
+
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles({"test", "reactive"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+public class ReactiveFileApiIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine"
+    );
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        // same database, without the JDBC driver's parameters
+        registry.add("spring.r2dbc.url", () -> postgres.getJdbcUrl()
+                .replaceFirst("^jdbc:", "r2dbc:")
+                .replaceFirst("\\?.*$", ""));
+    }
+
+    @BeforeEach
+    void setUp() {
+        fileRepository.deleteAll();
+        blobRepository.deleteAll();
+        jdbcTemplate.update("UPDATE users SET used_bytes = 0, file_count = 0, quota_bytes = NULL");
+    }
+
+    @Test
+    void fileApi_shouldUploadListDownloadRenameAndDeleteLikeTheServletApi() {
+        String token = login();
+        byte[] content = "reactive content".getBytes();
+
+        upload(token, "notes.txt", content)
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.message").isEqualTo("File uploaded successfully");
+
+        File stored = fileRepository.findAll().get(0);
+        assertEquals(content.length, stored.getSize());
+        assertEquals("text/plain", stored.getContentType());
+
+        webTestClient.get().uri("/list?limit=10")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].filename").isEqualTo("notes.txt")
+                .jsonPath("$[0].size").isEqualTo(content.length);
+
+        String eTag = webTestClient.get().uri("/file?filename=notes.txt")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.TEXT_PLAIN)
+                .expectHeader().contentLength(content.length)
+                .expectBody(byte[].class).isEqualTo(content)
+                .returnResult()
+                .getResponseHeaders().getETag();
+        assertEquals("\"" + stored.getContentHash() + "\"", eTag);
+
+        webTestClient.get().uri("/file?filename=notes.txt")
+                .header("auth-token", token)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        webTestClient.put().uri("/file?filename=notes.txt")
+                .header("auth-token", token)
+                .bodyValue(Map.of("name", "renamed.txt"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.delete().uri("/file?filename=renamed.txt")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/file?filename=renamed.txt")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isBadRequest();
+        assertEquals(0, fileRepository.count());
+    }
+
+    @Test
+    void uploadFile_shouldRejectExecutableContentAndRequestsWithoutToken() {
+        String token = login();
+
+        upload(token, "program.txt", new byte[]{0x7F, 'E', 'L', 'F', 0x02, 0x01, 0x01, 0x00})
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("This file type is not allowed.");
+        assertEquals(0, fileRepository.count());
+
+        webTestClient.get().uri("/list?limit=10")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void logout_shouldRevokeToken() {
+        // tokens issued within the same second are equal, the other tests log in as user1
+        String token = login("user2", "password2");
+
+        webTestClient.post().uri("/logout")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/list?limit=10")
+                .header("auth-token", token)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private String login() {
+        return login("user1", "password1");
+    }
+
+    private String login(String user, String password) {
+        Map<?, ?> login = webTestClient.post().uri("/login")
+                .bodyValue(Map.of("login", user, "password", password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class)
+                .returnResult()
+                .getResponseBody();
+        return "Bearer " + login.get("auth-token");
+    }
+
+    private WebTestClient.ResponseSpec upload(String token, String filename, byte[] content) {
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("file", content).filename(filename);
+
+        return webTestClient.post().uri("/file?filename=" + filename)
+                .header("auth-token", token)
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .exchange();
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.diplomacloudservice.integrationTests.storage;
+
+import org.example.diplomacloudservice.config.StorageConfig;
+import org.example.diplomacloudservice.storage.S3StorageBackend;
+import org.example.diplomacloudservice.storage.StorageStat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.testcontainers.containers.MinIOContainer;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class S3StorageBackendIntegrationTest {
+
+    private static final String BUCKET = "cloudservice";
+    private static final String KEY = "blobs/df/fd/dffd6021";
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-12-18T13-15-44Z");
+
+    static S3Client s3Client;
+
+    @TempDir
+    Path tempDir;
+
+    private S3StorageBackend storageBackend;
+
+    @BeforeAll
+    static void beforeAll() {
+        minio.start();
+        s3Client = new StorageConfig().s3Client(minio.getS3URL(), "us-east-1",
+                minio.getUserName(), minio.getPassword(), true);
+        s3Client.createBucket(request -> request.bucket(BUCKET));
+    }
+
+    @AfterAll
+    static void afterAll() {
+        s3Client.close();
+        minio.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 5MB is the smallest part S3 accepts
+        storageBackend = new S3StorageBackend(s3Client, BUCKET, 6 * 1024 * 1024, 5 * 1024 * 1024);
+    }
+
+    @Test
+    void put_storedObjectReadBack() throws IOException {
+        Path stagedFile = Files.write(tempDir.resolve("staged.tmp"), CONTENT);
+
+        storageBackend.put(KEY, stagedFile);
+
+        StorageStat stat = storageBackend.stat(KEY).orElseThrow();
+        assertEquals(CONTENT.length, stat.size());
+
+        Resource resource = storageBackend.get(KEY);
+        assertTrue(resource.exists());
+        assertEquals(CONTENT.length, resource.contentLength());
+        try (InputStream content = resource.getInputStream()) {
+            assertArrayEquals(CONTENT, content.readAllBytes());
+        }
+
+        storageBackend.delete(KEY);
+    }
+
+    @Test
+    void put_largeFileUploadedInParts() throws IOException {
+        byte[] content = new byte[13 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        Path stagedFile = Files.write(tempDir.resolve("large.tmp"), content);
+
+        storageBackend.put("blobs/large", stagedFile);
+
+        assertEquals(content.length, storageBackend.stat("blobs/large").orElseThrow().size());
+        try (InputStream stream = storageBackend.get("blobs/large").getInputStream()) {
+            long offset = 12 * 1024 * 1024 + 7;
+            assertEquals(offset, stream.skip(offset));
+            assertArrayEquals(Arrays.copyOfRange(content, (int) offset, content.length), stream.readAllBytes());
+        }
+
+        storageBackend.delete("blobs/large");
+    }
+
+    @Test
+    void get_missingObject() throws IOException {
+        assertFalse(storageBackend.get("blobs/missing").exists());
+        assertTrue(storageBackend.stat("blobs/missing").isEmpty());
+
+        storageBackend.delete("blobs/missing");
+    }
+
+    @Test
+    void move_objectRenamedOnlyToFreeKey() throws IOException {
+        storageBackend.put("user_1/a.txt", new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.put("user_1/b.txt", new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertThrows(FileAlreadyExistsException.class, () -> storageBackend.move("user_1/a.txt", "user_1/b.txt"));
+        assertThrows(NoSuchFileException.class, () -> storageBackend.move("user_1/c.txt", "user_1/d.txt"));
+
+        storageBackend.move("user_1/a.txt", "user_1/c.txt");
+
+        assertTrue(storageBackend.stat("user_1/a.txt").isEmpty());
+        assertArrayEquals(CONTENT, storageBackend.get("user_1/c.txt").getContentAsByteArray());
+
+        storageBackend.delete("user_1/b.txt");
+        storageBackend.delete("user_1/c.txt");
+    }
+}
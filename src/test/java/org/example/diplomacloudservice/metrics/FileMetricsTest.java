@@ -0,0 +1,126 @@
+package org.example.diplomacloudservice.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class FileMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FileMetrics fileMetrics;
+    private MockHttpServletRequest request;
+
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fileMetrics = new FileMetrics(meterRegistry);
+        request = new MockHttpServletRequest("GET", "/file");
+    }
+
+    @Test
+    void record_shouldTimeSuccessfulOperation() throws IOException {
+        String result = fileMetrics.record(FileMetrics.DELETE, () -> "deleted");
+
+        assertEquals("deleted", result);
+        assertEquals(1, operationCount(FileMetrics.DELETE, "success"));
+    }
+
+    @Test
+    void record_shouldTimeClientAndServerErrorsSeparately() {
+        assertThrows(InvalidFileException.class, () -> fileMetrics.record(FileMetrics.RENAME, () -> {
+            throw new InvalidFileException("File with name 'a.txt' already exist");
+        }));
+        assertThrows(IOException.class, () -> fileMetrics.record(FileMetrics.RENAME, () -> {
+            throw new IOException("disk failure");
+        }));
+
+        assertEquals(1, operationCount(FileMetrics.RENAME, "client_error"));
+        assertEquals(1, operationCount(FileMetrics.RENAME, "server_error"));
+    }
+
+    @Test
+    void meterUpload_shouldCountBytesRead() throws IOException {
+        try (InputStream in = fileMetrics.meterUpload(new ByteArrayInputStream(CONTENT))) {
+            in.readAllBytes();
+        }
+
+        assertEquals(CONTENT.length, bytes("in"));
+    }
+
+    @Test
+    void meterDownload_shouldCountBytesAndStopTimerOnClose() throws IOException {
+        Resource resource = fileMetrics.meterDownload(new ByteArrayResource(CONTENT), fileMetrics.start(),
+                new ServletRequestAttributes(request));
+
+        assertEquals(CONTENT.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            in.skip(7);
+            in.readAllBytes();
+            assertEquals(0, operationCount(FileMetrics.DOWNLOAD, "success"));
+        }
+
+        assertEquals(CONTENT.length - 7, bytes("out"));
+        assertEquals(1, operationCount(FileMetrics.DOWNLOAD, "success"));
+    }
+
+    @Test
+    void meterDownload_shouldRecordDownloadOnceForSeveralRanges() throws IOException {
+        Resource resource = fileMetrics.meterDownload(new ByteArrayResource(CONTENT), fileMetrics.start(),
+                new ServletRequestAttributes(request));
+
+        resource.getInputStream().close();
+        resource.getInputStream().close();
+
+        assertEquals(1, operationCount(FileMetrics.DOWNLOAD, "success"));
+    }
+
+    @Test
+    void afterCompletion_shouldRecordDownloadWhoseBodyWasNotRead() {
+        fileMetrics.meterDownload(new ByteArrayResource(CONTENT), fileMetrics.start(),
+                new ServletRequestAttributes(request));
+
+        new DownloadCompletionInterceptor().afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertEquals(1, operationCount(FileMetrics.DOWNLOAD, "success"));
+        assertEquals(0, bytes("out"));
+    }
+
+    @Test
+    void afterCompletion_shouldNotRecordDownloadTwice() throws IOException {
+        Resource resource = fileMetrics.meterDownload(new ByteArrayResource(CONTENT), fileMetrics.start(),
+                new ServletRequestAttributes(request));
+        resource.getInputStream().close();
+
+        new DownloadCompletionInterceptor().afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertEquals(1, operationCount(FileMetrics.DOWNLOAD, "success"));
+    }
+
+    private long operationCount(String operation, String outcome) {
+        Timer timer = meterRegistry.find("cloud.file.operation").tags("operation", operation, "outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double bytes(String direction) {
+        return meterRegistry.get("cloud.file.bytes").tag("direction", direction).counter().count();
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.diplomacloudservice.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,10 +16,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Instant;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -40,6 +42,9 @@ class JWTFilterTest {
     @Mock
     private CustomUserDetailsService customUserDetailsService;
 
+    @Mock
+    private AuthenticationCache authenticationCache;
+
     @Mock
     private ObjectMapper objectMapper;
 
@@ -53,10 +58,17 @@ class JWTFilterTest {
     private FilterChain filterChain;
 
     @Mock
-    private UserDetails userDetails;
+    private CustomUserDetails userDetails;
+
+    @Mock
+    private DecodedJWT decodedJWT;
+
+    @Mock
+    private Claim usernameClaim;
 
     private static final String VALID_JWT = "valid.jwt.token";
     private static final String INVALID_JWT = "invalid.jwt.token";
+    private static final Instant EXPIRES_AT = Instant.now().plusSeconds(3600);
 
     @BeforeEach
     void setUp() {
@@ -67,13 +79,32 @@ class JWTFilterTest {
     void doFilterInternal_shouldAuthenticateWhenValidTokenProvided() throws Exception {
         when(request.getHeader("auth-token")).thenReturn("Bearer " + VALID_JWT);
         when(jwtService.isTokenInBlacklist(VALID_JWT)).thenReturn(false);
-        when(jwtService.validateTokenAndRetrieveClaim(VALID_JWT)).thenReturn("user");
+        when(jwtService.verifyToken(VALID_JWT)).thenReturn(decodedJWT);
+        when(decodedJWT.getClaim("username")).thenReturn(usernameClaim);
+        when(usernameClaim.asString()).thenReturn("user");
+        when(decodedJWT.getExpiresAtAsInstant()).thenReturn(EXPIRES_AT);
         when(customUserDetailsService.loadUserByUsername("user")).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
 
         jwtFilter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
+        verify(authenticationCache, times(1)).put(VALID_JWT, userDetails, EXPIRES_AT);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_shouldUseCachedPrincipalWithoutVerifyingOrLoadingUser() throws Exception {
+        when(request.getHeader("auth-token")).thenReturn("Bearer " + VALID_JWT);
+        when(jwtService.isTokenInBlacklist(VALID_JWT)).thenReturn(false);
+        when(authenticationCache.get(VALID_JWT)).thenReturn(userDetails);
+        when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        verify(jwtService, never()).verifyToken(any());
+        verify(customUserDetailsService, never()).loadUserByUsername(any());
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
@@ -95,7 +126,7 @@ class JWTFilterTest {
     void doFilterInternal_shouldRejectWhenTokenIsInvalid() throws Exception {
         when(request.getHeader("auth-token")).thenReturn("Bearer " + INVALID_JWT);
         when(jwtService.isTokenInBlacklist(INVALID_JWT)).thenReturn(false);
-        when(jwtService.validateTokenAndRetrieveClaim(INVALID_JWT)).thenThrow(new JWTVerificationException("Invalid token"));
+        when(jwtService.verifyToken(INVALID_JWT)).thenThrow(new JWTVerificationException("Invalid token"));
         when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
 
         when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
@@ -0,0 +1,143 @@
+package org.example.diplomacloudservice.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.diplomacloudservice.services.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtWebFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private ReactiveUserDetailsService userDetailsService;
+
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private CustomUserDetails userDetails;
+
+    @Mock
+    private DecodedJWT decodedJWT;
+
+    @Mock
+    private Claim usernameClaim;
+
+    private JwtWebFilter jwtWebFilter;
+
+    private final AtomicReference<Authentication> passedOn = new AtomicReference<>();
+
+    private final WebFilterChain chain = exchange -> ReactiveSecurityContextHolder.getContext()
+            .map(SecurityContext::getAuthentication)
+            .doOnNext(passedOn::set)
+            .then();
+
+    private static final String VALID_JWT = "valid.jwt.token";
+    private static final String INVALID_JWT = "invalid.jwt.token";
+    private static final Instant EXPIRES_AT = Instant.now().plusSeconds(3600);
+
+    @BeforeEach
+    void setUp() {
+        jwtWebFilter = new JwtWebFilter(jwtService, userDetailsService, authenticationCache, new ObjectMapper());
+    }
+
+    @Test
+    void filter_shouldAuthenticateAndCachePrincipalWhenValidTokenProvided() {
+        MockServerWebExchange exchange = exchangeWithToken(VALID_JWT);
+        when(jwtService.isTokenInBlacklist(VALID_JWT)).thenReturn(false);
+        when(jwtService.verifyToken(VALID_JWT)).thenReturn(decodedJWT);
+        when(decodedJWT.getClaim("username")).thenReturn(usernameClaim);
+        when(usernameClaim.asString()).thenReturn("user");
+        when(decodedJWT.getExpiresAtAsInstant()).thenReturn(EXPIRES_AT);
+        when(userDetailsService.findByUsername("user")).thenReturn(Mono.just(userDetails));
+        when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
+
+        jwtWebFilter.filter(exchange, chain).block();
+
+        assertSame(userDetails, passedOn.get().getPrincipal());
+        verify(authenticationCache, times(1)).put(VALID_JWT, userDetails, EXPIRES_AT);
+    }
+
+    @Test
+    void filter_shouldUseCachedPrincipalWithoutVerifyingOrLoadingUser() {
+        MockServerWebExchange exchange = exchangeWithToken(VALID_JWT);
+        when(jwtService.isTokenInBlacklist(VALID_JWT)).thenReturn(false);
+        when(authenticationCache.get(VALID_JWT)).thenReturn(userDetails);
+        when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
+
+        jwtWebFilter.filter(exchange, chain).block();
+
+        assertSame(userDetails, passedOn.get().getPrincipal());
+        verify(jwtService, never()).verifyToken(any());
+        verify(userDetailsService, never()).findByUsername(any());
+    }
+
+    @Test
+    void filter_shouldRejectWhenTokenIsInBlacklist() {
+        MockServerWebExchange exchange = exchangeWithToken(VALID_JWT);
+        when(jwtService.isTokenInBlacklist(VALID_JWT)).thenReturn(true);
+
+        jwtWebFilter.filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertTrue(exchange.getResponse().getBodyAsString().block().contains("JWT Token is invalid"));
+        assertNull(passedOn.get());
+    }
+
+    @Test
+    void filter_shouldRejectWhenTokenIsInvalid() {
+        MockServerWebExchange exchange = exchangeWithToken(INVALID_JWT);
+        when(jwtService.isTokenInBlacklist(INVALID_JWT)).thenReturn(false);
+        when(jwtService.verifyToken(INVALID_JWT)).thenThrow(new JWTVerificationException("Invalid token"));
+
+        jwtWebFilter.filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertTrue(exchange.getResponse().getBodyAsString().block().contains("Invalid JWT Token: Invalid token"));
+        assertNull(passedOn.get());
+    }
+
+    @Test
+    void filter_shouldPassThroughWhenNoTokenProvided() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/list"));
+
+        jwtWebFilter.filter(exchange, chain).block();
+
+        assertNull(passedOn.get());
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange exchangeWithToken(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/list")
+                .header("auth-token", "Bearer " + token));
+    }
+}
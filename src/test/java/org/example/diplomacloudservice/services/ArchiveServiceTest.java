@@ -0,0 +1,127 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.entities.File;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class ArchiveServiceTest {
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private FileService fileService;
+
+    @InjectMocks
+    private ArchiveService archiveService;
+
+    private static final int USER_ID = 1;
+
+    @BeforeEach
+    void setUp() {
+        archiveService.pageSize = 2;
+        archiveService.maxSelectedFiles = 2;
+        archiveService.bufferSize = DataSize.ofBytes(5);
+    }
+
+    @Test
+    void writeArchive_shouldStreamAllFilesPageByPage(@TempDir Path dir) throws IOException {
+        File text = file("a.txt");
+        File photo = file("b.jpg");
+        File remote = file("c.png");
+        when(fileRepository.findPageAfter(USER_ID, "", Limit.of(2))).thenReturn(List.of(text, photo));
+        when(fileRepository.findPageAfter(USER_ID, "b.jpg", Limit.of(2))).thenReturn(List.of(remote));
+        when(fileService.getFileResource(text))
+                .thenReturn(new FileSystemResource(Files.writeString(dir.resolve("a"), "text text text")));
+        when(fileService.getFileResource(photo))
+                .thenReturn(new FileSystemResource(Files.writeString(dir.resolve("b"), "jpeg bytes")));
+        when(fileService.getFileResource(remote)).thenReturn(new ByteArrayResource("png bytes".getBytes()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeArchive(USER_ID, null, out);
+
+        List<ZipEntry> entries = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.add(entry);
+                contents.add(new String(zip.readAllBytes()));
+            }
+        }
+
+        assertEquals(List.of("a.txt", "b.jpg", "c.png"), entries.stream().map(ZipEntry::getName).toList());
+        assertEquals(List.of("text text text", "jpeg bytes", "png bytes"), contents);
+        assertEquals(ZipEntry.DEFLATED, entries.get(0).getMethod());
+        assertEquals(ZipEntry.STORED, entries.get(1).getMethod());
+        // not seekable, deflated at level 0 instead of read twice
+        assertEquals(ZipEntry.DEFLATED, entries.get(2).getMethod());
+    }
+
+    @Test
+    void getSelectedFiles_shouldRejectMissingFiles() {
+        when(fileRepository.findByUserIdAndFileNameIn(USER_ID, Set.of("a.txt", "b.txt")))
+                .thenReturn(List.of(file("a.txt")));
+
+        InvalidFileException exception = assertThrows(InvalidFileException.class,
+                () -> archiveService.getSelectedFiles(USER_ID, List.of("a.txt", "b.txt")));
+
+        assertEquals("Files with names [b.txt] do not exist", exception.getMessage());
+    }
+
+    @Test
+    void getSelectedFiles_shouldRejectTooManyFiles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> archiveService.getSelectedFiles(USER_ID, List.of("a.txt", "b.txt", "c.txt")));
+
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void getSelectedFiles_shouldReturnFilesInNameOrder() {
+        when(fileRepository.findByUserIdAndFileNameIn(USER_ID, Set.of("b.txt", "a.txt")))
+                .thenReturn(List.of(file("b.txt"), file("a.txt")));
+
+        List<File> files = archiveService.getSelectedFiles(USER_ID, List.of("b.txt", "a.txt", "b.txt"));
+
+        assertEquals(List.of("a.txt", "b.txt"), files.stream().map(File::getFileName).toList());
+    }
+
+    private static File file(String filename) {
+        return File.builder()
+                .fileName(filename)
+                .fileLocation("blobs")
+                .createdAt(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.dto.FileResultDto;
+import org.example.diplomacloudservice.repositories.FileBatchRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchUploadTest {
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private BlobService blobService;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    @TempDir
+    private Path storageDir;
+
+    private FileService fileService;
+
+    private static final int USER_ID = 1;
+    private static final byte[] FIRST_CONTENT = "Hello, World!".getBytes();
+    private static final byte[] SECOND_CONTENT = "Hello again".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        fileService = new FileService(fileRepository, blobService, quotaService, storageBackend,
+                new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt")),
+                new FileMetadataCache(false, 100, Duration.ofMinutes(1)),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), storageOutbox,
+                mock(FileTextIndexer.class));
+        fileService.storagePath = storageDir.toString();
+        fileService.uploadBufferSize = DataSize.ofKilobytes(4);
+
+        lenient().when(blobService.getBlobKey(any()))
+                .thenAnswer(invocation -> "blobs/ab/cd/" + invocation.getArgument(0, String.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commit_shouldInsertAllStagedFilesInOneBatch() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+        when(fileRepository.insertAllIfAbsent(eq(USER_ID), anyList())).thenReturn(new int[]{1, 1});
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("first.txt", content(FIRST_CONTENT));
+            batch.add("second.txt", content(SECOND_CONTENT));
+            results = batch.commit();
+        }
+
+        ArgumentCaptor<List<FileBatchRepository.NewFile>> rows = ArgumentCaptor.forClass(List.class);
+        verify(fileRepository, times(1)).insertAllIfAbsent(eq(USER_ID), rows.capture());
+        assertEquals(List.of("first.txt", "second.txt"),
+                rows.getValue().stream().map(FileBatchRepository.NewFile::fileName).toList());
+
+        verify(quotaService).reserve(USER_ID, FIRST_CONTENT.length + SECOND_CONTENT.length, 2);
+        verify(blobService, times(2)).store(any(), anyLong(), any(), any());
+        assertEquals(List.of(200, 200), results.stream().map(FileResultDto::getId).toList());
+        assertNoTempFiles();
+    }
+
+    @Test
+    void commit_shouldStoreBlobsInHashOrder() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+        when(fileRepository.insertAllIfAbsent(eq(USER_ID), anyList())).thenReturn(new int[]{1, 1, 1});
+
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("first.txt", content(FIRST_CONTENT));
+            batch.add("second.txt", content(SECOND_CONTENT));
+            batch.add("third.txt", content("Hello for the third time".getBytes()));
+            batch.commit();
+        }
+
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(blobService, times(3)).store(hashes.capture(), anyLong(), any(), any());
+        assertEquals(hashes.getAllValues().stream().sorted().toList(), hashes.getAllValues());
+    }
+
+    @Test
+    void add_shouldRejectInvalidAndDuplicateNamesWithoutReadingContent() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+        when(fileRepository.insertAllIfAbsent(eq(USER_ID), anyList())).thenReturn(new int[]{1});
+        InputStream unread = mock(InputStream.class);
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("first.txt", content(FIRST_CONTENT));
+            batch.add("bad name.txt", unread);
+            batch.add("first.txt", unread);
+            batch.add("script.sh", unread);
+            results = batch.commit();
+        }
+
+        verifyNoInteractions(unread);
+        assertEquals(List.of(200, 400, 400, 400), results.stream().map(FileResultDto::getId).toList());
+        assertEquals("File with name 'first.txt' is already in this upload", results.get(2).getMessage());
+        verify(quotaService).reserve(USER_ID, FIRST_CONTENT.length, 1);
+    }
+
+    @Test
+    void commit_shouldReportFilesWhoseNameIsTaken() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+        when(fileRepository.insertAllIfAbsent(eq(USER_ID), anyList())).thenReturn(new int[]{0, 1});
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("first.txt", content(FIRST_CONTENT));
+            batch.add("second.txt", content(SECOND_CONTENT));
+            results = batch.commit();
+        }
+
+        assertEquals("File with name 'first.txt' already exist", results.get(0).getMessage());
+        assertEquals(400, results.get(0).getId());
+        assertEquals(200, results.get(1).getId());
+        verify(quotaService).reserve(USER_ID, SECOND_CONTENT.length, 1);
+        verify(blobService, times(1)).store(any(), eq((long) SECOND_CONTENT.length), any(), any());
+        assertNoTempFiles();
+    }
+
+    @Test
+    void add_shouldRejectFilesBeyondRemainingQuota() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn((long) FIRST_CONTENT.length + 5);
+        when(fileRepository.insertAllIfAbsent(eq(USER_ID), anyList())).thenReturn(new int[]{1});
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("first.txt", content(FIRST_CONTENT));
+            batch.add("second.txt", content(SECOND_CONTENT));
+            results = batch.commit();
+        }
+
+        assertEquals(200, results.get(0).getId());
+        assertEquals(400, results.get(1).getId());
+        assertEquals("Storage quota exceeded", results.get(1).getMessage());
+        assertNoTempFiles();
+    }
+
+    @Test
+    void commit_shouldNotTouchDbWhenNothingWasStaged() throws IOException {
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+
+        List<FileResultDto> results;
+        try (BatchUpload batch = fileService.startBatchUpload(USER_ID)) {
+            batch.add("bad name.txt", content(FIRST_CONTENT));
+            results = batch.commit();
+        }
+
+        assertEquals(1, results.size());
+        verify(fileRepository, never()).insertAllIfAbsent(anyInt(), anyList());
+        verify(quotaService, never()).reserve(anyInt(), anyLong(), anyInt());
+    }
+
+    private static InputStream content(byte[] content) {
+        return new ByteArrayInputStream(content);
+    }
+
+    private void assertNoTempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(storageDir.resolve("user_" + USER_ID))) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.diplomacloudservice.entities.Blob;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class BlobScrubberTest {
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry registry;
+    private BlobService blobService;
+    private BlobScrubber blobScrubber;
+
+    private static final byte[] CONTENT = "scrubbed content".getBytes();
+    private static final String HASH = sha256(CONTENT);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        blobService = new BlobService(blobRepository, storageBackend, mock(StorageOutbox.class),
+                mock(FileMetadataCache.class));
+        blobScrubber = new BlobScrubber(blobRepository, blobService, storageBackend, registry,
+                DataSize.ofBytes(0), 2, Duration.ofDays(30));
+        blobScrubber.pageSize = 100;
+    }
+
+    @AfterEach
+    void tearDown() {
+        blobScrubber.shutdown();
+    }
+
+    @Test
+    void scrub_shouldMarkIntactBlobVerified() throws IOException {
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(blob));
+        when(storageBackend.get(blobService.getBlobKey(HASH))).thenReturn(new ByteArrayResource(CONTENT));
+        when(blobRepository.markVerified(eq(HASH), isNull(), any(), isNull())).thenReturn(1);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository).markVerified(eq(HASH), isNull(), any(), isNull());
+        assertEquals(1, registry.get("cloud.scrubber.blobs").tag("result", "ok").counter().count());
+        assertEquals(CONTENT.length, registry.get("cloud.scrubber.bytes").counter().count());
+        assertEquals(1, blobScrubber.getStatus().getCheckedBlobs());
+    }
+
+    @Test
+    void scrub_shouldFlagBlobWithChangedContent() throws IOException {
+        byte[] flipped = CONTENT.clone();
+        flipped[3] ^= 1;
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        blob.setVerifiedAt(LocalDateTime.now().minusDays(40));
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(blob));
+        when(storageBackend.get(blobService.getBlobKey(HASH))).thenReturn(new ByteArrayResource(flipped));
+        when(blobRepository.markVerified(eq(HASH), eq(blob.getVerifiedAt()), any(), any())).thenReturn(1);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository).markVerified(eq(HASH), eq(blob.getVerifiedAt()), any(), eq(BlobScrubber.HASH_MISMATCH));
+        assertEquals(1, blobScrubber.getStatus().getFailedBlobs());
+    }
+
+    @Test
+    void scrub_shouldFlagTruncatedBlob() throws IOException {
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(blob));
+        when(storageBackend.get(blobService.getBlobKey(HASH)))
+                .thenReturn(new ByteArrayResource(Arrays.copyOf(CONTENT, 5)));
+        when(blobRepository.markVerified(eq(HASH), isNull(), any(), any())).thenReturn(1);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository).markVerified(eq(HASH), isNull(), any(), eq(BlobScrubber.SIZE_MISMATCH));
+    }
+
+    @Test
+    void scrub_shouldFlagMissingBlob() throws IOException {
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(blob));
+        when(storageBackend.get(blobService.getBlobKey(HASH)))
+                .thenReturn(new FileSystemResource(tempDir.resolve(HASH)));
+        when(blobRepository.markVerified(eq(HASH), isNull(), any(), any())).thenReturn(1);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository).markVerified(eq(HASH), isNull(), any(), eq(BlobScrubber.MISSING));
+        assertEquals(1, registry.get("cloud.scrubber.blobs").tag("result", "missing").counter().count());
+    }
+
+    @Test
+    void scrub_shouldDecodeCompressedBlobAndFlagItIfItCannotBeDecoded() throws IOException {
+        byte[] encoded = encode(CONTENT);
+        Blob intact = blob(HASH, "zstd", encoded.length);
+        String otherHash = sha256("other".getBytes());
+        Blob damaged = blob(otherHash, "zstd", encoded.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(intact, damaged));
+        when(storageBackend.get(blobService.getBlobKey(HASH))).thenReturn(new ByteArrayResource(encoded));
+        when(storageBackend.get(blobService.getBlobKey(otherHash)))
+                .thenReturn(new ByteArrayResource(new byte[encoded.length]));
+        when(blobRepository.markVerified(any(), isNull(), any(), any())).thenReturn(1);
+        when(blobRepository.countByVerifyFailureIsNotNull()).thenReturn(1L);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository).markVerified(eq(HASH), isNull(), any(), isNull());
+        verify(blobRepository).markVerified(eq(otherHash), isNull(), any(), eq(BlobScrubber.UNDECODABLE));
+        assertEquals(1, registry.get("cloud.scrubber.damaged").gauge().value());
+        assertEquals(1, registry.get("cloud.scrubber.damaged").gauge().value());
+        verify(blobRepository, times(1)).countByVerifyFailureIsNotNull();
+    }
+
+    @Test
+    void scrub_shouldLeaveUnreadableBlobForNextPass() throws IOException {
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(100))).thenReturn(List.of(blob));
+        when(storageBackend.get(blobService.getBlobKey(HASH))).thenReturn(new AbstractResource() {
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public String getDescription() {
+                return "unreadable";
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        blobScrubber.scrub();
+
+        verify(blobRepository, never()).markVerified(any(), any(), any(), any());
+        assertEquals(1, registry.get("cloud.scrubber.blobs").tag("result", "read_error").counter().count());
+        assertEquals(1, blobScrubber.getStatus().getReadErrors());
+    }
+
+    @Test
+    void scrub_shouldWalkBlobsPageByPageByHash() throws IOException {
+        blobScrubber.pageSize = 1;
+        Blob blob = blob(HASH, "none", CONTENT.length);
+        when(blobRepository.findDueForVerification(eq(""), any(), eq(1))).thenReturn(List.of(blob));
+        when(blobRepository.findDueForVerification(eq(HASH), any(), eq(1))).thenReturn(List.of());
+        when(storageBackend.get(blobService.getBlobKey(HASH))).thenReturn(new ByteArrayResource(CONTENT));
+        when(blobRepository.markVerified(eq(HASH), isNull(), any(), isNull())).thenReturn(1);
+
+        blobScrubber.scrub();
+
+        verify(blobRepository, times(2)).findDueForVerification(any(), any(), anyInt());
+        assertNotNull(blobScrubber.getStatus().getFinishedAt());
+    }
+
+    private static Blob blob(String hash, String codec, long storedSize) {
+        return Blob.builder()
+                .hash(hash)
+                .size((long) CONTENT.length)
+                .codec(codec)
+                .storedSize(storedSize)
+                .refCount(1)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static byte[] encode(byte[] content) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = ContentCodec.ZSTD.encode(encoded, 3)) {
+            out.write(content);
+        }
+        return encoded.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        MessageDigest digest = ContentDigest.newSha256();
+        digest.update(content);
+        return ContentDigest.toHex(digest);
+    }
+}
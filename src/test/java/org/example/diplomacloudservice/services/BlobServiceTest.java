@@ -0,0 +1,143 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.example.diplomacloudservice.storage.StorageStat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class BlobServiceTest {
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    @Mock
+    private FileMetadataCache metadataCache;
+
+    @InjectMocks
+    private BlobService blobService;
+
+    private static final String HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String BLOB_KEY = "blobs/df/fd/" + HASH;
+    private static final long SIZE = 13;
+    private static final Path STAGED_FILE = Paths.get("storage", "user_1", ".upload-1.tmp");
+
+    @Test
+    void getBlobKey_shouldShardByHashPrefix() {
+        assertEquals(BLOB_KEY, blobService.getBlobKey(HASH));
+    }
+
+    @Test
+    void store_shouldPutStagedFileWhenBlobIsNew() throws IOException {
+        when(blobRepository.acquire(eq(HASH), eq(SIZE), any(), eq("none"), eq(SIZE))).thenReturn(1);
+
+        blobService.store(HASH, SIZE, STAGED_FILE);
+
+        verify(storageBackend).put(BLOB_KEY, STAGED_FILE);
+        verify(storageBackend, never()).stat(any());
+    }
+
+    @Test
+    void store_shouldKeepExistingBlob() throws IOException {
+        when(blobRepository.acquire(eq(HASH), eq(SIZE), any(), eq("none"), eq(SIZE))).thenReturn(2);
+        when(storageBackend.stat(BLOB_KEY)).thenReturn(Optional.of(new StorageStat(SIZE, Instant.now())));
+
+        blobService.store(HASH, SIZE, STAGED_FILE);
+
+        verify(storageBackend, never()).put(any(), any(Path.class));
+    }
+
+    @Test
+    void store_shouldRestoreMissingBlobFromStagedFile() throws IOException {
+        when(blobRepository.acquire(eq(HASH), eq(SIZE), any(), eq("none"), eq(SIZE))).thenReturn(3);
+        when(storageBackend.stat(BLOB_KEY)).thenReturn(Optional.empty());
+
+        blobService.store(HASH, SIZE, STAGED_FILE);
+
+        verify(storageBackend).put(BLOB_KEY, STAGED_FILE);
+    }
+
+    @Test
+    void store_shouldReplaceBlobThatFailedVerification() throws IOException {
+        when(blobRepository.acquire(eq(HASH), eq(SIZE), any(), eq("none"), eq(SIZE))).thenReturn(2);
+        when(storageBackend.stat(BLOB_KEY)).thenReturn(Optional.of(new StorageStat(SIZE, Instant.now())));
+        when(blobRepository.existsByHashAndVerifyFailureIsNotNull(HASH)).thenReturn(true);
+
+        blobService.store(HASH, SIZE, STAGED_FILE);
+
+        verify(storageBackend).put(BLOB_KEY, STAGED_FILE);
+        verify(blobRepository).updateEncoding(eq(HASH), eq("none"), eq(SIZE), any());
+        verify(metadataCache).evictBlob(HASH);
+    }
+
+    @Test
+    void release_shouldDeleteBlobAfterCommitWhenLastReferenceIsGone() {
+        when(blobRepository.release(HASH)).thenReturn(Optional.of(0));
+
+        blobService.release(HASH);
+
+        verify(storageOutbox).deleteBlob(HASH, BLOB_KEY);
+        verify(blobRepository, never()).deleteIfUnreferenced(any());
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void release_shouldKeepBlobWhileReferenced() {
+        when(blobRepository.release(HASH)).thenReturn(Optional.of(1));
+
+        blobService.release(HASH);
+
+        verifyNoInteractions(storageOutbox, storageBackend);
+    }
+
+    @Test
+    void releaseAll_shouldReturnDeletionsOfBlobsThatLostTheirLastReference() {
+        String otherHash = "0".repeat(64);
+        when(blobRepository.releaseAll(List.of(HASH, HASH, otherHash))).thenReturn(Map.of(HASH, 0, otherHash, 2));
+
+        assertEquals(List.of(StorageOutbox.Deletion.blob(HASH, BLOB_KEY)),
+                blobService.releaseAll(List.of(HASH, HASH, otherHash)));
+    }
+
+    @Test
+    void releaseAll_shouldThrowExceptionWhenBlobNotFound() {
+        when(blobRepository.releaseAll(List.of(HASH))).thenReturn(Map.of());
+
+        assertThrows(FileStorageException.class, () -> blobService.releaseAll(List.of(HASH)));
+    }
+
+    @Test
+    void release_shouldThrowExceptionWhenBlobNotFound() {
+        when(blobRepository.release(HASH)).thenReturn(Optional.empty());
+
+        assertThrows(FileStorageException.class, () -> blobService.release(HASH));
+    }
+}
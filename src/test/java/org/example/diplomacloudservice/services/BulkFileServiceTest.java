@@ -0,0 +1,186 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.dto.FileResultDto;
+import org.example.diplomacloudservice.repositories.FileBatchRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkFileServiceTest {
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private BlobService blobService;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    private BulkFileService bulkFileService;
+
+    private static final int USER_ID = 1;
+    private static final String FILE_STORAGE_PATH = "storage";
+    private static final String USER_DIRECTORY = Paths.get(FILE_STORAGE_PATH, "user_" + USER_ID).toString();
+    private static final String CONTENT_HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String BLOB_KEY = "blobs/df/fd/" + CONTENT_HASH;
+
+    @BeforeEach
+    void setUp() {
+        FileService fileService = new FileService(fileRepository, blobService, quotaService, storageBackend,
+                new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt")),
+                new FileMetadataCache(false, 100, Duration.ofMinutes(1)),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), storageOutbox,
+                mock(FileTextIndexer.class));
+        fileService.storagePath = FILE_STORAGE_PATH;
+
+        bulkFileService = new BulkFileService(fileRepository, fileService, blobService, quotaService,
+                storageBackend, new FileMetadataCache(false, 100, Duration.ofMinutes(1)), storageOutbox, 2);
+        bulkFileService.maxFiles = 3;
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkFileService.shutdown();
+    }
+
+    @Test
+    void deleteFiles_shouldDeleteRowsAndBlobsAndReportMissingFiles() throws IOException {
+        when(fileRepository.deleteAll(USER_ID, Set.of("a.txt", "b.txt")))
+                .thenReturn(List.of(new FileBatchRepository.RemovedFile("a.txt", "blobs/df/fd", CONTENT_HASH, 13)));
+        when(blobService.releaseAll(List.of(CONTENT_HASH)))
+                .thenReturn(List.of(StorageOutbox.Deletion.blob(CONTENT_HASH, BLOB_KEY)));
+
+        List<FileResultDto> results = bulkFileService.deleteFiles(USER_ID, List.of("a.txt", "b.txt", "a.txt"));
+
+        assertEquals(List.of("a.txt", "b.txt"), results.stream().map(FileResultDto::getFilename).toList());
+        assertEquals(List.of(200, 400), results.stream().map(FileResultDto::getId).toList());
+        verify(quotaService).release(USER_ID, 13, 1);
+        verify(storageOutbox).enqueue(List.of(StorageOutbox.Deletion.blob(CONTENT_HASH, BLOB_KEY)));
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void deleteFiles_shouldDeleteLegacyFilesAfterCommit() throws IOException {
+        when(fileRepository.deleteAll(USER_ID, Set.of("legacy.txt")))
+                .thenReturn(List.of(new FileBatchRepository.RemovedFile("legacy.txt", USER_DIRECTORY, null, 5)));
+
+        List<FileResultDto> results = bulkFileService.deleteFiles(USER_ID, List.of("legacy.txt"));
+
+        assertEquals(200, results.get(0).getId());
+        verify(quotaService).release(USER_ID, 5, 1);
+        verify(blobService, never()).releaseAll(any());
+        verify(storageOutbox).enqueue(List.of(StorageOutbox.Deletion.object("user_1/legacy.txt")));
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void deleteFiles_shouldRejectTooManyFiles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkFileService.deleteFiles(USER_ID, List.of("a.txt", "b.txt", "c.txt", "d.txt")));
+
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void deleteMatchingFiles_shouldRollBackWhenPatternMatchesTooManyFiles() {
+        FileBatchRepository.RemovedFile removed = new FileBatchRepository.RemovedFile("a.txt", "blobs/df/fd",
+                CONTENT_HASH, 13);
+        when(fileRepository.deleteMatching(USER_ID, "%.txt"))
+                .thenReturn(List.of(removed, removed, removed, removed));
+
+        assertThrows(IllegalArgumentException.class, () -> bulkFileService.deleteMatchingFiles(USER_ID, "*.txt"));
+
+        verifyNoInteractions(quotaService, storageBackend);
+    }
+
+    @Test
+    void renameFiles_shouldReportInvalidTakenAndMissingNames() throws IOException {
+        Map<String, String> newNames = new LinkedHashMap<>();
+        newNames.put("a.txt", "bad name.txt");
+        newNames.put("b.txt", "c.txt");
+        newNames.put("d.txt", "e.txt");
+
+        when(fileRepository.renameAll(USER_ID, Map.of("b.txt", "c.txt", "d.txt", "e.txt")))
+                .thenReturn(List.of());
+        when(fileRepository.findExistingNames(USER_ID, List.of("b.txt", "c.txt", "d.txt", "e.txt")))
+                .thenReturn(List.of("b.txt", "c.txt"));
+
+        List<FileResultDto> results = bulkFileService.renameFiles(USER_ID, newNames);
+
+        assertEquals(List.of("a.txt", "b.txt", "d.txt"), results.stream().map(FileResultDto::getFilename).toList());
+        assertEquals(List.of(400, 400, 400), results.stream().map(FileResultDto::getId).toList());
+        assertEquals("File with name 'c.txt' already exist", results.get(1).getMessage());
+        assertEquals("File with name 'd.txt' does not exist", results.get(2).getMessage());
+    }
+
+    @Test
+    void renameFiles_shouldOnlyChangeRowsOfBlobBackedFiles() throws IOException {
+        when(fileRepository.renameAll(USER_ID, Map.of("a.txt", "b.txt")))
+                .thenReturn(List.of(new FileBatchRepository.RenamedFile("a.txt", "b.txt", "blobs/df/fd", CONTENT_HASH)));
+
+        List<FileResultDto> results = bulkFileService.renameFiles(USER_ID, Map.of("a.txt", "b.txt"));
+
+        assertEquals(200, results.get(0).getId());
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void renameFiles_shouldRenameRowBackWhenStorageMoveFails() throws IOException {
+        when(fileRepository.renameAll(USER_ID, Map.of("a.txt", "b.txt")))
+                .thenReturn(List.of(new FileBatchRepository.RenamedFile("a.txt", "b.txt", USER_DIRECTORY, null)));
+        doThrow(new IOException("Disk error")).when(storageBackend).move("user_1/a.txt", "user_1/b.txt");
+
+        List<FileResultDto> results = bulkFileService.renameFiles(USER_ID, Map.of("a.txt", "b.txt"));
+
+        assertEquals(500, results.get(0).getId());
+        verify(fileRepository).renameAll(USER_ID, Map.of("b.txt", "a.txt"));
+    }
+
+    @Test
+    void renameByPrefix_shouldReplacePrefixOfAllMatchingFiles() throws IOException {
+        when(fileRepository.findNamesMatching(USER_ID, "draft\\_%"))
+                .thenReturn(List.of("draft_a.txt", "draft_b.txt"));
+        when(fileRepository.renameAll(USER_ID, Map.of("draft_a.txt", "final-a.txt", "draft_b.txt", "final-b.txt")))
+                .thenReturn(List.of(
+                        new FileBatchRepository.RenamedFile("draft_a.txt", "final-a.txt", "blobs/df/fd", CONTENT_HASH),
+                        new FileBatchRepository.RenamedFile("draft_b.txt", "final-b.txt", "blobs/df/fd", CONTENT_HASH)));
+
+        List<FileResultDto> results = bulkFileService.renameByPrefix(USER_ID, "draft_", "final-");
+
+        assertEquals(List.of(200, 200), results.stream().map(FileResultDto::getId).toList());
+        verify(fileRepository, never()).findExistingNames(anyInt(), any());
+        verify(fileRepository, times(1)).renameAll(eq(USER_ID), anyMap());
+    }
+}
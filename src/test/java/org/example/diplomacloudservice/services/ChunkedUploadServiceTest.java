@@ -0,0 +1,334 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.dto.UploadSessionDto;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.utils.ContentDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private QuotaService quotaService;
+
+    @TempDir
+    Path storageDir;
+
+    private ChunkedUploadService chunkedUploadService;
+
+    private static final int USER_ID = 1;
+    private static final String FILENAME = "testFile.txt";
+
+    @BeforeEach
+    void setUp() {
+        chunkedUploadService = new ChunkedUploadService(fileService, quotaService);
+        chunkedUploadService.storagePath = storageDir.toString();
+        chunkedUploadService.maxFileSize = DataSize.ofMegabytes(1);
+        chunkedUploadService.bufferSize = DataSize.ofBytes(16);
+        chunkedUploadService.defaultChunkSize = DataSize.ofBytes(10);
+        chunkedUploadService.maxChunkSize = DataSize.ofKilobytes(1);
+        chunkedUploadService.sessionTtl = Duration.ofHours(1);
+        chunkedUploadService.maxSessionsPerUser = 2;
+    }
+
+    @Test
+    void initiate_shouldPreallocatePartFile() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        UploadSessionDto session = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null);
+
+        assertEquals(3, session.getTotalChunks());
+        assertEquals(10, session.getChunkSize());
+        assertTrue(session.getReceived().isEmpty());
+        assertEquals(25, Files.size(partFile(session.getUploadId())));
+    }
+
+    @Test
+    void initiate_shouldThrowExceptionWhenFileAlreadyExists() {
+        when(fileService.fileExistsForUser(USER_ID, FILENAME)).thenReturn(true);
+
+        assertThrows(InvalidFileException.class, () -> chunkedUploadService.initiate(USER_ID, FILENAME, 25, null));
+    }
+
+    @Test
+    void initiate_shouldThrowExceptionWhenQuotaIsExceeded() {
+        doThrow(new QuotaExceededException("Storage quota exceeded")).when(quotaService).ensureAvailable(USER_ID, 25);
+
+        assertThrows(QuotaExceededException.class, () -> chunkedUploadService.initiate(USER_ID, FILENAME, 25, null));
+        verify(fileService, never()).getUserDirectory(anyInt());
+    }
+
+    @Test
+    void initiate_shouldCountOpenSessionsAgainstQuota() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        chunkedUploadService.initiate(USER_ID, FILENAME, 25, null);
+        chunkedUploadService.initiate(USER_ID, "second.txt", 30, null);
+
+        verify(quotaService).ensureAvailable(USER_ID, 25);
+        verify(quotaService).ensureAvailable(USER_ID, 55);
+    }
+
+    @Test
+    void initiate_shouldThrowExceptionWhenTooManySessionsAreOpen() throws IOException {
+        when(fileService.getUserDirectory(anyInt())).thenAnswer(call -> storageDir.resolve("user_" + call.getArgument(0)));
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+        chunkedUploadService.initiate(USER_ID, "second.txt", 25, null);
+
+        assertThrows(InvalidFileException.class, () -> chunkedUploadService.initiate(USER_ID, "third.txt", 25, null));
+        assertDoesNotThrow(() -> chunkedUploadService.initiate(USER_ID + 1, "third.txt", 25, null));
+
+        chunkedUploadService.abort(USER_ID, uploadId);
+        assertDoesNotThrow(() -> chunkedUploadService.initiate(USER_ID, "third.txt", 25, null));
+    }
+
+    @Test
+    void initiate_shouldThrowExceptionWhenChunkSizeTooLarge() {
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.initiate(USER_ID, FILENAME, 25, DataSize.ofKilobytes(2).toBytes()));
+    }
+
+    @Test
+    void complete_shouldCommitChunksReceivedOutOfOrder() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+        byte[] content = "0123456789abcdefghijKLMNO".getBytes();
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, content.length, null).getUploadId();
+        putChunk(uploadId, 2, Arrays.copyOfRange(content, 20, 25));
+        putChunk(uploadId, 0, Arrays.copyOfRange(content, 0, 10));
+
+        assertArrayEquals(new int[]{0, 0}, chunkedUploadService.getStatus(USER_ID, uploadId).getReceived().get(0));
+        assertArrayEquals(new int[]{2, 2}, chunkedUploadService.getStatus(USER_ID, uploadId).getReceived().get(1));
+
+        putChunk(uploadId, 1, Arrays.copyOfRange(content, 10, 20));
+        Path partFile = partFile(uploadId);
+        assertArrayEquals(content, Files.readAllBytes(partFile));
+
+        chunkedUploadService.complete(USER_ID, uploadId);
+
+        MessageDigest digest = ContentDigest.newSha256();
+        digest.update(content);
+        verify(fileService).commitUploadedFile(USER_ID, FILENAME, partFile, content.length, ContentDigest.toHex(digest),
+                "text/plain");
+        assertEquals(0, chunkedUploadService.activeSessions());
+    }
+
+    @Test
+    void complete_shouldThrowExceptionWhenChunksAreMissing() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+        putChunk(uploadId, 0, new byte[10]);
+
+        InvalidFileException thrown = assertThrows(InvalidFileException.class,
+                () -> chunkedUploadService.complete(USER_ID, uploadId));
+
+        assertEquals("Upload '" + uploadId + "' is missing 2 chunk(s)", thrown.getMessage());
+        verify(fileService, never()).commitUploadedFile(anyInt(), any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void complete_shouldWaitForChunkBeingRewritten() throws Exception {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+        byte[] content = "0123456789abcdefghijKLMNO".getBytes();
+        byte[] rewritten = "ABCDEFGHIJ".getBytes();
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, content.length, null).getUploadId();
+        for (int index = 0; index < 3; index++) {
+            putChunk(uploadId, index, Arrays.copyOfRange(content, index * 10, Math.min(content.length, index * 10 + 10)));
+        }
+        Path partFile = partFile(uploadId);
+
+        CountDownLatch paused = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> rewrite = executor.submit(() -> {
+                chunkedUploadService.putChunk(USER_ID, uploadId, 0, pausedAfter(rewritten, 5, paused, resume));
+                return null;
+            });
+            assertTrue(paused.await(5, TimeUnit.SECONDS));
+
+            Future<?> completion = executor.submit(() -> {
+                chunkedUploadService.complete(USER_ID, uploadId);
+                return null;
+            });
+            verify(fileService, after(200).never()).commitUploadedFile(anyInt(), any(), any(), anyLong(), any(), any());
+
+            resume.countDown();
+            rewrite.get(5, TimeUnit.SECONDS);
+            completion.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MessageDigest digest = ContentDigest.newSha256();
+        digest.update(rewritten);
+        digest.update(content, 10, 15);
+        verify(fileService).commitUploadedFile(USER_ID, FILENAME, partFile, content.length, ContentDigest.toHex(digest),
+                "text/plain");
+    }
+
+    @Test
+    void putChunk_shouldRejectChunkWhileCompleting() throws Exception {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 10, null).getUploadId();
+        putChunk(uploadId, 0, "0123456789".getBytes());
+
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        doAnswer(call -> {
+            committing.countDown();
+            assertTrue(resume.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(fileService).commitUploadedFile(anyInt(), any(), any(), anyLong(), any(), any());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> completion = executor.submit(() -> {
+                chunkedUploadService.complete(USER_ID, uploadId);
+                return null;
+            });
+            assertTrue(committing.await(5, TimeUnit.SECONDS));
+
+            assertThrows(InvalidFileException.class, () -> putChunk(uploadId, 0, "ABCDEFGHIJ".getBytes()));
+            assertThrows(InvalidFileException.class, () -> chunkedUploadService.abort(USER_ID, uploadId));
+
+            resume.countDown();
+            completion.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, chunkedUploadService.activeSessions());
+    }
+
+    @Test
+    void putChunk_shouldRejectChunkOfWrongSize() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+
+        assertThrows(InvalidFileException.class, () -> putChunk(uploadId, 0, new byte[9]));
+        assertThrows(InvalidFileException.class, () -> putChunk(uploadId, 2, new byte[6]));
+        assertTrue(chunkedUploadService.getStatus(USER_ID, uploadId).getReceived().isEmpty());
+    }
+
+    @Test
+    void putChunk_shouldRejectSessionOfAnotherUser() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+
+        assertThrows(InvalidFileException.class, () -> chunkedUploadService.putChunk(
+                USER_ID + 1, uploadId, 0, new ByteArrayInputStream(new byte[10])));
+    }
+
+    @Test
+    void reapAbandonedUploads_shouldDeleteExpiredSessionsAndOrphanedParts() throws IOException {
+        Path userDir = storageDir.resolve("user_" + USER_ID);
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(userDir);
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+        Path partFile = partFile(uploadId);
+        Path orphan = Files.createFile(userDir.resolve(ChunkedUploadService.UPLOADS_DIR).resolve("orphan.part"));
+
+        chunkedUploadService.sessionTtl = Duration.ZERO;
+        chunkedUploadService.reapAbandonedUploads();
+
+        assertEquals(0, chunkedUploadService.activeSessions());
+        assertFalse(Files.exists(partFile));
+        assertFalse(Files.exists(orphan));
+    }
+
+    @Test
+    void reapAbandonedUploads_shouldKeepActiveSessions() throws IOException {
+        when(fileService.getUserDirectory(USER_ID)).thenReturn(storageDir.resolve("user_" + USER_ID));
+
+        String uploadId = chunkedUploadService.initiate(USER_ID, FILENAME, 25, null).getUploadId();
+
+        chunkedUploadService.reapAbandonedUploads();
+
+        assertEquals(1, chunkedUploadService.activeSessions());
+        assertTrue(Files.exists(partFile(uploadId)));
+    }
+
+    private void putChunk(String uploadId, int index, byte[] chunk) throws IOException {
+        chunkedUploadService.putChunk(USER_ID, uploadId, index, new ByteArrayInputStream(chunk));
+    }
+
+    /**
+     * Reads the chunk up to {@code pauseAt}, then waits for {@code resume} before the rest.
+     */
+    private static InputStream pausedAfter(byte[] chunk, int pauseAt, CountDownLatch paused, CountDownLatch resume) {
+        ByteArrayInputStream in = new ByteArrayInputStream(chunk);
+
+        return new InputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int position = chunk.length - in.available();
+                if (position < pauseAt) {
+                    return in.read(b, off, Math.min(len, pauseAt - position));
+                }
+                if (position == pauseAt) {
+                    paused.countDown();
+                    try {
+                        if (!resume.await(5, TimeUnit.SECONDS)) {
+                            throw new IOException("Chunk was not resumed");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    private Path partFile(String uploadId) throws IOException {
+        try (Stream<Path> parts = Files.list(storageDir.resolve("user_" + USER_ID).resolve(ChunkedUploadService.UPLOADS_DIR))) {
+            return parts.filter(part -> part.getFileName().toString().startsWith(uploadId))
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+}
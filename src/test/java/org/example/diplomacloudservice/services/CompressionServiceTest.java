@@ -0,0 +1,43 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class CompressionServiceTest {
+
+    private final CompressionService compressionService = new CompressionService(true, "deflate", 6,
+            List.of("text/*", "application/json"), List.of("log", "CSV"));
+
+    @Test
+    void codecFor_shouldPickConfiguredCodecByExtension() {
+        assertEquals(ContentCodec.DEFLATE, compressionService.codecFor("server.log"));
+        assertEquals(ContentCodec.DEFLATE, compressionService.codecFor("report.csv"));
+    }
+
+    @Test
+    void codecFor_shouldPickConfiguredCodecByContentType() {
+        assertEquals(ContentCodec.DEFLATE, compressionService.codecFor("notes.txt"));
+        assertEquals(ContentCodec.DEFLATE, compressionService.codecFor("data.json"));
+    }
+
+    @Test
+    void codecFor_shouldKeepOtherContentAsIs() {
+        assertEquals(ContentCodec.NONE, compressionService.codecFor("photo.jpg"));
+        assertEquals(ContentCodec.NONE, compressionService.codecFor("archive.zip"));
+    }
+
+    @Test
+    void codecFor_shouldKeepEverythingAsIsWhenDisabled() {
+        CompressionService disabled = new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt"));
+
+        assertEquals(ContentCodec.NONE, disabled.codecFor("notes.txt"));
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.entities.File;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class FileMetadataCacheTest {
+
+    private static final int USER_ID = 1;
+    private static final String FILENAME = "testFile.txt";
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_shouldLoadRowOnlyOnce() {
+        FileMetadataCache cache = new FileMetadataCache(true, 100, Duration.ofMinutes(1));
+
+        File first = cache.get(USER_ID, FILENAME, loader(File.builder().fileName(FILENAME).build())).orElseThrow();
+        File second = cache.get(USER_ID, FILENAME, loader(null)).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertTrue(cache.get(2, FILENAME, loader(null)).isEmpty());
+    }
+
+    @Test
+    void get_shouldNotCacheMissingRow() {
+        FileMetadataCache cache = new FileMetadataCache(true, 100, Duration.ofMinutes(1));
+
+        assertTrue(cache.get(USER_ID, FILENAME, loader(null)).isEmpty());
+        assertTrue(cache.get(USER_ID, FILENAME, loader(File.builder().fileName(FILENAME).build())).isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict_shouldReloadEvictedRows() {
+        FileMetadataCache cache = new FileMetadataCache(true, 100, Duration.ofMinutes(1));
+        cache.get(USER_ID, FILENAME, loader(File.builder().fileName(FILENAME).build()));
+        cache.get(USER_ID, "other.txt", loader(File.builder().fileName("other.txt").build()));
+
+        cache.evict(USER_ID, List.of(FILENAME));
+
+        assertTrue(cache.get(USER_ID, FILENAME, loader(null)).isEmpty());
+        assertTrue(cache.get(USER_ID, "other.txt", loader(null)).isPresent());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictBlob_shouldReloadRowsOfFilesWithTheBlob() {
+        FileMetadataCache cache = new FileMetadataCache(true, 100, Duration.ofMinutes(1));
+        cache.get(USER_ID, FILENAME, loader(File.builder().fileName(FILENAME).blobHash("aa").build()));
+        cache.get(2, FILENAME, loader(File.builder().fileName(FILENAME).blobHash("aa").build()));
+        cache.get(USER_ID, "other.txt", loader(File.builder().fileName("other.txt").blobHash("bb").build()));
+
+        cache.evictBlob("aa");
+
+        assertTrue(cache.get(USER_ID, FILENAME, loader(null)).isEmpty());
+        assertTrue(cache.get(2, FILENAME, loader(null)).isEmpty());
+        assertTrue(cache.get(USER_ID, "other.txt", loader(null)).isPresent());
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void get_shouldAlwaysLoadWhenDisabled() {
+        FileMetadataCache cache = new FileMetadataCache(false, 100, Duration.ofMinutes(1));
+        File file = File.builder().fileName(FILENAME).build();
+
+        cache.get(USER_ID, FILENAME, loader(file));
+        cache.get(USER_ID, FILENAME, loader(file));
+
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<Optional<File>> loader(File file) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(file);
+        };
+    }
+}
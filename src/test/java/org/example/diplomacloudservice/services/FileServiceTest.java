@@ -1,30 +1,42 @@
 package org.example.diplomacloudservice.services;
 
-import org.example.diplomacloudservice.dto.FileInfoDto;
+import org.example.diplomacloudservice.dto.FileListEntry;
+import org.example.diplomacloudservice.dto.FileListPage;
+import org.example.diplomacloudservice.dto.FileListSort;
+import org.example.diplomacloudservice.dto.FileSearchRequest;
 import org.example.diplomacloudservice.entities.File;
 import org.example.diplomacloudservice.entities.User;
 import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
 import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,19 +52,29 @@ class FileServiceTest {
     private FileRepository fileRepository;
 
     @Mock
-    private UserService userService;
+    private BlobService blobService;
 
-    @InjectMocks
-    private FileService fileService;
+    @Mock
+    private QuotaService quotaService;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private StorageOutbox storageOutbox;
 
     @Mock
-    private MultipartFile multipartFile;
+    private Resource resource;
+
+    private FileService fileService;
 
     private static final String USERNAME = "testUser";
     private static final String FILENAME = "testFile.txt";
-    private static final String INVALID_FILENAME = "invalidFile.txt";
     private static final Integer USER_ID = 1;
     private static final String FILE_STORAGE_PATH = "storage";
+    private static final String USER_DIRECTORY = Paths.get(FILE_STORAGE_PATH, "user_" + USER_ID).toString();
+    private static final String CONTENT_HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String BLOB_KEY = "blobs/df/fd/" + CONTENT_HASH;
 
     private User mockUser;
     private File mockFile;
@@ -66,236 +88,448 @@ class FileServiceTest {
         mockFile = new File();
         mockFile.setFileName(FILENAME);
         mockFile.setUser(mockUser);
-        mockFile.setFileLocation(FILE_STORAGE_PATH);
+        mockFile.setFileLocation(USER_DIRECTORY);
 
-        fileService = new FileService(fileRepository, userService);
+        fileService = new FileService(fileRepository, blobService, quotaService, storageBackend,
+                new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt")),
+                new FileMetadataCache(false, 100, Duration.ofMinutes(1)),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), storageOutbox,
+                mock(FileTextIndexer.class));
         fileService.storagePath = FILE_STORAGE_PATH;
+        fileService.uploadBufferSize = DataSize.ofKilobytes(4);
     }
 
     @Test
-    void fileExistsForUser_shouldReturnTrueIfFileExistsForUser() {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
-
-        boolean result = fileService.fileExistsForUser(FILENAME, USERNAME);
-
-        assertTrue(result);
+    void uploadFileForUser_shouldStreamContentIntoBlobStore(@TempDir Path storageDir) throws IOException {
+        fileService.storagePath = storageDir.toString();
+        byte[] content = "Hello, World!".getBytes();
+
+        when(blobService.getBlobKey(CONTENT_HASH)).thenReturn(BLOB_KEY);
+        when(fileRepository.insertIfAbsent(eq(USER_ID), eq(FILENAME), eq("blobs/df/fd"),
+                eq((long) content.length), any(), eq(CONTENT_HASH), eq("text/plain")))
+                .thenReturn(1);
+        doAnswer(invocation -> {
+            assertArrayEquals(content, Files.readAllBytes(invocation.getArgument(2, Path.class)));
+            return null;
+        }).when(blobService).store(eq(CONTENT_HASH), eq((long) content.length), any(), any());
+
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+
+        fileService.uploadFileForUser(USER_ID, FILENAME, new ByteArrayInputStream(content));
+
+        verify(quotaService).reserve(USER_ID, content.length);
+        verify(blobService).store(eq(CONTENT_HASH), eq((long) content.length), any(), any());
+        try (Stream<Path> files = Files.list(storageDir.resolve("user_" + USER_ID))) {
+            assertEquals(0, files.count());
+        }
+    }
 
-        verify(fileRepository, times(1)).findByFileNameAndUserId(FILENAME, USER_ID);
+    @Test
+    void uploadFileForUser_shouldStoreCompressibleContentEncoded(@TempDir Path storageDir) throws IOException {
+        fileService = new FileService(fileRepository, blobService, quotaService, storageBackend,
+                new CompressionService(true, "zstd", 3, List.of("text/*"), List.of("log")),
+                new FileMetadataCache(false, 100, Duration.ofMinutes(1)),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), storageOutbox,
+                mock(FileTextIndexer.class));
+        fileService.storagePath = storageDir.toString();
+        fileService.uploadBufferSize = DataSize.ofKilobytes(4);
+        byte[] content = "Hello, World! ".repeat(1000).getBytes();
+
+        when(blobService.getBlobKey(any())).thenReturn(BLOB_KEY);
+        when(fileRepository.insertIfAbsent(eq(USER_ID), eq(FILENAME), any(), eq((long) content.length), any(), any(),
+                any()))
+                .thenReturn(1);
+        doAnswer(invocation -> {
+            byte[] stored = Files.readAllBytes(invocation.getArgument(2, Path.class));
+            assertTrue(stored.length < content.length);
+            assertArrayEquals(content, ContentCodec.ZSTD.decode(new ByteArrayInputStream(stored)).readAllBytes());
+            return null;
+        }).when(blobService).store(any(), eq((long) content.length), any(), eq(ContentCodec.ZSTD));
+
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L * 1024);
+
+        fileService.uploadFileForUser(USER_ID, FILENAME, new ByteArrayInputStream(content));
+
+        verify(quotaService).reserve(USER_ID, content.length);
+        verify(blobService).store(any(), eq((long) content.length), any(), eq(ContentCodec.ZSTD));
     }
 
     @Test
-    void fileExistsForUser_shouldReturnFalseIfFileDoesNotExistForUser() {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(INVALID_FILENAME, USER_ID)).thenReturn(Optional.empty());
+    void getFileResource_shouldDecodeEncodedBlob() throws IOException {
+        byte[] content = "Hello, World!".getBytes();
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        try (OutputStream out = ContentCodec.DEFLATE.encode(stored, 6)) {
+            out.write(content);
+        }
+        mockFile.setBlobHash(CONTENT_HASH);
+        mockFile.setCodec("deflate");
+        mockFile.setSize((long) content.length);
 
-        boolean result = fileService.fileExistsForUser(INVALID_FILENAME, USERNAME);
+        when(blobService.getBlobKey(CONTENT_HASH)).thenReturn(BLOB_KEY);
+        when(storageBackend.get(BLOB_KEY)).thenReturn(new ByteArrayResource(stored.toByteArray()));
 
-        assertFalse(result);
+        Resource decoded = fileService.getFileResource(mockFile);
 
-        verify(fileRepository, times(1)).findByFileNameAndUserId(INVALID_FILENAME, USER_ID);
+        assertEquals(content.length, decoded.contentLength());
+        assertArrayEquals(content, decoded.getInputStream().readAllBytes());
+        assertArrayEquals(stored.toByteArray(), fileService.getStoredResource(mockFile).getInputStream().readAllBytes());
     }
 
     @Test
-    void uploadFileForUser_shouldUploadFileForUser() throws IOException {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(multipartFile.getSize()).thenReturn(10L);
+    void uploadFileForUser_shouldThrowExceptionWhenFileAlreadyExists(@TempDir Path storageDir) throws IOException {
+        fileService.storagePath = storageDir.toString();
 
-        Path userDir = Paths.get(FILE_STORAGE_PATH, "user_" + USER_ID);
-        Path filePath = userDir.resolve(FILENAME);
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(1024L);
+        when(blobService.getBlobKey(any())).thenReturn("blobs/ab/cd/abcd");
+        when(fileRepository.insertIfAbsent(eq(USER_ID), eq(FILENAME), any(), anyLong(), any(), any(), any()))
+                .thenReturn(0);
 
-        doNothing().when(multipartFile).transferTo(filePath.toFile());
+        InvalidFileException thrown = assertThrows(InvalidFileException.class,
+                () -> fileService.uploadFileForUser(USER_ID, FILENAME, new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        assertEquals("File with name '" + FILENAME + "' already exist", thrown.getMessage());
+        verify(blobService, never()).store(any(), anyLong(), any(), any());
+        try (Stream<Path> files = Files.list(storageDir.resolve("user_" + USER_ID))) {
+            assertEquals(0, files.count());
+        }
+    }
 
-        fileService.uploadFileForUser(USERNAME, FILENAME, multipartFile);
+    @Test
+    void uploadFileForUser_shouldThrowExceptionWhenContentIsEmpty(@TempDir Path storageDir) throws IOException {
+        fileService.storagePath = storageDir.toString();
 
-        verify(fileRepository, times(1)).save(any(File.class));
-        verify(multipartFile, times(1)).transferTo(filePath.toFile());
+        InvalidFileException thrown = assertThrows(InvalidFileException.class,
+                () -> fileService.uploadFileForUser(USER_ID, FILENAME, new ByteArrayInputStream(new byte[0])));
 
-        verify(userService, times(1)).getUserByUsername(USERNAME);
-        verify(multipartFile, times(1)).getSize();
+        assertEquals("There was no file attached", thrown.getMessage());
+        verify(fileRepository, never()).insertIfAbsent(anyInt(), any(), any(), anyLong(), any(), any(), any());
     }
 
+    @Test
+    void uploadFileForUser_shouldRejectExecutableContentBeforeWriting(@TempDir Path storageDir) {
+        fileService.storagePath = storageDir.toString();
+        byte[] content = new byte[128];
+        content[0] = 0x7F;
+        content[1] = 'E';
+        content[2] = 'L';
+        content[3] = 'F';
+
+        InvalidFileException thrown = assertThrows(InvalidFileException.class,
+                () -> fileService.uploadFileForUser(USER_ID, FILENAME, new ByteArrayInputStream(content)));
+
+        assertEquals("This file type is not allowed.", thrown.getMessage());
+        assertFalse(Files.exists(storageDir.resolve("user_" + USER_ID)));
+        verify(fileRepository, never()).insertIfAbsent(anyInt(), any(), any(), anyLong(), any(), any(), any());
+    }
 
     @Test
-    void deleteFileForUser_shouldDeleteFileForUser() throws IOException {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
-        doNothing().when(fileRepository).delete(mockFile);
+    void getFileContentType_shouldPreferDetectedTypeOverFileName() {
+        mockFile.setFileName("photo.txt");
+        assertEquals("text/plain", fileService.getFileContentType(mockFile));
 
-        Path filePath = Paths.get(FILE_STORAGE_PATH, FILENAME);
+        mockFile.setContentType("image/png");
+        assertEquals("image/png", fileService.getFileContentType(mockFile));
+    }
 
-        try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.delete(filePath)).thenAnswer(invocation -> null);
+    @Test
+    void uploadFileForUser_shouldStopWritingWhenQuotaIsExceeded(@TempDir Path storageDir) throws IOException {
+        fileService.storagePath = storageDir.toString();
+        when(quotaService.getRemainingBytes(USER_ID)).thenReturn(5L);
 
-            fileService.deleteFileForUser(USERNAME, FILENAME);
+        assertThrows(QuotaExceededException.class, () -> fileService.uploadFileForUser(USER_ID, FILENAME,
+                new ByteArrayInputStream("Hello, World!".getBytes())));
 
-            verify(fileRepository, times(1)).delete(mockFile);
-            mockedFiles.verify(() -> Files.delete(filePath), times(1));
+        verify(fileRepository, never()).insertIfAbsent(anyInt(), any(), any(), anyLong(), any(), any(), any());
+        try (Stream<Path> files = Files.list(storageDir.resolve("user_" + USER_ID))) {
+            assertEquals(0, files.count());
         }
     }
 
     @Test
-    void deleteFileForUser_shouldThrowExceptionWhenFileNotFoundInDb() {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.empty());
+    void uploadFileForUser_shouldRejectUserAtQuotaBeforeWriting(@TempDir Path storageDir) {
+        fileService.storagePath = storageDir.toString();
+        doThrow(new QuotaExceededException("Storage quota exceeded")).when(quotaService).ensureAvailable(USER_ID, 1);
+
+        assertThrows(QuotaExceededException.class, () -> fileService.uploadFileForUser(USER_ID, FILENAME,
+                new ByteArrayInputStream("Hello, World!".getBytes())));
 
-        assertThrows(FileStorageException.class, () -> fileService.deleteFileForUser(USERNAME, FILENAME));
+        assertFalse(Files.exists(storageDir.resolve("user_" + USER_ID)));
     }
 
     @Test
-    void deleteFileForUser_shouldThrowIOExceptionWhenFileCannotBeDeletedFromStorage() throws IOException {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
-        doNothing().when(fileRepository).delete(mockFile);
+    void deleteFileForUser_shouldReleaseBlob() throws IOException {
+        when(fileRepository.deleteReturningStorageRef(USER_ID, FILENAME))
+                .thenReturn(Optional.of(storageRef("blobs/df/fd", CONTENT_HASH)));
 
-        Path filePath = Paths.get(FILE_STORAGE_PATH, FILENAME);
+        fileService.deleteFileForUser(USER_ID, FILENAME);
 
-        try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.delete(filePath)).thenThrow(IOException.class);
+        verify(quotaService).release(USER_ID, 13L);
+        verify(blobService).release(CONTENT_HASH);
+        verifyNoInteractions(storageBackend);
+    }
 
-            assertThrows(IOException.class, () -> fileService.deleteFileForUser(USERNAME, FILENAME));
-        }
+    @Test
+    void deleteFileForUser_shouldDeleteFileForUser() throws IOException {
+        when(fileRepository.deleteReturningStorageRef(USER_ID, FILENAME))
+                .thenReturn(Optional.of(storageRef(USER_DIRECTORY, null)));
+
+        fileService.deleteFileForUser(USER_ID, FILENAME);
+
+        verify(fileRepository, times(1)).deleteReturningStorageRef(USER_ID, FILENAME);
+        verify(storageOutbox).enqueue(List.of(StorageOutbox.Deletion.object("user_" + USER_ID + "/" + FILENAME)));
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void deleteFileForUser_shouldThrowExceptionWhenFileNotFoundInDb() {
+        when(fileRepository.deleteReturningStorageRef(USER_ID, FILENAME)).thenReturn(Optional.empty());
+
+        assertThrows(InvalidFileException.class, () -> fileService.deleteFileForUser(USER_ID, FILENAME));
     }
 
     @Test
     void getFileForUser_shouldReturnFileResourceWhenFileExistsAndIsReadable() throws IOException {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
         when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
+        when(storageBackend.get("user_" + USER_ID + "/" + FILENAME)).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.isReadable()).thenReturn(true);
 
-        try (MockedConstruction<UrlResource> mockedConstruction = mockConstruction(UrlResource.class,
-                (mockResource, context) -> {
-                    when(mockResource.exists()).thenReturn(true);
-                    when(mockResource.isReadable()).thenReturn(true);
-                })) {
+        Resource returnedResource = fileService.getFileForUser(USER_ID, FILENAME);
 
-            Resource returnedResource = fileService.getFileForUser(USERNAME, FILENAME);
+        assertSame(resource, returnedResource);
+        verify(resource).exists();
+        verify(resource).isReadable();
+    }
 
-            assertNotNull(returnedResource);
-            assertEquals(mockedConstruction.constructed().get(0), returnedResource);
+    @Test
+    void getFileForUser_shouldThrowFileStorageExceptionWhenFileNotReadable() throws IOException {
+        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
+        when(storageBackend.get("user_" + USER_ID + "/" + FILENAME)).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.isReadable()).thenReturn(false);
 
-            UrlResource createdMockResource = mockedConstruction.constructed().get(0);
-            verify(createdMockResource).exists();
-            verify(createdMockResource).isReadable();
-        }
+        FileStorageException thrown = assertThrows(FileStorageException.class,
+                () -> fileService.getFileForUser(USER_ID, FILENAME));
+
+        assertEquals("Error reading file in Storage", thrown.getMessage());
+        verify(resource).exists();
+        verify(resource).isReadable();
     }
 
     @Test
-    void getFileForUser_shouldThrowFileStorageExceptionWhenFileNotReadable() throws IOException {
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
+    void getFileForUser_shouldResolveBlobKey() throws IOException {
+        mockFile.setBlobHash(CONTENT_HASH);
+
         when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
+        when(blobService.getBlobKey(CONTENT_HASH)).thenReturn(BLOB_KEY);
+        when(storageBackend.get(BLOB_KEY)).thenReturn(resource);
+        when(resource.exists()).thenReturn(true);
+        when(resource.isReadable()).thenReturn(true);
 
-        try (MockedConstruction<UrlResource> mockedConstruction = mockConstruction(UrlResource.class,
-                (mockResource, context) -> {
-                    when(mockResource.exists()).thenReturn(true);
-                    when(mockResource.isReadable()).thenReturn(false);
-                })) {
+        assertSame(resource, fileService.getFileForUser(USER_ID, FILENAME));
+    }
+
+    @Test
+    void renameFileForUser_shouldOnlyUpdateMetadataOfBlobFile() throws IOException {
+        String newFilename = "renamedFile.txt";
 
-            FileStorageException thrown = assertThrows(FileStorageException.class,
-                    () -> fileService.getFileForUser(USERNAME, FILENAME));
+        when(fileRepository.renameReturningStorageRef(USER_ID, FILENAME, newFilename))
+                .thenReturn(Optional.of(storageRef("blobs/df/fd", CONTENT_HASH)));
 
-            assertEquals("Error reading file in Storage", thrown.getMessage());
+        fileService.renameFileForUser(USER_ID, FILENAME, newFilename);
 
-            UrlResource createdMockResource = mockedConstruction.constructed().get(0);
-            verify(createdMockResource).exists();
-            verify(createdMockResource).isReadable();
-        }
+        verifyNoInteractions(storageBackend);
     }
 
     @Test
     void renameFileForUser_shouldRenameFileSuccessfully() throws IOException {
         String newFilename = "renamedFile.txt";
 
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
-
-        Path oldFilePath = Paths.get(FILE_STORAGE_PATH, FILENAME);
-        Path newFilePath = Paths.get(FILE_STORAGE_PATH, newFilename);
+        when(fileRepository.renameReturningStorageRef(USER_ID, FILENAME, newFilename))
+                .thenReturn(Optional.of(storageRef(USER_DIRECTORY, null)));
 
-        try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
-            fileService.renameFileForUser(USERNAME, FILENAME, newFilename);
+        fileService.renameFileForUser(USER_ID, FILENAME, newFilename);
 
-            mockedFiles.verify(() -> Files.move(oldFilePath, newFilePath));
-            assertEquals(newFilename, mockFile.getFileName());
-            verify(fileRepository).save(mockFile);
-        }
+        verify(storageBackend).move("user_" + USER_ID + "/" + FILENAME, "user_" + USER_ID + "/" + newFilename);
+        verify(fileRepository).renameReturningStorageRef(USER_ID, FILENAME, newFilename);
     }
 
     @Test
     void renameFileForUser_shouldThrowExceptionWhenFileNotFound() {
         String newFilename = "renamedFile.txt";
 
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.empty());
+        when(fileRepository.renameReturningStorageRef(USER_ID, FILENAME, newFilename)).thenReturn(Optional.empty());
+
+        assertThrows(InvalidFileException.class,
+                () -> fileService.renameFileForUser(USER_ID, FILENAME, newFilename));
 
-        assertThrows(FileStorageException.class,
-                () -> fileService.renameFileForUser(USERNAME, FILENAME, newFilename));
-        verify(fileRepository, never()).save(any());
+        verifyNoInteractions(storageBackend);
     }
 
     @Test
-    void renameFileForUser_shouldThrowIOExceptionWhenFileMoveFails() throws IOException {
+    void renameFileForUser_shouldThrowExceptionWhenNewNameIsTaken() {
         String newFilename = "renamedFile.txt";
 
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findByFileNameAndUserId(FILENAME, USER_ID)).thenReturn(Optional.of(mockFile));
+        when(fileRepository.renameReturningStorageRef(USER_ID, FILENAME, newFilename))
+                .thenThrow(new DataIntegrityViolationException("uq_user_file"));
 
-        Path oldFilePath = Paths.get(FILE_STORAGE_PATH, FILENAME);
-        Path newFilePath = Paths.get(FILE_STORAGE_PATH, newFilename);
+        InvalidFileException thrown = assertThrows(InvalidFileException.class,
+                () -> fileService.renameFileForUser(USER_ID, FILENAME, newFilename));
 
-        try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.move(oldFilePath, newFilePath)).thenThrow(new IOException("Move failed"));
+        assertEquals("File with name '" + newFilename + "' already exist", thrown.getMessage());
+    }
 
-            assertThrows(IOException.class, () -> fileService.renameFileForUser(USERNAME, FILENAME, newFilename));
-            assertEquals(FILENAME, mockFile.getFileName());
+    @Test
+    void renameFileForUser_shouldThrowIOExceptionWhenFileMoveFails() throws IOException {
+        String newFilename = "renamedFile.txt";
 
-            verify(fileRepository, never()).save(any());
-        }
+        when(fileRepository.renameReturningStorageRef(USER_ID, FILENAME, newFilename))
+                .thenReturn(Optional.of(storageRef(USER_DIRECTORY, null)));
+        doThrow(new IOException("Move failed")).when(storageBackend)
+                .move("user_" + USER_ID + "/" + FILENAME, "user_" + USER_ID + "/" + newFilename);
+
+        assertThrows(IOException.class, () -> fileService.renameFileForUser(USER_ID, FILENAME, newFilename));
     }
 
     @Test
     void getUserFilesList_shouldReturnListOfUserFiles() {
         int limit = 2;
-        List<File> mockFiles = List.of(
-                File.builder()
-                        .fileName(FILENAME)
-                        .size(1024L)
-                        .user(mockUser)
-                        .fileLocation(FILE_STORAGE_PATH)
-                        .createdAt(LocalDateTime.now())
-                        .build(),
-                File.builder()
-                        .fileName("anotherFile.txt")
-                        .size(2048L)
-                        .user(mockUser)
-                        .fileLocation(FILE_STORAGE_PATH)
-                        .createdAt(LocalDateTime.now())
-                        .build()
+        List<FileListEntry> entries = List.of(
+                new FileListEntry("anotherFile.txt", 2048L),
+                new FileListEntry(FILENAME, 1024L)
+        );
+
+        when(fileRepository.findFilesPage(USER_ID, FileListSort.NAME, false, null, limit + 1)).thenReturn(entries);
+
+        FileListPage page = fileService.getUserFilesList(USER_ID, limit, "name", "asc", null);
+
+        assertEquals(2, page.getFiles().size());
+        assertEquals("anotherFile.txt", page.getFiles().get(0).getFilename());
+        assertEquals(2048L, page.getFiles().get(0).getSize());
+        assertEquals(FILENAME, page.getFiles().get(1).getFilename());
+        assertEquals(1024L, page.getFiles().get(1).getSize());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getUserFilesList_shouldReturnCursorOfNextPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123456000);
+        List<FileListEntry> entries = List.of(
+                new FileListEntry(7, FILENAME, 1024L, createdAt),
+                new FileListEntry(5, "anotherFile.txt", 2048L, createdAt)
         );
 
-        when(userService.getUserByUsername(USERNAME)).thenReturn(mockUser);
-        when(fileRepository.findFilesByUserId(USER_ID, PageRequest.of(0, limit))).thenReturn(mockFiles);
+        when(fileRepository.findFilesPage(USER_ID, FileListSort.DATE, true, null, 2)).thenReturn(entries);
+
+        FileListPage page = fileService.getUserFilesList(USER_ID, 1, "date", "desc", null);
+
+        assertEquals(1, page.getFiles().size());
+        assertNotNull(page.getNextCursor());
+
+        fileService.getUserFilesList(USER_ID, 1, "date", "desc", page.getNextCursor());
+
+        verify(fileRepository).findFilesPage(eq(USER_ID), eq(FileListSort.DATE), eq(true),
+                argThat(after -> after != null && after.getId() == 7 && createdAt.equals(after.getCreatedAt())), eq(2));
+    }
+
+    @Test
+    void getUserFilesList_shouldThrowExceptionWhenCursorIsInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.getUserFilesList(USER_ID, 2, "name", "asc", "not a cursor"));
 
-        List<FileInfoDto> fileList = fileService.getUserFilesList(USERNAME, limit);
+        when(fileRepository.findFilesPage(USER_ID, FileListSort.NAME, false, null, 2))
+                .thenReturn(List.of(new FileListEntry("a.txt", 1L), new FileListEntry("b.txt", 1L)));
+        String nameCursor = fileService.getUserFilesList(USER_ID, 1, "name", "asc", null).getNextCursor();
 
-        assertEquals(2, fileList.size());
-        assertEquals(FILENAME, fileList.get(0).getFilename());
-        assertEquals(1024L, fileList.get(0).getSize());
-        assertEquals("anotherFile.txt", fileList.get(1).getFilename());
-        assertEquals(2048L, fileList.get(1).getSize());
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.getUserFilesList(USER_ID, 1, "date", "asc", nameCursor));
+    }
+
+    @Test
+    void searchFiles_shouldPassFiltersAsPatternsAndContinueByName() {
+        FileSearchRequest request = new FileSearchRequest();
+        request.setLimit(1);
+        request.setName("voice");
+        request.setExt("PDF");
+        request.setMinSize(100L);
+        request.setFrom("2025-03-01");
+        request.setTo("2025-03-31");
+        when(fileRepository.searchFilesPage(eq(USER_ID), any(), isNull(), eq(2)))
+                .thenReturn(List.of(new FileListEntry("invoice-1.pdf", 200L),
+                        new FileListEntry("invoice-2.pdf", 300L)));
+
+        FileListPage page = fileService.searchFiles(USER_ID, request);
+        request.setCursor(page.getNextCursor());
+        fileService.searchFiles(USER_ID, request);
+
+        assertEquals(1, page.getFiles().size());
+        verify(fileRepository).searchFilesPage(eq(USER_ID), argThat(filter -> "%voice%".equals(filter.getNameContains())
+                && "%.PDF".equals(filter.getNameSuffix()) && filter.getMinSize() == 100L
+                && LocalDateTime.of(2025, 3, 1, 0, 0).equals(filter.getCreatedFrom())
+                && LocalDateTime.of(2025, 4, 1, 0, 0).equals(filter.getCreatedTo())), eq("invoice-1.pdf"), eq(2));
+    }
+
+    @Test
+    void searchFiles_shouldRejectInvalidFilters() {
+        FileSearchRequest request = new FileSearchRequest();
+        request.setLimit(10);
+        request.setText("invoice");
+        assertThrows(IllegalArgumentException.class, () -> fileService.searchFiles(USER_ID, request));
+
+        request.setText(null);
+        request.setName("100%");
+        assertThrows(InvalidFileException.class, () -> fileService.searchFiles(USER_ID, request));
+
+        request.setName(null);
+        request.setMinSize(10L);
+        request.setMaxSize(5L);
+        assertThrows(IllegalArgumentException.class, () -> fileService.searchFiles(USER_ID, request));
+
+        request.setMaxSize(null);
+        request.setFrom("yesterday");
+        assertThrows(IllegalArgumentException.class, () -> fileService.searchFiles(USER_ID, request));
+        verify(fileRepository, never()).searchFilesPage(anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getUserFilesList_shouldThrowExceptionWhenSortIsUnknown() {
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.getUserFilesList(USER_ID, 2, "size", "asc", null));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.getUserFilesList(USER_ID, 2, "name", "up", null));
     }
 
     @Test
     void getUserFilesList_shouldThrowExceptionWhenLimitIsNull() {
         assertThrows(IllegalArgumentException.class,
-                () -> fileService.getUserFilesList(USERNAME, null));
+                () -> fileService.getUserFilesList(USER_ID, null, "name", "asc", null));
     }
 
     @Test
     void getUserFilesList_shouldThrowExceptionWhenLimitIsZeroOrNegative() {
         assertThrows(IllegalArgumentException.class,
-                () -> fileService.getUserFilesList(USERNAME, 0));
+                () -> fileService.getUserFilesList(USER_ID, 0, "name", "asc", null));
 
         assertThrows(IllegalArgumentException.class,
-                () -> fileService.getUserFilesList(USERNAME, -5));
+                () -> fileService.getUserFilesList(USER_ID, -5, "name", "asc", null));
+    }
+
+    private FileRepository.StorageRef storageRef(String fileLocation, String blobHash) {
+        return new FileRepository.StorageRef() {
+            @Override
+            public String getFileLocation() {
+                return fileLocation;
+            }
+
+            @Override
+            public String getBlobHash() {
+                return blobHash;
+            }
+
+            @Override
+            public Long getSize() {
+                return 13L;
+            }
+        };
     }
-}
\ No newline at end of file
+}
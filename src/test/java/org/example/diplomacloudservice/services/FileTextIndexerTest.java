@@ -0,0 +1,132 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.entities.Blob;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class FileTextIndexerTest {
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    private BlobService blobService;
+    private FileTextIndexer fileTextIndexer;
+
+    private static final String HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String OTHER_HASH = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+
+    @BeforeEach
+    void setUp() {
+        blobService = new BlobService(blobRepository, storageBackend, mock(StorageOutbox.class),
+                mock(FileMetadataCache.class));
+        fileTextIndexer = new FileTextIndexer(blobRepository, blobService, storageBackend, true, "simple",
+                List.of("text/*", "application/json"), DataSize.ofBytes(16));
+        fileTextIndexer.pageSize = 100;
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileTextIndexer.shutdown();
+    }
+
+    @Test
+    void index_shouldStoreStartOfDecodedContent() throws IOException {
+        when(blobRepository.findById(HASH)).thenReturn(Optional.of(blob(HASH, "zstd")));
+        when(storageBackend.get(blobService.getBlobKey(HASH)))
+                .thenReturn(new ByteArrayResource(encode("quarterly\0invoice for March")));
+        when(blobRepository.insertText(eq(HASH), eq("simple"), any(), any())).thenReturn(true);
+
+        assertTrue(fileTextIndexer.index(HASH));
+
+        verify(blobRepository).insertText(eq(HASH), eq("simple"), eq("quarterly invoic"), any());
+    }
+
+    @Test
+    void index_shouldSkipBlobWaitingForDeletion() {
+        Blob blob = blob(HASH, "none");
+        blob.setRefCount(0);
+        when(blobRepository.findById(HASH)).thenReturn(Optional.of(blob));
+
+        assertFalse(fileTextIndexer.index(HASH));
+
+        verifyNoInteractions(storageBackend);
+        verify(blobRepository, never()).insertText(any(), any(), any(), any());
+    }
+
+    @Test
+    void indexAfterCommit_shouldLeaveOutFilesThatAreNotText() {
+        fileTextIndexer.indexAfterCommit(HASH, "application/pdf");
+        fileTextIndexer.indexAfterCommit(HASH, null);
+        fileTextIndexer.shutdown();
+
+        verifyNoInteractions(blobRepository, storageBackend);
+    }
+
+    @Test
+    void indexPending_shouldWalkBlobsWithoutTextByHash() throws IOException {
+        fileTextIndexer.pageSize = 1;
+        when(blobRepository.findTextPending(eq(""), eq(List.of("text/%", "application/json")), eq(1)))
+                .thenReturn(List.of(OTHER_HASH));
+        when(blobRepository.findTextPending(eq(OTHER_HASH), any(), eq(1))).thenReturn(List.of(HASH));
+        when(blobRepository.findTextPending(eq(HASH), any(), eq(1))).thenReturn(List.of());
+        when(blobRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.of(blob(invocation.getArgument(0), "none")));
+        when(storageBackend.get(any())).thenReturn(new ByteArrayResource("text".getBytes()));
+        when(blobRepository.insertText(any(), any(), any(), any())).thenReturn(true);
+
+        fileTextIndexer.indexPending();
+
+        verify(blobRepository, times(3)).findTextPending(any(), any(), anyInt());
+        verify(blobRepository).insertText(eq(OTHER_HASH), eq("simple"), eq("text"), any());
+        verify(blobRepository).insertText(eq(HASH), eq("simple"), eq("text"), any());
+    }
+
+    private static Blob blob(String hash, String codec) {
+        return Blob.builder()
+                .hash(hash)
+                .size(100L)
+                .codec(codec)
+                .storedSize(100L)
+                .refCount(1)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static byte[] encode(String content) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = ContentCodec.ZSTD.encode(encoded, 3)) {
+            out.write(content.getBytes());
+        }
+        return encoded.toByteArray();
+    }
+}
@@ -1,17 +1,15 @@
 package org.example.diplomacloudservice.services;
 
 import com.auth0.jwt.exceptions.JWTDecodeException;
-import org.example.diplomacloudservice.entities.Token;
+import org.example.diplomacloudservice.entities.User;
 import org.example.diplomacloudservice.repositories.TokenRepository;
+import org.example.diplomacloudservice.security.AuthenticationCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -28,7 +26,12 @@ class JwtServiceTest {
     @Mock
     private UserService userService;
 
-    @InjectMocks
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private AuthenticationCache authenticationCache;
+
     private JwtService jwtService;
 
     private static final String SECRET_KEY = "testSecretKey";
@@ -38,8 +41,7 @@ class JwtServiceTest {
 
     @BeforeEach
     void setUp() {
-        jwtService = new JwtService(tokenRepository, userService);
-        jwtService.secret = SECRET_KEY;
+        jwtService = new JwtService(SECRET_KEY, tokenRepository, userService, tokenBlacklistService, authenticationCache);
     }
 
     @Test
@@ -69,15 +71,29 @@ class JwtServiceTest {
 
     @Test
     void addTokenToBlacklist_shouldReturnTrueIfTokenIsInBlacklist() {
-        when(tokenRepository.findFirstByToken(VALID_TOKEN)).thenReturn(Optional.of(new Token()));
+        when(tokenBlacklistService.isBlacklisted(VALID_TOKEN)).thenReturn(true);
 
         assertTrue(jwtService.isTokenInBlacklist(VALID_TOKEN));
+        verify(tokenRepository, never()).findFirstByToken(any());
     }
 
     @Test
     void addTokenToBlacklist_shouldReturnFalseIfTokenIsNotInBlacklist() {
-        when(tokenRepository.findFirstByToken(INVALID_TOKEN)).thenReturn(Optional.empty());
+        when(tokenBlacklistService.isBlacklisted(INVALID_TOKEN)).thenReturn(false);
 
         assertFalse(jwtService.isTokenInBlacklist(INVALID_TOKEN));
+        verify(tokenRepository, never()).findFirstByToken(any());
+    }
+
+    @Test
+    void addTokenToBlacklist_shouldBlacklistTokenAndInvalidateCachedAuthentication() {
+        String token = jwtService.generateToken(USERNAME);
+        when(userService.getUserByUsername(USERNAME)).thenReturn(new User());
+
+        jwtService.addTokenToBlacklist(USERNAME, "Bearer " + token);
+
+        verify(tokenRepository, times(1)).save(any());
+        verify(tokenBlacklistService, times(1)).add(eq(token), any());
+        verify(authenticationCache, times(1)).invalidate(token);
     }
 }
\ No newline at end of file
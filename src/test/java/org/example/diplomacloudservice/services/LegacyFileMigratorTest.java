@@ -0,0 +1,178 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.ContentCodec;
+import org.example.diplomacloudservice.storage.LocalStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class LegacyFileMigratorTest {
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private BlobService blobService;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    @TempDir
+    Path storageDir;
+
+    private LegacyFileMigrator legacyFileMigrator;
+
+    private static final int USER_ID = 1;
+    private static final String FILENAME = "legacy.txt";
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+    private static final String CONTENT_HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        LocalStorageBackend storageBackend = new LocalStorageBackend(storageDir, false);
+        FileMetadataCache metadataCache = new FileMetadataCache(false, 100, Duration.ofMinutes(1));
+        FileService fileService = new FileService(fileRepository, blobService, mock(QuotaService.class),
+                storageBackend, new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt")),
+                metadataCache, transactionTemplate, storageOutbox, mock(FileTextIndexer.class));
+        fileService.storagePath = storageDir.toString();
+        fileService.uploadBufferSize = DataSize.ofKilobytes(4);
+
+        legacyFileMigrator = new LegacyFileMigrator(fileRepository, fileService, blobService, storageOutbox,
+                storageBackend, metadataCache, mock(FileTextIndexer.class), transactionTemplate,
+                DataSize.ofBytes(0), 2);
+        legacyFileMigrator.pageSize = 100;
+
+        lenient().when(blobService.getBlobKey(any()))
+                .thenAnswer(invocation -> "blobs/df/fd/" + invocation.getArgument(0, String.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        legacyFileMigrator.shutdown();
+    }
+
+    @Test
+    void migrate_shouldCopyLegacyFileIntoBlobAndDeleteItLater() throws IOException {
+        Path userDir = writeLegacyFile();
+        when(fileRepository.findLegacyPageAfter(0, 100)).thenReturn(List.of(legacyRow(userDir)));
+        when(fileRepository.moveToBlob(7, FILENAME, userDir.toString(), "blobs/df/fd", CONTENT_HASH, "text/plain"))
+                .thenReturn(1);
+
+        legacyFileMigrator.migrate();
+
+        verify(blobService).store(eq(CONTENT_HASH), eq((long) CONTENT.length), any(), eq(ContentCodec.NONE));
+        verify(storageOutbox).enqueueDelayed(List.of(StorageOutbox.Deletion.object("user_1/" + FILENAME)));
+        assertEquals(1, legacyFileMigrator.getStatus().getMigratedFiles());
+        assertEquals(CONTENT.length, legacyFileMigrator.getStatus().getMigratedBytes());
+        assertOnlyLegacyFileLeft(userDir);
+    }
+
+    @Test
+    void migrate_shouldLeaveRowRenamedWhileItWasCopied() throws IOException {
+        Path userDir = writeLegacyFile();
+        when(fileRepository.findLegacyPageAfter(0, 100)).thenReturn(List.of(legacyRow(userDir)));
+        when(fileRepository.moveToBlob(anyInt(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        legacyFileMigrator.migrate();
+
+        verify(blobService, never()).store(any(), anyLong(), any(), any());
+        verifyNoInteractions(storageOutbox);
+        assertEquals(1, legacyFileMigrator.getStatus().getSkippedFiles());
+        assertOnlyLegacyFileLeft(userDir);
+    }
+
+    @Test
+    void migrate_shouldMoveFileAcceptedBeforeCurrentContentChecks() throws IOException {
+        byte[] executable = {0x7F, 'E', 'L', 'F', 0x02, 0x01, 0x01, 0x00};
+        Path userDir = writeLegacyFile(executable);
+        when(fileRepository.findLegacyPageAfter(0, 100)).thenReturn(List.of(legacyRow(userDir)));
+        when(fileRepository.moveToBlob(eq(7), eq(FILENAME), eq(userDir.toString()), any(), any(), any()))
+                .thenReturn(1);
+
+        legacyFileMigrator.migrate();
+
+        verify(blobService).store(any(), eq((long) executable.length), any(), eq(ContentCodec.NONE));
+        assertEquals(1, legacyFileMigrator.getStatus().getMigratedFiles());
+        assertEquals(0, legacyFileMigrator.getStatus().getFailedFiles());
+    }
+
+    @Test
+    void migrate_shouldSkipRowWhoseFileIsMissing() {
+        Path userDir = storageDir.resolve("user_" + USER_ID);
+        when(fileRepository.findLegacyPageAfter(0, 100)).thenReturn(List.of(legacyRow(userDir)));
+
+        legacyFileMigrator.migrate();
+
+        verify(fileRepository, never()).moveToBlob(anyInt(), any(), any(), any(), any(), any());
+        assertEquals(1, legacyFileMigrator.getStatus().getSkippedFiles());
+        assertNotNull(legacyFileMigrator.getStatus().getFinishedAt());
+    }
+
+    private Path writeLegacyFile() throws IOException {
+        return writeLegacyFile(CONTENT);
+    }
+
+    private Path writeLegacyFile(byte[] content) throws IOException {
+        Path userDir = Files.createDirectories(storageDir.resolve("user_" + USER_ID));
+        Files.write(userDir.resolve(FILENAME), content);
+        return userDir;
+    }
+
+    private static void assertOnlyLegacyFileLeft(Path userDir) throws IOException {
+        try (Stream<Path> files = Files.list(userDir)) {
+            assertEquals(List.of(userDir.resolve(FILENAME)), files.toList());
+        }
+    }
+
+    private static FileRepository.LegacyFile legacyRow(Path userDir) {
+        return new FileRepository.LegacyFile() {
+            @Override
+            public Integer getId() {
+                return 7;
+            }
+
+            @Override
+            public Integer getUserId() {
+                return USER_ID;
+            }
+
+            @Override
+            public String getFileName() {
+                return FILENAME;
+            }
+
+            @Override
+            public String getFileLocation() {
+                return userDir.toString();
+            }
+        };
+    }
+}
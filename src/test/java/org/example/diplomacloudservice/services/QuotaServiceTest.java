@@ -0,0 +1,130 @@
+package org.example.diplomacloudservice.services;
+
+import org.example.diplomacloudservice.dto.QuotaDto;
+import org.example.diplomacloudservice.exceptions.QuotaExceededException;
+import org.example.diplomacloudservice.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class QuotaServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private QuotaService quotaService;
+
+    private static final int USER_ID = 1;
+    private static final long DEFAULT_QUOTA = 1000;
+
+    @BeforeEach
+    void setUp() {
+        quotaService = new QuotaService(userRepository, DataSize.ofBytes(DEFAULT_QUOTA), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void ensureAvailable_shouldUseCachedUsage() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.of(usage(900, 3, null)));
+
+        quotaService.ensureAvailable(USER_ID, 100);
+        assertThrows(QuotaExceededException.class, () -> quotaService.ensureAvailable(USER_ID, 101));
+
+        verify(userRepository, times(1)).findUsage(USER_ID);
+    }
+
+    @Test
+    void ensureAvailable_shouldUseQuotaOfUser() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.of(usage(900, 3, 5000L)));
+
+        quotaService.ensureAvailable(USER_ID, 4100);
+
+        assertEquals(4100, quotaService.getRemainingBytes(USER_ID));
+    }
+
+    @Test
+    void ensureAvailable_shouldThrowExceptionWhenUserNotFound() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> quotaService.ensureAvailable(USER_ID, 1));
+    }
+
+    @Test
+    void reserve_shouldUpdateCachedUsage() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.of(usage(100, 1, null)));
+        when(userRepository.reserveUsage(USER_ID, 400, 1, DEFAULT_QUOTA)).thenReturn(1);
+
+        assertEquals(900, quotaService.getRemainingBytes(USER_ID));
+        quotaService.reserve(USER_ID, 400);
+
+        assertEquals(500, quotaService.getRemainingBytes(USER_ID));
+    }
+
+    @Test
+    void reserve_shouldThrowExceptionWhenUpdateIsRejected() {
+        when(userRepository.findUsage(USER_ID))
+                .thenReturn(Optional.of(usage(100, 1, null)))
+                .thenReturn(Optional.of(usage(950, 2, null)));
+        when(userRepository.reserveUsage(USER_ID, 400, 1, DEFAULT_QUOTA)).thenReturn(0);
+
+        assertEquals(900, quotaService.getRemainingBytes(USER_ID));
+        assertThrows(QuotaExceededException.class, () -> quotaService.reserve(USER_ID, 400));
+
+        assertEquals(50, quotaService.getRemainingBytes(USER_ID));
+    }
+
+    @Test
+    void release_shouldUpdateCachedUsage() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.of(usage(600, 2, null)));
+
+        quotaService.getRemainingBytes(USER_ID);
+        quotaService.release(USER_ID, 200);
+
+        verify(userRepository).releaseUsage(USER_ID, 200, 1);
+        assertEquals(600, quotaService.getRemainingBytes(USER_ID));
+    }
+
+    @Test
+    void getUsage_shouldReadUsageFromDb() {
+        when(userRepository.findUsage(USER_ID)).thenReturn(Optional.of(usage(600, 2, null)));
+
+        QuotaDto quota = quotaService.getUsage(USER_ID);
+
+        assertEquals(600, quota.getUsedBytes());
+        assertEquals(2, quota.getFileCount());
+        assertEquals(DEFAULT_QUOTA, quota.getQuotaBytes());
+    }
+
+    private UserRepository.Usage usage(long usedBytes, int fileCount, Long quotaBytes) {
+        return new UserRepository.Usage() {
+            @Override
+            public long getUsedBytes() {
+                return usedBytes;
+            }
+
+            @Override
+            public int getFileCount() {
+                return fileCount;
+            }
+
+            @Override
+            public Long getQuotaBytes() {
+                return quotaBytes;
+            }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.diplomacloudservice.entities.StorageOutboxEntry;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.repositories.StorageOutboxRepository;
+import org.example.diplomacloudservice.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageOutboxTest {
+
+    @Mock
+    private StorageOutboxRepository outboxRepository;
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StorageOutbox storageOutbox;
+
+    private static final String HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String BLOB_KEY = "blobs/df/fd/" + HASH;
+    private static final String LEGACY_KEY = "user_1/legacy.txt";
+
+    @BeforeEach
+    void setUp() {
+        storageOutbox = new StorageOutbox(outboxRepository, blobRepository, storageBackend, transactionManager,
+                new SimpleMeterRegistry(), Duration.ofMinutes(1), 2);
+        storageOutbox.pageSize = 2;
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageOutbox.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void enqueue_shouldDeleteObjectsOnlyAfterCommit() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        when(outboxRepository.insertAll(any())).thenAnswer(invocation -> withIds(invocation.getArgument(0)));
+        when(outboxRepository.claim(anyLong())).thenReturn(1);
+        when(blobRepository.deleteIfUnreferenced(HASH)).thenReturn(1);
+
+        storageOutbox.enqueue(List.of(StorageOutbox.Deletion.blob(HASH, BLOB_KEY),
+                StorageOutbox.Deletion.object(LEGACY_KEY)));
+        verifyNoInteractions(storageBackend);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(storageBackend).delete(BLOB_KEY);
+        verify(storageBackend).delete(LEGACY_KEY);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void process_shouldKeepBlobReferencedAgain() throws IOException {
+        when(outboxRepository.claim(1L)).thenReturn(1);
+        when(blobRepository.deleteIfUnreferenced(HASH)).thenReturn(0);
+
+        storageOutbox.process(List.of(entry(1L, BLOB_KEY, HASH)));
+
+        verify(storageBackend, never()).delete(any());
+    }
+
+    @Test
+    void process_shouldSkipEntryCarriedOutElsewhere() throws IOException {
+        when(outboxRepository.claim(1L)).thenReturn(0);
+
+        storageOutbox.process(List.of(entry(1L, BLOB_KEY, HASH)));
+
+        verifyNoInteractions(blobRepository);
+        verify(storageBackend, never()).delete(any());
+    }
+
+    @Test
+    void process_shouldRollBackClaimWhenDeleteFails() throws IOException {
+        when(outboxRepository.claim(1L)).thenReturn(1);
+        doThrow(new IOException("Disk error")).when(storageBackend).delete(LEGACY_KEY);
+
+        assertDoesNotThrow(() -> storageOutbox.process(List.of(entry(1L, LEGACY_KEY, null))));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void retryPending_shouldProcessOldEntriesPageByPage() throws IOException {
+        when(outboxRepository.findByIdGreaterThanAndCreatedAtBeforeOrderById(eq(0L), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(entry(1L, "user_1/a.txt", null), entry(2L, "user_1/b.txt", null)));
+        when(outboxRepository.findByIdGreaterThanAndCreatedAtBeforeOrderById(eq(2L), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(entry(5L, "user_1/c.txt", null)));
+        when(outboxRepository.claim(anyLong())).thenReturn(1);
+
+        storageOutbox.retryPending();
+
+        verify(storageBackend).delete("user_1/a.txt");
+        verify(storageBackend).delete("user_1/b.txt");
+        verify(storageBackend).delete("user_1/c.txt");
+    }
+
+    private static List<StorageOutboxEntry> withIds(List<StorageOutboxEntry> entries) {
+        long id = 1;
+        for (StorageOutboxEntry entry : entries) {
+            entry.setId(id++);
+        }
+        return entries;
+    }
+
+    private static StorageOutboxEntry entry(long id, String objectKey, String blobHash) {
+        return new StorageOutboxEntry(id, objectKey, blobHash, LocalDateTime.now().minusHours(1));
+    }
+}
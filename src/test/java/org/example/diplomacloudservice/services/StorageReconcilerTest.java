@@ -0,0 +1,198 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.diplomacloudservice.repositories.BlobRepository;
+import org.example.diplomacloudservice.repositories.FileRepository;
+import org.example.diplomacloudservice.storage.LocalStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageReconcilerTest {
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    @TempDir
+    Path storageDir;
+
+    private StorageReconciler storageReconciler;
+
+    private FileService fileService;
+
+    private static final String HASH = "dffd6021bb2bd5b0af676290809ec3a53191dd81c7f70a4b28688a362182986f";
+    private static final String ORPHAN_HASH = "df" + "0".repeat(62);
+    private static final String BLOB_KEY = "blobs/df/fd/" + HASH;
+    private static final String ORPHAN_BLOB_KEY = "blobs/df/00/" + ORPHAN_HASH;
+
+    @AfterEach
+    void tearDown() {
+        storageReconciler.shutdown();
+    }
+
+    @Test
+    void reconcile_shouldDeleteOrphanBlobsAndStaleTempFiles() throws IOException {
+        createReconciler(Duration.ofSeconds(-5));
+        write(BLOB_KEY);
+        write(ORPHAN_BLOB_KEY);
+        Path putTempFile = write("blobs/df/fd/.put-1.tmp");
+        Path uploadTempFile = write("user_1/.upload-2.tmp");
+        when(blobRepository.findExistingHashes(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, Collection.class).contains(HASH) ? List.of(HASH) : List.of());
+        when(blobRepository.insertUnreferenced(eq(ORPHAN_HASH), eq(7L), any())).thenReturn(1);
+
+        Map<String, Long> repairs = storageReconciler.reconcile();
+
+        verify(blobRepository, never()).insertUnreferenced(eq(HASH), anyLong(), any());
+        verify(storageOutbox).enqueue(List.of(StorageOutbox.Deletion.blob(ORPHAN_HASH, ORPHAN_BLOB_KEY)));
+        assertFalse(Files.exists(putTempFile));
+        assertFalse(Files.exists(uploadTempFile));
+        assertEquals(1, repairs.get(StorageReconciler.ORPHAN_BLOB));
+        assertEquals(2, repairs.get(StorageReconciler.TEMP_FILE));
+    }
+
+    @Test
+    void reconcile_shouldQuarantineLegacyFilesWithoutRow() throws IOException {
+        createReconciler(Duration.ofSeconds(-5));
+        Path known = write("user_1/known.txt");
+        Path orphan = write("user_1/orphan.txt");
+        when(fileRepository.findExistingNames(eq(1), any())).thenReturn(List.of("known.txt"));
+
+        Map<String, Long> repairs = storageReconciler.reconcile();
+
+        assertTrue(Files.exists(known));
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(storageDir.resolve("lost+found/user_1/orphan.txt")));
+        assertEquals(1, repairs.get(StorageReconciler.QUARANTINED_FILE));
+    }
+
+    @Test
+    void reconcile_shouldRestoreMissingLegacyFileFromLostAndFound() throws IOException {
+        createReconciler(Duration.ofSeconds(-5));
+        write("lost+found/user_1/restored.txt");
+        String userDirectory = storageDir.resolve("user_1").toString();
+        when(fileRepository.findLegacyPageAfter(0, 1000)).thenReturn(List.of(
+                new LegacyRow(1, 1, "restored.txt", userDirectory),
+                new LegacyRow(2, 1, "missing.txt", userDirectory)));
+
+        Map<String, Long> repairs = storageReconciler.reconcile();
+
+        assertTrue(Files.exists(storageDir.resolve("user_1/restored.txt")));
+        assertFalse(Files.exists(storageDir.resolve("lost+found/user_1/restored.txt")));
+        assertEquals(1, repairs.get(StorageReconciler.RESTORED_FILE));
+        assertEquals(1, repairs.get(StorageReconciler.MISSING_FILE));
+    }
+
+    @Test
+    void reconcile_shouldKeepTempFilesOfStagedUploads() throws IOException {
+        createReconciler(Duration.ofSeconds(-5));
+        FileService.StagedFile staged = fileService.stageFile(1, "staged.txt",
+                new ByteArrayInputStream("content".getBytes()), Long.MAX_VALUE);
+
+        storageReconciler.reconcile();
+        assertTrue(Files.exists(staged.path()));
+
+        fileService.discardStaged(staged);
+        assertFalse(Files.exists(staged.path()));
+        assertFalse(fileService.isStaged(staged.path()));
+    }
+
+    @Test
+    void reconcile_shouldLeaveRecentFilesAlone() throws IOException {
+        createReconciler(Duration.ofHours(1));
+        write(ORPHAN_BLOB_KEY);
+        Path tempFile = write("user_1/.upload-1.tmp");
+        Path legacyFile = write("user_1/orphan.txt");
+
+        storageReconciler.reconcile();
+
+        verify(blobRepository, never()).findExistingHashes(any());
+        verify(fileRepository, never()).findExistingNames(anyInt(), any());
+        verifyNoInteractions(storageOutbox);
+        assertTrue(Files.exists(tempFile));
+        assertTrue(Files.exists(legacyFile));
+    }
+
+    /**
+     * @param gracePeriod negative to take files written by the test for old ones
+     */
+    private void createReconciler(Duration gracePeriod) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        LocalStorageBackend storageBackend = new LocalStorageBackend(storageDir, false);
+        FileMetadataCache metadataCache = new FileMetadataCache(false, 100, Duration.ofMinutes(1));
+        fileService = new FileService(fileRepository, mock(BlobService.class), mock(QuotaService.class),
+                storageBackend, new CompressionService(false, "zstd", 3, List.of("text/*"), List.of("txt")),
+                metadataCache, transactionTemplate, storageOutbox, mock(FileTextIndexer.class));
+        fileService.storagePath = storageDir.toString();
+        fileService.uploadBufferSize = DataSize.ofKilobytes(4);
+
+        storageReconciler = new StorageReconciler(blobRepository, fileRepository,
+                new BlobService(blobRepository, storageBackend, storageOutbox, metadataCache), fileService, storageOutbox,
+                storageBackend, transactionTemplate, new SimpleMeterRegistry(), gracePeriod, 2);
+        storageReconciler.storagePath = storageDir.toString();
+        storageReconciler.batchSize = 1000;
+    }
+
+    private Path write(String key) throws IOException {
+        Path file = storageDir.resolve(key);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, "content".getBytes());
+    }
+
+    private record LegacyRow(Integer id, Integer userId, String fileName, String fileLocation)
+            implements FileRepository.LegacyFile {
+
+        @Override
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public Integer getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getFileName() {
+            return fileName;
+        }
+
+        @Override
+        public String getFileLocation() {
+            return fileLocation;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.diplomacloudservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.diplomacloudservice.dto.BlacklistedTokenDto;
+import org.example.diplomacloudservice.repositories.TokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenBlacklistServiceTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenBlacklistService tokenBlacklistService;
+
+    private static final String REVOKED_TOKEN = "revoked.jwt.token";
+    private static final String ACTIVE_TOKEN = "active.jwt.token";
+
+    @BeforeEach
+    void setUp() {
+        tokenBlacklistService = new TokenBlacklistService(tokenRepository, meterRegistry = new SimpleMeterRegistry());
+        tokenBlacklistService.expectedInsertions = 1000;
+        tokenBlacklistService.falsePositiveRate = 0.01;
+    }
+
+    @Test
+    void warmUp_shouldLoadActiveTokensFromDb() {
+        when(tokenRepository.findActiveTokens(any()))
+                .thenReturn(List.of(new BlacklistedTokenDto(1, REVOKED_TOKEN, LocalDateTime.now().plusMinutes(30))));
+
+        tokenBlacklistService.warmUp();
+
+        assertTrue(tokenBlacklistService.isBlacklisted(REVOKED_TOKEN));
+        assertFalse(tokenBlacklistService.isBlacklisted(ACTIVE_TOKEN));
+    }
+
+    @Test
+    void add_shouldMakeTokenBlacklistedWithoutDbLookup() {
+        tokenBlacklistService.warmUp();
+
+        tokenBlacklistService.add(REVOKED_TOKEN, LocalDateTime.now().plusMinutes(30));
+
+        assertTrue(tokenBlacklistService.isBlacklisted(REVOKED_TOKEN));
+        verify(tokenRepository, times(1)).findActiveTokens(any());
+    }
+
+    @Test
+    void sweep_shouldEvictExpiredTokensAndPurgeDb() {
+        tokenBlacklistService.warmUp();
+        tokenBlacklistService.add(REVOKED_TOKEN, LocalDateTime.now().minusMinutes(1));
+        tokenBlacklistService.add(ACTIVE_TOKEN, LocalDateTime.now().plusMinutes(30));
+
+        tokenBlacklistService.sweep();
+
+        assertFalse(tokenBlacklistService.isBlacklisted(REVOKED_TOKEN));
+        assertTrue(tokenBlacklistService.isBlacklisted(ACTIVE_TOKEN));
+        assertEquals(1, tokenBlacklistService.size());
+        verify(tokenRepository, times(1)).deleteExpiredTokens(any());
+    }
+
+    @Test
+    void sweep_shouldPickUpTokensRevokedByOtherInstances() {
+        // the row with the lower id commits after the one already seen
+        BlacklistedTokenDto seen = new BlacklistedTokenDto(9, REVOKED_TOKEN, LocalDateTime.now().plusMinutes(30));
+        when(tokenRepository.findActiveTokens(any()))
+                .thenReturn(List.of(seen))
+                .thenReturn(List.of(seen, new BlacklistedTokenDto(8, ACTIVE_TOKEN, LocalDateTime.now().plusMinutes(30))));
+        tokenBlacklistService.warmUp();
+
+        tokenBlacklistService.sweep();
+
+        assertTrue(tokenBlacklistService.isBlacklisted(ACTIVE_TOKEN));
+        assertEquals(2, tokenBlacklistService.size());
+    }
+
+    @Test
+    void isBlacklisted_shouldRecordLookupsByResult() {
+        tokenBlacklistService.warmUp();
+        tokenBlacklistService.add(REVOKED_TOKEN, LocalDateTime.now().plusMinutes(30));
+
+        tokenBlacklistService.isBlacklisted(REVOKED_TOKEN);
+        tokenBlacklistService.isBlacklisted(ACTIVE_TOKEN);
+
+        assertEquals(1, meterRegistry.get("cloud.token.blacklist.lookup").tag("result", "revoked").timer().count());
+        assertEquals(1, meterRegistry.get("cloud.token.blacklist.lookup").tag("result", "absent").timer().count()
+                + meterRegistry.get("cloud.token.blacklist.lookup").tag("result", "false_positive").timer().count());
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.diplomacloudservice.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class CachingStorageBackendTest {
+
+    @TempDir
+    Path storageDir;
+
+    private CachingStorageBackend storageBackend;
+    private SimpleMeterRegistry meterRegistry;
+
+    private static final String KEY = "blobs/df/fd/dffd6021";
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        storageBackend = new CachingStorageBackend(new LocalStorageBackend(storageDir), 1024, 100, Duration.ofMinutes(1));
+        storageBackend.bindTo(meterRegistry = new SimpleMeterRegistry());
+    }
+
+    @Test
+    void get_shouldServeSmallObjectFromMemoryAfterFirstRead() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertArrayEquals(CONTENT, storageBackend.get(KEY).getInputStream().readAllBytes());
+        // the cached copy is served even once the file is gone behind the backend's back
+        Files.delete(storageDir.resolve(KEY));
+        Resource cached = storageBackend.get(KEY);
+
+        assertInstanceOf(CachedResource.class, cached);
+        assertTrue(cached.exists());
+        assertEquals(CONTENT.length, cached.contentLength());
+        assertArrayEquals(CONTENT, cached.getInputStream().readAllBytes());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "file.content").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(CONTENT.length, meterRegistry.get("cloud.file.cache.used").gauge().value());
+    }
+
+    @Test
+    void get_shouldNotCacheLargeObject() throws IOException {
+        byte[] content = new byte[101];
+        storageBackend.put(KEY, new ByteArrayInputStream(content), content.length);
+
+        assertFalse(storageBackend.get(KEY) instanceof CachedResource);
+        assertFalse(storageBackend.get(KEY) instanceof CachedResource);
+        assertFalse(storageBackend.get("blobs/00/00/missing").exists());
+    }
+
+    @Test
+    void delete_shouldDropCachedObject() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.get(KEY);
+
+        storageBackend.delete(KEY);
+
+        assertFalse(storageBackend.get(KEY).exists());
+    }
+
+    @Test
+    void move_shouldDropBothKeys() throws IOException {
+        String target = "user_1/renamed.txt";
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.get(KEY);
+
+        storageBackend.move(KEY, target);
+
+        assertFalse(storageBackend.get(KEY).exists());
+        assertArrayEquals(CONTENT, storageBackend.get(target).getInputStream().readAllBytes());
+    }
+
+    @Test
+    void put_shouldReplaceCachedObject() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.get(KEY);
+
+        byte[] restored = "Hello, again!".getBytes();
+        storageBackend.put(KEY, Files.write(storageDir.resolve("staged.tmp"), restored));
+
+        assertArrayEquals(restored, storageBackend.get(KEY).getInputStream().readAllBytes());
+    }
+
+    @Test
+    void readableChannel_shouldBeSeekableAndIndependentPerReader() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.get(KEY);
+        Resource cached = storageBackend.get(KEY);
+
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        try (ReadableByteChannel first = cached.readableChannel();
+             ReadableByteChannel second = cached.readableChannel()) {
+            assertInstanceOf(SeekableByteChannel.class, first);
+            first.read(buffer);
+            assertEquals("Hello", new String(buffer.array()));
+
+            ((SeekableByteChannel) first).position(7);
+            first.read(buffer.clear());
+            assertEquals("World", new String(buffer.array()));
+
+            second.read(buffer.clear());
+            assertEquals("Hello", new String(buffer.array()));
+        }
+    }
+}
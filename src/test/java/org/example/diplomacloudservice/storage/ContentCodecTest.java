@@ -0,0 +1,67 @@
+package org.example.diplomacloudservice.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class ContentCodecTest {
+
+    private static final byte[] CONTENT = "id,name\n1,first\n2,second\n".repeat(100).getBytes();
+
+    @Test
+    void encode_shouldRoundTripWithEveryCodec() throws IOException {
+        for (ContentCodec codec : ContentCodec.values()) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (OutputStream out = codec.encode(encoded, 3)) {
+                out.write(CONTENT);
+            }
+
+            assertArrayEquals(CONTENT, codec.decode(new ByteArrayInputStream(encoded.toByteArray())).readAllBytes(),
+                    codec.name());
+            if (codec != ContentCodec.NONE) {
+                assertTrue(encoded.size() < CONTENT.length, codec.name());
+            }
+        }
+    }
+
+    @Test
+    void isAcceptedBy_shouldMatchCodingAndHonourZeroQuality() {
+        assertTrue(ContentCodec.ZSTD.isAcceptedBy("gzip, deflate, br, zstd"));
+        assertTrue(ContentCodec.DEFLATE.isAcceptedBy("gzip;q=1.0, Deflate;q=0.5"));
+        assertFalse(ContentCodec.ZSTD.isAcceptedBy("zstd;q=0"));
+        assertFalse(ContentCodec.ZSTD.isAcceptedBy("gzip"));
+        assertFalse(ContentCodec.DEFLATE.isAcceptedBy(null));
+        assertTrue(ContentCodec.NONE.isAcceptedBy(null));
+    }
+
+    @Test
+    void isAcceptedBy_shouldApplyWildcardUnlessCodingIsNamed() {
+        assertTrue(ContentCodec.ZSTD.isAcceptedBy("gzip, *"));
+        assertFalse(ContentCodec.ZSTD.isAcceptedBy("gzip, *;q=0"));
+        assertTrue(ContentCodec.ZSTD.isAcceptedBy("*;q=0, zstd"));
+        assertFalse(ContentCodec.DEFLATE.isAcceptedBy("*, deflate;q=0"));
+    }
+
+    @Test
+    void isAcceptedBy_shouldTreatMalformedQualityAsOne() {
+        assertTrue(ContentCodec.ZSTD.isAcceptedBy("zstd;q=high"));
+        assertTrue(ContentCodec.ZSTD.isAcceptedBy("zstd;q="));
+        assertFalse(ContentCodec.ZSTD.isAcceptedBy("zstd; Q=0.0"));
+    }
+
+    @Test
+    void fromValue_shouldReadColumnValue() {
+        assertEquals(ContentCodec.ZSTD, ContentCodec.fromValue("zstd"));
+        assertEquals(ContentCodec.NONE, ContentCodec.fromValue(null));
+        assertEquals("deflate", ContentCodec.DEFLATE.toValue());
+    }
+}
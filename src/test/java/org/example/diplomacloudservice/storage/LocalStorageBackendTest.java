@@ -0,0 +1,109 @@
+package org.example.diplomacloudservice.storage;
+
+import org.example.diplomacloudservice.exceptions.FileStorageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path storageDir;
+
+    private LocalStorageBackend storageBackend;
+
+    private static final String KEY = "blobs/df/fd/dffd6021";
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        storageBackend = new LocalStorageBackend(storageDir);
+    }
+
+    @Test
+    void put_shouldMoveStagedFileUnderKey() throws IOException {
+        Path stagedFile = Files.write(storageDir.resolve("staged.tmp"), CONTENT);
+
+        storageBackend.put(KEY, stagedFile);
+
+        assertFalse(Files.exists(stagedFile));
+        assertArrayEquals(CONTENT, Files.readAllBytes(storageDir.resolve(KEY)));
+    }
+
+    @Test
+    void put_shouldWriteStreamUnderKey() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(storageDir.resolve(KEY)));
+        try (var files = Files.list(storageDir.resolve(KEY).getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void get_shouldReturnReadableResource() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        Resource resource = storageBackend.get(KEY);
+
+        assertTrue(resource.isReadable());
+        assertEquals(CONTENT.length, resource.contentLength());
+        try (InputStream content = resource.getInputStream()) {
+            assertArrayEquals(CONTENT, content.readAllBytes());
+        }
+        assertFalse(storageBackend.get("missing").exists());
+    }
+
+    @Test
+    void stat_shouldReturnSizeOrEmpty() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertEquals(CONTENT.length, storageBackend.stat(KEY).orElseThrow().size());
+        assertTrue(storageBackend.stat("blobs/00/00/missing").isEmpty());
+    }
+
+    @Test
+    void delete_shouldBeIdempotent() throws IOException {
+        storageBackend.put(KEY, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        storageBackend.delete(KEY);
+        storageBackend.delete(KEY);
+
+        assertFalse(Files.exists(storageDir.resolve(KEY)));
+    }
+
+    @Test
+    void move_shouldFailWhenTargetExistsOrSourceIsMissing() throws IOException {
+        storageBackend.put("user_1/a.txt", new ByteArrayInputStream(CONTENT), CONTENT.length);
+        storageBackend.put("user_1/b.txt", new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        assertThrows(FileAlreadyExistsException.class, () -> storageBackend.move("user_1/a.txt", "user_1/b.txt"));
+        assertThrows(NoSuchFileException.class, () -> storageBackend.move("user_1/c.txt", "user_1/d.txt"));
+
+        storageBackend.move("user_1/a.txt", "user_1/c.txt");
+
+        assertTrue(storageBackend.stat("user_1/a.txt").isEmpty());
+        assertArrayEquals(CONTENT, Files.readAllBytes(storageDir.resolve("user_1/c.txt")));
+    }
+
+    @Test
+    void resolve_shouldRejectKeysOutsideOfRoot() {
+        assertThrows(FileStorageException.class, () -> storageBackend.resolve("../outside.txt"));
+        assertThrows(FileStorageException.class, () -> storageBackend.resolve("blobs/../.."));
+    }
+}
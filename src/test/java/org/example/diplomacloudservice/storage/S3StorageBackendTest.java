@@ -0,0 +1,25 @@
+package org.example.diplomacloudservice.storage;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class S3StorageBackendTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void constructor_shouldRejectPartSizeBelowS3Minimum() {
+        S3Client s3Client = mock(S3Client.class);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3StorageBackend(s3Client, "bucket", 64 * MB, 5 * MB - 1));
+        assertDoesNotThrow(() -> new S3StorageBackend(s3Client, "bucket", 64 * MB, 5 * MB));
+    }
+}
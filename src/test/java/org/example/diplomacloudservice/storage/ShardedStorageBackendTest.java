@@ -0,0 +1,69 @@
+package org.example.diplomacloudservice.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class ShardedStorageBackendTest {
+
+    @TempDir
+    Path storageDir;
+
+    private ShardedStorageBackend storageBackend;
+    private List<Path> roots;
+
+    private static final byte[] CONTENT = "Hello, World!".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        roots = List.of(storageDir.resolve("disk0"), storageDir.resolve("disk1"), storageDir.resolve("disk2"));
+        storageBackend = new ShardedStorageBackend(roots);
+    }
+
+    @Test
+    void put_shouldSpreadKeysOverAllRoots() throws IOException {
+        for (int i = 0; i < 30; i++) {
+            storageBackend.put("blobs/key" + i, new ByteArrayInputStream(CONTENT), CONTENT.length);
+        }
+
+        for (Path root : roots) {
+            assertTrue(Files.isDirectory(root.resolve("blobs")));
+        }
+        IntStream.range(0, 30).forEach(i -> assertTrue(
+                Files.exists(storageBackend.shardFor("blobs/key" + i).getRoot().resolve("blobs/key" + i))));
+    }
+
+    @Test
+    void move_shouldCopyBetweenShards() throws IOException {
+        String source = "user_1/a.txt";
+        String target = IntStream.range(0, 100)
+                .mapToObj(i -> "user_1/b" + i + ".txt")
+                .filter(key -> storageBackend.shardFor(key) != storageBackend.shardFor(source))
+                .findFirst()
+                .orElseThrow();
+        storageBackend.put(source, new ByteArrayInputStream(CONTENT), CONTENT.length);
+
+        storageBackend.move(source, target);
+
+        assertTrue(storageBackend.stat(source).isEmpty());
+        assertArrayEquals(CONTENT, storageBackend.get(target).getContentAsByteArray());
+    }
+
+    @Test
+    void constructor_shouldRequireAtLeastOneRoot() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedStorageBackend(List.of()));
+    }
+}
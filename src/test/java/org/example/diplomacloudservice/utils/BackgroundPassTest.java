@@ -0,0 +1,67 @@
+package org.example.diplomacloudservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class BackgroundPassTest {
+
+    @Test
+    void start_shouldRunOnePassAtATime() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        AtomicInteger passes = new AtomicInteger();
+        BackgroundPass background = new BackgroundPass("test-pass", () -> {
+            passes.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+
+        assertTrue(background.start());
+        assertFalse(background.start());
+        assertTrue(background.isRunning());
+        release.countDown();
+
+        while (background.isRunning()) {
+            Thread.sleep(10);
+        }
+        assertTrue(background.start());
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, passes.get());
+        background.shutdown();
+    }
+
+    @Test
+    void start_shouldRunNextPassAfterOneThatFailed() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger passes = new AtomicInteger();
+        BackgroundPass background = new BackgroundPass("test-pass", () -> {
+            if (passes.incrementAndGet() == 1) {
+                throw new IllegalStateException("first pass fails");
+            }
+            finished.countDown();
+        });
+
+        assertTrue(background.start());
+        while (background.isRunning()) {
+            Thread.sleep(10);
+        }
+        assertTrue(background.start());
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        background.shutdown();
+        assertFalse(background.start());
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.diplomacloudservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldReturnTrueForEveryInsertedDigest() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(TokenDigest.sha256("token-" + i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bloomFilter.mightContain(TokenDigest.sha256("token-" + i)));
+        }
+    }
+
+    @Test
+    void mightContain_shouldKeepFalsePositiveRateNearConfiguredValue() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(TokenDigest.sha256("token-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (bloomFilter.mightContain(TokenDigest.sha256("other-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void constructor_shouldThrowExceptionForInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.5));
+    }
+}
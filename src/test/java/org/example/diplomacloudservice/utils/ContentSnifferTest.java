@@ -0,0 +1,81 @@
+package org.example.diplomacloudservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class ContentSnifferTest {
+
+    @Test
+    void detect_shouldTrustSignatureOverFileName() {
+        byte[] png = head(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D);
+
+        assertEquals("image/png", ContentSniffer.detect("photo.jpg", png, png.length));
+        assertEquals("image/png", ContentSniffer.detect("photo.txt", png, png.length));
+    }
+
+    @Test
+    void detect_shouldKeepNameTypeForContainerFormats() {
+        byte[] zip = head('P', 'K', 0x03, 0x04, 0x14, 0, 0x06, 0);
+
+        assertEquals("application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                ContentSniffer.detect("report.docx", zip, zip.length));
+        assertEquals("application/zip", ContentSniffer.detect("report.abcd", zip, zip.length));
+    }
+
+    @Test
+    void detect_shouldRecognizeTextWithoutSignature() {
+        byte[] json = "{\"name\": \"Привет\"}\n".getBytes(StandardCharsets.UTF_8);
+        byte[] text = "BMW service report\n".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("application/json", ContentSniffer.detect("data.json", json, json.length));
+        assertEquals("text/plain", ContentSniffer.detect("data.abcd", json, json.length));
+        assertEquals("text/plain", ContentSniffer.detect("car.png", text, text.length));
+    }
+
+    @Test
+    void detect_shouldFallBackToNameForUnknownBinary() {
+        byte[] binary = head(0x00, 0x01, 0x02, 0x03, 0x04);
+
+        assertEquals("image/png", ContentSniffer.detect("photo.png", binary, binary.length));
+        assertEquals("application/octet-stream", ContentSniffer.detect("notes.txt", binary, binary.length));
+        assertEquals("application/octet-stream", ContentSniffer.detect("empty.txt", new byte[0], 0));
+    }
+
+    @Test
+    void isExecutable_shouldDetectExecutablesByContent() {
+        byte[] pe = Arrays.copyOf(head('M', 'Z', 0x90, 0x00, 0x03), 64);
+        byte[] mzText = "MZ is a postal code\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertTrue(ContentSniffer.isExecutable(pe, pe.length));
+        assertTrue(ContentSniffer.isExecutable(head(0x7F, 'E', 'L', 'F', 0x02), 5));
+        assertFalse(ContentSniffer.isExecutable(mzText, mzText.length));
+        assertFalse(ContentSniffer.isExecutable(pe, 1));
+    }
+
+    @Test
+    void isExecutable_shouldTreatScriptsWithShebangAsText() {
+        byte[] python = "#!/usr/bin/env python3\nprint('hello')\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] notes = "#!/bin/sh is the first line of a shell script\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertFalse(ContentSniffer.isExecutable(python, python.length));
+        assertTrue(ContentSniffer.detect("hello.py", python, python.length).startsWith("text/"));
+        assertFalse(ContentSniffer.isExecutable(notes, notes.length));
+        assertEquals("text/plain", ContentSniffer.detect("notes.txt", notes, notes.length));
+    }
+
+    private static byte[] head(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
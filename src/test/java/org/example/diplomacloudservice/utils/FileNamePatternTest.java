@@ -0,0 +1,49 @@
+package org.example.diplomacloudservice.utils;
+
+import org.example.diplomacloudservice.exceptions.InvalidFileException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class FileNamePatternTest {
+
+    @Test
+    void globToLike_shouldTranslateWildcardsAndEscapeUnderscore() {
+        assertEquals("report\\_%.pd_", FileNamePattern.globToLike("report_*.pd?"));
+    }
+
+    @Test
+    void globToLike_shouldRejectCharactersOutsideFileNames() {
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.globToLike("%.txt"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.globToLike("../*"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.globToLike(null));
+    }
+
+    @Test
+    void prefixToLike_shouldMatchEverythingAfterLiteralPrefix() {
+        assertEquals("a\\_b-c.%", FileNamePattern.prefixToLike("a_b-c."));
+    }
+
+    @Test
+    void prefixToLike_shouldRejectWildcards() {
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.prefixToLike("a*"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.prefixToLike(""));
+    }
+
+    @Test
+    void substringToLike_shouldMatchLiteralAnywhereInName() {
+        assertEquals("%in\\_voice%", FileNamePattern.substringToLike("in_voice"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.substringToLike("in%"));
+    }
+
+    @Test
+    void extensionToLike_shouldMatchEndOfNameAfterDot() {
+        assertEquals("%.pdf", FileNamePattern.extensionToLike("pdf"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.extensionToLike(".pdf"));
+        assertThrows(InvalidFileException.class, () -> FileNamePattern.extensionToLike("p_f"));
+    }
+}
@@ -1,14 +1,9 @@
 package org.example.diplomacloudservice.utils;
 
 import org.example.diplomacloudservice.exceptions.InvalidFileException;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.springframework.web.multipart.MultipartFile;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 /**
  * @Test
@@ -16,14 +11,6 @@ import static org.mockito.Mockito.when;
  */
 class FileValidatorTest {
 
-    @Mock
-    private MultipartFile file;
-
-    @BeforeEach
-    void setUp() {
-        file = mock(MultipartFile.class);
-    }
-
     @Test
     void validateFilename_shouldThrowExceptionWhenFilenameIsEmpty() {
         String filename = "";
@@ -69,25 +56,20 @@ class FileValidatorTest {
     }
 
     @Test
-    void validateFile_shouldThrowExceptionWhenFileIsEmpty() {
-        String filename = "validfile.txt";
-        when(file.isEmpty()).thenReturn(true);
+    void validateFile_shouldThrowExceptionWhenFileTypeIsBlocked() {
+        String filename = "blockedfile.exe";
 
         InvalidFileException exception = assertThrows(InvalidFileException.class, () -> {
-            FileValidator.validateFile(filename, file);
+            FileValidator.validateFile(filename, filename);
         });
 
-        assertEquals("There was no file attached", exception.getMessage());
+        assertEquals("This file type is not allowed or file has no extension.", exception.getMessage());
     }
 
     @Test
-    void validateFile_shouldThrowExceptionWhenFileTypeIsBlocked() {
-        String filename = "blockedfile.exe";
-        when(file.getOriginalFilename()).thenReturn(filename);
-        when(file.isEmpty()).thenReturn(false);
-
+    void validateFile_shouldThrowExceptionWhenOriginalFileTypeIsBlocked() {
         InvalidFileException exception = assertThrows(InvalidFileException.class, () -> {
-            FileValidator.validateFile(filename, file);
+            FileValidator.validateFile("validfile.txt", "payload.exe");
         });
 
         assertEquals("This file type is not allowed or file has no extension.", exception.getMessage());
@@ -96,20 +78,16 @@ class FileValidatorTest {
     @Test
     void validateFile_shouldPassForValidFile() {
         String filename = "validfile.txt";
-        when(file.getOriginalFilename()).thenReturn(filename);
-        when(file.isEmpty()).thenReturn(false);
 
-        assertDoesNotThrow(() -> FileValidator.validateFile(filename, file));
+        assertDoesNotThrow(() -> FileValidator.validateFile(filename, filename));
     }
 
     @Test
     void validateFile_shouldThrowExceptionWhenFileHasNoExtension() {
         String filename = "filewithoutextension";
-        when(file.getOriginalFilename()).thenReturn(filename);
-        when(file.isEmpty()).thenReturn(false);
 
         InvalidFileException exception = assertThrows(InvalidFileException.class, () -> {
-            FileValidator.validateFile(filename, file);
+            FileValidator.validateFile(filename, filename);
         });
 
         assertEquals("Invalid extension format in filename. Only 3 or 4 characters allowed", exception.getMessage());
@@ -132,4 +110,31 @@ class FileValidatorTest {
 
         assertEquals("This file type is not allowed or file has no extension.", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateContent_shouldThrowExceptionForExecutableWithHarmlessExtension() {
+        byte[] head = {0x7F, 'E', 'L', 'F', 0x02, 0x01, 0x01, 0x00};
+
+        InvalidFileException exception = assertThrows(InvalidFileException.class, () -> {
+            FileValidator.validateContent("photo.jpg", head, head.length);
+        });
+
+        assertEquals("This file type is not allowed.", exception.getMessage());
+    }
+
+    @Test
+    void validateContent_shouldAcceptText() {
+        byte[] head = "MZ, Mazowieckie\n".getBytes();
+
+        assertDoesNotThrow(() -> FileValidator.validateContent("regions.csv", head, head.length));
+    }
+
+    @Test
+    void validateContent_shouldAcceptScriptsWithShebang() {
+        byte[] python = "#!/usr/bin/env python3\nprint('hello')\n".getBytes();
+        byte[] notes = "#!/bin/sh starts every script here\n".getBytes();
+
+        assertDoesNotThrow(() -> FileValidator.validateContent("hello.py", python, python.length));
+        assertDoesNotThrow(() -> FileValidator.validateContent("notes.txt", notes, notes.length));
+    }
+}
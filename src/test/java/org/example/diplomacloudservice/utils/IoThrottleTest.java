@@ -0,0 +1,82 @@
+package org.example.diplomacloudservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Test
+ * void название-тестируемого-метода_что-проверяет-тест() {...}
+ */
+class IoThrottleTest {
+
+    @Test
+    void acquire_shouldHoldReadsToConfiguredRate() throws InterruptedException {
+        IoThrottle throttle = new IoThrottle(100_000);
+        long start = System.nanoTime();
+
+        // the first 10 KB are free, the other 20 KB take 200 ms
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire(10_000);
+        }
+
+        assertTrue(System.nanoTime() - start >= 190_000_000L);
+    }
+
+    @Test
+    void acquire_shouldShareRateBetweenThreads() throws InterruptedException {
+        IoThrottle throttle = new IoThrottle(100_000);
+        List<Thread> readers = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 4; i++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    throttle.acquire(10_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(System.nanoTime() - start >= 290_000_000L);
+    }
+
+    @Test
+    void throttle_shouldMeterEachBufferRead() throws IOException {
+        IoThrottle throttle = new IoThrottle(100_000);
+        InputStream content = throttle.throttle(new ByteArrayInputStream(new byte[30_000]));
+        long start = System.nanoTime();
+
+        // the first buffer is free, the other two wait for their own 10 KB each
+        byte[] buffer = new byte[10_000];
+        assertEquals(10_000, content.read(buffer));
+        assertTrue(System.nanoTime() - start < 50_000_000L);
+        assertEquals(10_000, content.readNBytes(buffer, 0, buffer.length));
+        assertEquals(10_000, content.readNBytes(buffer, 0, buffer.length));
+        assertEquals(-1, content.read());
+
+        assertTrue(System.nanoTime() - start >= 190_000_000L);
+    }
+
+    @Test
+    void acquire_shouldNotWaitWithoutLimit() throws InterruptedException {
+        IoThrottle throttle = new IoThrottle(0);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 100; i++) {
+            throttle.acquire(Long.MAX_VALUE);
+        }
+
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+    }
+}